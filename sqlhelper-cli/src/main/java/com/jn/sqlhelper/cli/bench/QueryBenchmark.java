@@ -0,0 +1,310 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.bench;
+
+import com.jn.langx.util.io.IOs;
+import com.jn.sqlhelper.common.connection.ConnectionFactory;
+import com.jn.sqlhelper.common.resultset.MapRowMapper;
+import com.jn.sqlhelper.common.resultset.RowMapperResultSetExtractor;
+import com.jn.sqlhelper.common.resultset.SelectCountResultSetExtractor;
+import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorProvider;
+import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import com.jn.sqlhelper.dialect.pagination.PagedPreparedStatement;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import com.jn.sqlhelper.dialect.parameter.ArrayBasedParameterSetter;
+import com.jn.sqlhelper.dialect.parameter.ArrayBasedQueryParameters;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a query repeatedly with {@code concurrency} connections for {@code warmup + duration} seconds, and records
+ * the latency of the count, page-query and mapping phases into HdrHistogram histograms, only after the warmup.
+ * <p>
+ * The page-query phase ends when {@code executeQuery()} returns, the mapping phase reads and maps all the rows,
+ * so a driver which streams the rows charges the network transfer to the mapping phase.
+ * <p>
+ * A failed query is counted as an error, the worker backs off before the next one, and aborts the benchmark
+ * after {@code maxConsecutiveErrors} failures in a row, e.g. the sql is invalid or the database is down.
+ */
+public class QueryBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(QueryBenchmark.class);
+    private static final String[] PHASES = {"count", "query", "mapping", "total"};
+    private static final long MAX_ERROR_BACKOFF_IN_MILLS = 1000L;
+
+    private final ConnectionFactory connectionFactory;
+    private final String sql;
+    private boolean paged = false;
+    private boolean count = true;
+    private int pageNo = 1;
+    private int pageSize = 10;
+    private int concurrency = 1;
+    private int durationInSeconds = 10;
+    private int warmupInSeconds = 3;
+    private int maxConsecutiveErrors = 10;
+
+    public QueryBenchmark(ConnectionFactory connectionFactory, String sql) {
+        this.connectionFactory = connectionFactory;
+        this.sql = sql;
+    }
+
+    public void setPaged(boolean paged) {
+        this.paged = paged;
+    }
+
+    public void setCount(boolean count) {
+        this.count = count;
+    }
+
+    public void setPageNo(int pageNo) {
+        this.pageNo = Math.max(1, pageNo);
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    public void setDurationInSeconds(int durationInSeconds) {
+        this.durationInSeconds = Math.max(1, durationInSeconds);
+    }
+
+    public void setWarmupInSeconds(int warmupInSeconds) {
+        this.warmupInSeconds = Math.max(0, warmupInSeconds);
+    }
+
+    public void setMaxConsecutiveErrors(int maxConsecutiveErrors) {
+        this.maxConsecutiveErrors = Math.max(1, maxConsecutiveErrors);
+    }
+
+    public Result run() throws SQLException {
+        long now = System.nanoTime();
+        final long measureStart = now + TimeUnit.SECONDS.toNanos(warmupInSeconds);
+        final long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(durationInSeconds);
+        final AtomicLong errors = new AtomicLong(0L);
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<Future<Histogram[]>> futures = new ArrayList<Future<Histogram[]>>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(executor.submit(new Callable<Histogram[]>() {
+                @Override
+                public Histogram[] call() throws Exception {
+                    return runWorker(measureStart, measureEnd, errors);
+                }
+            }));
+        }
+
+        Histogram[] merged = newHistograms();
+        try {
+            for (Future<Histogram[]> future : futures) {
+                Histogram[] histograms = future.get();
+                for (int i = 0; i < merged.length; i++) {
+                    merged[i].add(histograms[i]);
+                }
+            }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException(cause.getMessage(), cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted when run the benchmark", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Result(merged, durationInSeconds, errors.get());
+    }
+
+    private static Histogram[] newHistograms() {
+        Histogram[] histograms = new Histogram[PHASES.length];
+        for (int i = 0; i < histograms.length; i++) {
+            // microseconds, 3 significant digits, auto resized
+            histograms[i] = new Histogram(3);
+        }
+        return histograms;
+    }
+
+    private Histogram[] runWorker(long measureStart, long measureEnd, AtomicLong errors) throws SQLException {
+        Histogram[] histograms = newHistograms();
+        Connection connection = connectionFactory.getConnection();
+        if (connection == null) {
+            throw new SQLException("Can't get a connection to run the benchmark");
+        }
+        SQLStatementInstrumentor instrumentor = SQLInstrumentorProvider.getInstance().get();
+        RowMapperResultSetExtractor<Map<String, Object>> extractor = new RowMapperResultSetExtractor<Map<String, Object>>(new MapRowMapper());
+        long[] phaseNanos = new long[PHASES.length];
+        int consecutiveErrors = 0;
+        try {
+            boolean supportsLimit = paged && instrumentor.beginIfSupportsLimit(connection.getMetaData());
+            if (paged && !supportsLimit) {
+                logger.warn("The database does not support limit, the query runs without paging");
+            }
+            String querySql = sql;
+            String countSql = null;
+            RowSelection rowSelection = null;
+            if (supportsLimit) {
+                rowSelection = new RowSelection();
+                rowSelection.setOffset((long) (pageNo - 1) * pageSize);
+                rowSelection.setLimit(pageSize);
+                querySql = instrumentor.instrumentLimitSql(sql, rowSelection);
+                countSql = count ? instrumentor.countSql(sql) : null;
+            }
+
+            while (true) {
+                long start = System.nanoTime();
+                if (start >= measureEnd) {
+                    break;
+                }
+                try {
+                    phaseNanos[0] = countSql == null ? -1 : executeCount(connection, countSql);
+                    long queryStart = System.nanoTime();
+                    PreparedStatement statement = connection.prepareStatement(querySql);
+                    ResultSet rs = null;
+                    try {
+                        if (rowSelection != null) {
+                            statement = new PagedPreparedStatement(statement);
+                            ArrayBasedQueryParameters queryParameters = new ArrayBasedQueryParameters();
+                            queryParameters.setCallable(false);
+                            queryParameters.setRowSelection(rowSelection);
+                            queryParameters.setParameters(new Object[0], 0, 0);
+                            instrumentor.bindParameters(statement, new ArrayBasedParameterSetter(), queryParameters, true);
+                        }
+                        rs = statement.executeQuery();
+                        long mappingStart = System.nanoTime();
+                        phaseNanos[1] = mappingStart - queryStart;
+                        extractor.extract(rs);
+                        phaseNanos[2] = System.nanoTime() - mappingStart;
+                    } finally {
+                        IOs.close(rs);
+                        IOs.close(statement);
+                    }
+                } catch (Throwable ex) {
+                    errors.incrementAndGet();
+                    if (++consecutiveErrors >= maxConsecutiveErrors) {
+                        throw new SQLException("Abort the benchmark after " + consecutiveErrors + " consecutive errors, the last error: " + ex.getMessage(), ex);
+                    }
+                    logger.warn("Error occur when run the benchmark query: {}", ex.getMessage());
+                    try {
+                        Thread.sleep(Math.min(MAX_ERROR_BACKOFF_IN_MILLS, 10L << Math.min(consecutiveErrors, 10)));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    continue;
+                }
+                consecutiveErrors = 0;
+                long end = System.nanoTime();
+                phaseNanos[3] = end - start;
+                if (start >= measureStart && end <= measureEnd) {
+                    for (int i = 0; i < PHASES.length; i++) {
+                        if (phaseNanos[i] >= 0) {
+                            histograms[i].recordValue(TimeUnit.NANOSECONDS.toMicros(phaseNanos[i]));
+                        }
+                    }
+                }
+            }
+        } finally {
+            instrumentor.finish();
+            IOs.close(connection);
+        }
+        return histograms;
+    }
+
+    private static long executeCount(Connection connection, String countSql) throws SQLException {
+        long start = System.nanoTime();
+        PreparedStatement statement = connection.prepareStatement(countSql);
+        ResultSet rs = null;
+        try {
+            rs = statement.executeQuery();
+            new SelectCountResultSetExtractor().extract(rs);
+        } finally {
+            IOs.close(rs);
+            IOs.close(statement);
+        }
+        return System.nanoTime() - start;
+    }
+
+    public static class Result {
+        private final Histogram[] histograms;
+        private final int durationInSeconds;
+        private final long errors;
+
+        Result(Histogram[] histograms, int durationInSeconds, long errors) {
+            this.histograms = histograms;
+            this.durationInSeconds = durationInSeconds;
+            this.errors = errors;
+        }
+
+        public long getOperations() {
+            return histograms[PHASES.length - 1].getTotalCount();
+        }
+
+        public double getThroughput() {
+            return (double) getOperations() / durationInSeconds;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public Histogram getHistogram(String phase) {
+            for (int i = 0; i < PHASES.length; i++) {
+                if (PHASES[i].equals(phase)) {
+                    return histograms[i];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(512);
+            builder.append(String.format(Locale.ENGLISH, "operations: %d, errors: %d, throughput: %.2f ops/s%n", getOperations(), errors, getThroughput()));
+            builder.append(String.format(Locale.ENGLISH, "%-9s %10s %10s %10s %10s %10s %10s %10s%n", "phase(us)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+            for (int i = 0; i < PHASES.length; i++) {
+                Histogram histogram = histograms[i];
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+                builder.append(String.format(Locale.ENGLISH, "%-9s %10d %10.1f %10d %10d %10d %10d %10d%n", PHASES[i],
+                        histogram.getTotalCount(),
+                        histogram.getMean(),
+                        histogram.getValueAtPercentile(50),
+                        histogram.getValueAtPercentile(90),
+                        histogram.getValueAtPercentile(99),
+                        histogram.getValueAtPercentile(99.9),
+                        histogram.getMaxValue()));
+            }
+            return builder.toString();
+        }
+    }
+}
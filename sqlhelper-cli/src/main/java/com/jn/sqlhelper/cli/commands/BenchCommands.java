@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.commands;
+
+import com.jn.langx.configuration.file.directoryfile.DirectoryBasedFileConfigurationRepository;
+import com.jn.langx.text.StringTemplates;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.Throwables;
+import com.jn.sqlhelper.cli.bench.QueryBenchmark;
+import com.jn.sqlhelper.common.connection.ConnectionFactory;
+import com.jn.sqlhelper.common.connection.NamedConnectionConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+@ShellComponent
+public class BenchCommands {
+    @Autowired
+    DirectoryBasedFileConfigurationRepository<NamedConnectionConfiguration> repository;
+
+    @ShellMethod(key = "bench query", value = "Measure the latency distribution of a query")
+    public String benchQuery(@ShellOption(help = "the connection configuration name") String connectionName,
+                             @ShellOption(help = "the sql") String sql,
+                             @ShellOption(help = "page the sql with the dialect", defaultValue = "false") boolean paged,
+                             @ShellOption(help = "run the count sql when paged", defaultValue = "true") boolean count,
+                             @ShellOption(help = "the page number when paged", defaultValue = "1") int pageNo,
+                             @ShellOption(help = "the page size when paged", defaultValue = "10") int pageSize,
+                             @ShellOption(help = "the concurrent connections", defaultValue = "1") int concurrency,
+                             @ShellOption(help = "the measured seconds", defaultValue = "10") int duration,
+                             @ShellOption(help = "the warmup seconds, not measured", defaultValue = "3") int warmup,
+                             @ShellOption(help = "abort after the consecutive errors", defaultValue = "10") int maxErrors) {
+        NamedConnectionConfiguration configuration = repository.getById(connectionName);
+        Preconditions.checkNotNull(configuration, StringTemplates.formatWithPlaceholder("Can't find a connection configuration named {}", connectionName));
+        QueryBenchmark benchmark = new QueryBenchmark(new ConnectionFactory(configuration), sql);
+        benchmark.setPaged(paged);
+        benchmark.setCount(count);
+        benchmark.setPageNo(pageNo);
+        benchmark.setPageSize(pageSize);
+        benchmark.setConcurrency(concurrency);
+        benchmark.setDurationInSeconds(duration);
+        benchmark.setWarmupInSeconds(warmup);
+        benchmark.setMaxConsecutiveErrors(maxErrors);
+        try {
+            return benchmark.run().toString();
+        } catch (Throwable ex) {
+            throw Throwables.wrapAsRuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.commands;
+
+import com.jn.langx.configuration.file.directoryfile.DirectoryBasedFileConfigurationRepository;
+import com.jn.langx.text.StringTemplates;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.Strings;
+import com.jn.langx.util.Throwables;
+import com.jn.langx.util.io.IOs;
+import com.jn.langx.util.io.file.Files;
+import com.jn.langx.util.timing.timer.Timer;
+import com.jn.sqlhelper.cli.data.DataFormat;
+import com.jn.sqlhelper.cli.data.TableDataExporter;
+import com.jn.sqlhelper.common.connection.ConnectionFactory;
+import com.jn.sqlhelper.common.connection.NamedConnectionConfiguration;
+import com.jn.sqlhelper.common.ddl.dump.DatabaseLoader;
+import com.jn.sqlhelper.common.ddl.model.DatabaseDescription;
+import com.jn.sqlhelper.common.ddl.model.Table;
+import com.jn.sqlhelper.common.utils.Connections;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.List;
+
+@ShellComponent
+public class DumpDataCommands {
+    @Autowired
+    DirectoryBasedFileConfigurationRepository<NamedConnectionConfiguration> repository;
+
+    @Autowired
+    @Qualifier("timer")
+    Timer timer;
+
+    @ShellMethod(key = "dump data", value = "Export table data")
+    public String dumpData(@ShellOption(help = "the connection configuration name") String connectionName,
+                           @ShellOption(help = "the table name, all tables if it is empty", defaultValue = "") String table,
+                           @ShellOption(help = "the dump directory") String directory,
+                           @ShellOption(help = "the data format: INSERT, CSV, JSONL", defaultValue = "INSERT") String format,
+                           @ShellOption(help = "gzip the files", defaultValue = "false") boolean compress,
+                           @ShellOption(help = "the max connections used to export", defaultValue = "4") int parallelism,
+                           @ShellOption(help = "the rows of an INSERT statement", defaultValue = "500") int batchSize,
+                           @ShellOption(help = "the keys of a range when split a large table, 0 to read every table by a single query. The export is not a consistent snapshot across the files", defaultValue = "1000000") long splitThreshold) {
+        NamedConnectionConfiguration configuration = repository.getById(connectionName);
+        Preconditions.checkNotNull(configuration, StringTemplates.formatWithPlaceholder("Can't find a connection configuration named {}", connectionName));
+        ConnectionFactory connectionFactory = new ConnectionFactory(configuration);
+        Connection connection = connectionFactory.getConnection();
+        try {
+            DatabaseDescription databaseDescription = new DatabaseDescription(connection.getMetaData());
+            table = Strings.getNullIfBlank(table);
+            List<Table> tables = new DatabaseLoader(connectionFactory, parallelism).loadTables(databaseDescription, Connections.getCatalog(connection), Connections.getSchema(connection), table, true, true, false, false);
+            Preconditions.checkTrue(tables != null && !tables.isEmpty(), StringTemplates.formatWithPlaceholder("table {} is not exists", table));
+
+            Files.makeDirs(directory);
+            TableDataExporter exporter = new TableDataExporter(connectionFactory);
+            exporter.setDirectory(new File(directory));
+            exporter.setFormat(DataFormat.valueOf(format.toUpperCase()));
+            exporter.setCompress(compress);
+            exporter.setParallelism(parallelism);
+            exporter.setBatchSize(batchSize);
+            exporter.setSplitThreshold(splitThreshold);
+            exporter.setTimer(timer);
+            long startTime = System.currentTimeMillis();
+            List<File> files = exporter.export(connection, tables);
+            return StringTemplates.formatWithPlaceholder("Exported {} rows of {} tables into {} files in {} ms", exporter.getExportedRows(), tables.size(), files.size(), System.currentTimeMillis() - startTime);
+        } catch (Throwable ex) {
+            throw Throwables.wrapAsRuntimeException(ex);
+        } finally {
+            IOs.close(connection);
+        }
+    }
+}
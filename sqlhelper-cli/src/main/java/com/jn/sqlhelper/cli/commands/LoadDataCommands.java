@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.commands;
+
+import com.jn.langx.configuration.file.directoryfile.DirectoryBasedFileConfigurationRepository;
+import com.jn.langx.text.StringTemplates;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.Strings;
+import com.jn.langx.util.Throwables;
+import com.jn.langx.util.io.IOs;
+import com.jn.langx.util.timing.timer.Timer;
+import com.jn.sqlhelper.cli.data.DataFormat;
+import com.jn.sqlhelper.cli.data.RowReaders;
+import com.jn.sqlhelper.cli.data.TableDataImporter;
+import com.jn.sqlhelper.common.batch.BatchMode;
+import com.jn.sqlhelper.common.connection.ConnectionFactory;
+import com.jn.sqlhelper.common.connection.NamedConnectionConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@ShellComponent
+public class LoadDataCommands {
+    @Autowired
+    DirectoryBasedFileConfigurationRepository<NamedConnectionConfiguration> repository;
+
+    @Autowired
+    @Qualifier("timer")
+    Timer timer;
+
+    @ShellMethod(key = "load data", value = "Import table data from CSV or JSON lines files")
+    public String loadData(@ShellOption(help = "the connection configuration name") String connectionName,
+                           @ShellOption(help = "a data file, or a directory of the files exported by 'dump data'") String path,
+                           @ShellOption(help = "the table name, guessed by the file name if it is empty", defaultValue = "") String table,
+                           @ShellOption(help = "the max connections used to import", defaultValue = "4") int parallelism,
+                           @ShellOption(help = "the rows of a transaction", defaultValue = "1000") int chunkSize,
+                           @ShellOption(help = "the batch mode: BATCH_SQL, JDBC_BATCH, SIMPLE, picked by the dialect if it is empty", defaultValue = "") String batchMode) {
+        NamedConnectionConfiguration configuration = repository.getById(connectionName);
+        Preconditions.checkNotNull(configuration, StringTemplates.formatWithPlaceholder("Can't find a connection configuration named {}", connectionName));
+        File root = new File(path);
+        Preconditions.checkTrue(root.exists(), StringTemplates.formatWithPlaceholder("{} is not exists", path));
+
+        List<File> files = new ArrayList<File>();
+        if (root.isDirectory()) {
+            File[] children = root.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    if (child.isFile() && RowReaders.guessFormat(child) != null && RowReaders.guessFormat(child) != DataFormat.INSERT) {
+                        files.add(child);
+                    }
+                }
+            }
+        } else {
+            files.add(root);
+        }
+
+        ConnectionFactory connectionFactory = new ConnectionFactory(configuration);
+        Connection connection = connectionFactory.getConnection();
+        try {
+            TableDataImporter importer = new TableDataImporter(connectionFactory);
+            importer.setParallelism(parallelism);
+            importer.setChunkSize(chunkSize);
+            importer.setTimer(timer);
+            batchMode = Strings.getNullIfBlank(batchMode);
+            if (batchMode != null) {
+                importer.setBatchMode(BatchMode.valueOf(batchMode.toUpperCase()));
+            }
+            table = Strings.getNullIfBlank(table);
+            long startTime = System.currentTimeMillis();
+            for (File file : files) {
+                DataFormat format = RowReaders.guessFormat(file);
+                Preconditions.checkNotNull(format, StringTemplates.formatWithPlaceholder("Can't find the data format of {}", file.getName()));
+                importer.importFile(connection, file, format, table == null ? guessTableName(file) : table);
+            }
+            return StringTemplates.formatWithPlaceholder("Imported {} rows from {} files in {} ms", importer.getImportedRows(), files.size(), System.currentTimeMillis() - startTime);
+        } catch (Throwable ex) {
+            throw Throwables.wrapAsRuntimeException(ex);
+        } finally {
+            IOs.close(connection);
+        }
+    }
+
+    /**
+     * user-3.csv.gz -> user
+     */
+    private static String guessTableName(File file) {
+        String name = file.getName();
+        int dot = name.indexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+        int dash = name.lastIndexOf('-');
+        if (dash > 0 && name.substring(dash + 1).matches("\\d+")) {
+            name = name.substring(0, dash);
+        }
+        return name;
+    }
+}
@@ -19,6 +19,7 @@ import com.jn.sqlhelper.common.ddl.dump.DatabaseLoader;
 import com.jn.sqlhelper.common.ddl.model.DatabaseDescription;
 import com.jn.sqlhelper.common.ddl.model.Index;
 import com.jn.sqlhelper.common.ddl.model.Table;
+import com.jn.sqlhelper.common.ddl.snapshot.SchemaSnapshotStore;
 import com.jn.sqlhelper.common.utils.Connections;
 import com.jn.sqlhelper.common.utils.SQLs;
 import com.jn.sqlhelper.dialect.ddl.generator.CommonTableGenerator;
@@ -44,12 +45,17 @@ public class ShowDatabaseCommands {
     private static final Logger logger = LoggerFactory.getLogger(ShowDatabaseCommands.class);
     @Autowired
     DirectoryBasedFileConfigurationRepository<NamedConnectionConfiguration> repository;
+    @Autowired
+    SchemaSnapshotStore snapshotStore;
 
-    private Connection getConnectionByConnectionConfigurationId(String id) {
+    private ConnectionFactory getConnectionFactoryByConnectionConfigurationId(String id) {
         NamedConnectionConfiguration configuration = repository.getById(id);
         Preconditions.checkNotNull(configuration, StringTemplates.formatWithPlaceholder("Can't find a connection configuration named {}", id));
-        ConnectionFactory factory = new ConnectionFactory(configuration);
-        return factory.getConnection();
+        return new ConnectionFactory(configuration);
+    }
+
+    private Connection getConnectionByConnectionConfigurationId(String id) {
+        return getConnectionFactoryByConnectionConfigurationId(id).getConnection();
     }
 
     @ShellMethod(key = "show tables", value = "Show table names")
@@ -80,8 +86,7 @@ public class ShowDatabaseCommands {
                           @ShellOption(help = "the table name") String table) {
         Connection connection = getConnectionByConnectionConfigurationId(connectionName);
         try {
-            DatabaseMetaData dbMetaData = connection.getMetaData();
-            return new DatabaseLoader().loadTable(new DatabaseDescription(dbMetaData), Connections.getCatalog(connection), Connections.getSchema(connection), table);
+            return snapshotStore.getTable(connectionName, connection, table);
         } catch (Throwable ex) {
             throw Throwables.wrapAsRuntimeException(ex);
         } finally {
@@ -96,9 +101,9 @@ public class ShowDatabaseCommands {
         Connection connection = getConnectionByConnectionConfigurationId(connectionName);
 
         try {
-            DatabaseMetaData dbMetaData = connection.getMetaData();
-            DatabaseDescription databaseDescription = new DatabaseDescription(dbMetaData);
-            List<Index> indexes = new DatabaseLoader().findTableIndexes(databaseDescription, Connections.getCatalog(connection), Connections.getSchema(connection), table);
+            Table t = snapshotStore.getTable(connectionName, connection, table);
+            Preconditions.checkNotNull(t, StringTemplates.formatWithPlaceholder("table {} is not exists", table));
+            List<Index> indexes = Collects.asList(t.getIndexMap().values());
             return Pipeline.of(indexes).map(new Function<Index, String>() {
                 @Override
                 public String apply(Index index) {
@@ -119,8 +124,8 @@ public class ShowDatabaseCommands {
         Connection connection = getConnectionByConnectionConfigurationId(connectionName);
 
         try {
-            DatabaseMetaData dbMetaData = connection.getMetaData();
-            Table t = new DatabaseLoader().loadTable(new DatabaseDescription(dbMetaData), Connections.getCatalog(connection), Connections.getSchema(connection), table);
+            Table t = snapshotStore.getTable(connectionName, connection, table);
+            Preconditions.checkNotNull(t, StringTemplates.formatWithPlaceholder("table {} is not exists", table));
             return t.getIndex(index);
         } catch (Throwable ex) {
             throw Throwables.wrapAsRuntimeException(ex);
@@ -136,7 +141,7 @@ public class ShowDatabaseCommands {
         try {
             DatabaseMetaData dbMetaData = connection.getMetaData();
             DatabaseDescription databaseDescription = new DatabaseDescription(dbMetaData);
-            Table t = new DatabaseLoader().loadTable(databaseDescription, Connections.getCatalog(connection), Connections.getSchema(connection), table);
+            Table t = snapshotStore.getTable(connectionName, connection, table);
             Preconditions.checkNotNull(t, StringTemplates.formatWithPlaceholder("table {} is not exists", table));
             CommonTableGenerator generator = new CommonTableGenerator(databaseDescription);
             return generator.generate(t);
@@ -152,14 +157,16 @@ public class ShowDatabaseCommands {
                                 @ShellOption(help = "the table name", defaultValue = "") String table,
                                 @ShellOption(help = "the dump directory") String directory,
                                 @ShellOption(help = "the dump filename") String filename,
-                                @ShellOption(help = "postback to you", defaultValue = "false") boolean postback) {
-        Connection connection = getConnectionByConnectionConfigurationId(connectionName);
+                                @ShellOption(help = "postback to you", defaultValue = "false") boolean postback,
+                                @ShellOption(help = "the max connections used to load the table metadata", defaultValue = "4") int parallelism) {
+        ConnectionFactory connectionFactory = getConnectionFactoryByConnectionConfigurationId(connectionName);
+        Connection connection = connectionFactory.getConnection();
         BufferedWriter bf = null;
         try {
             DatabaseMetaData dbMetaData = connection.getMetaData();
             DatabaseDescription databaseDescription = new DatabaseDescription(dbMetaData);
             table = Strings.getNullIfBlank(table);
-            List<Table> ts = new DatabaseLoader().loadTables(databaseDescription, Connections.getCatalog(connection), Connections.getSchema(connection), table, true, true, true, true);
+            List<Table> ts = new DatabaseLoader(connectionFactory, parallelism).loadTables(databaseDescription, Connections.getCatalog(connection), Connections.getSchema(connection), table, true, true, true, true);
             Preconditions.checkNotNull(ts, StringTemplates.formatWithPlaceholder("table {} is not exists", table));
 
             if (!Strings.endsWithIgnoreCase(filename, SQL_FILE_SUFFIX)) {
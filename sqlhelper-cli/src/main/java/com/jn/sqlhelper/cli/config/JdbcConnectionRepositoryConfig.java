@@ -31,6 +31,7 @@ import com.jn.langx.util.timing.timer.Timer;
 import com.jn.sqlhelper.common.connection.NamedConnectionConfiguration;
 import com.jn.sqlhelper.common.connection.PropertiesNamedConnectionConfigurationParser;
 import com.jn.sqlhelper.common.connection.PropertiesNamedConnectionConfigurationSerializer;
+import com.jn.sqlhelper.common.ddl.snapshot.SchemaSnapshotStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -152,4 +153,11 @@ public class JdbcConnectionRepositoryConfig {
         return repository;
     }
 
+    @Bean
+    public SchemaSnapshotStore schemaSnapshotStore() {
+        SchemaSnapshotStore store = new SchemaSnapshotStore(jdbcProperties.getSnapshotDirectory());
+        store.setMaxAgeWithoutIndicatorInMills(jdbcProperties.getSnapshotMaxAgeWithoutIndicatorInSeconds() * 1000L);
+        return store;
+    }
+
 }
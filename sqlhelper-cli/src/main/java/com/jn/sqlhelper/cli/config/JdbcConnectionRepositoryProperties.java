@@ -20,6 +20,11 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class JdbcConnectionRepositoryProperties {
     private String directory;
     private int reloadIntervalInSeconds = -1;
+    private String snapshotDirectory = "./snapshots";
+    /**
+     * how long a snapshot is reused when the database has no change indicator
+     */
+    private int snapshotMaxAgeWithoutIndicatorInSeconds = 300;
 
     public String getDirectory() {
         return directory;
@@ -36,4 +41,20 @@ public class JdbcConnectionRepositoryProperties {
     public void setReloadIntervalInSeconds(int reloadIntervalInSeconds) {
         this.reloadIntervalInSeconds = reloadIntervalInSeconds;
     }
+
+    public String getSnapshotDirectory() {
+        return snapshotDirectory;
+    }
+
+    public void setSnapshotDirectory(String snapshotDirectory) {
+        this.snapshotDirectory = snapshotDirectory;
+    }
+
+    public int getSnapshotMaxAgeWithoutIndicatorInSeconds() {
+        return snapshotMaxAgeWithoutIndicatorInSeconds;
+    }
+
+    public void setSnapshotMaxAgeWithoutIndicatorInSeconds(int snapshotMaxAgeWithoutIndicatorInSeconds) {
+        this.snapshotMaxAgeWithoutIndicatorInSeconds = snapshotMaxAgeWithoutIndicatorInSeconds;
+    }
 }
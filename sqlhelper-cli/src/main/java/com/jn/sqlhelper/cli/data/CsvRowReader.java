@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 CSV, the first line is the header. An empty field is read as null,
+ * {@code ""} is read as an empty string. The blank lines are skipped, except in a one column table
+ * where a blank line is a null row.
+ */
+public class CsvRowReader implements RowReader {
+    private final Reader reader;
+    private final String[] columns;
+    private long lineNumber = 0L;
+
+    public CsvRowReader(Reader reader) throws IOException {
+        this.reader = reader;
+        List<String> header = readFields();
+        if (header == null) {
+            throw new IOException("the csv header is absent");
+        }
+        this.columns = header.toArray(new String[header.size()]);
+    }
+
+    @Override
+    public String[] getColumns() {
+        return columns;
+    }
+
+    @Override
+    public Object[] next() throws IOException {
+        List<String> fields = readFields();
+        if (fields == null) {
+            return null;
+        }
+        if (fields.size() != columns.length) {
+            throw new IOException("line " + lineNumber + " has " + fields.size() + " fields, expected " + columns.length);
+        }
+        return fields.toArray();
+    }
+
+    private List<String> readFields() throws IOException {
+        int c = reader.read();
+        // skip the blank lines, but a blank line is a null row of a one column table
+        while ((c == '\r' || c == '\n') && (columns == null || columns.length > 1)) {
+            if (c == '\n') {
+                lineNumber++;
+            }
+            c = reader.read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        lineNumber++;
+        List<String> fields = new ArrayList<String>(columns == null ? 16 : columns.length);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    throw new IOException("unterminated quoted field at line " + lineNumber);
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        inQuotes = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.length() == 0 && !quoted) {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(quoted || field.length() > 0 ? field.toString() : null);
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\n' || c == -1) {
+                fields.add(quoted || field.length() > 0 ? field.toString() : null);
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
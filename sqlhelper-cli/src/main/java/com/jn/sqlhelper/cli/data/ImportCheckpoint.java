@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.data;
+
+import com.jn.langx.util.io.IOs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Records the committed chunks of an import, one chunk index per line, so that a failed import
+ * can be resumed without inserting the committed chunks again.
+ */
+public class ImportCheckpoint implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ImportCheckpoint.class);
+    private final File file;
+    private final Set<Long> committedChunks = new HashSet<Long>();
+    private Writer writer;
+
+    public ImportCheckpoint(File file) throws IOException {
+        this.file = file;
+        if (file.exists()) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty()) {
+                        committedChunks.add(Long.parseLong(line));
+                    }
+                }
+            } finally {
+                IOs.close(reader);
+            }
+            logger.info("Resume from the checkpoint {}, {} chunks were committed", file.getPath(), committedChunks.size());
+        }
+        this.writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+    }
+
+    public synchronized boolean isCommitted(long chunk) {
+        return committedChunks.contains(chunk);
+    }
+
+    public synchronized int getCommittedChunks() {
+        return committedChunks.size();
+    }
+
+    public synchronized void markCommitted(long chunk) throws IOException {
+        committedChunks.add(chunk);
+        writer.write(Long.toString(chunk));
+        writer.write('\n');
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() {
+        IOs.close(writer);
+        writer = null;
+    }
+
+    /**
+     * Removes the checkpoint after the import completed.
+     */
+    public void delete() {
+        close();
+        if (file.exists() && !file.delete()) {
+            logger.warn("Can't delete the checkpoint file {}", file.getPath());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.data;
+
+import com.jn.langx.annotation.Nullable;
+import com.jn.sqlhelper.dialect.Dialect;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes multi-rows INSERT statements, {@code batchSize} rows per statement, or one INSERT per row if the
+ * database doesn't support the batch sql.
+ * <p>
+ * The column names are quoted, and the literals are written in the syntax of the dialect: the backslashes are
+ * escaped for the databases which take a backslash as an escape char (e.g. MySQL), the booleans are TRUE, FALSE
+ * unless the database has no boolean literal (e.g. SQL Server, Oracle), the binaries are written with
+ * {@link Dialect#getBinaryLiteral(String)}. Without a dialect, the standard SQL syntax is used.
+ */
+public class InsertRowWriter implements RowWriter {
+    private final Writer writer;
+    @Nullable
+    private final Dialect dialect;
+    private final int batchSize;
+    private final boolean backslashEscape;
+    private final boolean booleanLiteral;
+    private String insertPrefix;
+    private int rowsInBatch = 0;
+
+    public InsertRowWriter(Writer writer, int batchSize) {
+        this(writer, batchSize, null);
+    }
+
+    public InsertRowWriter(Writer writer, int batchSize, @Nullable Dialect dialect) {
+        this.writer = writer;
+        this.dialect = dialect;
+        this.batchSize = dialect != null && !dialect.isSupportsBatchSql() ? 1 : Math.max(1, batchSize);
+        this.backslashEscape = dialect != null && dialect.isBackslashEscapeInStringLiteral();
+        this.booleanLiteral = dialect == null || dialect.isSupportsBooleanLiteral();
+    }
+
+    @Override
+    public void begin(String table, String[] columns) {
+        StringBuilder builder = new StringBuilder(64).append("INSERT INTO ").append(table).append(" (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(dialect == null ? columns[i] : dialect.getQuotedIdentifier(columns[i]));
+        }
+        insertPrefix = builder.append(") VALUES").toString();
+    }
+
+    @Override
+    public void write(Object[] row) throws IOException {
+        if (rowsInBatch == 0) {
+            writer.write(insertPrefix);
+            writer.write("\n(");
+        } else {
+            writer.write(",\n(");
+        }
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                writer.write(", ");
+            }
+            writeLiteral(row[i]);
+        }
+        writer.write(')');
+        if (++rowsInBatch >= batchSize) {
+            endBatch();
+        }
+    }
+
+    private void writeLiteral(Object value) throws IOException {
+        if (value == null) {
+            writer.write("NULL");
+        } else if (value instanceof Number) {
+            writer.write(value.toString());
+        } else if (value instanceof Boolean) {
+            if (booleanLiteral) {
+                writer.write(((Boolean) value) ? "TRUE" : "FALSE");
+            } else {
+                writer.write(((Boolean) value) ? "1" : "0");
+            }
+        } else if (value instanceof byte[]) {
+            String hex = RowWriters.toHex((byte[]) value);
+            writer.write(dialect == null ? "X'" + hex + "'" : dialect.getBinaryLiteral(hex));
+        } else {
+            String text = value.toString();
+            writer.write('\'');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\'' || (c == '\\' && backslashEscape)) {
+                    writer.write(c);
+                }
+                writer.write(c);
+            }
+            writer.write('\'');
+        }
+    }
+
+    private void endBatch() throws IOException {
+        if (rowsInBatch > 0) {
+            writer.write(";\n");
+            rowsInBatch = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            endBatch();
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.data;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads one JSON object per line, the columns are the keys of the first object.
+ * Numbers are read as their text, so no precision is lost before the driver converts them.
+ */
+public class JsonLinesRowReader implements RowReader {
+    private final BufferedReader reader;
+    private final String[] columns;
+    private JsonObject first;
+
+    public JsonLinesRowReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        this.first = readObject();
+        if (first == null) {
+            this.columns = new String[0];
+        } else {
+            this.columns = new String[first.size()];
+            int i = 0;
+            for (Map.Entry<String, JsonElement> entry : first.entrySet()) {
+                columns[i++] = entry.getKey();
+            }
+        }
+    }
+
+    @Override
+    public String[] getColumns() {
+        return columns;
+    }
+
+    @Override
+    public Object[] next() throws IOException {
+        JsonObject object;
+        if (first != null) {
+            object = first;
+            first = null;
+        } else {
+            object = readObject();
+        }
+        if (object == null) {
+            return null;
+        }
+        Object[] row = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            JsonElement element = object.get(columns[i]);
+            if (element == null || element.isJsonNull()) {
+                row[i] = null;
+            } else if (element.isJsonPrimitive()) {
+                JsonPrimitive primitive = element.getAsJsonPrimitive();
+                row[i] = primitive.isBoolean() ? (Object) primitive.getAsBoolean() : primitive.getAsString();
+            } else {
+                row[i] = element.toString();
+            }
+        }
+        return row;
+    }
+
+    private JsonObject readObject() throws IOException {
+        String line = reader.readLine();
+        while (line != null && line.trim().isEmpty()) {
+            line = reader.readLine();
+        }
+        if (line == null) {
+            return null;
+        }
+        try {
+            return JsonParser.parseString(line).getAsJsonObject();
+        } catch (RuntimeException ex) {
+            throw new IOException("illegal json line: " + line, ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
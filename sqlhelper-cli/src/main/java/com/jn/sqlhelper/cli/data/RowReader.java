@@ -0,0 +1,31 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the rows written by a {@link RowWriter}.
+ */
+public interface RowReader extends Closeable {
+    String[] getColumns();
+
+    /**
+     * @return the next row, null if no more rows
+     */
+    Object[] next() throws IOException;
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.data;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+public class RowReaders {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private RowReaders() {
+    }
+
+    /**
+     * Opens a buffered reader over the file channel, a {@code .gz} file is gunzipped.
+     */
+    public static BufferedReader openReader(File file) throws IOException {
+        FileChannel channel = new FileInputStream(file).getChannel();
+        InputStream in = Channels.newInputStream(channel);
+        if (file.getName().endsWith(".gz")) {
+            in = new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    public static RowReader newRowReader(DataFormat format, File file) throws IOException {
+        BufferedReader reader = openReader(file);
+        try {
+            switch (format) {
+                case CSV:
+                    return new CsvRowReader(reader);
+                case JSONL:
+                    return new JsonLinesRowReader(reader);
+                default:
+                    throw new IOException("Unsupported data format: " + format);
+            }
+        } catch (IOException ex) {
+            reader.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Finds the format by the file suffix, e.g. {@code user-0.csv.gz}
+     */
+    public static DataFormat guessFormat(File file) {
+        String name = file.getName();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        for (DataFormat format : DataFormat.values()) {
+            if (name.endsWith("." + format.getFileSuffix())) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes the hex text written by {@link RowWriters#toText(Object)} for a binary value
+     */
+    static byte[] fromHex(String text) throws IllegalArgumentException {
+        if (text.length() % 2 != 0) {
+            throw new IllegalArgumentException("Illegal hex text, the length is odd: " + text.length());
+        }
+        byte[] bytes = new byte[text.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(text.charAt(i * 2), 16);
+            int low = Character.digit(text.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Illegal hex text at " + (i * 2));
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.data;
+
+import com.jn.langx.annotation.Nullable;
+import com.jn.sqlhelper.dialect.Dialect;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+public class RowWriters {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private RowWriters() {
+    }
+
+    /**
+     * Opens a buffered writer over the file channel, gzipped if {@code compress} is true.
+     */
+    public static Writer openWriter(File file, boolean compress) throws IOException {
+        FileChannel channel = new FileOutputStream(file).getChannel();
+        OutputStream out = Channels.newOutputStream(channel);
+        if (compress) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    public static RowWriter newRowWriter(DataFormat format, Writer writer, int batchSize) {
+        return newRowWriter(format, writer, batchSize, null);
+    }
+
+    /**
+     * @param dialect the dialect of the INSERT statements, null if it is unknown
+     */
+    public static RowWriter newRowWriter(DataFormat format, Writer writer, int batchSize, @Nullable Dialect dialect) {
+        switch (format) {
+            case CSV:
+                return new CsvRowWriter(writer);
+            case JSONL:
+                return new JsonLinesRowWriter(writer);
+            case INSERT:
+            default:
+                return new InsertRowWriter(writer, batchSize, dialect);
+        }
+    }
+
+    static String toText(Object value) {
+        if (value instanceof byte[]) {
+            return toHex((byte[]) value);
+        }
+        return value.toString();
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] digits = "0123456789ABCDEF".toCharArray();
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = digits[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = digits[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.data;
+
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.io.IOs;
+import com.jn.langx.util.timing.timer.Timeout;
+import com.jn.langx.util.timing.timer.Timer;
+import com.jn.langx.util.timing.timer.TimerTask;
+import com.jn.sqlhelper.common.connection.ConnectionFactory;
+import com.jn.sqlhelper.common.ddl.model.Column;
+import com.jn.sqlhelper.common.ddl.model.DatabaseDescription;
+import com.jn.sqlhelper.common.ddl.model.PrimaryKeyColumn;
+import com.jn.sqlhelper.common.ddl.model.Table;
+import com.jn.sqlhelper.common.ddl.model.internal.JdbcType;
+import com.jn.sqlhelper.common.utils.SQLs;
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exports the rows of tables into files, one file per table, or one file per key range when a table
+ * with a single integral primary key is larger than {@code splitThreshold} keys.
+ * <p>
+ * Every file is exported with its own connection through a forward-only cursor, the ranges of a table
+ * are exported in parallel.
+ * <p>
+ * The export is not a consistent snapshot of the database: every file is read by its own query on its own
+ * connection, so the files of the tables, and the key ranges of a split table, may see the data at
+ * different times. Stop the writes while exporting, or set {@code splitThreshold} to 0 so that at least every
+ * table is read by a single query.
+ */
+public class TableDataExporter {
+    private static final Logger logger = LoggerFactory.getLogger(TableDataExporter.class);
+    private static final EnumSet<JdbcType> INTEGRAL_TYPES = EnumSet.of(JdbcType.TINYINT, JdbcType.SMALLINT, JdbcType.INTEGER, JdbcType.BIGINT, JdbcType.NUMERIC, JdbcType.DECIMAL);
+
+    private final ConnectionFactory connectionFactory;
+    private File directory;
+    private DataFormat format = DataFormat.INSERT;
+    private boolean compress = false;
+    private int parallelism = 4;
+    private int batchSize = 500;
+    private int fetchSize = 1000;
+    private long splitThreshold = 1000000L;
+    private Timer timer;
+    private long progressIntervalInMills = 5000L;
+
+    private final AtomicLong exportedRows = new AtomicLong(0L);
+
+    public TableDataExporter(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    public void setDirectory(File directory) {
+        this.directory = directory;
+    }
+
+    public void setFormat(DataFormat format) {
+        this.format = format;
+    }
+
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public void setSplitThreshold(long splitThreshold) {
+        this.splitThreshold = splitThreshold;
+    }
+
+    public void setTimer(Timer timer) {
+        this.timer = timer;
+    }
+
+    public void setProgressIntervalInMills(long progressIntervalInMills) {
+        this.progressIntervalInMills = progressIntervalInMills;
+    }
+
+    public long getExportedRows() {
+        return exportedRows.get();
+    }
+
+    /**
+     * @param tables the tables with their columns and primary keys loaded
+     * @return the exported files
+     */
+    public List<File> export(Connection connection, List<Table> tables) throws SQLException {
+        Preconditions.checkNotNull(directory, "the dump directory is null");
+        DatabaseMetaData dbMetaData = connection.getMetaData();
+        DatabaseDescription databaseDescription = new DatabaseDescription(dbMetaData);
+        Dialect dialect = DialectRegistry.getInstance().getDialectByDatabaseMetadata(dbMetaData);
+
+        List<ExportTask> tasks = new ArrayList<ExportTask>();
+        for (Table table : tables) {
+            tasks.addAll(split(connection, databaseDescription, dialect, table));
+        }
+
+        final long startTime = System.currentTimeMillis();
+        final CountDownLatch done = new CountDownLatch(1);
+        if (timer != null) {
+            scheduleProgressReport(startTime, done);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, tasks.size())));
+        try {
+            List<Future<File>> futures = new ArrayList<Future<File>>(tasks.size());
+            for (ExportTask task : tasks) {
+                task.dialect = dialect;
+                futures.add(executor.submit(task));
+            }
+            List<File> files = new ArrayList<File>(futures.size());
+            for (Future<File> future : futures) {
+                try {
+                    files.add(future.get());
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof SQLException) {
+                        throw (SQLException) cause;
+                    }
+                    throw new SQLException(cause.getMessage(), cause);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted when dump data", ex);
+                }
+            }
+            return files;
+        } finally {
+            done.countDown();
+            executor.shutdownNow();
+            long costInMills = Math.max(1L, System.currentTimeMillis() - startTime);
+            logger.info("Exported {} rows in {} ms, {} rows/s", exportedRows.get(), costInMills, exportedRows.get() * 1000 / costInMills);
+        }
+    }
+
+    private void scheduleProgressReport(final long startTime, final CountDownLatch done) {
+        timer.newTimeout(new TimerTask() {
+            private long lastRows = 0L;
+            private long lastTime = startTime;
+
+            @Override
+            public void run(Timeout timeout) {
+                if (done.getCount() == 0) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                long rows = exportedRows.get();
+                logger.info("Exported {} rows, {} rows/s", rows, (rows - lastRows) * 1000 / Math.max(1L, now - lastTime));
+                lastRows = rows;
+                lastTime = now;
+                timer.newTimeout(this, progressIntervalInMills, TimeUnit.MILLISECONDS);
+            }
+        }, progressIntervalInMills, TimeUnit.MILLISECONDS);
+    }
+
+    private List<ExportTask> split(Connection connection, DatabaseDescription databaseDescription, Dialect dialect, Table table) throws SQLException {
+        String tableFQN = SQLs.getTableFQN(databaseDescription, table.getCatalog(), table.getSchema(), quote(dialect, table.getName()));
+        String selectSql = "SELECT * FROM " + tableFQN;
+        String fileBaseName = table.getName();
+
+        List<ExportTask> tasks = new ArrayList<ExportTask>();
+        String keyColumn = findIntegralKeyColumn(table);
+        if (keyColumn != null && splitThreshold > 0) {
+            String quotedKey = quote(dialect, keyColumn);
+            Statement statement = null;
+            ResultSet rs = null;
+            try {
+                statement = connection.createStatement();
+                rs = statement.executeQuery("SELECT MIN(" + quotedKey + "), MAX(" + quotedKey + ") FROM " + tableFQN);
+                if (rs.next() && rs.getObject(1) != null) {
+                    long min = rs.getLong(1);
+                    long max = rs.getLong(2);
+                    long keys = max - min + 1;
+                    int parts = (int) Math.min(parallelism * 4L, (keys + splitThreshold - 1) / splitThreshold);
+                    if (parts > 1) {
+                        long step = (keys + parts - 1) / parts;
+                        for (int i = 0; i < parts; i++) {
+                            long lower = min + i * step;
+                            boolean last = i == parts - 1;
+                            long upper = last ? max : lower + step;
+                            String rangeSql = selectSql + " WHERE " + quotedKey + " >= ? AND " + quotedKey + (last ? " <= ?" : " < ?");
+                            tasks.add(new ExportTask(tableFQN, rangeSql, new long[]{lower, upper}, new File(directory, fileBaseName + "-" + i + "." + fileSuffix())));
+                        }
+                        return tasks;
+                    }
+                }
+            } finally {
+                IOs.close(rs);
+                IOs.close(statement);
+            }
+        }
+        tasks.add(new ExportTask(tableFQN, selectSql, null, new File(directory, fileBaseName + "." + fileSuffix())));
+        return tasks;
+    }
+
+    private String fileSuffix() {
+        return compress ? format.getFileSuffix() + ".gz" : format.getFileSuffix();
+    }
+
+    private static String quote(Dialect dialect, String identifier) {
+        return dialect == null ? identifier : dialect.getQuotedIdentifier(identifier);
+    }
+
+    private static String findIntegralKeyColumn(Table table) {
+        if (table.getPkColumns().size() != 1) {
+            return null;
+        }
+        PrimaryKeyColumn pk = table.getPkColumns().iterator().next();
+        Column column = table.getColumn(pk.getColumnName());
+        if (column == null || !INTEGRAL_TYPES.contains(column.getJdbcType())) {
+            return null;
+        }
+        if ((column.getJdbcType() == JdbcType.NUMERIC || column.getJdbcType() == JdbcType.DECIMAL) && column.getDecimalDigits() != null && column.getDecimalDigits() > 0) {
+            return null;
+        }
+        return pk.getColumnName();
+    }
+
+    /**
+     * the LOBs are read into bytes or strings, they are valid only while the result set is open
+     */
+    private static Object getValue(ResultSet rs, int index) throws SQLException {
+        Object value = rs.getObject(index);
+        if (value instanceof Blob) {
+            Blob blob = (Blob) value;
+            return blob.getBytes(1L, (int) blob.length());
+        }
+        if (value instanceof Clob) {
+            Clob clob = (Clob) value;
+            return clob.getSubString(1L, (int) clob.length());
+        }
+        return value;
+    }
+
+    private class ExportTask implements Callable<File> {
+        private final String table;
+        private final String sql;
+        private final long[] range;
+        private final File file;
+        private Dialect dialect;
+
+        ExportTask(String table, String sql, long[] range, File file) {
+            this.table = table;
+            this.sql = sql;
+            this.range = range;
+            this.file = file;
+        }
+
+        @Override
+        public File call() throws Exception {
+            Connection connection = connectionFactory.getConnection();
+            if (connection == null) {
+                throw new SQLException("Can't get a connection to dump " + table);
+            }
+            PreparedStatement statement = null;
+            ResultSet rs = null;
+            RowWriter rowWriter = null;
+            try {
+                String databaseId = dialect == null ? null : dialect.getDatabaseId();
+                boolean mysql = "mysql".equals(databaseId) || "mariadb".equals(databaseId);
+                if (!mysql) {
+                    // PostgreSQL and some others only use a cursor inside a transaction
+                    connection.setAutoCommit(false);
+                }
+                statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // MySQL Connector/J streams the rows one by one only with Integer.MIN_VALUE
+                statement.setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize);
+                if (range != null) {
+                    statement.setLong(1, range[0]);
+                    statement.setLong(2, range[1]);
+                }
+                rs = statement.executeQuery();
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                String[] columns = new String[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    columns[i] = metaData.getColumnLabel(i + 1);
+                }
+                rowWriter = RowWriters.newRowWriter(format, RowWriters.openWriter(file, compress), batchSize, dialect);
+                rowWriter.begin(table, columns);
+                long rows = 0L;
+                while (rs.next()) {
+                    Object[] row = new Object[columnCount];
+                    for (int i = 0; i < columnCount; i++) {
+                        row[i] = getValue(rs, i + 1);
+                    }
+                    rowWriter.write(row);
+                    if (++rows % 1000 == 0) {
+                        exportedRows.addAndGet(1000);
+                    }
+                }
+                exportedRows.addAndGet(rows % 1000);
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+                return file;
+            } finally {
+                IOs.close(rowWriter);
+                IOs.close(rs);
+                IOs.close(statement);
+                IOs.close(connection);
+            }
+        }
+    }
+}
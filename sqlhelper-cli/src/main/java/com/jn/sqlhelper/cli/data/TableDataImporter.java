@@ -0,0 +1,418 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.cli.data;
+
+import com.jn.langx.util.io.IOs;
+import com.jn.langx.util.timing.timer.Timeout;
+import com.jn.langx.util.timing.timer.Timer;
+import com.jn.langx.util.timing.timer.TimerTask;
+import com.jn.sqlhelper.common.batch.BatchMode;
+import com.jn.sqlhelper.common.batch.BatchUpdater;
+import com.jn.sqlhelper.common.batch.jdbc.BatchSqlBatchUpdater;
+import com.jn.sqlhelper.common.batch.jdbc.JdbcBatchStatement;
+import com.jn.sqlhelper.common.batch.jdbc.JdbcBatchUpdater;
+import com.jn.sqlhelper.common.batch.jdbc.SimpleBatchUpdater;
+import com.jn.sqlhelper.common.connection.ConnectionFactory;
+import com.jn.sqlhelper.common.ddl.dump.DatabaseLoader;
+import com.jn.sqlhelper.common.ddl.model.Column;
+import com.jn.sqlhelper.common.ddl.model.DatabaseDescription;
+import com.jn.sqlhelper.common.ddl.model.Table;
+import com.jn.sqlhelper.common.ddl.model.internal.JdbcType;
+import com.jn.sqlhelper.common.statement.PreparedStatementSetter;
+import com.jn.sqlhelper.common.utils.Connections;
+import com.jn.sqlhelper.common.utils.SQLs;
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Imports a CSV or JSON lines file into a table.
+ * <p>
+ * The calling thread parses the file into chunks of {@code chunkSize} rows, {@code parallelism} writer threads
+ * insert the chunks, each with its own connection, and commit every chunk. The committed chunks are recorded in
+ * a checkpoint file beside the data file, an import that failed is resumed from it.
+ * <p>
+ * The batch mode is picked by the dialect: multi-rows INSERT if {@link Dialect#isSupportsBatchSql()},
+ * else the JDBC batch if {@link Dialect#isSupportsBatchUpdates()}, else one statement a row.
+ * <p>
+ * The values are bound with the column types of the table, the hex texts of the binary columns are decoded to bytes.
+ */
+public class TableDataImporter {
+    private static final Logger logger = LoggerFactory.getLogger(TableDataImporter.class);
+    private static final Chunk END = new Chunk(-1L, null);
+
+    private final ConnectionFactory connectionFactory;
+    private int parallelism = 4;
+    private int chunkSize = 1000;
+    private int maxParametersPerStatement = 2000;
+    private BatchMode batchMode;
+    private Timer timer;
+    private long progressIntervalInMills = 5000L;
+
+    private final AtomicLong importedRows = new AtomicLong(0L);
+
+    public TableDataImporter(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public void setMaxParametersPerStatement(int maxParametersPerStatement) {
+        this.maxParametersPerStatement = maxParametersPerStatement;
+    }
+
+    /**
+     * @param batchMode null if picked by the dialect
+     */
+    public void setBatchMode(BatchMode batchMode) {
+        this.batchMode = batchMode;
+    }
+
+    public void setTimer(Timer timer) {
+        this.timer = timer;
+    }
+
+    public void setProgressIntervalInMills(long progressIntervalInMills) {
+        this.progressIntervalInMills = progressIntervalInMills;
+    }
+
+    public long getImportedRows() {
+        return importedRows.get();
+    }
+
+    public long importFile(Connection connection, File file, DataFormat format, String tableName) throws SQLException, IOException {
+        DatabaseMetaData dbMetaData = connection.getMetaData();
+        DatabaseDescription databaseDescription = new DatabaseDescription(dbMetaData);
+        Dialect dialect = DialectRegistry.getInstance().getDialectByDatabaseMetadata(dbMetaData);
+        Table table = new DatabaseLoader().loadTable(databaseDescription, Connections.getCatalog(connection), Connections.getSchema(connection), tableName, true, false, false, false);
+        if (table == null) {
+            throw new SQLException("table " + tableName + " is not exists");
+        }
+
+        RowReader reader = RowReaders.newRowReader(format, file);
+        ImportCheckpoint checkpoint = null;
+        long startRows = importedRows.get();
+        try {
+            String[] columns = reader.getColumns();
+            final int[] sqlTypes = new int[columns.length];
+            String[] quotedColumns = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                Column column = table.getColumn(columns[i]);
+                if (column == null) {
+                    column = findColumnIgnoreCase(table, columns[i]);
+                }
+                if (column == null) {
+                    throw new SQLException("column " + columns[i] + " is not exists in table " + tableName);
+                }
+                sqlTypes[i] = column.getJdbcType() == null ? JdbcType.UNKNOWN.getCode() : column.getJdbcType().getCode();
+                quotedColumns[i] = dialect == null ? column.getName() : dialect.getQuotedIdentifier(column.getName());
+            }
+            String tableFQN = SQLs.getTableFQN(databaseDescription, table.getCatalog(), table.getSchema(), dialect == null ? table.getName() : dialect.getQuotedIdentifier(table.getName()));
+            BatchMode mode = batchMode != null ? batchMode : pickBatchMode(dialect);
+            int rowsPerStatement = mode == BatchMode.BATCH_SQL ? Math.max(1, Math.min(chunkSize, maxParametersPerStatement / Math.max(1, columns.length))) : chunkSize;
+            InsertStatements statements = new InsertStatements(tableFQN, quotedColumns, mode, rowsPerStatement, sqlTypes);
+
+            checkpoint = new ImportCheckpoint(new File(file.getPath() + "." + chunkSize + ".checkpoint"));
+            logger.info("Import {} into {} with {} mode, {} rows per statement", file.getName(), tableFQN, mode, rowsPerStatement);
+            importChunks(reader, checkpoint, statements);
+            checkpoint.delete();
+            return importedRows.get() - startRows;
+        } finally {
+            IOs.close(checkpoint);
+            IOs.close(reader);
+        }
+    }
+
+    private static Column findColumnIgnoreCase(Table table, String columnName) {
+        for (Column column : table.getColumns()) {
+            if (column.getName().equalsIgnoreCase(columnName)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private static BatchMode pickBatchMode(Dialect dialect) {
+        if (dialect == null) {
+            return BatchMode.JDBC_BATCH;
+        }
+        if (dialect.isSupportsBatchSql()) {
+            return BatchMode.BATCH_SQL;
+        }
+        return dialect.isSupportsBatchUpdates() ? BatchMode.JDBC_BATCH : BatchMode.SIMPLE;
+    }
+
+    private void importChunks(RowReader reader, final ImportCheckpoint checkpoint, final InsertStatements statements) throws SQLException, IOException {
+        final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<Chunk>(parallelism * 2);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final CountDownLatch done = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        List<Future<?>> futures = new ArrayList<Future<?>>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        writeChunks(queue, checkpoint, statements, failure);
+                    } catch (Throwable ex) {
+                        failure.compareAndSet(null, ex);
+                    }
+                }
+            }));
+        }
+        if (timer != null) {
+            scheduleProgressReport(System.currentTimeMillis(), done);
+        }
+        try {
+            long chunkIndex = 0L;
+            List<Object[]> rows = new ArrayList<Object[]>(chunkSize);
+            Object[] row;
+            while (failure.get() == null && (row = reader.next()) != null) {
+                rows.add(row);
+                if (rows.size() == chunkSize) {
+                    enqueue(queue, new Chunk(chunkIndex++, rows), checkpoint, failure);
+                    rows = new ArrayList<Object[]>(chunkSize);
+                }
+            }
+            if (!rows.isEmpty()) {
+                enqueue(queue, new Chunk(chunkIndex, rows), checkpoint, failure);
+            }
+            for (int i = 0; i < parallelism; i++) {
+                enqueue(queue, END, checkpoint, failure);
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    failure.compareAndSet(null, ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, ex);
+        } finally {
+            done.countDown();
+            executor.shutdownNow();
+        }
+
+        Throwable ex = failure.get();
+        if (ex instanceof SQLException) {
+            throw (SQLException) ex;
+        }
+        if (ex instanceof IOException) {
+            throw (IOException) ex;
+        }
+        if (ex != null) {
+            throw new SQLException(ex.getMessage(), ex);
+        }
+    }
+
+    private static void enqueue(BlockingQueue<Chunk> queue, Chunk chunk, ImportCheckpoint checkpoint, AtomicReference<Throwable> failure) throws InterruptedException {
+        if (chunk != END && checkpoint.isCommitted(chunk.index)) {
+            return;
+        }
+        // the writers stop taking when failed, so don't block forever
+        while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            if (failure.get() != null) {
+                return;
+            }
+        }
+    }
+
+    private void writeChunks(BlockingQueue<Chunk> queue, ImportCheckpoint checkpoint, InsertStatements statements, AtomicReference<Throwable> failure) throws Exception {
+        Connection connection = connectionFactory.getConnection();
+        if (connection == null) {
+            throw new SQLException("Can't get a connection to import data");
+        }
+        try {
+            connection.setAutoCommit(false);
+            BatchUpdater<Object[], JdbcBatchStatement> updater = statements.newUpdater(connection);
+            while (failure.get() == null) {
+                Chunk chunk = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (chunk == null) {
+                    continue;
+                }
+                if (chunk == END) {
+                    return;
+                }
+                try {
+                    statements.execute(updater, chunk.rows);
+                    connection.commit();
+                } catch (SQLException ex) {
+                    connection.rollback();
+                    throw ex;
+                }
+                checkpoint.markCommitted(chunk.index);
+                importedRows.addAndGet(chunk.rows.size());
+            }
+        } finally {
+            IOs.close(connection);
+        }
+    }
+
+    private void scheduleProgressReport(final long startTime, final CountDownLatch done) {
+        timer.newTimeout(new TimerTask() {
+            private long lastRows = importedRows.get();
+            private long lastTime = startTime;
+
+            @Override
+            public void run(Timeout timeout) {
+                if (done.getCount() == 0) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                long rows = importedRows.get();
+                logger.info("Imported {} rows, {} rows/s", rows, (rows - lastRows) * 1000 / Math.max(1L, now - lastTime));
+                lastRows = rows;
+                lastTime = now;
+                timer.newTimeout(this, progressIntervalInMills, TimeUnit.MILLISECONDS);
+            }
+        }, progressIntervalInMills, TimeUnit.MILLISECONDS);
+    }
+
+    private static class Chunk {
+        private final long index;
+        private final List<Object[]> rows;
+
+        Chunk(long index, List<Object[]> rows) {
+            this.index = index;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Builds the INSERT statements and binds the rows with the column types of the target table.
+     */
+    private static class InsertStatements {
+        private final String tableFQN;
+        private final String[] columns;
+        private final BatchMode mode;
+        private final int rowsPerStatement;
+        private final PreparedStatementSetter<Object[]> rowSetter;
+        private final JdbcBatchStatement rowStatement;
+        private final ConcurrentMap<Integer, JdbcBatchStatement> multiRowsStatements = new ConcurrentHashMap<Integer, JdbcBatchStatement>();
+
+        InsertStatements(String tableFQN, String[] columns, BatchMode mode, int rowsPerStatement, final int[] sqlTypes) {
+            this.tableFQN = tableFQN;
+            this.columns = columns;
+            this.mode = mode;
+            this.rowsPerStatement = rowsPerStatement;
+            this.rowSetter = new PreparedStatementSetter<Object[]>() {
+                @Override
+                public void setParameters(PreparedStatement statement, int startIndex, Object[] row) throws SQLException {
+                    for (int i = 0; i < row.length; i++) {
+                        int sqlType = sqlTypes[i];
+                        if (sqlType == JdbcType.UNKNOWN.getCode()) {
+                            statement.setObject(startIndex + i, row[i]);
+                        } else if (row[i] == null) {
+                            statement.setNull(startIndex + i, sqlType);
+                        } else if (row[i] instanceof String && isBinary(sqlType)) {
+                            // the binary values are written as hex texts
+                            statement.setBytes(startIndex + i, RowReaders.fromHex((String) row[i]));
+                        } else {
+                            statement.setObject(startIndex + i, row[i], sqlType);
+                        }
+                    }
+                }
+            };
+            this.rowStatement = new JdbcBatchStatement(mode == BatchMode.BATCH_SQL ? BatchMode.JDBC_BATCH : mode, insertSql(1));
+        }
+
+        private static boolean isBinary(int sqlType) {
+            return sqlType == Types.BINARY || sqlType == Types.VARBINARY || sqlType == Types.LONGVARBINARY || sqlType == Types.BLOB;
+        }
+
+        private String insertSql(int rows) {
+            StringBuilder builder = new StringBuilder(64).append("INSERT INTO ").append(tableFQN).append(" (");
+            StringBuilder values = new StringBuilder(columns.length * 3).append('(');
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                    values.append(", ");
+                }
+                builder.append(columns[i]);
+                values.append('?');
+            }
+            values.append(')');
+            builder.append(") VALUES ").append(values);
+            for (int i = 1; i < rows; i++) {
+                builder.append(", ").append(values);
+            }
+            return builder.toString();
+        }
+
+        private JdbcBatchStatement multiRowsStatement(int rows) {
+            JdbcBatchStatement statement = multiRowsStatements.get(rows);
+            if (statement == null) {
+                statement = new JdbcBatchStatement(BatchMode.BATCH_SQL, insertSql(rows));
+                JdbcBatchStatement existed = multiRowsStatements.putIfAbsent(rows, statement);
+                if (existed != null) {
+                    statement = existed;
+                }
+            }
+            return statement;
+        }
+
+        BatchUpdater<Object[], JdbcBatchStatement> newUpdater(Connection connection) {
+            switch (mode) {
+                case BATCH_SQL:
+                    final int columnCount = columns.length;
+                    return new BatchSqlBatchUpdater<Object[], JdbcBatchStatement>(connection, new PreparedStatementSetter<List<Object[]>>() {
+                        @Override
+                        public void setParameters(PreparedStatement statement, int startIndex, List<Object[]> rows) throws SQLException {
+                            int index = startIndex;
+                            for (Object[] row : rows) {
+                                rowSetter.setParameters(statement, index, row);
+                                index = index + columnCount;
+                            }
+                        }
+                    });
+                case SIMPLE:
+                    return new SimpleBatchUpdater<Object[], JdbcBatchStatement>(connection, rowSetter);
+                case JDBC_BATCH:
+                default:
+                    return new JdbcBatchUpdater<Object[], JdbcBatchStatement>(connection, rowSetter);
+            }
+        }
+
+        void execute(BatchUpdater<Object[], JdbcBatchStatement> updater, List<Object[]> rows) throws SQLException {
+            if (mode != BatchMode.BATCH_SQL) {
+                updater.batchUpdate(rowStatement, rows);
+                return;
+            }
+            for (int offset = 0; offset < rows.size(); offset += rowsPerStatement) {
+                List<Object[]> statementRows = rows.subList(offset, Math.min(offset + rowsPerStatement, rows.size()));
+                updater.batchUpdate(multiRowsStatement(statementRows.size()), statementRows);
+            }
+        }
+    }
+}
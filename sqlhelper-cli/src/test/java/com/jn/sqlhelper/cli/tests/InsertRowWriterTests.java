@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.cli.tests;
+
+import com.jn.sqlhelper.cli.data.InsertRowWriter;
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import com.jn.sqlhelper.dialect.internal.H2Dialect;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+public class InsertRowWriterTests {
+    private static final Object[] ROW = new Object[]{1, "it's C:\\temp", true, null, new byte[]{0x0A, (byte) 0xFF}};
+
+    private static String write(Dialect dialect) throws IOException {
+        StringWriter out = new StringWriter();
+        InsertRowWriter writer = new InsertRowWriter(out, 2, dialect);
+        writer.begin("t", new String[]{"id", "path", "enabled", "remark", "data"});
+        writer.write(ROW);
+        writer.write(ROW);
+        writer.write(ROW);
+        writer.close();
+        return out.toString();
+    }
+
+    @Test
+    public void testBatch() throws IOException {
+        String row = "(1, 'it''s C:\\temp', TRUE, NULL, X'0AFF')";
+        Assert.assertEquals("INSERT INTO t (id, path, enabled, remark, data) VALUES\n" + row + ",\n" + row + ";\n"
+                + "INSERT INTO t (id, path, enabled, remark, data) VALUES\n" + row + ";\n", write(null));
+    }
+
+    @Test
+    public void testMySQL() throws IOException {
+        String sql = write(DialectRegistry.getInstance().getDialectByName("mysql"));
+        Assert.assertTrue(sql.startsWith("INSERT INTO t (`id`, `path`, `enabled`, `remark`, `data`) VALUES\n"));
+        Assert.assertTrue(sql.contains("(1, 'it''s C:\\\\temp', TRUE, NULL, X'0AFF')"));
+    }
+
+    @Test
+    public void testPostgreSQL() throws IOException {
+        // a backslash is a plain char in the standard conforming strings, X'..' is a bit string
+        String sql = write(DialectRegistry.getInstance().getDialectByName("postgresql"));
+        Assert.assertTrue(sql.startsWith("INSERT INTO t (\"id\", \"path\", \"enabled\", \"remark\", \"data\") VALUES\n"));
+        Assert.assertTrue(sql.contains("(1, 'it''s C:\\temp', TRUE, NULL, decode('0AFF', 'hex'))"));
+    }
+
+    @Test
+    public void testSQLServer() throws IOException {
+        String sql = write(DialectRegistry.getInstance().getDialectByName("sqlserver"));
+        Assert.assertTrue(sql.startsWith("INSERT INTO t ([id], [path], [enabled], [remark], [data]) VALUES\n"));
+        Assert.assertTrue(sql.contains("(1, 'it''s C:\\temp', 1, NULL, 0x0AFF)"));
+    }
+
+    @Test
+    public void testOracle() throws IOException {
+        String sql = write(DialectRegistry.getInstance().getDialectByName("oracle"));
+        Assert.assertTrue(sql.contains("(1, 'it''s C:\\temp', 1, NULL, HEXTORAW('0AFF'))"));
+    }
+
+    @Test
+    public void testRowPerInsertWithoutBatchSql() throws IOException {
+        Dialect dialect = new H2Dialect() {
+            @Override
+            public boolean isSupportsBatchSql() {
+                return false;
+            }
+        };
+        String insert = "INSERT INTO t (\"id\", \"path\", \"enabled\", \"remark\", \"data\") VALUES\n(1, 'it''s C:\\temp', TRUE, NULL, X'0AFF');\n";
+        Assert.assertEquals(insert + insert + insert, write(dialect));
+    }
+}
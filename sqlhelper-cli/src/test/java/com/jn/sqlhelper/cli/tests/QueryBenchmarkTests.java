@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.cli.tests;
+
+import com.jn.sqlhelper.cli.bench.QueryBenchmark;
+import com.jn.sqlhelper.common.connection.ConnectionFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.SQLException;
+
+public class QueryBenchmarkTests {
+    private static ConnectionFactory newConnectionFactory() {
+        return new ConnectionFactory("org.apache.derby.jdbc.EmbeddedDriver", "jdbc:derby:memory:sqlhelper_cli_bench;create=true", "sa", "sa", null);
+    }
+
+    @Test
+    public void testRun() throws SQLException {
+        QueryBenchmark benchmark = new QueryBenchmark(newConnectionFactory(), "SELECT TABLENAME FROM SYS.SYSTABLES");
+        benchmark.setDurationInSeconds(1);
+        benchmark.setWarmupInSeconds(0);
+        QueryBenchmark.Result result = benchmark.run();
+        Assert.assertEquals(0, result.getErrors());
+        Assert.assertTrue(result.getOperations() > 0);
+    }
+
+    @Test
+    public void testAbortOnConsecutiveErrors() {
+        QueryBenchmark benchmark = new QueryBenchmark(newConnectionFactory(), "SELECT * FROM NO_SUCH_TABLE");
+        benchmark.setDurationInSeconds(60);
+        benchmark.setWarmupInSeconds(0);
+        benchmark.setMaxConsecutiveErrors(3);
+        long start = System.currentTimeMillis();
+        try {
+            benchmark.run();
+            Assert.fail();
+        } catch (SQLException ex) {
+            Assert.assertTrue(ex.getMessage().contains("3 consecutive errors"));
+        }
+        // the worker doesn't spin on the error until the end of the duration
+        Assert.assertTrue(System.currentTimeMillis() - start < 30 * 1000);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.cli.tests;
+
+import com.jn.langx.util.io.IOs;
+import com.jn.sqlhelper.cli.data.CsvRowReader;
+import com.jn.sqlhelper.cli.data.DataFormat;
+import com.jn.sqlhelper.cli.data.TableDataExporter;
+import com.jn.sqlhelper.cli.data.TableDataImporter;
+import com.jn.sqlhelper.common.connection.ConnectionFactory;
+import com.jn.sqlhelper.common.ddl.dump.DatabaseLoader;
+import com.jn.sqlhelper.common.ddl.model.DatabaseDescription;
+import com.jn.sqlhelper.common.ddl.model.Table;
+import com.jn.sqlhelper.common.utils.Connections;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.StringReader;
+import java.sql.*;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exports a table of an embedded Derby database and imports the file into another table.
+ */
+public class TableDataImportExportTests {
+    private static final int ROWS = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ConnectionFactory connectionFactory;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws SQLException {
+        connectionFactory = new ConnectionFactory("org.apache.derby.jdbc.EmbeddedDriver", "jdbc:derby:memory:sqlhelper_cli_data;create=true", "sa", "sa", null);
+        connection = connectionFactory.getConnection();
+        Assert.assertNotNull(connection);
+        execute("CREATE TABLE SRC (ID INT NOT NULL PRIMARY KEY, NAME VARCHAR(32), DATA VARCHAR(16) FOR BIT DATA)");
+        execute("CREATE TABLE DST (ID INT NOT NULL PRIMARY KEY, NAME VARCHAR(32), DATA VARCHAR(16) FOR BIT DATA)");
+        PreparedStatement statement = connection.prepareStatement("INSERT INTO SRC (ID, NAME, DATA) VALUES (?, ?, ?)");
+        try {
+            for (int i = 1; i <= ROWS; i++) {
+                statement.setInt(1, i);
+                statement.setString(2, i % 3 == 0 ? null : "name, \"" + i + "\"");
+                statement.setBytes(3, i % 4 == 0 ? null : new byte[]{(byte) i, 0, (byte) 0xFF, (byte) (i * 16)});
+                statement.executeUpdate();
+            }
+        } finally {
+            IOs.close(statement);
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try {
+            execute("DROP TABLE SRC");
+            execute("DROP TABLE DST");
+        } finally {
+            IOs.close(connection);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute(sql);
+        } finally {
+            IOs.close(statement);
+        }
+    }
+
+    private File export() throws SQLException {
+        DatabaseDescription databaseDescription = new DatabaseDescription(connection.getMetaData());
+        Table table = new DatabaseLoader().loadTable(databaseDescription, Connections.getCatalog(connection), Connections.getSchema(connection), "SRC", true, true, false, false);
+        TableDataExporter exporter = new TableDataExporter(connectionFactory);
+        exporter.setDirectory(folder.getRoot());
+        exporter.setFormat(DataFormat.CSV);
+        List<File> files = exporter.export(connection, Collections.singletonList(table));
+        Assert.assertEquals(1, files.size());
+        Assert.assertEquals(ROWS, exporter.getExportedRows());
+        return files.get(0);
+    }
+
+    private TableDataImporter newImporter() {
+        TableDataImporter importer = new TableDataImporter(connectionFactory);
+        importer.setParallelism(1);
+        importer.setChunkSize(3);
+        return importer;
+    }
+
+    private void assertSameRows() throws SQLException {
+        Statement statement = connection.createStatement();
+        ResultSet rs = null;
+        try {
+            rs = statement.executeQuery("SELECT S.NAME, D.NAME, S.DATA, D.DATA FROM SRC S JOIN DST D ON S.ID = D.ID");
+            int rows = 0;
+            while (rs.next()) {
+                rows++;
+                Assert.assertEquals(rs.getString(1), rs.getString(2));
+                Assert.assertArrayEquals(rs.getBytes(3), rs.getBytes(4));
+            }
+            Assert.assertEquals(ROWS, rows);
+        } finally {
+            IOs.close(rs);
+            IOs.close(statement);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File file = export();
+        long rows = newImporter().importFile(connection, file, DataFormat.CSV, "DST");
+        Assert.assertEquals(ROWS, rows);
+        assertSameRows();
+    }
+
+    @Test
+    public void testResumeAfterFailure() throws Exception {
+        File file = export();
+        // the chunk [7, 8, 9] fails with a duplicate key, the chunks before it are committed
+        execute("INSERT INTO DST (ID, NAME) VALUES (7, 'conflict')");
+        try {
+            newImporter().importFile(connection, file, DataFormat.CSV, "DST");
+            Assert.fail();
+        } catch (SQLException ex) {
+            // expected
+        }
+        execute("DELETE FROM DST WHERE ID = 7");
+
+        // the committed chunks are not inserted again, else the keys are duplicated
+        long rows = newImporter().importFile(connection, file, DataFormat.CSV, "DST");
+        Assert.assertEquals(4, rows);
+        assertSameRows();
+    }
+
+    @Test
+    public void testReadBlankLines() throws Exception {
+        // a blank line is a null row of a one column table
+        CsvRowReader reader = new CsvRowReader(new StringReader("NAME\r\na\r\n\r\n\"\"\r\n"));
+        Assert.assertArrayEquals(new Object[]{"a"}, reader.next());
+        Assert.assertArrayEquals(new Object[]{null}, reader.next());
+        Assert.assertArrayEquals(new Object[]{""}, reader.next());
+        Assert.assertNull(reader.next());
+
+        // the blank lines are skipped in the other tables
+        reader = new CsvRowReader(new StringReader("ID,NAME\n1,a\n\n2,\n"));
+        Assert.assertArrayEquals(new Object[]{"1", "a"}, reader.next());
+        Assert.assertArrayEquals(new Object[]{"2", null}, reader.next());
+        Assert.assertNull(reader.next());
+    }
+}
@@ -15,6 +15,7 @@
 package com.jn.sqlhelper.common.batch.jdbc;
 
 import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.io.IOs;
 import com.jn.sqlhelper.common.batch.BatchResult;
 import com.jn.sqlhelper.common.batch.BatchStatement;
 import com.jn.sqlhelper.common.batch.BatchMode;
@@ -28,19 +29,42 @@ import java.util.List;
 
 public class BatchSqlBatchUpdater<E, STATEMENT extends BatchStatement> implements BatchUpdater<E, STATEMENT> {
     Connection connection;
-    PreparedStatementSetter setter;
+    /**
+     * binds all the parameters, the sql is expected to have the placeholders of all the parameters
+     */
+    PreparedStatementSetter<List<E>> setter;
+
+    public BatchSqlBatchUpdater() {
+    }
+
+    public BatchSqlBatchUpdater(Connection connection, PreparedStatementSetter<List<E>> setter) {
+        this.connection = connection;
+        this.setter = setter;
+    }
+
+    public void setConnection(Connection connection) {
+        this.connection = connection;
+    }
+
+    public void setSetter(PreparedStatementSetter<List<E>> setter) {
+        this.setter = setter;
+    }
 
     @Override
-    public BatchResult batchUpdate(STATEMENT statement, List<E> parameters) throws SQLException {
+    public BatchResult<E> batchUpdate(STATEMENT statement, List<E> parameters) throws SQLException {
         Preconditions.checkNotNull(statement);
         Preconditions.checkArgument(statement.getBatchMode() == BatchMode.BATCH_SQL);
         PreparedStatement pstmt = connection.prepareStatement(statement.getSql());
-        setter.setParameters(pstmt, 1, parameters);
-        int updatedRows = pstmt.executeUpdate();
-        BatchResult result = new BatchResult();
-        result.setRowsAffected(updatedRows);
-        result.setStatement(statement);
-        result.setParameters(parameters);
-        return result;
+        try {
+            setter.setParameters(pstmt, 1, parameters);
+            int updatedRows = pstmt.executeUpdate();
+            BatchResult<E> result = new BatchResult<E>();
+            result.setRowsAffected(updatedRows);
+            result.setStatement(statement);
+            result.setParameters(parameters);
+            return result;
+        } finally {
+            IOs.close(pstmt);
+        }
     }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.common.batch.jdbc;
+
+import com.jn.sqlhelper.common.batch.BatchMode;
+import com.jn.sqlhelper.common.batch.BatchStatement;
+
+public class JdbcBatchStatement implements BatchStatement {
+    private BatchMode batchMode = BatchMode.JDBC_BATCH;
+    private String sql;
+
+    public JdbcBatchStatement() {
+    }
+
+    public JdbcBatchStatement(BatchMode batchMode, String sql) {
+        setBatchMode(batchMode);
+        setSql(sql);
+    }
+
+    @Override
+    public BatchMode getBatchMode() {
+        return batchMode;
+    }
+
+    @Override
+    public void setBatchMode(BatchMode batchMode) {
+        this.batchMode = batchMode == null ? BatchMode.JDBC_BATCH : batchMode;
+    }
+
+    @Override
+    public String getSql() {
+        return sql;
+    }
+
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+}
@@ -15,6 +15,7 @@
 package com.jn.sqlhelper.common.batch.jdbc;
 
 import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.io.IOs;
 import com.jn.sqlhelper.common.batch.BatchResult;
 import com.jn.sqlhelper.common.batch.BatchStatement;
 import com.jn.sqlhelper.common.batch.BatchMode;
@@ -24,26 +25,52 @@ import com.jn.sqlhelper.common.statement.PreparedStatementSetter;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 
 public class JdbcBatchUpdater<E, STATEMENT extends BatchStatement> implements BatchUpdater<E, STATEMENT> {
     Connection connection;
     PreparedStatementSetter<E> setter;
 
+    public JdbcBatchUpdater() {
+    }
+
+    public JdbcBatchUpdater(Connection connection, PreparedStatementSetter<E> setter) {
+        this.connection = connection;
+        this.setter = setter;
+    }
+
+    public void setConnection(Connection connection) {
+        this.connection = connection;
+    }
+
+    public void setSetter(PreparedStatementSetter<E> setter) {
+        this.setter = setter;
+    }
+
     @Override
     public BatchResult<E> batchUpdate(STATEMENT statement, List<E> parametersList) throws SQLException {
         Preconditions.checkNotNull(statement);
         Preconditions.checkArgument(statement.getBatchMode() == BatchMode.JDBC_BATCH);
         PreparedStatement pstmt = connection.prepareStatement(statement.getSql());
-        for (int i = 0; i < parametersList.size(); i++) {
-            setter.setParameters(pstmt, 1, parametersList.get(i));
-            pstmt.addBatch();
+        try {
+            for (int i = 0; i < parametersList.size(); i++) {
+                setter.setParameters(pstmt, 1, parametersList.get(i));
+                pstmt.addBatch();
+            }
+            int[] updateds = pstmt.executeBatch();
+            int sum = 0;
+            for (int updated : updateds) {
+                // the driver may return SUCCESS_NO_INFO for every statement
+                sum = sum + (updated == Statement.SUCCESS_NO_INFO ? 1 : updated);
+            }
+            BatchResult<E> result = new BatchResult<E>();
+            result.setParameters(parametersList);
+            result.setStatement(statement);
+            result.setRowsAffected(sum);
+            return result;
+        } finally {
+            IOs.close(pstmt);
         }
-        int[] updateds = pstmt.executeBatch();
-        BatchResult<E> result = new BatchResult<E>();
-        result.setParameters(parametersList);
-        result.setStatement(statement);
-        result.setRowsAffected(updateds[0]);
-        return result;
     }
 }
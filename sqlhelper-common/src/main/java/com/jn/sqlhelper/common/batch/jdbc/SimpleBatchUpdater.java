@@ -15,6 +15,7 @@
 package com.jn.sqlhelper.common.batch.jdbc;
 
 import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.io.IOs;
 import com.jn.sqlhelper.common.batch.BatchResult;
 import com.jn.sqlhelper.common.batch.BatchStatement;
 import com.jn.sqlhelper.common.batch.BatchMode;
@@ -30,16 +31,37 @@ public class SimpleBatchUpdater<E, STATEMENT extends BatchStatement> implements
     Connection connection;
     PreparedStatementSetter<E> setter;
 
+    public SimpleBatchUpdater() {
+    }
+
+    public SimpleBatchUpdater(Connection connection, PreparedStatementSetter<E> setter) {
+        this.connection = connection;
+        this.setter = setter;
+    }
+
+    public void setConnection(Connection connection) {
+        this.connection = connection;
+    }
+
+    public void setSetter(PreparedStatementSetter<E> setter) {
+        this.setter = setter;
+    }
+
     @Override
     public BatchResult<E> batchUpdate(STATEMENT statement, List<E> parametersList) throws SQLException {
         Preconditions.checkNotNull(statement);
         Preconditions.checkArgument(statement.getBatchMode() == BatchMode.SIMPLE);
         int sum = 0;
-        for (int i = 0; i < parametersList.size(); i++) {
-            PreparedStatement pstmt = connection.prepareStatement(statement.getSql());
-            setter.setParameters(pstmt, 1, parametersList.get(i));
-            int updated = pstmt.executeUpdate();
-            sum = sum + updated;
+        PreparedStatement pstmt = connection.prepareStatement(statement.getSql());
+        try {
+            for (int i = 0; i < parametersList.size(); i++) {
+                pstmt.clearParameters();
+                setter.setParameters(pstmt, 1, parametersList.get(i));
+                int updated = pstmt.executeUpdate();
+                sum = sum + updated;
+            }
+        } finally {
+            IOs.close(pstmt);
         }
         BatchResult<E> result = new BatchResult<E>();
         result.setStatement(statement);
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.common.context;
+
+import com.jn.langx.util.Preconditions;
+
+import java.io.Closeable;
+
+/**
+ * Binds a value to a {@link ContextStorage} until it is closed, the previous value is restored when closing,
+ * so the scopes can be nested. It needs the {@link ContextStorage#set(Object)} of the storage, prefer
+ * {@link ContextStorage#runWith(Object, java.util.concurrent.Callable)} which works with any storage.
+ * Use it with try-with-resources or a try-finally block:
+ * <pre>
+ *     ContextScope scope = PagingRequestContextHolder.getContext().openScope(request);
+ *     try {
+ *         // do query
+ *     } finally {
+ *         scope.close();
+ *     }
+ * </pre>
+ */
+public class ContextScope<T> implements Closeable {
+    private final ContextStorage<T> storage;
+    private final T value;
+    private final T previous;
+    private boolean closed = false;
+
+    public ContextScope(ContextStorage<T> storage, T value) {
+        Preconditions.checkNotNull(storage, "the context storage is null");
+        this.storage = storage;
+        this.value = value;
+        this.previous = storage.get();
+        storage.set(value);
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    protected void onClose(T value) {
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            onClose(value);
+        } finally {
+            if (previous == null) {
+                storage.remove();
+            } else {
+                storage.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.common.context;
+
+import java.util.concurrent.Callable;
+
+/**
+ * The storage of a request scoped value, e.g. the paging request, the current dialect, the selected datasource key.
+ * <p>
+ * The default implementation is based on ThreadLocal. On the platforms where the per-thread map is costly (e.g. the
+ * virtual threads), a storage based on ScopedValue or any other explicit context passing can be plugged in with
+ * {@link ContextStorages#setFactory(ContextStorageFactory)}.
+ * <p>
+ * A scope is {@link #runWith(Object, Callable)}, the binding is visible only during the invocation, it is the only
+ * operation a ScopedValue style storage has to support. {@link #set(Object)} and {@link #remove()} are the unscoped
+ * legacy operations, such a storage may throw {@link UnsupportedOperationException} for them.
+ *
+ * @param <T> the value type
+ */
+public interface ContextStorage<T> {
+    T get();
+
+    void set(T value);
+
+    void remove();
+
+    /**
+     * bind the value only during the invocation of the callable, the previous value will be restored after it.
+     */
+    <V> V runWith(T value, Callable<V> callable) throws Exception;
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.common.context;
+
+import com.jn.langx.util.Preconditions;
+
+/**
+ * The factory must be set before the context holders (PagingRequestContextHolder, DataSourceKeySelector etc.) are
+ * loaded, they create their storages when the classes are initialized.
+ */
+public class ContextStorages {
+    private static volatile ContextStorageFactory factory = new ContextStorageFactory() {
+        @Override
+        public <T> ContextStorage<T> create(String name) {
+            return new ThreadLocalContextStorage<T>(name);
+        }
+    };
+
+    private ContextStorages() {
+    }
+
+    public static void setFactory(ContextStorageFactory factory) {
+        Preconditions.checkNotNull(factory, "the context storage factory is null");
+        ContextStorages.factory = factory;
+    }
+
+    public static <T> ContextStorage<T> newStorage(String name) {
+        return factory.create(name);
+    }
+}
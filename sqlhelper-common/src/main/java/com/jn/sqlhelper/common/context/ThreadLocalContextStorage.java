@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.common.context;
+
+import java.util.concurrent.Callable;
+
+public class ThreadLocalContextStorage<T> implements ContextStorage<T> {
+    private final ThreadLocal<T> holder = new ThreadLocal<T>();
+    private final String name;
+
+    public ThreadLocalContextStorage(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public T get() {
+        return holder.get();
+    }
+
+    @Override
+    public void set(T value) {
+        if (value == null) {
+            // never keep an entry for null in the thread local map
+            holder.remove();
+        } else {
+            holder.set(value);
+        }
+    }
+
+    @Override
+    public void remove() {
+        holder.remove();
+    }
+
+    @Override
+    public <V> V runWith(T value, Callable<V> callable) throws Exception {
+        ContextScope<T> scope = new ContextScope<T>(this, value);
+        try {
+            return callable.call();
+        } finally {
+            scope.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ThreadLocalContextStorage{" + name + "}";
+    }
+}
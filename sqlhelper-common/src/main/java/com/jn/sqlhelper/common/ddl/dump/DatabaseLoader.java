@@ -18,17 +18,36 @@ import com.jn.langx.util.Emptys;
 import com.jn.langx.util.collection.Collects;
 import com.jn.langx.util.function.Consumer;
 import com.jn.langx.util.io.IOs;
+import com.jn.sqlhelper.common.connection.ConnectionFactory;
 import com.jn.sqlhelper.common.ddl.model.*;
 import com.jn.sqlhelper.common.ddl.model.internal.TableType;
 import com.jn.sqlhelper.common.resultset.BeanRowMapper;
 import com.jn.sqlhelper.common.resultset.RowMapperResultSetExtractor;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
 
+/**
+ * Loads table metadata from a {@link DatabaseMetaData}.
+ * <p>
+ * When more than one table is loaded, columns, primary keys, indexes and foreign keys are fetched with one
+ * schema-wide call each (a {@code null} table name) and grouped into the tables in a single pass. A driver that
+ * rejects the bulk call, or returns nothing for it, falls back to the per-table calls, which are fanned out over
+ * {@code parallelism} connections when a {@link ConnectionFactory} is configured. The tables which get no column
+ * from the bulk call are loaded alone too.
+ */
 public class DatabaseLoader {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseLoader.class);
 
     private static final String[] tableTypes = new String[]{
             TableType.GLOBAL_TEMPORARY.getCode(),
@@ -36,6 +55,45 @@ public class DatabaseLoader {
             TableType.TABLE.getCode()
     };
 
+    private boolean bulkEnabled = true;
+    private ConnectionFactory connectionFactory;
+    private int parallelism = 1;
+
+    public DatabaseLoader() {
+    }
+
+    /**
+     * @param connectionFactory used by the per-table fallback, every worker borrows its own connection
+     * @param parallelism       the max connections used by the per-table fallback
+     */
+    public DatabaseLoader(ConnectionFactory connectionFactory, int parallelism) {
+        this.connectionFactory = connectionFactory;
+        this.parallelism = parallelism;
+    }
+
+    public boolean isBulkEnabled() {
+        return bulkEnabled;
+    }
+
+    public void setBulkEnabled(boolean bulkEnabled) {
+        this.bulkEnabled = bulkEnabled;
+    }
+
+    public ConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    public void setConnectionFactory(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
 
     public Table loadTable(DatabaseDescription databaseDescription, String catalog, String schema, String tableName) throws SQLException {
         return loadTable(databaseDescription, catalog, schema, tableName, false, false, false, false);
@@ -61,21 +119,50 @@ public class DatabaseLoader {
             tablesRs = databaseDescription.getDbMetaData().getTables(catalogNamePattern, schemaNamePattern, tableNamePattern, tableTypes);
             tables = new RowMapperResultSetExtractor<Table>(new BeanRowMapper<Table>(Table.class)).extract(tablesRs);
             DatabaseMetaData dbMetaData = databaseDescription.getDbMetaData();
-            for (Table table : tables) {
+            if (Emptys.isEmpty(tables) || !(isLoadColumns || isLoadPks || isLoadIndexes || isLoadFks)) {
+                return tables;
+            }
+
+            boolean bulk = bulkEnabled && tables.size() > 1;
+            if (bulk) {
+                Map<String, Table> tableMap = new HashMap<String, Table>();
+                for (Table table : tables) {
+                    tableMap.put(tableKey(table.getCatalog(), table.getSchema(), table.getName()), table);
+                }
                 if (isLoadColumns) {
-                    findColumns(dbMetaData, table);
+                    // every table has columns, an empty result means the driver does not support the null table name
+                    bulk = bulkFindColumns(dbMetaData, catalogNamePattern, schemaNamePattern, tableNamePattern, tableMap);
+                    isLoadColumns = !bulk;
+                    if (bulk) {
+                        // the bulk rows of a table are not matched when the driver reports its names differently
+                        List<Table> tablesWithoutColumns = new ArrayList<Table>();
+                        for (Table table : tables) {
+                            if (Emptys.isEmpty(table.getColumns())) {
+                                tablesWithoutColumns.add(table);
+                            }
+                        }
+                        if (!tablesWithoutColumns.isEmpty()) {
+                            logger.debug("No column of {} tables is found in the bulk result, will load them table by table", tablesWithoutColumns.size());
+                            loadTableDetails(dbMetaData, tablesWithoutColumns, true, false, false, false);
+                        }
+                    }
                 }
-
-                if (isLoadPks) {
-                    findTablePKs(dbMetaData, table);
+                if (bulk && isLoadPks && bulkFindTablePKs(dbMetaData, catalogNamePattern, schemaNamePattern, tableMap)) {
+                    isLoadPks = false;
                 }
-
-                if (isLoadIndexes) {
-                    findTableIndexes(dbMetaData, table);
+                if (bulk && isLoadIndexes && bulkFindTableIndexes(dbMetaData, catalogNamePattern, schemaNamePattern, tableMap)) {
+                    isLoadIndexes = false;
+                }
+                if (bulk && isLoadFks && bulkFindTableFKs(dbMetaData, catalogNamePattern, schemaNamePattern, tableMap)) {
+                    isLoadFks = false;
                 }
+            }
 
-                if (isLoadFks) {
-                    findTableFKs(dbMetaData, table);
+            if (isLoadColumns || isLoadPks || isLoadIndexes || isLoadFks) {
+                if (connectionFactory != null && parallelism > 1 && tables.size() > 1) {
+                    parallelLoadTableDetails(tables, isLoadColumns, isLoadPks, isLoadIndexes, isLoadFks);
+                } else {
+                    loadTableDetails(dbMetaData, tables, isLoadColumns, isLoadPks, isLoadIndexes, isLoadFks);
                 }
             }
         } finally {
@@ -84,6 +171,184 @@ public class DatabaseLoader {
         return tables;
     }
 
+    private void loadTableDetails(DatabaseMetaData dbMetaData, List<Table> tables, boolean isLoadColumns, boolean isLoadPks, boolean isLoadIndexes, boolean isLoadFks) throws SQLException {
+        for (Table table : tables) {
+            if (isLoadColumns) {
+                findColumns(dbMetaData, table);
+            }
+
+            if (isLoadPks) {
+                findTablePKs(dbMetaData, table);
+            }
+
+            if (isLoadIndexes) {
+                findTableIndexes(dbMetaData, table);
+            }
+
+            if (isLoadFks) {
+                findTableFKs(dbMetaData, table);
+            }
+        }
+    }
+
+    /**
+     * Splits the tables into {@code parallelism} slices, every slice is loaded with its own connection,
+     * so a table is only touched by one worker.
+     */
+    private void parallelLoadTableDetails(List<Table> tables, final boolean isLoadColumns, final boolean isLoadPks, final boolean isLoadIndexes, final boolean isLoadFks) throws SQLException {
+        int workers = Math.min(parallelism, tables.size());
+        int sliceSize = (tables.size() + workers - 1) / workers;
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(workers);
+            for (int offset = 0; offset < tables.size(); offset += sliceSize) {
+                final List<Table> slice = tables.subList(offset, Math.min(offset + sliceSize, tables.size()));
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        Connection connection = connectionFactory.getConnection();
+                        if (connection == null) {
+                            throw new SQLException("Can't get a connection to load the table metadata");
+                        }
+                        try {
+                            loadTableDetails(connection.getMetaData(), slice, isLoadColumns, isLoadPks, isLoadIndexes, isLoadFks);
+                        } finally {
+                            IOs.close(connection);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof SQLException) {
+                        throw (SQLException) cause;
+                    }
+                    throw new SQLException(cause.getMessage(), cause);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted when load the table metadata", ex);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String tableKey(String catalog, String schema, String tableName) {
+        // a driver may report the absent catalog or schema as null in one result and as "" in another
+        return (Emptys.isEmpty(catalog) ? "" : catalog) + "." + (Emptys.isEmpty(schema) ? "" : schema) + "." + tableName;
+    }
+
+    private boolean bulkFindColumns(DatabaseMetaData dbMetaData, String catalog, String schemaPattern, String tableNamePattern, Map<String, Table> tableMap) {
+        ResultSet columnsRs = null;
+        try {
+            columnsRs = dbMetaData.getColumns(catalog, schemaPattern, tableNamePattern, null);
+            List<Column> columns = new RowMapperResultSetExtractor<Column>(new BeanRowMapper<Column>(Column.class)).extract(columnsRs);
+            if (Emptys.isEmpty(columns)) {
+                return false;
+            }
+            for (Column column : columns) {
+                Table table = tableMap.get(tableKey(column.getCatalog(), column.getSchema(), column.getTableName()));
+                if (table != null) {
+                    table.addColumn(column);
+                }
+            }
+            return true;
+        } catch (Throwable ex) {
+            logger.warn("Can't load the columns of all tables in one call, will load them table by table, error: {}", ex.getMessage());
+            return false;
+        } finally {
+            IOs.close(columnsRs);
+        }
+    }
+
+    private boolean bulkFindTablePKs(DatabaseMetaData dbMetaData, String catalog, String schema, Map<String, Table> tableMap) {
+        ResultSet pkRs = null;
+        try {
+            pkRs = dbMetaData.getPrimaryKeys(catalog, schema, null);
+            List<PrimaryKeyColumn> pkColumns = new RowMapperResultSetExtractor<PrimaryKeyColumn>(new BeanRowMapper<PrimaryKeyColumn>(PrimaryKeyColumn.class)).extract(pkRs);
+            if (Emptys.isEmpty(pkColumns)) {
+                // some drivers compare the table name with '=', the null table name matches nothing
+                return false;
+            }
+            for (PrimaryKeyColumn pk : pkColumns) {
+                Table table = tableMap.get(tableKey(pk.getCatalog(), pk.getSchema(), pk.getTableName()));
+                if (table != null) {
+                    table.addPKColumn(pk);
+                }
+            }
+            return true;
+        } catch (Throwable ex) {
+            logger.warn("Can't load the primary keys of all tables in one call, will load them table by table, error: {}", ex.getMessage());
+            return false;
+        } finally {
+            IOs.close(pkRs);
+        }
+    }
+
+    private boolean bulkFindTableIndexes(DatabaseMetaData dbMetaData, String catalog, String schema, Map<String, Table> tableMap) {
+        ResultSet indexesRs = null;
+        try {
+            indexesRs = dbMetaData.getIndexInfo(catalog, schema, null, false, false);
+            List<IndexColumn> indexes = new RowMapperResultSetExtractor<IndexColumn>(new BeanRowMapper<IndexColumn>(IndexColumn.class)).extract(indexesRs);
+            if (Emptys.isEmpty(indexes)) {
+                // some drivers compare the table name with '=', the null table name matches nothing
+                return false;
+            }
+            for (IndexColumn indexColumn : indexes) {
+                Table table = tableMap.get(tableKey(indexColumn.getCatalog(), indexColumn.getSchema(), indexColumn.getTableName()));
+                if (table != null) {
+                    addIndexColumn(table, indexColumn);
+                }
+            }
+            return true;
+        } catch (Throwable ex) {
+            logger.warn("Can't load the indexes of all tables in one call, will load them table by table, error: {}", ex.getMessage());
+            return false;
+        } finally {
+            IOs.close(indexesRs);
+        }
+    }
+
+    private boolean bulkFindTableFKs(DatabaseMetaData dbMetaData, String catalog, String schema, Map<String, Table> tableMap) {
+        ResultSet fkRs = null;
+        try {
+            fkRs = dbMetaData.getImportedKeys(catalog, schema, null);
+            List<ImportedColumn> fkColumns = new RowMapperResultSetExtractor<ImportedColumn>(new BeanRowMapper<ImportedColumn>(ImportedColumn.class)).extract(fkRs);
+            if (Emptys.isEmpty(fkColumns)) {
+                // some drivers compare the table name with '=', the null table name matches nothing
+                return false;
+            }
+            for (ImportedColumn fk : fkColumns) {
+                Table table = tableMap.get(tableKey(fk.getFkTableCatalog(), fk.getFkTableSchema(), fk.getFkTableName()));
+                if (table != null) {
+                    table.addFKColumn(fk);
+                }
+            }
+            return true;
+        } catch (Throwable ex) {
+            logger.warn("Can't load the foreign keys of all tables in one call, will load them table by table, error: {}", ex.getMessage());
+            return false;
+        } finally {
+            IOs.close(fkRs);
+        }
+    }
+
+    private static void addIndexColumn(Table table, IndexColumn indexColumn) {
+        String indexName = indexColumn.getIndexName();
+        Index index = table.getIndex(indexName);
+        if (index == null) {
+            index = new Index(table.getCatalog(), table.getSchema(), table.getName(), indexName);
+            table.addIndex(index);
+        }
+
+        index.addColumn(indexColumn);
+    }
+
     private void findColumns(DatabaseMetaData dbMetaData, final Table table) throws SQLException {
         ResultSet columnsRs = null;
         try {
@@ -117,14 +382,7 @@ public class DatabaseLoader {
             Collects.forEach(indexes, new Consumer<IndexColumn>() {
                 @Override
                 public void accept(IndexColumn indexColumn) {
-                    String indexName = indexColumn.getIndexName();
-                    Index index = table.getIndex(indexName);
-                    if (index == null) {
-                        index = new Index(table.getCatalog(), table.getSchema(), table.getName(), indexName);
-                        table.addIndex(index);
-                    }
-
-                    index.addColumn(indexColumn);
+                    addIndexColumn(table, indexColumn);
                 }
             });
         } finally {
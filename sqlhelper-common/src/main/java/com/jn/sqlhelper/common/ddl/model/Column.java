@@ -8,7 +8,11 @@ import com.jn.sqlhelper.common.ddl.model.internal.BooleanFlagConverter;
 import com.jn.sqlhelper.common.ddl.model.internal.JdbcType;
 import com.jn.sqlhelper.common.ddl.model.internal.JdbcTypeConverter;
 
-public class Column {
+import java.io.Serializable;
+
+public class Column implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     @Nullable
     @com.jn.sqlhelper.common.annotation.Column("TABLE_CAT")
     private String catalog;
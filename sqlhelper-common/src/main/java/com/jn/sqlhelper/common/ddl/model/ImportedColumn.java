@@ -7,7 +7,11 @@ import com.jn.sqlhelper.common.ddl.model.internal.FkInitiallyRuleConverter;
 import com.jn.sqlhelper.common.ddl.model.internal.FkMutatedRule;
 import com.jn.sqlhelper.common.ddl.model.internal.FkMutatedRuleConverter;
 
-public class ImportedColumn {
+import java.io.Serializable;
+
+public class ImportedColumn implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     @Column({"PKTABLE_CAT","PKTABLE_CATALOG"})
     private String pkTableCatalog;
 
@@ -3,22 +3,29 @@ package com.jn.sqlhelper.common.ddl.model;
 import com.jn.easyjson.core.JSONBuilderProvider;
 import com.jn.langx.util.Preconditions;
 
+import java.io.Serializable;
 import java.util.Comparator;
 import java.util.Set;
 import java.util.TreeSet;
 
-public class Index {
+public class Index implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String catalog;
     private String schema;
     private String tableName;
     private String name;
 
-    private final Set<IndexColumn> indexColumns = new TreeSet<IndexColumn>(new Comparator<IndexColumn>() {
+    private final Set<IndexColumn> indexColumns = new TreeSet<IndexColumn>(new IndexColumnComparator());
+
+    private static class IndexColumnComparator implements Comparator<IndexColumn>, Serializable {
+        private static final long serialVersionUID = 1L;
+
         @Override
         public int compare(IndexColumn c1, IndexColumn c2) {
             return c1.getOrdinalPosition() - c2.getOrdinalPosition();
         }
-    });
+    }
 
     public Index() {
     }
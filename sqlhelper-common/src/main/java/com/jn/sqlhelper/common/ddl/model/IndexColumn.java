@@ -9,7 +9,11 @@ import com.jn.sqlhelper.common.ddl.model.internal.IndexTypeConverter;
 import com.jn.sqlhelper.common.ddl.model.internal.SortType;
 import com.jn.sqlhelper.common.ddl.model.internal.SortTypeConverter;
 
-public class IndexColumn {
+import java.io.Serializable;
+
+public class IndexColumn implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     @Nullable
     @Column({"TABLE_CAT", "TABLE_CATALOG"})
     private String catalog;
@@ -4,7 +4,11 @@ import com.jn.langx.annotation.NonNull;
 import com.jn.langx.annotation.Nullable;
 import com.jn.sqlhelper.common.annotation.Column;
 
-public class PrimaryKeyColumn {
+import java.io.Serializable;
+
+public class PrimaryKeyColumn implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     @Nullable
     @Column({"TABLE_CAT","TABLE_CATALOG"})
     private String catalog;
@@ -10,9 +10,12 @@ import com.jn.sqlhelper.common.annotation.Column;
 import com.jn.sqlhelper.common.ddl.model.internal.TableType;
 import com.jn.sqlhelper.common.ddl.model.internal.TableTypeConverter;
 
+import java.io.Serializable;
 import java.util.*;
 
-public class Table {
+public class Table implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     @Nullable
     @Column({"TABLE_CAT", "TABLE_CATALOG"})
     private String catalog;
@@ -48,24 +51,9 @@ public class Table {
     @Nullable
     private String sql;
 
-    private final Map<String, Index> indexMap = new TreeMap<String, Index>(new Comparator<String>() {
-        @Override
-        public int compare(String key1, String key2) {
-            return key1.compareToIgnoreCase(key2);
-        }
-    });
-    private final Set<com.jn.sqlhelper.common.ddl.model.Column> columns = new TreeSet<com.jn.sqlhelper.common.ddl.model.Column>(new Comparator<com.jn.sqlhelper.common.ddl.model.Column>() {
-        @Override
-        public int compare(com.jn.sqlhelper.common.ddl.model.Column o1, com.jn.sqlhelper.common.ddl.model.Column o2) {
-            return o1.getOrdinalPosition() - o2.getOrdinalPosition();
-        }
-    });
-    private final Set<PrimaryKeyColumn> pkColumns = new TreeSet<PrimaryKeyColumn>(new Comparator<PrimaryKeyColumn>() {
-        @Override
-        public int compare(PrimaryKeyColumn o1, PrimaryKeyColumn o2) {
-            return o1.getKeySeq() - o2.getKeySeq();
-        }
-    });
+    private final Map<String, Index> indexMap = new TreeMap<String, Index>(new IndexNameComparator());
+    private final Set<com.jn.sqlhelper.common.ddl.model.Column> columns = new TreeSet<com.jn.sqlhelper.common.ddl.model.Column>(new ColumnComparator());
+    private final Set<PrimaryKeyColumn> pkColumns = new TreeSet<PrimaryKeyColumn>(new PrimaryKeyColumnComparator());
 
     private final Map<String, ImportedColumn> fkColumnMap = new HashMap<String, ImportedColumn>();
 
@@ -211,4 +199,34 @@ public class Table {
         fkColumnMap.put(fkColumn.getFkColumnName(), fkColumn);
     }
 
+
+    /**
+     * the comparators are serializable, so a table can be kept in a snapshot file
+     */
+    private static class IndexNameComparator implements Comparator<String>, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int compare(String key1, String key2) {
+            return key1.compareToIgnoreCase(key2);
+        }
+    }
+
+    private static class ColumnComparator implements Comparator<com.jn.sqlhelper.common.ddl.model.Column>, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int compare(com.jn.sqlhelper.common.ddl.model.Column o1, com.jn.sqlhelper.common.ddl.model.Column o2) {
+            return o1.getOrdinalPosition() - o2.getOrdinalPosition();
+        }
+    }
+
+    private static class PrimaryKeyColumnComparator implements Comparator<PrimaryKeyColumn>, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int compare(PrimaryKeyColumn o1, PrimaryKeyColumn o2) {
+            return o1.getKeySeq() - o2.getKeySeq();
+        }
+    }
 }
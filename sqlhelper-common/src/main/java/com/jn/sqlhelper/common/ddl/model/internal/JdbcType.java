@@ -60,6 +60,10 @@ public enum JdbcType {
 
     private int code;
 
+    public int getCode() {
+        return code;
+    }
+
     public static final JdbcType ofCode(final int code) {
         JdbcType jdbcType = Collects.findFirst(EnumSet.allOf(JdbcType.class), new Predicate<JdbcType>() {
             @Override
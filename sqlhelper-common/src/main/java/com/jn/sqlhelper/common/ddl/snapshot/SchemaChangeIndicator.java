@@ -0,0 +1,30 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.common.ddl.snapshot;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Reads a cheap per-table change indicator, e.g. the last DDL time from the data dictionary,
+ * so that a {@link SchemaSnapshot} only reloads the tables whose indicator has changed.
+ */
+public interface SchemaChangeIndicator {
+    /**
+     * @return table name -> change indicator
+     */
+    Map<String, String> getTableVersions(Connection connection, String catalog, String schema) throws SQLException;
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.common.ddl.snapshot;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The built-in change indicators, keyed by the lower case of {@link java.sql.DatabaseMetaData#getDatabaseProductName()}.
+ */
+public class SchemaChangeIndicators {
+    private static final Map<String, SchemaChangeIndicator> indicators = new ConcurrentHashMap<String, SchemaChangeIndicator>();
+
+    static {
+        // the CREATE_TIME doesn't change on an INSTANT or in-place ALTER TABLE, so the columns and the indexes are fingerprinted too.
+        // SUM(CRC32(..)) is used rather than GROUP_CONCAT, which is truncated at group_concat_max_len
+        SchemaChangeIndicator mysql = new SqlSchemaChangeIndicator("SELECT t.TABLE_NAME, CONCAT_WS(':', IFNULL(t.CREATE_TIME, ''), IFNULL(c.FINGERPRINT, ''), IFNULL(s.FINGERPRINT, '')) " +
+                "FROM information_schema.TABLES t " +
+                "LEFT JOIN (SELECT TABLE_NAME, CONCAT(COUNT(*), '-', SUM(CRC32(CONCAT_WS(',', COLUMN_NAME, ORDINAL_POSITION, COLUMN_TYPE, IS_NULLABLE, IFNULL(COLUMN_DEFAULT, '<null>'), EXTRA, COLUMN_COMMENT)))) AS FINGERPRINT " +
+                "FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = ? GROUP BY TABLE_NAME) c ON c.TABLE_NAME = t.TABLE_NAME " +
+                "LEFT JOIN (SELECT TABLE_NAME, CONCAT(COUNT(*), '-', SUM(CRC32(CONCAT_WS(',', INDEX_NAME, SEQ_IN_INDEX, COLUMN_NAME, NON_UNIQUE)))) AS FINGERPRINT " +
+                "FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = ? GROUP BY TABLE_NAME) s ON s.TABLE_NAME = t.TABLE_NAME " +
+                "WHERE t.TABLE_SCHEMA = ?", 3);
+        register("mysql", mysql);
+        register("mariadb", mysql);
+        // PostgreSQL has no DDL time, the xmin of the catalog rows changes when a column is changed.
+        // An index is identified by its oid, a dropped and re-created index has a new oid
+        register("postgresql", new SqlSchemaChangeIndicator("SELECT c.relname, c.xmin::text || ':' || " +
+                "(SELECT max(a.xmin::text::bigint) FROM pg_attribute a WHERE a.attrelid = c.oid) || ':' || " +
+                "coalesce((SELECT string_agg(i.indexrelid::text, ',' ORDER BY i.indexrelid) FROM pg_index i WHERE i.indrelid = c.oid), '') " +
+                "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname = ? AND c.relkind IN ('r', 'p')"));
+        register("oracle", new SqlSchemaChangeIndicator("SELECT OBJECT_NAME, TO_CHAR(LAST_DDL_TIME, 'YYYYMMDDHH24MISS') FROM ALL_OBJECTS WHERE OWNER = ? AND OBJECT_TYPE = 'TABLE'"));
+        register("microsoft sql server", new SqlSchemaChangeIndicator("SELECT name, CONVERT(VARCHAR(30), modify_date, 126) FROM sys.tables WHERE schema_id = SCHEMA_ID(?)"));
+    }
+
+    private SchemaChangeIndicators() {
+    }
+
+    public static void register(String databaseProductName, SchemaChangeIndicator indicator) {
+        indicators.put(databaseProductName.toLowerCase(Locale.ENGLISH), indicator);
+    }
+
+    /**
+     * @return the change indicator, null if the database has none
+     */
+    public static SchemaChangeIndicator findIndicator(String databaseProductName) {
+        if (databaseProductName == null) {
+            return null;
+        }
+        return indicators.get(databaseProductName.toLowerCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.common.ddl.snapshot;
+
+import com.jn.sqlhelper.common.ddl.model.Table;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * The tables of a catalog/schema and the change indicator of every table at the time they were loaded.
+ */
+public class SchemaSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String key;
+    private String databaseProductName;
+    private String databaseProductVersion;
+    private String catalog;
+    private String schema;
+    private long refreshTime;
+    /**
+     * table name -> change indicator, empty if the database has no change indicator
+     */
+    private final Map<String, String> tableVersions = new HashMap<String, String>();
+    private final Map<String, Table> tables = new TreeMap<String, Table>(String.CASE_INSENSITIVE_ORDER);
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getDatabaseProductName() {
+        return databaseProductName;
+    }
+
+    public void setDatabaseProductName(String databaseProductName) {
+        this.databaseProductName = databaseProductName;
+    }
+
+    public String getDatabaseProductVersion() {
+        return databaseProductVersion;
+    }
+
+    public void setDatabaseProductVersion(String databaseProductVersion) {
+        this.databaseProductVersion = databaseProductVersion;
+    }
+
+    public String getCatalog() {
+        return catalog;
+    }
+
+    public void setCatalog(String catalog) {
+        this.catalog = catalog;
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    public void setSchema(String schema) {
+        this.schema = schema;
+    }
+
+    public long getRefreshTime() {
+        return refreshTime;
+    }
+
+    public void setRefreshTime(long refreshTime) {
+        this.refreshTime = refreshTime;
+    }
+
+    public Map<String, String> getTableVersions() {
+        return tableVersions;
+    }
+
+    public Table getTable(String tableName) {
+        return tableName == null ? null : tables.get(tableName);
+    }
+
+    public List<Table> getTables() {
+        return new ArrayList<Table>(tables.values());
+    }
+
+    public void putTable(Table table, String version) {
+        tables.put(table.getName(), table);
+        if (version != null) {
+            tableVersions.put(table.getName(), version);
+        }
+    }
+
+    public void removeTable(String tableName) {
+        tables.remove(tableName);
+        tableVersions.remove(tableName);
+    }
+
+    public boolean isFor(String catalog, String schema) {
+        return equalsIgnoreCase(this.catalog, catalog) && equalsIgnoreCase(this.schema, schema);
+    }
+
+    private static boolean equalsIgnoreCase(String s1, String s2) {
+        return s1 == null ? s2 == null : s1.equalsIgnoreCase(s2);
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.common.ddl.snapshot;
+
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.io.IOs;
+import com.jn.sqlhelper.common.ddl.dump.DatabaseLoader;
+import com.jn.sqlhelper.common.ddl.model.DatabaseDescription;
+import com.jn.sqlhelper.common.ddl.model.Table;
+import com.jn.sqlhelper.common.utils.Connections;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps a {@link SchemaSnapshot} per key in a gzipped file under a directory. The key is the connection configuration name
+ * qualified with the jdbc url and the user, so two configurations with a same name never share a snapshot.
+ * <p>
+ * When the database has a {@link SchemaChangeIndicator}, a refresh only reloads the tables whose indicator changed,
+ * and drops the tables that no longer exist. Otherwise the snapshot is reused within {@code maxAgeWithoutIndicatorInMills},
+ * and fully reloaded after it. The indicator is also missing when its query fails.
+ */
+public class SchemaSnapshotStore {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaSnapshotStore.class);
+    private static final String SNAPSHOT_FILE_SUFFIX = ".snapshot";
+    public static final long DEFAULT_MAX_AGE_WITHOUT_INDICATOR = 5 * 60 * 1000L;
+
+    private final File directory;
+    private final Map<String, SchemaSnapshot> snapshots = new ConcurrentHashMap<String, SchemaSnapshot>();
+    private DatabaseLoader databaseLoader = new DatabaseLoader();
+    private long maxAgeWithoutIndicatorInMills = DEFAULT_MAX_AGE_WITHOUT_INDICATOR;
+
+    public SchemaSnapshotStore(String directory) {
+        this(new File(directory));
+    }
+
+    public SchemaSnapshotStore(File directory) {
+        Preconditions.checkNotNull(directory, "the snapshot directory is null");
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public DatabaseLoader getDatabaseLoader() {
+        return databaseLoader;
+    }
+
+    public void setDatabaseLoader(DatabaseLoader databaseLoader) {
+        this.databaseLoader = databaseLoader;
+    }
+
+    public long getMaxAgeWithoutIndicatorInMills() {
+        return maxAgeWithoutIndicatorInMills;
+    }
+
+    public void setMaxAgeWithoutIndicatorInMills(long maxAgeWithoutIndicatorInMills) {
+        this.maxAgeWithoutIndicatorInMills = maxAgeWithoutIndicatorInMills;
+    }
+
+    /**
+     * Refreshes the snapshot of the connection's current catalog and schema.
+     *
+     * @param name the connection configuration name
+     */
+    public SchemaSnapshot getSnapshot(String name, Connection connection) throws SQLException {
+        return refresh(name, connection, Connections.getCatalog(connection), Connections.getSchema(connection));
+    }
+
+    /**
+     * Gets a table of the connection's current catalog and schema. The existing snapshot is refreshed and used, when
+     * there is no snapshot yet, only the table is loaded rather than the whole schema.
+     *
+     * @param name the connection configuration name
+     * @return the table, null if it not exists
+     */
+    public Table getTable(String name, Connection connection, String tableName) throws SQLException {
+        String catalog = Connections.getCatalog(connection);
+        String schema = Connections.getSchema(connection);
+        if (hasSnapshot(name, connection, catalog, schema)) {
+            return refresh(name, connection, catalog, schema).getTable(tableName);
+        }
+        return databaseLoader.loadTable(new DatabaseDescription(connection.getMetaData()), catalog, schema, tableName, true, true, true, true);
+    }
+
+    private synchronized boolean hasSnapshot(String name, Connection connection, String catalog, String schema) throws SQLException {
+        DatabaseMetaData dbMetaData = connection.getMetaData();
+        String key = getSnapshotKey(name, dbMetaData.getURL(), dbMetaData.getUserName());
+        SchemaSnapshot snapshot = snapshots.get(key);
+        if (snapshot == null) {
+            snapshot = load(key);
+            if (snapshot == null) {
+                return false;
+            }
+            snapshots.put(key, snapshot);
+        }
+        return snapshot.isFor(catalog, schema);
+    }
+
+    /**
+     * @param name the connection configuration name, it is qualified with the jdbc url and the user of the connection
+     */
+    public synchronized SchemaSnapshot refresh(String name, Connection connection, String catalog, String schema) throws SQLException {
+        DatabaseMetaData dbMetaData = connection.getMetaData();
+        String key = getSnapshotKey(name, dbMetaData.getURL(), dbMetaData.getUserName());
+        SchemaSnapshot snapshot = snapshots.get(key);
+        if (snapshot == null) {
+            snapshot = load(key);
+        }
+        if (snapshot != null && !snapshot.isFor(catalog, schema)) {
+            snapshot = null;
+        }
+
+        Map<String, String> versions = null;
+        SchemaChangeIndicator indicator = SchemaChangeIndicators.findIndicator(dbMetaData.getDatabaseProductName());
+        if (indicator != null) {
+            try {
+                versions = indicator.getTableVersions(connection, catalog, schema);
+            } catch (Throwable ex) {
+                logger.warn("Can't read the table change indicators of {}, error: {}", key, ex.getMessage());
+            }
+        }
+
+        if (snapshot != null && versions == null && System.currentTimeMillis() - snapshot.getRefreshTime() < maxAgeWithoutIndicatorInMills) {
+            snapshots.put(key, snapshot);
+            return snapshot;
+        }
+
+        DatabaseDescription databaseDescription = new DatabaseDescription(dbMetaData);
+        if (snapshot == null || versions == null) {
+            snapshot = fullLoad(key, databaseDescription, catalog, schema, versions);
+        } else {
+            List<String> changed = new ArrayList<String>();
+            for (Map.Entry<String, String> entry : versions.entrySet()) {
+                String version = entry.getValue();
+                if (version == null || !version.equals(snapshot.getTableVersions().get(entry.getKey()))) {
+                    changed.add(entry.getKey());
+                }
+            }
+            for (Table table : snapshot.getTables()) {
+                if (!versions.containsKey(table.getName())) {
+                    snapshot.removeTable(table.getName());
+                }
+            }
+            if (changed.size() > 1 && changed.size() * 2 > versions.size()) {
+                // most of the tables changed, the bulk load is cheaper
+                snapshot = fullLoad(key, databaseDescription, catalog, schema, versions);
+            } else if (!changed.isEmpty()) {
+                for (String tableName : changed) {
+                    Table table = databaseLoader.loadTable(databaseDescription, catalog, schema, tableName, true, true, true, true);
+                    if (table != null) {
+                        snapshot.putTable(table, versions.get(tableName));
+                    } else {
+                        // a view or another object which is not loaded as a table
+                        snapshot.getTableVersions().put(tableName, versions.get(tableName));
+                    }
+                }
+                logger.info("Reloaded {} changed tables of the snapshot {}", changed.size(), key);
+            }
+        }
+        snapshot.setRefreshTime(System.currentTimeMillis());
+        save(snapshot);
+        snapshots.put(key, snapshot);
+        return snapshot;
+    }
+
+    private SchemaSnapshot fullLoad(String key, DatabaseDescription databaseDescription, String catalog, String schema, Map<String, String> versions) throws SQLException {
+        DatabaseMetaData dbMetaData = databaseDescription.getDbMetaData();
+        SchemaSnapshot snapshot = new SchemaSnapshot();
+        snapshot.setKey(key);
+        snapshot.setCatalog(catalog);
+        snapshot.setSchema(schema);
+        snapshot.setDatabaseProductName(dbMetaData.getDatabaseProductName());
+        snapshot.setDatabaseProductVersion(dbMetaData.getDatabaseProductVersion());
+        List<Table> tables = databaseLoader.loadTables(databaseDescription, catalog, schema, null, true, true, true, true);
+        if (tables != null) {
+            for (Table table : tables) {
+                snapshot.putTable(table, versions == null ? null : versions.get(table.getName()));
+            }
+        }
+        if (versions != null) {
+            snapshot.getTableVersions().putAll(versions);
+        }
+        logger.info("Loaded {} tables into the snapshot {}", tables == null ? 0 : tables.size(), key);
+        return snapshot;
+    }
+
+    /**
+     * @return name@md5(url, user), the digest keeps the snapshot file name short and free of the url chars
+     */
+    public static String getSnapshotKey(String name, String url, String user) {
+        String identity = (url == null ? "" : url) + "\n" + (user == null ? "" : user);
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(identity.getBytes("UTF-8"));
+            StringBuilder builder = new StringBuilder(name).append('@');
+            for (int i = 0; i < 8; i++) {
+                builder.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (Exception ex) {
+            return name + "@" + Integer.toHexString(identity.hashCode());
+        }
+    }
+
+    /**
+     * @param key the key of the snapshot, see {@link #getSnapshotKey(String, String, String)}
+     * @return the snapshot in the file, null if it not exists or can't be read
+     */
+    public SchemaSnapshot load(String key) {
+        File file = getSnapshotFile(key);
+        if (!file.exists()) {
+            return null;
+        }
+        ObjectInputStream inputStream = null;
+        try {
+            inputStream = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))));
+            return (SchemaSnapshot) inputStream.readObject();
+        } catch (Throwable ex) {
+            logger.warn("Can't read the snapshot file {}, it will be reloaded, error: {}", file.getPath(), ex.getMessage());
+            return null;
+        } finally {
+            IOs.close(inputStream);
+        }
+    }
+
+    public void save(SchemaSnapshot snapshot) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            logger.warn("Can't create the snapshot directory {}", directory.getPath());
+            return;
+        }
+        File file = getSnapshotFile(snapshot.getKey());
+        File tmpFile = new File(directory, file.getName() + ".tmp");
+        ObjectOutputStream outputStream = null;
+        try {
+            outputStream = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile))));
+            outputStream.writeObject(snapshot);
+            outputStream.close();
+            outputStream = null;
+            if (file.exists() && !file.delete()) {
+                logger.warn("Can't replace the snapshot file {}", file.getPath());
+                return;
+            }
+            if (!tmpFile.renameTo(file)) {
+                logger.warn("Can't rename {} to {}", tmpFile.getPath(), file.getPath());
+            }
+        } catch (IOException ex) {
+            logger.warn("Can't write the snapshot file {}, error: {}", file.getPath(), ex.getMessage());
+        } finally {
+            IOs.close(outputStream);
+        }
+    }
+
+    public void evict(String key) {
+        snapshots.remove(key);
+        File file = getSnapshotFile(key);
+        if (file.exists() && !file.delete()) {
+            logger.warn("Can't delete the snapshot file {}", file.getPath());
+        }
+    }
+
+    private File getSnapshotFile(String key) {
+        return new File(directory, key.replaceAll("[^A-Za-z0-9._-]", "_") + SNAPSHOT_FILE_SUFFIX);
+    }
+}
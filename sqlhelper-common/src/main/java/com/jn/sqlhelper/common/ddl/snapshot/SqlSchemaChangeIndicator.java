@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.common.ddl.snapshot;
+
+import com.jn.langx.util.io.IOs;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs a data dictionary query which takes the schema (or the catalog when the schema is null) as all of its
+ * parameters and returns the table name in the first column, the change indicator in the second column.
+ */
+public class SqlSchemaChangeIndicator implements SchemaChangeIndicator {
+    private final String sql;
+    private final int parameterCount;
+
+    public SqlSchemaChangeIndicator(String sql) {
+        this(sql, 1);
+    }
+
+    /**
+     * @param parameterCount how many times the schema is bound
+     */
+    public SqlSchemaChangeIndicator(String sql, int parameterCount) {
+        this.sql = sql;
+        this.parameterCount = parameterCount;
+    }
+
+    @Override
+    public Map<String, String> getTableVersions(Connection connection, String catalog, String schema) throws SQLException {
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            statement = connection.prepareStatement(sql);
+            for (int i = 1; i <= parameterCount; i++) {
+                statement.setString(i, schema != null ? schema : catalog);
+            }
+            rs = statement.executeQuery();
+            Map<String, String> versions = new HashMap<String, String>();
+            while (rs.next()) {
+                versions.put(rs.getString(1), rs.getString(2));
+            }
+            return versions;
+        } finally {
+            IOs.close(rs);
+            IOs.close(statement);
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.jn.langx.util.reflect.Reflects;
 import com.jn.langx.util.reflect.classparse.FieldInfo;
 import com.jn.langx.util.reflect.classparse.FieldSetterAndGetterClassParser;
 import com.jn.sqlhelper.common.annotation.Column;
+import com.jn.sqlhelper.common.annotation.PK;
 import com.jn.sqlhelper.common.annotation.Table;
 import com.jn.sqlhelper.common.annotation.Tenant;
 import org.slf4j.Logger;
@@ -29,6 +30,7 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Map;
 
 public class DefaultEntityTableMappingParser implements EntityTableParser {
@@ -45,6 +47,8 @@ public class DefaultEntityTableMappingParser implements EntityTableParser {
         Preconditions.checkNotNull(entityClass);
         EntityTableMapping mapping = new EntityTableMapping();
         parseTable(entityClass, mapping);
+        parseFields(entityClass, mapping);
+        parsePrimaryKeys(entityClass, mapping);
         return mapping;
     }
 
@@ -81,6 +85,28 @@ public class DefaultEntityTableMappingParser implements EntityTableParser {
     private void parseField(FieldInfo fieldInfo, EntityTableMapping mapping) {
         parseAsColumn(fieldInfo, mapping);
         parseAsTenant(fieldInfo, mapping);
+        parseAsPrimaryKey(fieldInfo, mapping);
+    }
+
+    /**
+     * the columns declared by the @PK of the entity class take precedence over the JPA @Id fields
+     */
+    private void parsePrimaryKeys(Class<?> entityClass, EntityTableMapping mapping) {
+        PK pk = Reflects.getAnnotation(entityClass, PK.class);
+        if (pk != null && Emptys.isNotEmpty(pk.value())) {
+            mapping.setPrimaryKeyFields(new ArrayList<String>(Collects.asList(pk.value())));
+        }
+    }
+
+    private void parseAsPrimaryKey(FieldInfo fieldInfo, EntityTableMapping mapping) {
+        boolean isId = Reflects.getAnnotation(fieldInfo.getField(), javax.persistence.Id.class) != null;
+        if (!isId) {
+            Method getter = fieldInfo.getGetter();
+            isId = getter != null && Reflects.getAnnotation(getter, javax.persistence.Id.class) != null;
+        }
+        if (isId) {
+            mapping.getPrimaryKeyFields().add(fieldInfo.getFieldName());
+        }
     }
 
     private void parseAsTenant(FieldInfo fieldInfo, EntityTableMapping mapping) {
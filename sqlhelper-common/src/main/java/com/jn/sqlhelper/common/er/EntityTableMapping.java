@@ -18,6 +18,8 @@ import com.jn.langx.util.Emptys;
 import com.jn.langx.util.collection.Collects;
 
 import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -44,6 +46,11 @@ public class EntityTableMapping {
      */
     private String tenantField;
 
+    /**
+     * 主键字段，或者是 @PK 中声明的主键列
+     */
+    private List<String> primaryKeyFields = new ArrayList<String>();
+
     public Class getEntityClass() {
         return entityClass.get();
     }
@@ -86,4 +93,28 @@ public class EntityTableMapping {
         }
         return null;
     }
+
+    public List<String> getPrimaryKeyFields() {
+        return primaryKeyFields;
+    }
+
+    public void setPrimaryKeyFields(List<String> primaryKeyFields) {
+        this.primaryKeyFields = primaryKeyFields;
+    }
+
+    public boolean hasPrimaryKeys() {
+        return !primaryKeyFields.isEmpty();
+    }
+
+    /**
+     * @return the columns of the primary key fields, the field name is used if the column isn't declared
+     */
+    public List<String> getPrimaryKeyColumns() {
+        List<String> columns = new ArrayList<String>(primaryKeyFields.size());
+        for (String field : primaryKeyFields) {
+            String column = columnMappings.get(field);
+            columns.add(Emptys.isEmpty(column) ? field : column);
+        }
+        return columns;
+    }
 }
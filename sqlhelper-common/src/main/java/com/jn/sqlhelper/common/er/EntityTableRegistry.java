@@ -21,6 +21,11 @@ import com.jn.langx.util.reflect.reference.ReferenceType;
 
 @Singleton
 public class EntityTableRegistry {
+    private static final EntityTableRegistry INSTANCE = new EntityTableRegistry();
+
+    public static EntityTableRegistry getInstance() {
+        return INSTANCE;
+    }
 
     private EntityTableParser entityTableParser = new DefaultEntityTableMappingParser();
     /**
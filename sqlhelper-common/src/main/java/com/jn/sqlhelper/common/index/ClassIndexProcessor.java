@@ -0,0 +1,236 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.common.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Generates the class indexes at compile time, an index lists the public concrete classes of a type and the values of
+ * their annotations, so they are found at runtime without scanning or reflection.
+ * <p>
+ * The indexed types are set with the option {@value #OPTION_INDEXED_TYPES} (comma separated), the index of a type is
+ * written to {@link ClassIndexes#getIndexLocation(String)}. The index of the previous compilation is merged, so the
+ * incremental compilations keep the unchanged classes.
+ *
+ * @see ClassIndexes
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(ClassIndexProcessor.OPTION_INDEXED_TYPES)
+public class ClassIndexProcessor extends AbstractProcessor {
+    public static final String OPTION_INDEXED_TYPES = "sqlhelper.index.types";
+
+    private final List<String> indexedTypes = new ArrayList<String>();
+    /**
+     * key: the indexed type, value: the index entries
+     */
+    private final Map<String, Properties> indexes = new HashMap<String, Properties>();
+    /**
+     * key: the indexed type, value: the classes of the current compilation
+     */
+    private final Map<String, Set<String>> compiledClasses = new HashMap<String, Set<String>>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        String types = processingEnv.getOptions().get(OPTION_INDEXED_TYPES);
+        if (types != null) {
+            for (String type : types.split(",")) {
+                type = type.trim();
+                if (type.length() > 0) {
+                    indexedTypes.add(type);
+                    indexes.put(type, new Properties());
+                    compiledClasses.put(type, new HashSet<String>());
+                }
+            }
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (indexedTypes.isEmpty()) {
+            return false;
+        }
+        if (roundEnv.processingOver()) {
+            for (String indexedType : indexedTypes) {
+                writeIndex(indexedType);
+            }
+        } else {
+            for (Element element : roundEnv.getRootElements()) {
+                collect(element);
+            }
+        }
+        // the annotations are not claimed
+        return false;
+    }
+
+    private void collect(Element element) {
+        if (!(element instanceof TypeElement)) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.CLASS && enclosed.getModifiers().contains(Modifier.STATIC)) {
+                collect(enclosed);
+            }
+        }
+        Set<Modifier> modifiers = type.getModifiers();
+        if (type.getKind() != ElementKind.CLASS || !modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+            return;
+        }
+        TypeMirror typeMirror = processingEnv.getTypeUtils().erasure(type.asType());
+        for (String indexedType : indexedTypes) {
+            TypeElement indexedTypeElement = processingEnv.getElementUtils().getTypeElement(indexedType);
+            if (indexedTypeElement != null && processingEnv.getTypeUtils().isAssignable(typeMirror, processingEnv.getTypeUtils().erasure(indexedTypeElement.asType()))) {
+                String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+                compiledClasses.get(indexedType).add(className);
+                Properties index = indexes.get(indexedType);
+                index.setProperty(className, indexedType);
+                for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+                    String value = getValue(annotation);
+                    if (value != null) {
+                        String annotationType = processingEnv.getElementUtils().getBinaryName((TypeElement) annotation.getAnnotationType().asElement()).toString();
+                        index.setProperty(className + ClassIndexes.ANNOTATION_SEPARATOR + annotationType, value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the value of the annotation, the array elements are joined with ','; null if the value isn't set
+     */
+    private static String getValue(AnnotationMirror annotation) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (!"value".equals(entry.getKey().getSimpleName().toString())) {
+                continue;
+            }
+            Object value = entry.getValue().getValue();
+            if (value instanceof List) {
+                StringBuilder builder = new StringBuilder();
+                for (Object element : (List<?>) value) {
+                    if (builder.length() > 0) {
+                        builder.append(',');
+                    }
+                    builder.append(((AnnotationValue) element).getValue());
+                }
+                return builder.toString();
+            }
+            return String.valueOf(value);
+        }
+        return null;
+    }
+
+    private void writeIndex(String indexedType) {
+        String location = ClassIndexes.getIndexLocation(indexedType);
+        Properties index = new Properties();
+        // merge the index of the previous compilation
+        try {
+            FileObject previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", location);
+            InputStream inputStream = previous.openInputStream();
+            try {
+                index.load(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException ex) {
+            // it is the first compilation
+        } catch (IllegalArgumentException ex) {
+            // it is the first compilation
+        }
+        Set<String> compiled = compiledClasses.get(indexedType);
+        for (String key : new ArrayList<String>(index.stringPropertyNames())) {
+            String className = ClassIndexes.getClassName(key);
+            if (compiled.contains(className) || processingEnv.getElementUtils().getTypeElement(className.replace('$', '.')) == null) {
+                index.remove(key);
+            }
+        }
+        index.putAll(indexes.get(indexedType));
+        if (index.isEmpty()) {
+            return;
+        }
+
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", location);
+            Writer writer = new OutputStreamWriter(file.openOutputStream(), "ISO-8859-1");
+            try {
+                writer.write("# generated by " + ClassIndexProcessor.class.getName() + ", don't edit it\n");
+                for (String key : new TreeSet<String>(index.stringPropertyNames())) {
+                    writer.write(escape(key, true) + "=" + escape(index.getProperty(key), false) + "\n");
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Write the class index " + location + " fail: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * escape it in the properties format
+     */
+    private static String escape(String str, boolean key) {
+        StringBuilder builder = new StringBuilder(str.length() + 8);
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            switch (c) {
+                case '\\':
+                case '=':
+                case ':':
+                case '#':
+                case '!':
+                    builder.append('\\').append(c);
+                    break;
+                case ' ':
+                    if (key || i == 0) {
+                        builder.append('\\');
+                    }
+                    builder.append(c);
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        return builder.toString();
+    }
+}
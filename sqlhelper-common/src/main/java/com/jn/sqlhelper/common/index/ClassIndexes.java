@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.common.index;
+
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * Loads the class indexes generated by {@link ClassIndexProcessor}.
+ * <p>
+ * An index is a properties file, the entries of a class are:
+ * <pre>
+ *     className=indexedType
+ *     className@annotationType=value of the annotation, the array elements are joined with ','
+ * </pre>
+ */
+public class ClassIndexes {
+    public static final String INDEX_LOCATION_PREFIX = "META-INF/sqlhelper/";
+    public static final String INDEX_LOCATION_SUFFIX = ".index";
+    static final String ANNOTATION_SEPARATOR = "@";
+    private static final String SERVICES_LOCATION_PREFIX = "META-INF/services/";
+
+    private ClassIndexes() {
+    }
+
+    public static String getIndexLocation(String indexedType) {
+        return INDEX_LOCATION_PREFIX + indexedType + INDEX_LOCATION_SUFFIX;
+    }
+
+    static String getClassName(String indexKey) {
+        int index = indexKey.indexOf(ANNOTATION_SEPARATOR);
+        return index < 0 ? indexKey : indexKey.substring(0, index);
+    }
+
+    /**
+     * load the indexes of the type in all the jars
+     *
+     * @return the indexed classes sorted by the class name, empty if there is no index
+     */
+    public static List<IndexedClass> load(ClassLoader classLoader, String indexedType) {
+        Map<String, IndexedClass> classes = new TreeMap<String, IndexedClass>();
+        try {
+            Enumeration<URL> urls = classLoader.getResources(getIndexLocation(indexedType));
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                Properties index = new Properties();
+                InputStream inputStream = url.openStream();
+                try {
+                    index.load(inputStream);
+                } finally {
+                    inputStream.close();
+                }
+                for (String key : index.stringPropertyNames()) {
+                    String className = getClassName(key);
+                    IndexedClass indexedClass = classes.get(className);
+                    if (indexedClass == null) {
+                        indexedClass = new IndexedClass(className);
+                        classes.put(className, indexedClass);
+                    }
+                    if (!className.equals(key)) {
+                        indexedClass.addAnnotationValue(key.substring(className.length() + ANNOTATION_SEPARATOR.length()), index.getProperty(key));
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            // the logger isn't a field, the processor uses this class at compile time
+            LoggerFactory.getLogger(ClassIndexes.class).warn("Load the class index of {} fail: {}", indexedType, ex.getMessage(), ex);
+        }
+        return new ArrayList<IndexedClass>(classes.values());
+    }
+
+    /**
+     * @return the implementation classes in the META-INF/services files of the type, the classes aren't loaded
+     */
+    public static List<String> loadServiceClassNames(ClassLoader classLoader, String serviceType) {
+        Set<String> classNames = new LinkedHashSet<String>();
+        try {
+            Enumeration<URL> urls = classLoader.getResources(SERVICES_LOCATION_PREFIX + serviceType);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), "UTF-8"));
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int commentIndex = line.indexOf('#');
+                        if (commentIndex >= 0) {
+                            line = line.substring(0, commentIndex);
+                        }
+                        line = line.trim();
+                        if (line.length() > 0) {
+                            classNames.add(line);
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+        } catch (IOException ex) {
+            LoggerFactory.getLogger(ClassIndexes.class).warn("Load the services of {} fail: {}", serviceType, ex.getMessage(), ex);
+        }
+        return new ArrayList<String>(classNames);
+    }
+}
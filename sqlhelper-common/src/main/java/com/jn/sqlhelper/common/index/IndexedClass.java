@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.common.index;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A class in a class index, the class isn't loaded.
+ *
+ * @see ClassIndexes
+ */
+public class IndexedClass {
+    private final String className;
+    /**
+     * key: the annotation type
+     */
+    private final Map<String, String> annotationValues = new HashMap<String, String>();
+
+    IndexedClass(String className) {
+        this.className = className;
+    }
+
+    void addAnnotationValue(String annotationType, String value) {
+        annotationValues.put(annotationType, value);
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the class name without the package and the enclosing classes
+     */
+    public String getSimpleClassName() {
+        int index = Math.max(className.lastIndexOf('.'), className.lastIndexOf('$'));
+        return className.substring(index + 1);
+    }
+
+    public boolean isAnnotationPresent(String annotationType) {
+        return annotationValues.containsKey(annotationType);
+    }
+
+    /**
+     * @return the value of the annotation, null if the class isn't annotated or the value isn't set
+     */
+    public String getAnnotationValue(String annotationType) {
+        return annotationValues.get(annotationType);
+    }
+
+    /**
+     * @return the array value of the annotation, an empty array if the class isn't annotated or the value isn't set
+     */
+    public String[] getAnnotationValues(String annotationType) {
+        String value = annotationValues.get(annotationType);
+        if (value == null || value.length() == 0) {
+            return new String[0];
+        }
+        String[] values = value.split(",");
+        for (int i = 0; i < values.length; i++) {
+            values[i] = values[i].trim();
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return className;
+    }
+}
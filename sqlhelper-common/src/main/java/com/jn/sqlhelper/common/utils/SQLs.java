@@ -20,6 +20,7 @@ import com.jn.sqlhelper.common.ddl.model.DatabaseDescription;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.StringTokenizer;
 import java.util.regex.Pattern;
@@ -68,14 +69,199 @@ public class SQLs {
         return SQLs.getTableFQN(catalog, schema, tableName, catalogSeparator, databaseDesc.isCatalogAtStart());
     }
 
-    public static int findPlaceholderParameterCount(String sqlsegment){
-        if(Strings.isNotEmpty(sqlsegment)) {
-            sqlsegment = sqlsegment.replaceAll("([\\\\][?])", "");
-            sqlsegment = sqlsegment.replaceAll("[^?]", "");
-            sqlsegment = sqlsegment.replaceAll("'\\?'", "");
-            return sqlsegment.length();
+    public static int findPlaceholderParameterCount(String sqlsegment) {
+        return findPlaceholderParameterIndexes(sqlsegment).length;
+    }
+
+    /**
+     * @param backslashEscapes whether a backslash escapes the next char in a quoted string, e.g. MySQL
+     */
+    public static int findPlaceholderParameterCount(String sqlsegment, boolean backslashEscapes) {
+        return findPlaceholderParameterIndexes(sqlsegment, backslashEscapes).length;
+    }
+
+    /**
+     * @param backslashEscapes whether a backslash escapes the next char in a quoted string, e.g. MySQL
+     * @param hashComments     whether a '#' starts a line comment, e.g. MySQL
+     * @param hashOperator     whether ?# is an operator, e.g. PostgreSQL
+     */
+    public static int findPlaceholderParameterCount(String sqlsegment, boolean backslashEscapes, boolean hashComments, boolean hashOperator) {
+        return findPlaceholderParameterIndexes(sqlsegment, backslashEscapes, hashComments, hashOperator).length;
+    }
+
+    private static final int[] NO_PLACEHOLDERS = new int[0];
+
+    /**
+     * Find the '?' placeholders of a sql (or a sql segment) in a single pass, the '?' in the string literals,
+     * quoted identifiers, comments, dollar quoted strings, the escaped '\?' and '??', and the PostgreSQL
+     * operators ?|, ?&amp;, ?-| are not placeholders.
+     * <p>
+     * A doubled quote is an escaped quote, a backslash is a plain char in a quoted string (standard SQL),
+     * e.g. <pre>a like ? ESCAPE '\' and b = ?</pre> has 2 placeholders.
+     *
+     * @param sql the sql or a segment of a sql which doesn't start in a quoted string or a comment
+     * @return the char indexes of the placeholders
+     */
+    public static int[] findPlaceholderParameterIndexes(String sql) {
+        return findPlaceholderParameterIndexes(sql, false);
+    }
+
+    /**
+     * @param sql              the sql or a segment of a sql which doesn't start in a quoted string or a comment
+     * @param backslashEscapes whether a backslash escapes the next char in a quoted string, e.g. MySQL
+     * @return the char indexes of the placeholders
+     * @see #findPlaceholderParameterIndexes(String)
+     */
+    public static int[] findPlaceholderParameterIndexes(String sql, boolean backslashEscapes) {
+        return findPlaceholderParameterIndexes(sql, backslashEscapes, false, false);
+    }
+
+    /**
+     * The '#' and the ?# are database specific: in MySQL a '#' starts a line comment, so the '?' of
+     * <pre>a = ?# comment</pre> is a placeholder; in PostgreSQL ?# is the intersection operator.
+     * In the other databases a '#' is a plain char.
+     *
+     * @param sql              the sql or a segment of a sql which doesn't start in a quoted string or a comment
+     * @param backslashEscapes whether a backslash escapes the next char in a quoted string, e.g. MySQL
+     * @param hashComments     whether a '#' starts a line comment, e.g. MySQL
+     * @param hashOperator     whether ?# is an operator, e.g. PostgreSQL
+     * @return the char indexes of the placeholders
+     * @see #findPlaceholderParameterIndexes(String)
+     */
+    public static int[] findPlaceholderParameterIndexes(String sql, boolean backslashEscapes, boolean hashComments, boolean hashOperator) {
+        if (Strings.isEmpty(sql)) {
+            return NO_PLACEHOLDERS;
+        }
+        int[] indexes = NO_PLACEHOLDERS;
+        int count = 0;
+        final int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : '\0';
+            switch (c) {
+                case '\'':
+                case '"':
+                case '`':
+                    i = skipQuoted(sql, i, c, backslashEscapes);
+                    break;
+                case '-':
+                    i = next == '-' ? skipLineComment(sql, i + 2) : i + 1;
+                    break;
+                case '/':
+                    i = next == '*' ? skipBlockComment(sql, i + 2) : i + 1;
+                    break;
+                case '\\':
+                    i = next == '?' ? i + 2 : i + 1;
+                    break;
+                case '#':
+                    i = hashComments ? skipLineComment(sql, i + 1) : i + 1;
+                    break;
+                case '$':
+                    i = skipDollarQuoted(sql, i);
+                    break;
+                case '?':
+                    if (next == '?') {
+                        // the escaped '?' of the postgresql jdbc driver
+                        i = i + 2;
+                    } else if (isPostgreSQLOperator(sql, i, hashOperator)) {
+                        i = i + 2;
+                    } else {
+                        if (count == indexes.length) {
+                            indexes = Arrays.copyOf(indexes, Math.max(8, count * 2));
+                        }
+                        indexes[count++] = i;
+                        i++;
+                    }
+                    break;
+                default:
+                    i++;
+                    break;
+            }
+        }
+        return count == indexes.length ? indexes : Arrays.copyOf(indexes, count);
+    }
+
+    private static int skipQuoted(String sql, int start, char quote, boolean backslashEscapes) {
+        final int length = sql.length();
+        int i = start + 1;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (backslashEscapes && c == '\\' && quote != '`') {
+                i = i + 2;
+            } else if (c == quote) {
+                if (i + 1 < length && sql.charAt(i + 1) == quote) {
+                    i = i + 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    private static int skipLineComment(String sql, int start) {
+        int index = sql.indexOf('\n', start);
+        return index == -1 ? sql.length() : index + 1;
+    }
+
+    private static int skipBlockComment(String sql, int start) {
+        int index = sql.indexOf("*/", start);
+        return index == -1 ? sql.length() : index + 2;
+    }
+
+    /**
+     * $$ ... $$ or $tag$ ... $tag$, the $1 style parameters are not dollar quoted strings
+     */
+    private static int skipDollarQuoted(String sql, int start) {
+        if (start > 0 && isIdentifierPart(sql.charAt(start - 1))) {
+            return start + 1;
+        }
+        final int length = sql.length();
+        int i = start + 1;
+        if (i < length && sql.charAt(i) != '$') {
+            if (!Character.isLetter(sql.charAt(i)) && sql.charAt(i) != '_') {
+                return start + 1;
+            }
+            // the tag is an identifier without '$'
+            while (i < length && sql.charAt(i) != '$' && isIdentifierPart(sql.charAt(i))) {
+                i++;
+            }
+        }
+        if (i >= length || sql.charAt(i) != '$') {
+            return start + 1;
+        }
+        String tag = sql.substring(start, i + 1);
+        int end = sql.indexOf(tag, i + 1);
+        return end == -1 ? start + 1 : end + tag.length();
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static boolean isPostgreSQLOperator(String sql, int index, boolean hashOperator) {
+        final int length = sql.length();
+        if (index + 1 >= length) {
+            return false;
+        }
+        char next = sql.charAt(index + 1);
+        char nextNext = index + 2 < length ? sql.charAt(index + 2) : '\0';
+        switch (next) {
+            case '|':
+                // ?|| is a placeholder and the concat operator
+                return nextNext != '|';
+            case '&':
+                return nextNext != '&';
+            case '#':
+                return hashOperator;
+            case '-':
+                return nextNext == '|';
+            default:
+                return false;
         }
-        return 0;
     }
 
     //DML
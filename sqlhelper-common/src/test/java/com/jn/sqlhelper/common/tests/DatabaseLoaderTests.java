@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.common.tests;
+
+import com.jn.sqlhelper.common.connection.ConnectionFactory;
+import com.jn.sqlhelper.common.ddl.dump.DatabaseLoader;
+import com.jn.sqlhelper.common.ddl.model.Column;
+import com.jn.sqlhelper.common.ddl.model.DatabaseDescription;
+import com.jn.sqlhelper.common.ddl.model.PrimaryKeyColumn;
+import com.jn.sqlhelper.common.ddl.model.Table;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+public class DatabaseLoaderTests {
+    private static final String SCHEMA = "PUBLIC";
+    private static ConnectionFactory connectionFactory;
+    private static Connection connection;
+
+    @BeforeClass
+    public static void createTables() throws Throwable {
+        connectionFactory = new ConnectionFactory("org.h2.Driver", "jdbc:h2:mem:sqlhelper_loader;DB_CLOSE_DELAY=-1", "sa", "sa", null);
+        connection = connectionFactory.getConnection();
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("create table DEPT (ID int primary key, NAME varchar(32), CODE varchar(8))");
+            statement.execute("create unique index IDX_DEPT_CODE on DEPT (CODE)");
+            statement.execute("create table EMP (ID int, VERSION int, DEPT_ID int, NAME varchar(32), primary key (ID, VERSION), foreign key (DEPT_ID) references DEPT (ID))");
+            statement.execute("create index IDX_EMP_NAME on EMP (NAME)");
+            statement.execute("create table LOG_ENTRY (MESSAGE varchar(256), CREATED timestamp)");
+        } finally {
+            statement.close();
+        }
+    }
+
+    @AfterClass
+    public static void dropTables() throws Throwable {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("drop all objects");
+        } finally {
+            statement.close();
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testBulkLoadEqualsPerTableLoad() throws Throwable {
+        DatabaseLoader perTableLoader = new DatabaseLoader();
+        perTableLoader.setBulkEnabled(false);
+        Map<String, String> expected = describe(perTableLoader.loadTables(new DatabaseDescription(connection.getMetaData()), null, SCHEMA, null, true, true, true, true));
+        Assert.assertEquals(3, expected.size());
+        Assert.assertTrue(expected.get("DEPT").startsWith("columns: [ID, NAME, CODE], pks: [ID], indexes: [IDX_DEPT_CODE"));
+        Assert.assertTrue(expected.get("EMP").contains("pks: [ID, VERSION]"));
+        Assert.assertTrue(expected.get("EMP").endsWith("fks: [DEPT_ID]"));
+
+        Map<String, String> actual = describe(new DatabaseLoader().loadTables(new DatabaseDescription(connection.getMetaData()), null, SCHEMA, null, true, true, true, true));
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testParallelPerTableLoad() throws Throwable {
+        DatabaseLoader perTableLoader = new DatabaseLoader();
+        perTableLoader.setBulkEnabled(false);
+        Map<String, String> expected = describe(perTableLoader.loadTables(new DatabaseDescription(connection.getMetaData()), null, SCHEMA, null, true, true, true, true));
+
+        DatabaseLoader parallelLoader = new DatabaseLoader(connectionFactory, 3);
+        parallelLoader.setBulkEnabled(false);
+        Map<String, String> actual = describe(parallelLoader.loadTables(new DatabaseDescription(connection.getMetaData()), null, SCHEMA, null, true, true, true, true));
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testTableMissedByBulkColumns() throws Throwable {
+        DatabaseLoader perTableLoader = new DatabaseLoader();
+        perTableLoader.setBulkEnabled(false);
+        Map<String, String> expected = describe(perTableLoader.loadTables(new DatabaseDescription(connection.getMetaData()), null, SCHEMA, null, true, false, false, false));
+
+        // the schema-wide columns call only returns the columns of DEPT, the other tables are loaded one by one
+        final DatabaseMetaData metaData = connection.getMetaData();
+        DatabaseMetaData partialMetaData = (DatabaseMetaData) Proxy.newProxyInstance(DatabaseMetaData.class.getClassLoader(), new Class[]{DatabaseMetaData.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("getColumns") && args[2] == null) {
+                    args[2] = "DEPT";
+                }
+                try {
+                    return method.invoke(metaData, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getTargetException();
+                }
+            }
+        });
+        Map<String, String> actual = describe(new DatabaseLoader().loadTables(new DatabaseDescription(partialMetaData), null, SCHEMA, null, true, false, false, false));
+        Assert.assertEquals(expected, actual);
+        Assert.assertTrue(actual.get("LOG_ENTRY").startsWith("columns: [MESSAGE, CREATED]"));
+    }
+
+    private static Map<String, String> describe(List<Table> tables) {
+        Map<String, String> description = new TreeMap<String, String>();
+        for (Table table : tables) {
+            StringBuilder builder = new StringBuilder("columns: [");
+            int i = 0;
+            for (Column column : table.getColumns()) {
+                builder.append(i++ == 0 ? "" : ", ").append(column.getName());
+            }
+            builder.append("], pks: [");
+            i = 0;
+            for (PrimaryKeyColumn pk : table.getPkColumns()) {
+                builder.append(i++ == 0 ? "" : ", ").append(pk.getColumnName());
+            }
+            builder.append("], indexes: ").append(new TreeSet<String>(table.getIndexMap().keySet()));
+            builder.append(", fks: ").append(new TreeSet<String>(table.getFkColumnMap().keySet()));
+            description.put(table.getName(), builder.toString());
+        }
+        return description;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.common.tests;
+
+import com.jn.sqlhelper.common.utils.SQLs;
+import org.junit.Test;
+
+/**
+ * Not a part of the unit tests, run it with: mvn test -Pbenchmark
+ */
+public class PlaceholderScanBenchmarks {
+    private static final int ROUNDS = 20000;
+
+    @Test
+    public void benchmarkLongReportSql() {
+        String sql = reportSql(60);
+        System.out.println("sql length: " + sql.length());
+
+        // warm up
+        for (int i = 0; i < ROUNDS / 10; i++) {
+            regexCount(sql);
+            SQLs.findPlaceholderParameterCount(sql);
+        }
+
+        long start = System.nanoTime();
+        int regexCount = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            regexCount = regexCount(sql);
+        }
+        long regexNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int scanCount = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            scanCount = SQLs.findPlaceholderParameterCount(sql);
+        }
+        long scanNanos = System.nanoTime() - start;
+
+        System.out.println("regex replaceAll: count=" + regexCount + ", " + (regexNanos / ROUNDS) + " ns/op");
+        System.out.println("single pass scan: count=" + scanCount + ", " + (scanNanos / ROUNDS) + " ns/op");
+    }
+
+    /**
+     * the previous implementation, it counts the '?' in the literals and comments too
+     */
+    private static int regexCount(String sqlsegment) {
+        sqlsegment = sqlsegment.replaceAll("([\\\\][?])", "");
+        sqlsegment = sqlsegment.replaceAll("[^?]", "");
+        sqlsegment = sqlsegment.replaceAll("'\\?'", "");
+        return sqlsegment.length();
+    }
+
+    private static String reportSql(int columns) {
+        StringBuilder builder = new StringBuilder("select ");
+        for (int i = 0; i < columns; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append("sum(case when o.status = ? then o.amount_").append(i).append(" else 0 end) as amount_").append(i);
+        }
+        builder.append(" from orders o /* the report of the orders, is it paid? */ left join customer c on o.customer_id = c.id");
+        builder.append(" where o.created_time between ? and ? and c.name like 'vip?%' and o.remark <> 'what?'");
+        builder.append(" group by c.region having count(1) > ? order by c.region");
+        return builder.toString();
+    }
+}
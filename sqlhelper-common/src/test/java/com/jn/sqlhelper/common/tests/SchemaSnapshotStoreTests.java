@@ -0,0 +1,273 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.common.tests;
+
+import com.jn.sqlhelper.common.connection.ConnectionFactory;
+import com.jn.sqlhelper.common.ddl.dump.DatabaseLoader;
+import com.jn.sqlhelper.common.ddl.model.Column;
+import com.jn.sqlhelper.common.ddl.model.DatabaseDescription;
+import com.jn.sqlhelper.common.ddl.model.Index;
+import com.jn.sqlhelper.common.ddl.model.IndexColumn;
+import com.jn.sqlhelper.common.ddl.model.Table;
+import com.jn.sqlhelper.common.ddl.snapshot.SchemaChangeIndicator;
+import com.jn.sqlhelper.common.ddl.snapshot.SchemaChangeIndicators;
+import com.jn.sqlhelper.common.ddl.snapshot.SchemaSnapshot;
+import com.jn.sqlhelper.common.ddl.snapshot.SchemaSnapshotStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SchemaSnapshotStoreTests {
+    private static final String NAME = "h2-snapshot";
+    private static final String SCHEMA = "PUBLIC";
+    /**
+     * the table versions returned by the h2 change indicator, null if the indicator is missing
+     */
+    private static volatile Map<String, String> versions;
+
+    static {
+        SchemaChangeIndicators.register("h2", new SchemaChangeIndicator() {
+            @Override
+            public Map<String, String> getTableVersions(Connection connection, String catalog, String schema) {
+                return versions == null ? null : new HashMap<String, String>(versions);
+            }
+        });
+    }
+
+    private Connection connection;
+    private SchemaSnapshotStore store;
+    private CountingDatabaseLoader loader;
+
+    @Before
+    public void createTables() throws Throwable {
+        connection = new ConnectionFactory("org.h2.Driver", "jdbc:h2:mem:sqlhelper_snapshot;DB_CLOSE_DELAY=-1", "sa", "sa", null).getConnection();
+        execute("create table DEPT (ID int primary key, NAME varchar(32))");
+        execute("create table EMP (ID int primary key, NAME varchar(32))");
+        execute("create table JOB (ID int primary key, TITLE varchar(32))");
+        execute("create table LOG_ENTRY (MESSAGE varchar(256))");
+
+        store = new SchemaSnapshotStore(new File(System.getProperty("java.io.tmpdir"), "sqlhelper-snapshot-tests"));
+        loader = new CountingDatabaseLoader();
+        store.setDatabaseLoader(loader);
+        // the snapshot file of the last run
+        store.evict(getSnapshotKey());
+    }
+
+    @After
+    public void dropTables() throws Throwable {
+        versions = null;
+        store.evict(getSnapshotKey());
+        try {
+            execute("drop all objects");
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Throwable {
+        versions = new HashMap<String, String>();
+        versions.put("DEPT", "1");
+        versions.put("EMP", "1");
+        versions.put("JOB", "1");
+        versions.put("LOG_ENTRY", "1");
+        SchemaSnapshot snapshot = store.refresh(NAME, connection, null, SCHEMA);
+        Assert.assertEquals(1, loader.bulkLoads);
+        Assert.assertEquals(4, snapshot.getTables().size());
+        Assert.assertEquals("1", snapshot.getTableVersions().get("EMP"));
+
+        // nothing changed
+        snapshot = store.refresh(NAME, connection, null, SCHEMA);
+        Assert.assertEquals(1, loader.bulkLoads);
+        Assert.assertTrue(loader.tableLoads.isEmpty());
+
+        // only the changed table is reloaded
+        execute("alter table EMP add column SALARY int");
+        versions.put("EMP", "2");
+        snapshot = store.refresh(NAME, connection, null, SCHEMA);
+        Assert.assertEquals(1, loader.bulkLoads);
+        Assert.assertEquals(Collections.singletonList("EMP"), loader.tableLoads);
+        Assert.assertEquals(3, snapshot.getTable("EMP").getColumns().size());
+        Assert.assertEquals(2, snapshot.getTable("DEPT").getColumns().size());
+        Assert.assertEquals("2", snapshot.getTableVersions().get("EMP"));
+
+        // the dropped table is removed without any load
+        execute("drop table LOG_ENTRY");
+        versions.remove("LOG_ENTRY");
+        snapshot = store.refresh(NAME, connection, null, SCHEMA);
+        Assert.assertEquals(1, loader.bulkLoads);
+        Assert.assertEquals(1, loader.tableLoads.size());
+        Assert.assertNull(snapshot.getTable("LOG_ENTRY"));
+        Assert.assertFalse(snapshot.getTableVersions().containsKey("LOG_ENTRY"));
+        Assert.assertEquals(3, snapshot.getTables().size());
+
+        // 2 of the 3 tables changed, they are reloaded in bulk
+        execute("alter table DEPT add column CODE varchar(8)");
+        execute("alter table JOB add column GRADE int");
+        versions.put("DEPT", "2");
+        versions.put("JOB", "2");
+        snapshot = store.refresh(NAME, connection, null, SCHEMA);
+        Assert.assertEquals(2, loader.bulkLoads);
+        Assert.assertEquals(1, loader.tableLoads.size());
+        Assert.assertEquals(3, snapshot.getTable("DEPT").getColumns().size());
+        Assert.assertEquals(3, snapshot.getTable("JOB").getColumns().size());
+        Assert.assertEquals("2", snapshot.getTableVersions().get("JOB"));
+
+        // the refreshed snapshot is persisted
+        SchemaSnapshot loaded = store.load(getSnapshotKey());
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals(3, loaded.getTables().size());
+        Assert.assertEquals(3, loaded.getTable("EMP").getColumns().size());
+    }
+
+    @Test
+    public void testGetTableWithoutSnapshot() throws Throwable {
+        // only the table is loaded when there is no snapshot
+        Table table = store.getTable(NAME, connection, "EMP");
+        Assert.assertEquals(2, table.getColumns().size());
+        Assert.assertEquals(0, loader.bulkLoads);
+        Assert.assertEquals(Collections.singletonList("EMP"), loader.tableLoads);
+        Assert.assertNull(store.load(getSnapshotKey()));
+
+        store.getSnapshot(NAME, connection);
+        Assert.assertEquals(1, loader.bulkLoads);
+        Assert.assertNotNull(store.getTable(NAME, connection, "emp"));
+        Assert.assertEquals(1, loader.bulkLoads);
+        Assert.assertEquals(1, loader.tableLoads.size());
+    }
+
+    @Test
+    public void testReuseWithinMaxAgeWithoutIndicator() throws Throwable {
+        versions = null;
+        store.setMaxAgeWithoutIndicatorInMills(60 * 1000L);
+        SchemaSnapshot snapshot = store.refresh(NAME, connection, null, SCHEMA);
+        Assert.assertEquals(1, loader.bulkLoads);
+        Assert.assertEquals(4, snapshot.getTables().size());
+        Assert.assertTrue(snapshot.getTableVersions().isEmpty());
+
+        // the change is not visible until the snapshot expires
+        execute("create table NEW_TABLE (ID int)");
+        Assert.assertSame(snapshot, store.refresh(NAME, connection, null, SCHEMA));
+        Assert.assertEquals(1, loader.bulkLoads);
+
+        store.setMaxAgeWithoutIndicatorInMills(0);
+        snapshot = store.refresh(NAME, connection, null, SCHEMA);
+        Assert.assertEquals(2, loader.bulkLoads);
+        Assert.assertTrue(loader.tableLoads.isEmpty());
+        Assert.assertNotNull(snapshot.getTable("NEW_TABLE"));
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        File directory = new File(System.getProperty("java.io.tmpdir"), "sqlhelper-snapshot-tests");
+        SchemaSnapshotStore store = new SchemaSnapshotStore(directory);
+
+        SchemaSnapshot snapshot = new SchemaSnapshot();
+        snapshot.setKey("h2:test/db");
+        snapshot.setSchema("PUBLIC");
+        for (int i = 0; i < 100; i++) {
+            Table table = new Table();
+            table.setSchema("PUBLIC");
+            table.setName("T_" + i);
+            for (int j = 1; j <= 5; j++) {
+                Column column = new Column();
+                column.setTableName(table.getName());
+                column.setName("C_" + j);
+                column.setOrdinalPosition(j);
+                table.addColumn(column);
+            }
+            Index index = new Index(null, "PUBLIC", table.getName(), "IDX_" + i);
+            IndexColumn indexColumn = new IndexColumn();
+            indexColumn.setColumnName("C_1");
+            indexColumn.setOrdinalPosition(1);
+            index.addColumn(indexColumn);
+            table.addIndex(index);
+            snapshot.putTable(table, "2020-01-01 00:00:0" + (i % 10));
+        }
+        store.save(snapshot);
+
+        SchemaSnapshot loaded = store.load("h2:test/db");
+
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals(100, loaded.getTables().size());
+        Assert.assertEquals(5, loaded.getTable("t_42").getColumns().size());
+        Assert.assertNotNull(loaded.getTable("T_42").getIndex("idx_42"));
+        Assert.assertEquals("2020-01-01 00:00:02", loaded.getTableVersions().get("T_42"));
+        store.evict("h2:test/db");
+        Assert.assertNull(store.load("h2:test/db"));
+    }
+
+    @Test
+    public void testSnapshotKey() {
+        String key = SchemaSnapshotStore.getSnapshotKey("dev", "jdbc:mysql://host1:3306/db", "root");
+        Assert.assertTrue(key.startsWith("dev@"));
+        Assert.assertEquals(key, SchemaSnapshotStore.getSnapshotKey("dev", "jdbc:mysql://host1:3306/db", "root"));
+        // a same connection name with another url or user never shares the snapshot
+        Assert.assertNotEquals(key, SchemaSnapshotStore.getSnapshotKey("dev", "jdbc:mysql://host2:3306/db", "root"));
+        Assert.assertNotEquals(key, SchemaSnapshotStore.getSnapshotKey("dev", "jdbc:mysql://host1:3306/db", "app"));
+
+        SchemaSnapshotStore store = new SchemaSnapshotStore(new File(System.getProperty("java.io.tmpdir"), "sqlhelper-snapshot-tests"));
+        Assert.assertEquals(SchemaSnapshotStore.DEFAULT_MAX_AGE_WITHOUT_INDICATOR, store.getMaxAgeWithoutIndicatorInMills());
+    }
+
+    private String getSnapshotKey() throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        return SchemaSnapshotStore.getSnapshotKey(NAME, metaData.getURL(), metaData.getUserName());
+    }
+
+    private void execute(String sql) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute(sql);
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * counts the schema-wide loads and the single table loads
+     */
+    private static class CountingDatabaseLoader extends DatabaseLoader {
+        private int bulkLoads;
+        private final List<String> tableLoads = new ArrayList<String>();
+
+        @Override
+        public Table loadTable(DatabaseDescription databaseDescription, String catalog, String schema, String tableName, boolean isLoadColumns, boolean isLoadPks, boolean isLoadIndexes, boolean isLoadFks) throws SQLException {
+            tableLoads.add(tableName);
+            return super.loadTable(databaseDescription, catalog, schema, tableName, isLoadColumns, isLoadPks, isLoadIndexes, isLoadFks);
+        }
+
+        @Override
+        public List<Table> loadTables(DatabaseDescription databaseDescription, String catalogNamePattern, String schemaNamePattern, String tableNamePattern, boolean isLoadColumns, boolean isLoadPks, boolean isLoadIndexes, boolean isLoadFks) throws SQLException {
+            if (tableNamePattern == null) {
+                bulkLoads++;
+            }
+            return super.loadTables(databaseDescription, catalogNamePattern, schemaNamePattern, tableNamePattern, isLoadColumns, isLoadPks, isLoadIndexes, isLoadFks);
+        }
+    }
+}
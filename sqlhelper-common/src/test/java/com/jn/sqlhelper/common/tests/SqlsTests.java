@@ -15,6 +15,7 @@
 package com.jn.sqlhelper.common.tests;
 
 import com.jn.sqlhelper.common.utils.SQLs;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class SqlsTests {
@@ -33,4 +34,52 @@ public class SqlsTests {
         sql = "select \t count(1) from t";
         System.out.println(sql + ",\t" + SQLs.isSelectCountStatement(sql));
     }
+
+    @Test
+    public void testFindPlaceholders() {
+        String sql = "select * from t where a = ? and b like 'aaa%?' and c = ?";
+        Assert.assertArrayEquals(new int[]{sql.indexOf('?'), sql.lastIndexOf('?')}, SQLs.findPlaceholderParameterIndexes(sql));
+
+        // the '?' in the literal, the comment, and the escaped \?
+        sql = "select * from t where a = 'werfwef\\??' and x = ? -- what?\n and y = ?";
+        Assert.assertArrayEquals(new int[]{sql.indexOf("x = ?") + 4, sql.lastIndexOf('?')}, SQLs.findPlaceholderParameterIndexes(sql));
+
+        // the postgresql operators ?| ?& and the quoted identifiers
+        sql = "select /* ? */ data ?| array['a'], data ?& b, x || ?||'%' from t where z = \"col?\" and w = ?";
+        Assert.assertArrayEquals(new int[]{sql.indexOf("?||"), sql.lastIndexOf('?')}, SQLs.findPlaceholderParameterIndexes(sql));
+
+        // the dollar quoted strings, and the escaped ?? of the postgresql driver
+        sql = "select $$ a ? b $$, $tag$ ? $tag$ from t where c = ? and d = ??";
+        Assert.assertArrayEquals(new int[]{sql.indexOf("c = ?") + 4}, SQLs.findPlaceholderParameterIndexes(sql));
+        Assert.assertEquals(0, SQLs.findPlaceholderParameterCount(null));
+    }
+
+    @Test
+    public void testFindPlaceholdersWithBackslash() {
+        // standard SQL, the backslash doesn't escape the quote, the literal is '\'
+        String sql = "select * from t where a like ? ESCAPE '\\' and b = ?";
+        Assert.assertEquals(2, SQLs.findPlaceholderParameterCount(sql));
+        Assert.assertArrayEquals(new int[]{sql.indexOf('?'), sql.lastIndexOf('?')}, SQLs.findPlaceholderParameterIndexes(sql));
+        Assert.assertEquals(2, SQLs.findPlaceholderParameterCount(sql, false));
+
+        // MySQL style, the backslash escapes the next char in the literals
+        sql = "select `a?` from t where s = 'it\\'s ?' and t = 'x''?' and q = ?";
+        Assert.assertArrayEquals(new int[]{sql.lastIndexOf('?')}, SQLs.findPlaceholderParameterIndexes(sql, true));
+    }
+
+    @Test
+    public void testFindPlaceholdersWithHash() {
+        // MySQL, a '#' starts a line comment, the ?# is a placeholder followed by a comment
+        String sql = "select * from t where a = ?# is a = ?\n and b = ?";
+        Assert.assertArrayEquals(new int[]{sql.indexOf('?'), sql.lastIndexOf('?')}, SQLs.findPlaceholderParameterIndexes(sql, true, true, false));
+
+        // PostgreSQL, the ?# is the intersection operator
+        sql = "select * from t where a ?# b and c = ? and d = '#?'";
+        Assert.assertArrayEquals(new int[]{sql.indexOf("c = ?") + 4}, SQLs.findPlaceholderParameterIndexes(sql, false, false, true));
+
+        // the other databases, a '#' is a plain char
+        sql = "select * from t where a = ?#1 and b = ?";
+        Assert.assertArrayEquals(new int[]{sql.indexOf('?'), sql.lastIndexOf('?')}, SQLs.findPlaceholderParameterIndexes(sql));
+        Assert.assertEquals(1, SQLs.findPlaceholderParameterCount(sql, true, true, false));
+    }
 }
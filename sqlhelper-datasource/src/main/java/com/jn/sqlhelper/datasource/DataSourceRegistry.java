@@ -101,7 +101,7 @@ public class DataSourceRegistry implements Registry<DataSourceKey, DataSource> {
             }
         }).asList();
 
-        if (Emptys.isNotEmpty(matched)) {
+        if (Emptys.isEmpty(matched)) {
             nonExistDSKeys.add(keypattern);
             return Collections.emptyList();
         }
@@ -42,6 +42,7 @@ public class DataSources {
     public static final String DATASOURCE_IMPLEMENT_KEY_DRUID = "druid";
     public static final String DATASOURCE_IMPLEMENT_KEY_DBCP2 = "dbcp2";
     public static final String DATASOURCE_IMPLEMENT_KEY_C3P0 = "c3p0";
+    public static final String DATASOURCE_IMPLEMENT_KEY_SQLHELPER = "sqlhelper";
 
     public static final String DATASOURCE_IMPLEMENT = "datasource.implementation_key";
     public static final String DATASOURCE_GROUP = "datasource.group";
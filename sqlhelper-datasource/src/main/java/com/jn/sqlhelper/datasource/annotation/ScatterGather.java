@@ -0,0 +1,31 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-2.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.datasource.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+
+/**
+ * 标记一个查询方法在 {@link DataSource} 的 name 通配符（例如 shard-*）匹配到的所有数据源上执行，然后合并结果。
+ * 方法的返回值需要是 List。没有该注解时，只会通过 DataSourceKeyFilter 选择其中一个数据源
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({METHOD})
+public @interface ScatterGather {
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.datasource.connection;
+
+import com.jn.langx.util.Objs;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.io.IOs;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wraps a physical connection with a LRU cache of the prepared statements, the statements are keyed by
+ * the sql, the result set type and the result set concurrency.
+ * <p>
+ * The close calls of the cached statements are suppressed, the statements are closed when they are evicted
+ * or the connection is closed. A connection is used by one thread at a time, so the cache is not synchronized.
+ * <p>
+ * The query timeout, max rows, max field size, fetch direction and fetch size of a cached statement are restored to
+ * the driver defaults when it is returned, so a statement never keeps the limits of the previous query.
+ */
+public class StatementCachingConnections {
+    private StatementCachingConnections() {
+    }
+
+    public static Connection wrap(Connection connection, int cacheSize, PreparedStatementCacheMetrics metrics) {
+        Preconditions.checkNotNull(connection);
+        if (cacheSize <= 0) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                new CachingConnectionHandler(connection, cacheSize, metrics == null ? new PreparedStatementCacheMetrics() : metrics));
+    }
+
+    private static class StatementKey {
+        private final String sql;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+
+        StatementKey(String sql, int resultSetType, int resultSetConcurrency) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey that = (StatementKey) o;
+            return resultSetType == that.resultSetType && resultSetConcurrency == that.resultSetConcurrency && Objs.equals(sql, that.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return (sql.hashCode() * 31 + resultSetType) * 31 + resultSetConcurrency;
+        }
+    }
+
+    private static class CachedStatement {
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+        /**
+         * whether any of the settings is changed by the current borrower
+         */
+        private boolean settingsChanged;
+
+        // the driver defaults
+        private final int queryTimeout;
+        private final int maxRows;
+        private final int maxFieldSize;
+        private final int fetchDirection;
+        private final int fetchSize;
+
+        CachedStatement(PreparedStatement statement) throws SQLException {
+            this.statement = statement;
+            this.queryTimeout = statement.getQueryTimeout();
+            this.maxRows = statement.getMaxRows();
+            this.maxFieldSize = statement.getMaxFieldSize();
+            this.fetchDirection = statement.getFetchDirection();
+            this.fetchSize = statement.getFetchSize();
+        }
+
+        void restoreSettings() throws SQLException {
+            if (!settingsChanged) {
+                return;
+            }
+            statement.setQueryTimeout(queryTimeout);
+            statement.setMaxRows(maxRows);
+            statement.setMaxFieldSize(maxFieldSize);
+            statement.setFetchDirection(fetchDirection);
+            statement.setFetchSize(fetchSize);
+            settingsChanged = false;
+        }
+    }
+
+    private static boolean isSettingMethod(String methodName) {
+        return methodName.equals("setQueryTimeout")
+                || methodName.equals("setMaxRows")
+                || methodName.equals("setLargeMaxRows")
+                || methodName.equals("setMaxFieldSize")
+                || methodName.equals("setFetchDirection")
+                || methodName.equals("setFetchSize");
+    }
+
+    private static class CachingConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final PreparedStatementCacheMetrics metrics;
+        private final LinkedHashMap<StatementKey, CachedStatement> cache;
+
+        CachingConnectionHandler(Connection target, final int cacheSize, PreparedStatementCacheMetrics metrics) {
+            this.target = target;
+            this.metrics = metrics;
+            this.cache = new LinkedHashMap<StatementKey, CachedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<StatementKey, CachedStatement> eldest) {
+                    if (size() > cacheSize) {
+                        evict(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if (methodName.equals("equals")) {
+                return proxy == args[0];
+            } else if (methodName.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (methodName.equals("getDelegate")) {
+                return target;
+            } else if (methodName.equals("setDelegate")) {
+                throw new UnsupportedOperationException("setDelegate");
+            } else if (methodName.equals("close")) {
+                clear();
+            } else if (methodName.equals("prepareStatement") && isCacheable(method)) {
+                String sql = (String) args[0];
+                int resultSetType = args.length > 1 ? (Integer) args[1] : ResultSet.TYPE_FORWARD_ONLY;
+                int resultSetConcurrency = args.length > 1 ? (Integer) args[2] : ResultSet.CONCUR_READ_ONLY;
+                return prepareStatement(new StatementKey(sql, resultSetType, resultSetConcurrency), method, args);
+            }
+            return invokeTarget(target, method, args);
+        }
+
+        /**
+         * prepareStatement(sql), prepareStatement(sql, resultSetType, resultSetConcurrency)
+         */
+        private boolean isCacheable(Method method) {
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            return parameterTypes.length == 1 || (parameterTypes.length == 3 && parameterTypes[1] == int.class && parameterTypes[2] == int.class);
+        }
+
+        private PreparedStatement prepareStatement(StatementKey key, Method method, Object[] args) throws Throwable {
+            CachedStatement cached = cache.get(key);
+            if (cached != null && !cached.inUse) {
+                metrics.hit();
+                cached.inUse = true;
+                return wrapStatement(cached);
+            }
+            metrics.miss();
+            PreparedStatement statement = (PreparedStatement) invokeTarget(target, method, args);
+            if (cached != null) {
+                // the cached one is in use (nested statements with the same sql), don't cache the new one
+                return statement;
+            }
+            try {
+                cached = new CachedStatement(statement);
+            } catch (SQLException ex) {
+                IOs.close(statement);
+                throw ex;
+            }
+            cached.inUse = true;
+            cache.put(key, cached);
+            return wrapStatement(cached);
+        }
+
+        private PreparedStatement wrapStatement(final CachedStatement cached) {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, new InvocationHandler() {
+                private boolean closed = false;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    String methodName = method.getName();
+                    if (methodName.equals("equals")) {
+                        return proxy == args[0];
+                    } else if (methodName.equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    } else if (methodName.equals("isClosed")) {
+                        return closed || cached.statement.isClosed();
+                    } else if (methodName.equals("close")) {
+                        if (!closed) {
+                            closed = true;
+                            release(cached);
+                        }
+                        return null;
+                    }
+                    if (closed) {
+                        throw new SQLException("PreparedStatement is closed");
+                    }
+                    if (isSettingMethod(methodName)) {
+                        cached.settingsChanged = true;
+                    }
+                    return invokeTarget(cached.statement, method, args);
+                }
+            });
+        }
+
+        private void release(CachedStatement cached) throws SQLException {
+            cached.inUse = false;
+            if (cached.evicted) {
+                cached.statement.close();
+                return;
+            }
+            try {
+                cached.statement.clearParameters();
+                cached.statement.clearWarnings();
+                cached.restoreSettings();
+            } catch (SQLException ex) {
+                // a broken statement should not be reused
+                cached.evicted = true;
+                removeFromCache(cached);
+                IOs.close(cached.statement);
+            }
+        }
+
+        private void evict(CachedStatement cached) {
+            metrics.evict();
+            cached.evicted = true;
+            if (!cached.inUse) {
+                IOs.close(cached.statement);
+            }
+        }
+
+        private void removeFromCache(CachedStatement cached) {
+            Iterator<CachedStatement> iterator = cache.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next() == cached) {
+                    iterator.remove();
+                    return;
+                }
+            }
+        }
+
+        private void clear() {
+            for (CachedStatement cached : cache.values()) {
+                cached.evicted = true;
+                IOs.close(cached.statement);
+            }
+            cache.clear();
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
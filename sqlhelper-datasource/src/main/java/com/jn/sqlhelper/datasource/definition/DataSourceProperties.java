@@ -56,6 +56,10 @@ public class DataSourceProperties implements Configuration {
     private int maxPoolSize;
     private int initialSize = 0;
     private int minIdle;
+    /**
+     * the max count of the prepared statements cached per connection, used by the built-in pool only
+     */
+    private int preparedStatementCacheSize = 0;
 
     private Properties driverProps;
 
@@ -153,6 +157,14 @@ public class DataSourceProperties implements Configuration {
         this.minIdle = minIdle;
     }
 
+    public int getPreparedStatementCacheSize() {
+        return preparedStatementCacheSize;
+    }
+
+    public void setPreparedStatementCacheSize(int preparedStatementCacheSize) {
+        this.preparedStatementCacheSize = preparedStatementCacheSize;
+    }
+
     public String getDriverClassName() {
         return this.driverClassName;
     }
@@ -21,6 +21,7 @@ import java.util.List;
 public class NamedDataSourcesProperties {
     private boolean enabled;
     List<DataSourceProperties> dataSources = Collects.emptyArrayList();
+    private ReadWriteSplittingProperties readWriteSplitting = new ReadWriteSplittingProperties();
 
     public boolean isEnabled() {
         return enabled;
@@ -37,4 +38,12 @@ public class NamedDataSourcesProperties {
     public void setDataSources(List<DataSourceProperties> dataSources) {
         this.dataSources = dataSources;
     }
+
+    public ReadWriteSplittingProperties getReadWriteSplitting() {
+        return readWriteSplitting;
+    }
+
+    public void setReadWriteSplitting(ReadWriteSplittingProperties readWriteSplitting) {
+        this.readWriteSplitting = readWriteSplitting;
+    }
 }
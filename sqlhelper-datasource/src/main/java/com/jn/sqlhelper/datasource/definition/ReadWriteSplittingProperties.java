@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.datasource.definition;
+
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.datasource.DataSources;
+
+import java.util.List;
+
+/**
+ * sqlhelper.dynamicDataSource.readWriteSplitting.*
+ */
+public class ReadWriteSplittingProperties {
+    private boolean enabled = false;
+    /**
+     * the writes and the reads in a write transaction go to the datasource: {writeGroup}/{writeName}
+     */
+    private String writeGroup = DataSources.DATASOURCE_GROUP_DEFAULT;
+    private String writeName = DataSources.DATASOURCE_PRIMARY;
+    /**
+     * the other reads go to one of the datasources in the group
+     */
+    private String readGroup = "replica";
+    /**
+     * a method is a read if its name starts with one of the prefixes
+     */
+    private List<String> readMethodPrefixes = Collects.newArrayList("select", "get", "find", "query", "list", "count", "load", "search", "exists");
+    /**
+     * read-your-writes: the reads go to the write datasource in the window after a write, in the same thread
+     */
+    private long stickyWindowInMills = 1000;
+    /**
+     * a replica whose replication lag is greater than it will not be used, <= 0 means no lag probing
+     */
+    private long maxLagInMills = 0;
+    private long lagProbeIntervalInMills = 5000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getWriteGroup() {
+        return writeGroup;
+    }
+
+    public void setWriteGroup(String writeGroup) {
+        this.writeGroup = writeGroup;
+    }
+
+    public String getWriteName() {
+        return writeName;
+    }
+
+    public void setWriteName(String writeName) {
+        this.writeName = writeName;
+    }
+
+    public String getReadGroup() {
+        return readGroup;
+    }
+
+    public void setReadGroup(String readGroup) {
+        this.readGroup = readGroup;
+    }
+
+    public List<String> getReadMethodPrefixes() {
+        return readMethodPrefixes;
+    }
+
+    public void setReadMethodPrefixes(List<String> readMethodPrefixes) {
+        this.readMethodPrefixes = readMethodPrefixes;
+    }
+
+    public long getStickyWindowInMills() {
+        return stickyWindowInMills;
+    }
+
+    public void setStickyWindowInMills(long stickyWindowInMills) {
+        this.stickyWindowInMills = stickyWindowInMills;
+    }
+
+    public long getMaxLagInMills() {
+        return maxLagInMills;
+    }
+
+    public void setMaxLagInMills(long maxLagInMills) {
+        this.maxLagInMills = maxLagInMills;
+    }
+
+    public long getLagProbeIntervalInMills() {
+        return lagProbeIntervalInMills;
+    }
+
+    public void setLagProbeIntervalInMills(long lagProbeIntervalInMills) {
+        this.lagProbeIntervalInMills = lagProbeIntervalInMills;
+    }
+}
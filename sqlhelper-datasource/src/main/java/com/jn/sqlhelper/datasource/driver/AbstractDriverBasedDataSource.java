@@ -16,6 +16,8 @@ package com.jn.sqlhelper.datasource.driver;
 
 
 import com.jn.sqlhelper.datasource.AbstractDataSource;
+import com.jn.sqlhelper.datasource.connection.PreparedStatementCacheMetrics;
+import com.jn.sqlhelper.datasource.connection.StatementCachingConnections;
 import com.jn.sqlhelper.datasource.driver.DriverManagerDataSource;
 import com.jn.sqlhelper.datasource.driver.SimpleDriverDataSource;
 import com.jn.langx.util.Preconditions;
@@ -46,6 +48,10 @@ public abstract class AbstractDriverBasedDataSource extends AbstractDataSource {
 
     private Properties connectionProperties;
 
+    private int preparedStatementCacheSize = 0;
+
+    private final PreparedStatementCacheMetrics preparedStatementCacheMetrics = new PreparedStatementCacheMetrics();
+
 
     /**
      * Set the JDBC URL to use for connecting through the Driver.
@@ -145,6 +151,28 @@ public abstract class AbstractDriverBasedDataSource extends AbstractDataSource {
     }
 
 
+    /**
+     * Set the max count of the prepared statements cached per connection, 0 means no cache.
+     * @see StatementCachingConnections
+     */
+    public void setPreparedStatementCacheSize(int preparedStatementCacheSize) {
+        this.preparedStatementCacheSize = preparedStatementCacheSize;
+    }
+
+    /**
+     * Return the max count of the prepared statements cached per connection.
+     */
+    public int getPreparedStatementCacheSize() {
+        return this.preparedStatementCacheSize;
+    }
+
+    /**
+     * Return the hit, miss and eviction counters of the prepared statement caches of all the connections.
+     */
+    public PreparedStatementCacheMetrics getPreparedStatementCacheMetrics() {
+        return this.preparedStatementCacheMetrics;
+    }
+
     /**
      * This implementation delegates to {@code getConnectionFromDriver},
      * using the default username and password of this DataSource.
@@ -197,6 +225,9 @@ public abstract class AbstractDriverBasedDataSource extends AbstractDataSource {
         if (this.schema != null) {
             // con.setSchema(this.schema);
         }
+        if (this.preparedStatementCacheSize > 0) {
+            con = StatementCachingConnections.wrap(con, this.preparedStatementCacheSize, this.preparedStatementCacheMetrics);
+        }
         return con;
     }
 
@@ -26,12 +26,18 @@ import com.jn.langx.util.function.Consumer;
 import com.jn.langx.util.function.Predicate;
 import com.jn.langx.util.function.Supplier0;
 import com.jn.langx.util.reflect.Reflects;
+import com.jn.sqlhelper.common.index.ClassIndexes;
+import com.jn.sqlhelper.common.index.IndexedClass;
 import com.jn.sqlhelper.datasource.DataSources;
 import com.jn.sqlhelper.datasource.key.DataSourceKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Singleton
@@ -39,6 +45,14 @@ public final class DataSourceFactoryProvider implements Provider<String, DataSou
     private static final Logger logger = LoggerFactory.getLogger(DataSourceFactoryProvider.class);
     private static final ConcurrentHashMap<String, DataSourceFactory> registry = new ConcurrentHashMap<String, DataSourceFactory>();
 
+    private static final List<String> PREFERRED_IMPLEMENTATIONS = Collects.asList(
+            DataSources.DATASOURCE_IMPLEMENT_KEY_HIKARICP,
+            DataSources.DATASOURCE_IMPLEMENT_KEY_TOMCAT,
+            DataSources.DATASOURCE_IMPLEMENT_KEY_DBCP2,
+            DataSources.DATASOURCE_IMPLEMENT_KEY_DRUID,
+            DataSources.DATASOURCE_IMPLEMENT_KEY_C3P0
+    );
+
     private static final DataSourceFactoryProvider INSTANCE = new DataSourceFactoryProvider();
 
     private DataSourceFactoryProvider() {
@@ -46,47 +60,93 @@ public final class DataSourceFactoryProvider implements Provider<String, DataSou
     }
 
     public void init() {
-        ServiceLoader<DataSourceFactory> factoryLoader = ServiceLoader.load(DataSourceFactory.class);
-        Collects.forEach(factoryLoader, new Consumer<DataSourceFactory>() {
-            @Override
-            public void accept(DataSourceFactory dataSourceFactory) {
-                if (dataSourceFactory == null) {
-                    return;
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = DataSourceFactoryProvider.class.getClassLoader();
+        }
+        // the index is generated by the ClassIndexProcessor at compile time
+        List<IndexedClass> index = ClassIndexes.load(classLoader, DataSourceFactory.class.getName());
+        if (index.isEmpty()) {
+            ServiceLoader<DataSourceFactory> factoryLoader = ServiceLoader.load(DataSourceFactory.class);
+            Collects.forEach(factoryLoader, new Consumer<DataSourceFactory>() {
+                @Override
+                public void accept(DataSourceFactory dataSourceFactory) {
+                    registerByAnnotations(dataSourceFactory);
                 }
-                Class<? extends DataSourceFactory> dsClass = dataSourceFactory.getClass();
+            });
+            return;
+        }
 
-                if (!Reflects.isAnnotationPresent(dsClass, Name.class)) {
-                    logger.warn("Couldn't found the annotation com.jn.langx.annotation.@Name at the class {}", Reflects.getFQNClassName(dsClass));
-                    return;
-                }
-                Name nameAnno = Reflects.getAnnotation(dsClass, Name.class);
-                String implementationKey = nameAnno.value();
-                if (Emptys.isEmpty(implementationKey)) {
-                    logger.warn("Couldn't found a valid annotation com.jn.langx.annotation.@Name at the class {}, the name is null or empty", Reflects.getFQNClassName(dsClass));
-                }
+        Set<String> indexedClassNames = new HashSet<String>();
+        for (IndexedClass indexedClass : index) {
+            indexedClassNames.add(indexedClass.getClassName());
+            if (!indexedClass.isAnnotationPresent(Name.class.getName())) {
+                // not an implementation of a jdbc datasource, e.g. the centralized factory
+                continue;
+            }
+            String implementationKey = indexedClass.getAnnotationValue(Name.class.getName());
+            String[] requiredDependencyClasses = indexedClass.getAnnotationValues(OnClasses.class.getName());
+            if (!isAvailable(requiredDependencyClasses)) {
+                logger.warn("Couldn't found the key classes : {}", Strings.join(",", requiredDependencyClasses));
+                continue;
+            }
+            DataSourceFactory dataSourceFactory = newInstance(indexedClass.getClassName(), classLoader);
+            if (dataSourceFactory != null) {
+                register(implementationKey, dataSourceFactory);
+            }
+        }
 
-                OnClasses onClasses = Reflects.getAnnotation(dsClass, OnClasses.class);
-                boolean available = true;
-                if (onClasses != null && Emptys.isNotEmpty(onClasses.value())) {
-                    String[] requiredDependencyClasses = onClasses.value();
-                    if (!Collects.allMatch(new Predicate<String>() {
-                        @Override
-                        public boolean test(String dependencyClass) {
-                            return ClassLoaders.hasClass(dependencyClass, DataSourceFactoryProvider.class.getClassLoader());
-                        }
-                    }, requiredDependencyClasses)) {
-                        available = false;
-                    }
-                }
+        // the factories of the other jars which aren't indexed
+        for (String className : ClassIndexes.loadServiceClassNames(classLoader, DataSourceFactory.class.getName())) {
+            if (!indexedClassNames.contains(className)) {
+                registerByAnnotations(newInstance(className, classLoader));
+            }
+        }
+    }
 
-                if (available) {
-                    register(implementationKey, dataSourceFactory);
-                } else {
-                    logger.warn("Couldn't found the key classes : {}", Strings.join(",", onClasses.value()));
-                }
+    private static DataSourceFactory newInstance(String className, ClassLoader classLoader) {
+        try {
+            return (DataSourceFactory) Class.forName(className, true, classLoader).newInstance();
+        } catch (Throwable ex) {
+            logger.warn("Couldn't create the jdbc dataSource factory {}, error: {}", className, ex.getMessage(), ex);
+            return null;
+        }
+    }
+
+    private static boolean isAvailable(String[] requiredDependencyClasses) {
+        if (Emptys.isEmpty(requiredDependencyClasses)) {
+            return true;
+        }
+        return Collects.allMatch(new Predicate<String>() {
+            @Override
+            public boolean test(String dependencyClass) {
+                return ClassLoaders.hasClass(dependencyClass, DataSourceFactoryProvider.class.getClassLoader());
             }
-        });
+        }, requiredDependencyClasses);
+    }
+
+    private void registerByAnnotations(DataSourceFactory dataSourceFactory) {
+        if (dataSourceFactory == null) {
+            return;
+        }
+        Class<? extends DataSourceFactory> dsClass = dataSourceFactory.getClass();
+
+        if (!Reflects.isAnnotationPresent(dsClass, Name.class)) {
+            logger.warn("Couldn't found the annotation com.jn.langx.annotation.@Name at the class {}", Reflects.getFQNClassName(dsClass));
+            return;
+        }
+        Name nameAnno = Reflects.getAnnotation(dsClass, Name.class);
+        String implementationKey = nameAnno.value();
+        if (Emptys.isEmpty(implementationKey)) {
+            logger.warn("Couldn't found a valid annotation com.jn.langx.annotation.@Name at the class {}, the name is null or empty", Reflects.getFQNClassName(dsClass));
+        }
 
+        OnClasses onClasses = Reflects.getAnnotation(dsClass, OnClasses.class);
+        if (onClasses == null || isAvailable(onClasses.value())) {
+            register(implementationKey, dataSourceFactory);
+        } else {
+            logger.warn("Couldn't found the key classes : {}", Strings.join(",", onClasses.value()));
+        }
     }
 
     public static DataSourceFactoryProvider getInstance() {
@@ -106,12 +166,23 @@ public final class DataSourceFactoryProvider implements Provider<String, DataSou
         return registry.get(implementationKey);
     }
 
+    /**
+     * the factory of the first present implementation in the order: hikaricp, tomcat, dbcp2, druid, c3p0,
+     * the custom ones (sorted by the key), and the built-in pool of sqlhelper at last
+     */
     public DataSourceFactory get() {
-        DataSourceFactory dataSourceFactory = registry.get(DataSources.DATASOURCE_IMPLEMENT_KEY_HIKARICP);
-        if (dataSourceFactory == null) {
-            dataSourceFactory = Collects.findFirst(registry.values());
+        for (String implementationKey : PREFERRED_IMPLEMENTATIONS) {
+            DataSourceFactory dataSourceFactory = registry.get(implementationKey);
+            if (dataSourceFactory != null) {
+                return dataSourceFactory;
+            }
         }
-        return dataSourceFactory;
+        for (String implementationKey : new TreeSet<String>(registry.keySet())) {
+            if (!DataSources.DATASOURCE_IMPLEMENT_KEY_SQLHELPER.equals(implementationKey)) {
+                return registry.get(implementationKey);
+            }
+        }
+        return registry.get(DataSources.DATASOURCE_IMPLEMENT_KEY_SQLHELPER);
     }
 
     public DataSourceFactory findSuitableDataSourceFactory(@Nullable String implementationKey) {
@@ -134,7 +205,9 @@ public final class DataSourceFactoryProvider implements Provider<String, DataSou
             }
         }
 
-        delegate = this.get();
+        if (delegate == null) {
+            delegate = this.get();
+        }
         if (delegate == null) {
             logger.error("Can't find any jdbc database factory");
             throw new IllegalStateException("Can't find any jdbc database factory, please check has any the supported database implementations in your classpath: " + IMPLEMENTATION_JARS);
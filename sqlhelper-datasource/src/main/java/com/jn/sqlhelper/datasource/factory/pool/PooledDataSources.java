@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.datasource.factory.pool;
+
+import com.jn.langx.util.Strings;
+import com.jn.sqlhelper.datasource.DataSources;
+import com.jn.sqlhelper.datasource.definition.DataSourceProperties;
+import com.jn.sqlhelper.datasource.pool.PooledDataSource;
+
+import javax.sql.DataSource;
+import java.util.Properties;
+
+public class PooledDataSources {
+    private PooledDataSources() {
+    }
+
+    public static DataSource createDataSource(final DataSourceProperties props) {
+        return new PooledDataSource(props);
+    }
+
+    /**
+     * the property names are same to the fields of {@link DataSourceProperties}
+     */
+    public static DataSource createDataSource(final Properties props) {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setName(props.getProperty(DataSources.DATASOURCE_NAME, props.getProperty("name")));
+        properties.setDriverClassName(props.getProperty("driverClassName"));
+        properties.setUrl(props.getProperty("url"));
+        properties.setUsername(props.getProperty("username"));
+        properties.setPassword(props.getProperty("password"));
+        properties.setCatalog(props.getProperty("catalog"));
+        properties.setSchema(props.getProperty("schema"));
+        properties.setAutoCommit(Boolean.parseBoolean(props.getProperty("autoCommit", "true")));
+        properties.setReadOnly(Boolean.parseBoolean(props.getProperty("readOnly", "false")));
+        properties.setTransactionIsolationName(props.getProperty("transactionIsolationName"));
+        properties.setMaxPoolSize(getInt(props, "maxPoolSize", PooledDataSource.DEFAULT_MAX_POOL_SIZE));
+        properties.setMinIdle(getInt(props, "minIdle", 0));
+        properties.setInitialSize(getInt(props, "initialSize", 0));
+        properties.setConnectionTimeoutInMills(getLong(props, "connectionTimeoutInMills", PooledDataSource.DEFAULT_CONNECTION_TIMEOUT));
+        properties.setIdleTimeoutInMills(getLong(props, "idleTimeoutInMills", 0));
+        properties.setMaxLifetimeInMills(getLong(props, "maxLifetimeInMills", 0));
+        properties.setLeakDetectionThresholdInMills(getLong(props, "leakDetectionThresholdInMills", 0));
+        properties.setPreparedStatementCacheSize(getInt(props, "preparedStatementCacheSize", 0));
+        return new PooledDataSource(properties);
+    }
+
+    private static int getInt(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return Strings.isBlank(value) ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long getLong(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        return Strings.isBlank(value) ? defaultValue : Long.parseLong(value.trim());
+    }
+}
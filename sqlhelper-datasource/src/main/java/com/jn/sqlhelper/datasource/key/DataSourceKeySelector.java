@@ -27,12 +27,13 @@ import com.jn.langx.util.collection.stack.ListableStack;
 import com.jn.langx.util.function.Consumer;
 import com.jn.langx.util.function.Predicate;
 import com.jn.langx.util.function.Supplier;
-import com.jn.langx.util.function.Supplier0;
 import com.jn.langx.util.struct.Holder;
-import com.jn.langx.util.struct.ThreadLocalHolder;
+import com.jn.sqlhelper.common.context.ContextStorage;
+import com.jn.sqlhelper.common.context.ContextStorages;
 import com.jn.sqlhelper.datasource.DataSourceRegistry;
 import com.jn.sqlhelper.datasource.NamedDataSource;
 import com.jn.sqlhelper.datasource.key.filter.DataSourceKeyFilter;
+import com.jn.sqlhelper.datasource.key.router.ReadWriteRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,20 +44,22 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class DataSourceKeySelector {
     private static final Logger logger = LoggerFactory.getLogger(DataSourceKeySelector.class);
-    private static final ThreadLocalHolder<ListableStack<DataSourceKey>> DATA_SOURCE_KEY_HOLDER = new ThreadLocalHolder<ListableStack<DataSourceKey>>(
-            new Supplier0<ListableStack<DataSourceKey>>() {
-                @Override
-                public ListableStack<DataSourceKey> get() {
-                    return new ListableStack<DataSourceKey>();
-                }
-            });
+    /**
+     * the stack is removed from the storage when it is empty, so an idle thread never keeps it
+     */
+    private static final ContextStorage<ListableStack<DataSourceKey>> DATA_SOURCE_KEY_HOLDER = ContextStorages.newStorage(DataSourceKeySelector.class.getName() + ".choices");
 
-    private static final ThreadLocalHolder<DataSourceKey> CURRENT_SELECTED = new ThreadLocalHolder<DataSourceKey>();
+    private static final ContextStorage<DataSourceKey> CURRENT_SELECTED = ContextStorages.newStorage(DataSourceKeySelector.class.getName() + ".current");
 
     @NonNull
     private DataSourceKeyRegistry dataSourceKeyRegistry;
     @NonNull
     private DataSourceRegistry dataSourceRegistry;
+    /**
+     * 用于读写分离，只对未指定 datasource 的方法起作用
+     */
+    @Nullable
+    private ReadWriteRouter readWriteRouter;
     // 初始化阶段初始化，后续只是使用
     private MultiValueMap<String, DataSourceKeyFilter> groupToFiltersMap = new CommonMultiValueMap<String, DataSourceKeyFilter>(new ConcurrentHashMap<String, Collection<DataSourceKeyFilter>>(), new Supplier<String, Collection<DataSourceKeyFilter>>() {
         @Override
@@ -77,6 +80,14 @@ public class DataSourceKeySelector {
         this.dataSourceKeyRegistry = dataSourceKeyRegistry;
     }
 
+    public ReadWriteRouter getReadWriteRouter() {
+        return readWriteRouter;
+    }
+
+    public void setReadWriteRouter(ReadWriteRouter readWriteRouter) {
+        this.readWriteRouter = readWriteRouter;
+    }
+
     public void addDataSourceKeyFilter(final DataSourceKeyFilter filter) {
         Preconditions.checkNotNull(filter);
         List<String> groups = Pipeline.of(filter.applyTo()).clearNulls().asList();
@@ -103,6 +114,10 @@ public class DataSourceKeySelector {
     public static void addChoice(DataSourceKey key) {
         Preconditions.checkNotNull(key);
         ListableStack<DataSourceKey> stack = DATA_SOURCE_KEY_HOLDER.get();
+        if (stack == null) {
+            stack = new ListableStack<DataSourceKey>();
+            DATA_SOURCE_KEY_HOLDER.set(stack);
+        }
         stack.push(key);
     }
 
@@ -112,17 +127,19 @@ public class DataSourceKeySelector {
     public static void removeChoice() {
         clearCurrent();
         ListableStack<DataSourceKey> stack = DATA_SOURCE_KEY_HOLDER.get();
-        if (!stack.isEmpty()) {
+        if (stack != null && !stack.isEmpty()) {
             stack.pop();
         }
+        if (stack != null && stack.isEmpty()) {
+            DATA_SOURCE_KEY_HOLDER.remove();
+        }
     }
 
     /**
      * 当离开根方法时调用
      */
     public static void clearChoices() {
-        ListableStack<DataSourceKey> stack = DATA_SOURCE_KEY_HOLDER.get();
-        stack.clear();
+        DATA_SOURCE_KEY_HOLDER.remove();
     }
 
     public static void setCurrent(DataSourceKey key) {
@@ -135,7 +152,7 @@ public class DataSourceKeySelector {
     }
 
     public static void clearCurrent() {
-        CURRENT_SELECTED.reset();
+        CURRENT_SELECTED.remove();
     }
 
     public final DataSourceKey select(@Nullable DataSourceKeyFilter dataSourceKeyFilter, @Nullable final MethodInvocation methodInvocation) {
@@ -149,7 +166,12 @@ public class DataSourceKeySelector {
         }
         key = DataSourceKeySelector.getCurrent();
         if (key == null) {
-            key = doSelect(dataSourceKeyFilter, methodInvocation);
+            if (readWriteRouter != null && Emptys.isEmpty(DATA_SOURCE_KEY_HOLDER.get()) && methodInvocation != null) {
+                key = readWriteRouter.route(methodInvocation);
+            }
+            if (key == null) {
+                key = doSelect(dataSourceKeyFilter, methodInvocation);
+            }
             if (key != null) {
                 DataSourceKeySelector.addChoice(key);
                 DataSourceKeySelector.setCurrent(key);
@@ -180,7 +202,7 @@ public class DataSourceKeySelector {
             return dataSourceRegistry.getPrimary();
         }
 
-        if (!CURRENT_SELECTED.isNull()) {
+        if (CURRENT_SELECTED.get() != null) {
             return getCurrent();
         }
 
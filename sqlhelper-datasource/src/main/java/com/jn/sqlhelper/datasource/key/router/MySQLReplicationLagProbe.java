@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.datasource.key.router;
+
+import com.jn.langx.util.io.IOs;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * MySQL, MariaDB: SHOW SLAVE STATUS
+ */
+public class MySQLReplicationLagProbe implements ReplicationLagProbe {
+    @Override
+    public long probe(Connection connection) throws SQLException {
+        Statement statement = null;
+        ResultSet resultSet = null;
+        try {
+            statement = connection.createStatement();
+            resultSet = statement.executeQuery("SHOW SLAVE STATUS");
+            if (!resultSet.next()) {
+                // not a replica
+                return 0;
+            }
+            long seconds = resultSet.getLong("Seconds_Behind_Master");
+            if (resultSet.wasNull()) {
+                return -1;
+            }
+            return seconds * 1000;
+        } finally {
+            IOs.close(resultSet);
+            IOs.close(statement);
+        }
+    }
+}
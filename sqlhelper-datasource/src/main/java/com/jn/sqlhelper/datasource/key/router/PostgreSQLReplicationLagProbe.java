@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.datasource.key.router;
+
+import com.jn.langx.util.io.IOs;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * PostgreSQL (10+): now() - pg_last_xact_replay_timestamp().
+ * <p>
+ * The replay timestamp is the commit time of the last replayed transaction, on an idle primary it keeps growing
+ * even though the replica is up to date, so the lag is 0 when all the received wal is replayed.
+ */
+public class PostgreSQLReplicationLagProbe implements ReplicationLagProbe {
+    private static final String LAG_SQL = "SELECT CASE"
+            + " WHEN NOT pg_is_in_recovery() THEN 0"
+            + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000 END";
+
+    @Override
+    public long probe(Connection connection) throws SQLException {
+        Statement statement = null;
+        ResultSet resultSet = null;
+        try {
+            statement = connection.createStatement();
+            resultSet = statement.executeQuery(LAG_SQL);
+            if (!resultSet.next()) {
+                return 0;
+            }
+            double millis = resultSet.getDouble(1);
+            if (resultSet.wasNull()) {
+                return -1;
+            }
+            return (long) millis;
+        } finally {
+            IOs.close(resultSet);
+            IOs.close(statement);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.datasource.key.router;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.invocation.MethodInvocation;
+import com.jn.langx.util.Emptys;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.collection.Collects;
+import com.jn.langx.util.collection.Pipeline;
+import com.jn.langx.util.function.Predicate;
+import com.jn.sqlhelper.common.context.ContextStorage;
+import com.jn.sqlhelper.common.context.ContextStorages;
+import com.jn.sqlhelper.datasource.DataSourceRegistry;
+import com.jn.sqlhelper.datasource.DataSources;
+import com.jn.sqlhelper.datasource.definition.ReadWriteSplittingProperties;
+import com.jn.sqlhelper.datasource.key.DataSourceKey;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes the methods which have no datasource specified:
+ * <pre>
+ *     1) the writes, the reads in a write transaction, and the reads in the sticky window after a write go to the write datasource
+ *     2) the other reads go to one of the replicas in the read group (round robin), the lagging replicas are excluded
+ * </pre>
+ */
+public class ReadWriteRouter {
+    /**
+     * the time of the last write in current thread, it is removed when the sticky window is passed
+     */
+    private static final ContextStorage<Long> LAST_WRITE_TIME = ContextStorages.newStorage(ReadWriteRouter.class.getName() + ".lastWrite");
+    private static final boolean SPRING_TX_PRESENT = isSpringTxPresent();
+
+    @NonNull
+    private DataSourceRegistry registry;
+    @NonNull
+    private ReadWriteSplittingProperties properties = new ReadWriteSplittingProperties();
+    @Nullable
+    private ReplicationLagMonitor lagMonitor;
+    private final AtomicInteger counter = new AtomicInteger(0);
+
+    public void setRegistry(DataSourceRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void setProperties(ReadWriteSplittingProperties properties) {
+        Preconditions.checkNotNull(properties);
+        this.properties = properties;
+    }
+
+    public ReadWriteSplittingProperties getProperties() {
+        return properties;
+    }
+
+    public void setLagMonitor(ReplicationLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    /**
+     * @return the selected key, null if there is no datasource to route to
+     */
+    public DataSourceKey route(@NonNull MethodInvocation methodInvocation) {
+        if (!isRead(methodInvocation)) {
+            markWrite();
+            return getWriteKey();
+        }
+        if (inStickyWindow() || inWriteTransaction()) {
+            return getWriteKey();
+        }
+        List<DataSourceKey> replicas = getHealthyReplicas();
+        if (Emptys.isEmpty(replicas)) {
+            return getWriteKey();
+        }
+        int index = (counter.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+        return replicas.get(index);
+    }
+
+    /**
+     * marks the current thread has written, the reads in the sticky window go to the write datasource
+     */
+    public void markWrite() {
+        if (properties.getStickyWindowInMills() > 0) {
+            LAST_WRITE_TIME.set(System.currentTimeMillis());
+        }
+    }
+
+    protected boolean isRead(MethodInvocation methodInvocation) {
+        final String methodName = methodInvocation.getJoinPoint().getName();
+        return Collects.anyMatch(properties.getReadMethodPrefixes(), new Predicate<String>() {
+            @Override
+            public boolean test(String prefix) {
+                return prefix != null && methodName.startsWith(prefix);
+            }
+        });
+    }
+
+    private boolean inStickyWindow() {
+        Long lastWriteTime = LAST_WRITE_TIME.get();
+        if (lastWriteTime == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - lastWriteTime < properties.getStickyWindowInMills()) {
+            return true;
+        }
+        LAST_WRITE_TIME.remove();
+        return false;
+    }
+
+    private boolean inWriteTransaction() {
+        return SPRING_TX_PRESENT && SpringTransactions.inWriteTransaction();
+    }
+
+    private DataSourceKey getWriteKey() {
+        DataSourceKey key = new DataSourceKey(properties.getWriteGroup(), properties.getWriteName());
+        if (registry.get(key) != null) {
+            return key;
+        }
+        return registry.getPrimary();
+    }
+
+    private List<DataSourceKey> getHealthyReplicas() {
+        List<DataSourceKey> replicas = registry.findKeys(new DataSourceKey(properties.getReadGroup(), DataSources.DATASOURCE_NAME_WILDCARD));
+        if (lagMonitor == null) {
+            return replicas;
+        }
+        return Pipeline.of(replicas).filter(new Predicate<DataSourceKey>() {
+            @Override
+            public boolean test(DataSourceKey key) {
+                return !lagMonitor.isLagging(key);
+            }
+        }).asList();
+    }
+
+    private static boolean isSpringTxPresent() {
+        try {
+            Class.forName("org.springframework.transaction.support.TransactionSynchronizationManager");
+            return true;
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+
+    /**
+     * isolates the spring-tx classes, it is loaded only if spring-tx is present
+     */
+    private static class SpringTransactions {
+        static boolean inWriteTransaction() {
+            return TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+    }
+}
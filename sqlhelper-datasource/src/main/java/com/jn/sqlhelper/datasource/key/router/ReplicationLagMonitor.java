@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.datasource.key.router;
+
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.io.IOs;
+import com.jn.sqlhelper.datasource.DataSourceRegistry;
+import com.jn.sqlhelper.datasource.NamedDataSource;
+import com.jn.sqlhelper.datasource.key.DataSourceKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the replication lag of the replicas.
+ * <p>
+ * The routing reads the cached sample only. When the sample of a replica is older than the probe interval, it is
+ * refreshed in the background by the probe executor, at most one probe of a replica runs at a time, and the routing
+ * uses the last sample meanwhile. A replica without any sample yet is not regarded as lagging.
+ */
+public class ReplicationLagMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationLagMonitor.class);
+    private static volatile Executor defaultProbeExecutor;
+    private final Map<String, ReplicationLagProbe> probes = new ConcurrentHashMap<String, ReplicationLagProbe>();
+    private final ConcurrentHashMap<DataSourceKey, LagSample> samples = new ConcurrentHashMap<DataSourceKey, LagSample>();
+    private DataSourceRegistry registry;
+    private long maxLagInMills;
+    private long probeIntervalInMills = 5000;
+    private Executor probeExecutor;
+
+    public ReplicationLagMonitor() {
+        ReplicationLagProbe mysql = new MySQLReplicationLagProbe();
+        registerProbe("mysql", mysql);
+        registerProbe("mariadb", mysql);
+        registerProbe("postgresql", new PostgreSQLReplicationLagProbe());
+    }
+
+    /**
+     * @param productKeyword a keyword of the database product name, in lower case
+     */
+    public void registerProbe(String productKeyword, ReplicationLagProbe probe) {
+        Preconditions.checkNotNull(productKeyword);
+        Preconditions.checkNotNull(probe);
+        probes.put(productKeyword.toLowerCase(), probe);
+    }
+
+    public void setRegistry(DataSourceRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void setMaxLagInMills(long maxLagInMills) {
+        this.maxLagInMills = maxLagInMills;
+    }
+
+    public void setProbeIntervalInMills(long probeIntervalInMills) {
+        this.probeIntervalInMills = probeIntervalInMills;
+    }
+
+    /**
+     * @param probeExecutor runs the probes, the probes share a daemon thread if it isn't set
+     */
+    public void setProbeExecutor(Executor probeExecutor) {
+        this.probeExecutor = probeExecutor;
+    }
+
+    private Executor getProbeExecutor() {
+        if (probeExecutor != null) {
+            return probeExecutor;
+        }
+        if (defaultProbeExecutor == null) {
+            synchronized (ReplicationLagMonitor.class) {
+                if (defaultProbeExecutor == null) {
+                    defaultProbeExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                        private final AtomicInteger counter = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "sqlhelper-replication-lag-probe-" + counter.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+        return defaultProbeExecutor;
+    }
+
+    public boolean isLagging(DataSourceKey key) {
+        if (maxLagInMills <= 0) {
+            return false;
+        }
+        LagSample sample = samples.get(key);
+        if (sample == null) {
+            samples.putIfAbsent(key, new LagSample());
+            sample = samples.get(key);
+        }
+        if (System.currentTimeMillis() - sample.time >= probeIntervalInMills) {
+            refresh(key, sample);
+        }
+        long lag = sample.lag;
+        return lag < 0 || lag > maxLagInMills;
+    }
+
+    /**
+     * @return the last probed lag of the replica, 0 if it isn't probed yet
+     */
+    public long getLag(DataSourceKey key) {
+        LagSample sample = samples.get(key);
+        return sample == null ? 0 : sample.lag;
+    }
+
+    private void refresh(final DataSourceKey key, final LagSample sample) {
+        if (!sample.probing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            getProbeExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        sample.lag = probe(key);
+                        sample.time = System.currentTimeMillis();
+                    } finally {
+                        sample.probing.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            logger.warn("The replication lag probe of the datasource {} is rejected, error: {}", key, ex.getMessage());
+            sample.probing.set(false);
+        }
+    }
+
+    private long probe(DataSourceKey key) {
+        NamedDataSource dataSource = registry.get(key);
+        if (dataSource == null) {
+            return -1;
+        }
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            String productName = connection.getMetaData().getDatabaseProductName().toLowerCase();
+            for (Map.Entry<String, ReplicationLagProbe> entry : probes.entrySet()) {
+                if (productName.contains(entry.getKey())) {
+                    return entry.getValue().probe(connection);
+                }
+            }
+            // unknown database, can't probe it
+            return 0;
+        } catch (Throwable ex) {
+            logger.warn("Error occur when probe the replication lag of the datasource {}, error: {}", key, ex.getMessage());
+            return -1;
+        } finally {
+            IOs.close(connection);
+        }
+    }
+
+    private static class LagSample {
+        private final AtomicBoolean probing = new AtomicBoolean(false);
+        private volatile long time = 0;
+        private volatile long lag = 0;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.datasource.key.router;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Probes the replication lag of a replica database.
+ */
+public interface ReplicationLagProbe {
+    /**
+     * @return the lag in milliseconds, 0 if the database is not a replica, -1 if the replication is broken
+     */
+    long probe(Connection connection) throws SQLException;
+}
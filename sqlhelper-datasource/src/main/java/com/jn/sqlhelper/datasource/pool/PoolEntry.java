@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.datasource.pool;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A physical connection in the pool, its state is changed only by CAS.
+ */
+class PoolEntry {
+    static final int STATE_REMOVED = -1;
+    static final int STATE_NOT_IN_USE = 0;
+    static final int STATE_IN_USE = 1;
+
+    private final AtomicInteger state;
+    final Connection connection;
+    final long createTime;
+    volatile long lastAccessTime;
+    volatile long borrowTime;
+    /**
+     * where the connection is borrowed, it is recorded only if the leak detection is enabled
+     */
+    volatile Throwable borrowStack;
+    volatile boolean leakReported;
+
+    PoolEntry(Connection connection, int initialState) {
+        this.connection = connection;
+        this.state = new AtomicInteger(initialState);
+        this.createTime = System.currentTimeMillis();
+        this.lastAccessTime = this.createTime;
+    }
+
+    boolean compareAndSetState(int expect, int update) {
+        return state.compareAndSet(expect, update);
+    }
+
+    int getState() {
+        return state.get();
+    }
+
+    void setState(int update) {
+        state.set(update);
+    }
+}
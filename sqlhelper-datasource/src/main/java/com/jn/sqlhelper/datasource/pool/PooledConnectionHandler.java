@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.datasource.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Invocation handler of the connection proxies handed out by {@link PooledDataSource},
+ * the close calls return the physical connection to the pool.
+ */
+class PooledConnectionHandler implements InvocationHandler {
+    private final PooledDataSource pool;
+    private final PoolEntry entry;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    PooledConnectionHandler(PooledDataSource pool, PoolEntry entry) {
+        this.pool = pool;
+        this.entry = entry;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        if (methodName.equals("equals")) {
+            return proxy == args[0];
+        } else if (methodName.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        } else if (methodName.equals("toString")) {
+            return "PooledConnection[" + entry.connection + "]";
+        } else if (methodName.equals("close")) {
+            if (closed.compareAndSet(false, true)) {
+                pool.release(entry);
+            }
+            return null;
+        } else if (methodName.equals("isClosed")) {
+            return closed.get();
+        } else if (methodName.equals("getDelegate")) {
+            return entry.connection;
+        } else if (methodName.equals("setDelegate")) {
+            throw new UnsupportedOperationException("setDelegate");
+        } else if (methodName.equals("unwrap")) {
+            if (((Class<?>) args[0]).isInstance(proxy)) {
+                return proxy;
+            }
+        } else if (methodName.equals("isWrapperFor")) {
+            if (((Class<?>) args[0]).isInstance(proxy)) {
+                return true;
+            }
+        }
+
+        if (closed.get()) {
+            throw new SQLException("Connection is closed");
+        }
+        try {
+            return method.invoke(entry.connection, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
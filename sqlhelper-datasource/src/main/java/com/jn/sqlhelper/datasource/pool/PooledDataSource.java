@@ -0,0 +1,456 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.datasource.pool;
+
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.io.IOs;
+import com.jn.sqlhelper.datasource.AbstractDataSource;
+import com.jn.sqlhelper.datasource.DataSources;
+import com.jn.sqlhelper.datasource.connection.ConnectionProxy;
+import com.jn.sqlhelper.datasource.connection.PreparedStatementCacheMetrics;
+import com.jn.sqlhelper.datasource.definition.DataSourceProperties;
+import com.jn.sqlhelper.datasource.driver.DriverManagerDataSource;
+
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lightweight connection pool.
+ * <p>
+ * The borrow path claims connections by CAS, it does not lock when the pool has an idle connection:
+ * <pre>
+ *     1) try the connection last used by current thread
+ *     2) scan the shared connection list, claim an idle one by CAS
+ *     3) create a new connection if the pool is not full
+ *     4) wait for a connection handed off by the releasing threads
+ * </pre>
+ * The waiting threads are parked by {@link SynchronousQueue}. Adding or removing a connection writes
+ * the {@link CopyOnWriteArrayList}, which takes its internal lock, so growing and shrinking the pool is not lock-free.
+ * <p>
+ * Supported properties: maxPoolSize, minIdle, initialSize, connectionTimeoutInMills, idleTimeoutInMills,
+ * maxLifetimeInMills, leakDetectionThresholdInMills, autoCommit, readOnly, transactionIsolationName, catalog,
+ * preparedStatementCacheSize.
+ */
+public class PooledDataSource extends AbstractDataSource implements Closeable {
+    public static final int DEFAULT_MAX_POOL_SIZE = 10;
+    public static final long DEFAULT_CONNECTION_TIMEOUT = 30000;
+    private static final long HOUSEKEEPING_PERIOD = 30000;
+    /**
+     * a waiting thread rescans the pool at least once per interval
+     */
+    private static final long WAIT_RECHECK_INTERVAL = 100;
+    /**
+     * the max time a releasing thread waits for a registered waiter to take the connection
+     */
+    private static final long HANDOFF_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final String poolName;
+    private final DriverManagerDataSource driverDataSource;
+    private final int maxPoolSize;
+    private final int minIdle;
+    private final long connectionTimeoutInMills;
+    private final long idleTimeoutInMills;
+    private final long maxLifetimeInMills;
+    private final long leakDetectionThresholdInMills;
+    private final boolean autoCommit;
+    private final boolean readOnly;
+    private final int transactionIsolation;
+
+    private final CopyOnWriteArrayList<PoolEntry> entries = new CopyOnWriteArrayList<PoolEntry>();
+    private final ThreadLocal<WeakReference<PoolEntry>> lastUsed = new ThreadLocal<WeakReference<PoolEntry>>();
+    private final SynchronousQueue<PoolEntry> handoffQueue = new SynchronousQueue<PoolEntry>(true);
+    private final AtomicInteger waiters = new AtomicInteger(0);
+    private final AtomicInteger totalConnections = new AtomicInteger(0);
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    public PooledDataSource(DataSourceProperties properties) {
+        Preconditions.checkNotNull(properties, "the datasource properties is null");
+        Preconditions.checkNotEmpty(properties.getUrl(), "the jdbc url is null or empty");
+        this.poolName = properties.getName() == null ? "sqlhelper-pool" : properties.getName();
+
+        driverDataSource = new DriverManagerDataSource();
+        if (properties.getDriverClassName() != null) {
+            driverDataSource.setDriverClassName(properties.getDriverClassName());
+        }
+        driverDataSource.setUrl(properties.getUrl());
+        driverDataSource.setUsername(properties.getUsername());
+        driverDataSource.setPassword(properties.getPassword());
+        driverDataSource.setCatalog(properties.getCatalog());
+        driverDataSource.setSchema(properties.getSchema());
+        driverDataSource.setConnectionProperties(properties.getDriverProps());
+        driverDataSource.setPreparedStatementCacheSize(properties.getPreparedStatementCacheSize());
+
+        this.maxPoolSize = properties.getMaxPoolSize() > 0 ? properties.getMaxPoolSize() : DEFAULT_MAX_POOL_SIZE;
+        this.minIdle = Math.min(Math.max(properties.getMinIdle(), 0), maxPoolSize);
+        this.connectionTimeoutInMills = properties.getConnectionTimeoutInMills() > 0 ? properties.getConnectionTimeoutInMills() : DEFAULT_CONNECTION_TIMEOUT;
+        this.idleTimeoutInMills = properties.getIdleTimeoutInMills();
+        this.maxLifetimeInMills = properties.getMaxLifetimeInMills();
+        this.leakDetectionThresholdInMills = properties.getLeakDetectionThresholdInMills();
+        this.autoCommit = properties.isAutoCommit();
+        this.readOnly = properties.isReadOnly();
+        this.transactionIsolation = properties.getTransactionIsolationName() == null ? -1 : DataSources.getTransactionIsolation(properties.getTransactionIsolationName());
+
+        int initialSize = Math.min(Math.max(properties.getInitialSize(), minIdle), maxPoolSize);
+        for (int i = 0; i < initialSize; i++) {
+            try {
+                if (tryCreateEntry(PoolEntry.STATE_NOT_IN_USE) == null) {
+                    break;
+                }
+            } catch (SQLException ex) {
+                logger.warn("Can't create the initial connection for the pool {}, error: {}", poolName, ex.getMessage());
+                break;
+            }
+        }
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, poolName + "-housekeeper");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.housekeeper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                housekeep();
+            }
+        }, HOUSEKEEPING_PERIOD, HOUSEKEEPING_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("The pool " + poolName + " is closed");
+        }
+        PoolEntry entry = borrow(System.currentTimeMillis() + connectionTimeoutInMills);
+        long now = System.currentTimeMillis();
+        entry.borrowTime = now;
+        entry.lastAccessTime = now;
+        entry.leakReported = false;
+        entry.borrowStack = leakDetectionThresholdInMills > 0 ? new Throwable("The connection is borrowed here") : null;
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(), new Class<?>[]{ConnectionProxy.class}, new PooledConnectionHandler(this, entry));
+    }
+
+    /**
+     * The username and password are specified by the pool configuration, the arguments are ignored.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    private PoolEntry borrow(long deadline) throws SQLException {
+        // 1) thread-affine fast path
+        WeakReference<PoolEntry> lastUsedRef = lastUsed.get();
+        if (lastUsedRef != null) {
+            PoolEntry entry = lastUsedRef.get();
+            if (entry != null && entry.compareAndSetState(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_IN_USE)) {
+                if (isUsable(entry)) {
+                    return entry;
+                }
+                discard(entry);
+            }
+        }
+
+        while (true) {
+            // 2) scan the shared list
+            PoolEntry idle = claimIdleEntry();
+            if (idle != null) {
+                return idle;
+            }
+
+            // 3) grow the pool
+            PoolEntry created = tryCreateEntry(PoolEntry.STATE_IN_USE);
+            if (created != null) {
+                return created;
+            }
+
+            // 4) wait for a released connection
+            long timeout = deadline - System.currentTimeMillis();
+            if (timeout <= 0) {
+                throw new SQLTimeoutException("Can't get a connection from the pool " + poolName + " in " + connectionTimeoutInMills + "ms, total: " + totalConnections.get() + ", active: " + getActiveConnections());
+            }
+            waiters.incrementAndGet();
+            try {
+                // a connection released before the registration is not handed off, it is found by the rescan
+                idle = claimIdleEntry();
+                if (idle != null) {
+                    return idle;
+                }
+                PoolEntry handed = handoffQueue.poll(Math.min(timeout, WAIT_RECHECK_INTERVAL), TimeUnit.MILLISECONDS);
+                if (handed != null && handed.compareAndSetState(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_IN_USE)) {
+                    if (isUsable(handed)) {
+                        return handed;
+                    }
+                    discard(handed);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted when waiting for a connection from the pool " + poolName, ex);
+            } finally {
+                waiters.decrementAndGet();
+            }
+            if (closed) {
+                throw new SQLException("The pool " + poolName + " is closed");
+            }
+        }
+    }
+
+    private PoolEntry claimIdleEntry() {
+        for (PoolEntry entry : entries) {
+            if (entry.compareAndSetState(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_IN_USE)) {
+                if (isUsable(entry)) {
+                    return entry;
+                }
+                discard(entry);
+            }
+        }
+        return null;
+    }
+
+    void release(PoolEntry entry) {
+        try {
+            resetConnection(entry.connection);
+        } catch (Throwable ex) {
+            logger.warn("Can't reset the connection, it will be closed, error: {}", ex.getMessage());
+            discardAndReplenish(entry);
+            return;
+        }
+        entry.lastAccessTime = System.currentTimeMillis();
+        entry.borrowStack = null;
+        if (closed || isExpired(entry, entry.lastAccessTime)) {
+            discardAndReplenish(entry);
+            return;
+        }
+        entry.setState(PoolEntry.STATE_NOT_IN_USE);
+        if (!handOff(entry)) {
+            lastUsed.set(new WeakReference<PoolEntry>(entry));
+        }
+    }
+
+    /**
+     * hand off an idle connection to a waiting thread. A registered waiter which is not polling yet either
+     * rescans the pool or polls soon, so the releasing thread parks in the offer for a short time only.
+     *
+     * @return whether the connection is taken by a waiting thread or claimed by another borrower
+     */
+    private boolean handOff(PoolEntry entry) {
+        long deadline = System.nanoTime() + HANDOFF_TIMEOUT_NANOS;
+        try {
+            while (waiters.get() > 0 && entry.getState() == PoolEntry.STATE_NOT_IN_USE) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                if (handoffQueue.offer(entry, remaining, TimeUnit.NANOSECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException ex) {
+            // the connection stays idle, the waiters find it when they rescan
+            Thread.currentThread().interrupt();
+        }
+        return entry.getState() != PoolEntry.STATE_NOT_IN_USE;
+    }
+
+    /**
+     * Discards a returned connection, and opens a replacement for the waiting threads,
+     * otherwise they sleep until the connection timeout although the pool has free capacity.
+     */
+    private void discardAndReplenish(PoolEntry entry) {
+        discard(entry);
+        if (closed || waiters.get() <= 0) {
+            return;
+        }
+        try {
+            PoolEntry created = tryCreateEntry(PoolEntry.STATE_NOT_IN_USE);
+            if (created != null) {
+                handOff(created);
+            }
+        } catch (SQLException ex) {
+            logger.warn("Can't create a replacement connection for the pool {}, error: {}", poolName, ex.getMessage());
+        }
+    }
+
+    private PoolEntry tryCreateEntry(int initialState) throws SQLException {
+        while (true) {
+            int total = totalConnections.get();
+            if (total >= maxPoolSize) {
+                return null;
+            }
+            if (totalConnections.compareAndSet(total, total + 1)) {
+                break;
+            }
+        }
+        try {
+            Connection connection = driverDataSource.getConnection();
+            connection.setAutoCommit(autoCommit);
+            if (readOnly) {
+                connection.setReadOnly(true);
+            }
+            if (transactionIsolation != -1) {
+                connection.setTransactionIsolation(transactionIsolation);
+            }
+            PoolEntry entry = new PoolEntry(connection, initialState);
+            entries.add(entry);
+            return entry;
+        } catch (SQLException ex) {
+            totalConnections.decrementAndGet();
+            throw ex;
+        } catch (RuntimeException ex) {
+            totalConnections.decrementAndGet();
+            throw ex;
+        }
+    }
+
+    private void resetConnection(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.rollback();
+        }
+        if (connection.getAutoCommit() != autoCommit) {
+            connection.setAutoCommit(autoCommit);
+        }
+        if (connection.isReadOnly() != readOnly) {
+            connection.setReadOnly(readOnly);
+        }
+        connection.clearWarnings();
+    }
+
+    private boolean isUsable(PoolEntry entry) {
+        if (isExpired(entry, System.currentTimeMillis())) {
+            return false;
+        }
+        try {
+            return !entry.connection.isClosed();
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(PoolEntry entry, long now) {
+        return maxLifetimeInMills > 0 && now - entry.createTime > maxLifetimeInMills;
+    }
+
+    private void discard(PoolEntry entry) {
+        entry.setState(PoolEntry.STATE_REMOVED);
+        if (entries.remove(entry)) {
+            totalConnections.decrementAndGet();
+        }
+        IOs.close(entry.connection);
+    }
+
+    /**
+     * retires the expired and the idle connections, reports the leaked connections, and fills the pool to minIdle
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        int idle = getIdleConnections();
+        for (PoolEntry entry : entries) {
+            int state = entry.getState();
+            if (state == PoolEntry.STATE_NOT_IN_USE) {
+                boolean idleTimeout = idleTimeoutInMills > 0 && idle > minIdle && now - entry.lastAccessTime > idleTimeoutInMills;
+                if ((idleTimeout || isExpired(entry, now)) && entry.compareAndSetState(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_REMOVED)) {
+                    discard(entry);
+                    idle--;
+                }
+            } else if (state == PoolEntry.STATE_IN_USE) {
+                if (leakDetectionThresholdInMills > 0 && !entry.leakReported && now - entry.borrowTime > leakDetectionThresholdInMills) {
+                    entry.leakReported = true;
+                    logger.warn("Connection leak detection triggered for the pool " + poolName + ", the connection has been borrowed for " + (now - entry.borrowTime) + "ms", entry.borrowStack);
+                }
+            }
+        }
+        try {
+            while (!closed && getIdleConnections() < minIdle) {
+                if (tryCreateEntry(PoolEntry.STATE_NOT_IN_USE) == null) {
+                    break;
+                }
+            }
+        } catch (SQLException ex) {
+            logger.warn("Can't fill the pool {} to minIdle: {}, error: {}", poolName, minIdle, ex.getMessage());
+        }
+    }
+
+    public PreparedStatementCacheMetrics getPreparedStatementCacheMetrics() {
+        return driverDataSource.getPreparedStatementCacheMetrics();
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    public int getActiveConnections() {
+        int active = 0;
+        for (PoolEntry entry : entries) {
+            if (entry.getState() == PoolEntry.STATE_IN_USE) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    public int getIdleConnections() {
+        int idle = 0;
+        for (PoolEntry entry : entries) {
+            if (entry.getState() == PoolEntry.STATE_NOT_IN_USE) {
+                idle++;
+            }
+        }
+        return idle;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the idle connections, the connections in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        housekeeper.shutdownNow();
+        for (PoolEntry entry : entries) {
+            if (entry.compareAndSetState(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_REMOVED)) {
+                discard(entry);
+            }
+        }
+        logger.info("The pool {} is closed", poolName);
+    }
+}
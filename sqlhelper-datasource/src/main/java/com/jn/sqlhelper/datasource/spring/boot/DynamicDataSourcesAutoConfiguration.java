@@ -23,12 +23,15 @@ import com.jn.sqlhelper.datasource.DataSources;
 import com.jn.sqlhelper.datasource.NamedDataSource;
 import com.jn.sqlhelper.datasource.definition.DataSourceProperties;
 import com.jn.sqlhelper.datasource.definition.NamedDataSourcesProperties;
+import com.jn.sqlhelper.datasource.definition.ReadWriteSplittingProperties;
 import com.jn.sqlhelper.datasource.factory.CentralizedDataSourceFactory;
 import com.jn.sqlhelper.datasource.key.DataSourceKeyRegistry;
 import com.jn.sqlhelper.datasource.key.DataSourceKeySelector;
 import com.jn.sqlhelper.datasource.key.filter.DataSourceKeyFilter;
 import com.jn.sqlhelper.datasource.key.parser.DataSourceKeyAnnotationParser;
 import com.jn.sqlhelper.datasource.key.parser.DataSourceKeyDataSourceParser;
+import com.jn.sqlhelper.datasource.key.router.ReadWriteRouter;
+import com.jn.sqlhelper.datasource.key.router.ReplicationLagMonitor;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.ListFactoryBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -113,12 +116,28 @@ public class DynamicDataSourcesAutoConfiguration {
     public DataSourceKeySelector dataSourceKeySelector(
             DataSourceRegistry registry,
             DataSourceKeyRegistry keyRegistry,
-            ObjectProvider<List<DataSourceKeyFilter>> filtersProvider) {
+            ObjectProvider<List<DataSourceKeyFilter>> filtersProvider,
+            NamedDataSourcesProperties namedDataSourcesProperties) {
         DataSourceKeySelector selector = new DataSourceKeySelector();
         selector.setDataSourceRegistry(registry);
         List<DataSourceKeyFilter> filters = filtersProvider.getIfAvailable();
         selector.addDataSourceKeyFilters(filters);
         selector.setDataSourceKeyRegistry(keyRegistry);
+
+        ReadWriteSplittingProperties readWriteSplitting = namedDataSourcesProperties.getReadWriteSplitting();
+        if (readWriteSplitting != null && readWriteSplitting.isEnabled()) {
+            ReadWriteRouter router = new ReadWriteRouter();
+            router.setRegistry(registry);
+            router.setProperties(readWriteSplitting);
+            if (readWriteSplitting.getMaxLagInMills() > 0) {
+                ReplicationLagMonitor lagMonitor = new ReplicationLagMonitor();
+                lagMonitor.setRegistry(registry);
+                lagMonitor.setMaxLagInMills(readWriteSplitting.getMaxLagInMills());
+                lagMonitor.setProbeIntervalInMills(readWriteSplitting.getLagProbeIntervalInMills());
+                router.setLagMonitor(lagMonitor);
+            }
+            selector.setReadWriteRouter(router);
+        }
         return selector;
     }
 
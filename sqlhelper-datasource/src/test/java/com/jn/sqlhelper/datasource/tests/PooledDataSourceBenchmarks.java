@@ -0,0 +1,58 @@
+package com.jn.sqlhelper.datasource.tests;
+
+import com.jn.sqlhelper.datasource.DataSources;
+import com.jn.sqlhelper.datasource.DelegatingNamedDataSource;
+import com.jn.sqlhelper.datasource.factory.DataSourceFactory;
+import com.jn.sqlhelper.datasource.factory.dbcp2.Dbcp2DataSourceFactory;
+import com.jn.sqlhelper.datasource.factory.druid.AlibabaDruidDataSourceFactory;
+import com.jn.sqlhelper.datasource.factory.hikaricp.HikaricpDataSourceFactory;
+import com.jn.sqlhelper.datasource.factory.pool.PooledDataSourceFactory;
+import com.jn.sqlhelper.datasource.factory.tomcatjdbc.TomcatJdbcDataSourceFactory;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Not a part of the unit tests, run it with: mvn test -Pbenchmark
+ */
+public class PooledDataSourceBenchmarks {
+
+    @Test
+    public void benchmark() throws Throwable {
+        bench("sqlhelper", new PooledDataSourceFactory(), DataSources.DATASOURCE_IMPLEMENT_KEY_SQLHELPER);
+        bench("hikaricp", new HikaricpDataSourceFactory(), DataSources.DATASOURCE_IMPLEMENT_KEY_HIKARICP);
+        bench("dbcp2", new Dbcp2DataSourceFactory(), DataSources.DATASOURCE_IMPLEMENT_KEY_DBCP2);
+        bench("druid", new AlibabaDruidDataSourceFactory(), DataSources.DATASOURCE_IMPLEMENT_KEY_DRUID);
+        bench("tomcat", new TomcatJdbcDataSourceFactory(), DataSources.DATASOURCE_IMPLEMENT_KEY_TOMCAT);
+    }
+
+    private void bench(String name, DataSourceFactory factory, String implementation) throws Throwable {
+        DataSource dataSource = ((DelegatingNamedDataSource) factory.get(PooledDataSourceTests.newProperties(name, implementation))).getDelegate();
+        try {
+            // warm up
+            PooledDataSourceTests.run(dataSource);
+            long start = System.nanoTime();
+            PooledDataSourceTests.run(dataSource);
+            long costInMills = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            System.out.println(name + ": " + (PooledDataSourceTests.THREADS * PooledDataSourceTests.LOOPS) + " borrow/query/release in " + costInMills + "ms");
+        } finally {
+            close(dataSource);
+        }
+    }
+
+    private static void close(DataSource dataSource) throws Exception {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+            return;
+        }
+        try {
+            Method close = dataSource.getClass().getMethod("close");
+            close.invoke(dataSource);
+        } catch (NoSuchMethodException ex) {
+            // ignore
+        }
+    }
+}
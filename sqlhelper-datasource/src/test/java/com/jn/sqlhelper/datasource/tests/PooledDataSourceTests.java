@@ -0,0 +1,178 @@
+package com.jn.sqlhelper.datasource.tests;
+
+import com.jn.sqlhelper.datasource.DataSources;
+import com.jn.sqlhelper.datasource.DelegatingNamedDataSource;
+import com.jn.sqlhelper.datasource.definition.DataSourceProperties;
+import com.jn.sqlhelper.datasource.factory.DataSourceFactoryProvider;
+import com.jn.sqlhelper.datasource.factory.pool.PooledDataSourceFactory;
+import com.jn.sqlhelper.datasource.pool.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PooledDataSourceTests {
+    static final int THREADS = 16;
+    static final int LOOPS = 2000;
+    static final int POOL_SIZE = 8;
+
+    @Test
+    public void testBorrowAndRelease() throws Throwable {
+        PooledDataSource dataSource = (PooledDataSource) ((DelegatingNamedDataSource) new PooledDataSourceFactory().get(newProperties("sqlhelper", DataSources.DATASOURCE_IMPLEMENT_KEY_SQLHELPER))).getDelegate();
+        try {
+            Connection connection = dataSource.getConnection();
+            Assert.assertEquals(1, dataSource.getActiveConnections());
+            connection.close();
+            Assert.assertTrue(connection.isClosed());
+            Assert.assertEquals(0, dataSource.getActiveConnections());
+            // minIdle is 2, the pool is initialized with 2 connections
+            Assert.assertEquals(2, dataSource.getIdleConnections());
+
+            run(dataSource);
+            Assert.assertTrue(dataSource.getTotalConnections() <= POOL_SIZE);
+            Assert.assertEquals(0, dataSource.getActiveConnections());
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    public void testReplaceExpiredConnectionForWaiters() throws Throwable {
+        DataSourceProperties properties = newProperties("sqlhelper_expired", DataSources.DATASOURCE_IMPLEMENT_KEY_SQLHELPER);
+        properties.setMaxPoolSize(1);
+        properties.setMinIdle(0);
+        properties.setMaxLifetimeInMills(200);
+        final PooledDataSource dataSource = (PooledDataSource) ((DelegatingNamedDataSource) new PooledDataSourceFactory().get(properties)).getDelegate();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Connection connection = dataSource.getConnection();
+            Thread.sleep(300);
+            Future<Long> waiter = executor.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    long start = System.nanoTime();
+                    dataSource.getConnection().close();
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+            });
+            Thread.sleep(200);
+            // the connection is expired, it is discarded and a replacement is handed to the waiter
+            connection.close();
+            long waitInMills = waiter.get(10, TimeUnit.SECONDS);
+            Assert.assertTrue(waitInMills < 10000);
+            Assert.assertTrue(dataSource.getTotalConnections() <= 1);
+        } finally {
+            executor.shutdownNow();
+            dataSource.close();
+        }
+    }
+
+    @Test
+    public void testHandOffToWaiters() throws Throwable {
+        DataSourceProperties properties = newProperties("sqlhelper_handoff", DataSources.DATASOURCE_IMPLEMENT_KEY_SQLHELPER);
+        properties.setMaxPoolSize(1);
+        properties.setMinIdle(0);
+        final PooledDataSource dataSource = (PooledDataSource) ((DelegatingNamedDataSource) new PooledDataSourceFactory().get(properties)).getDelegate();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> waiters = new ArrayList<Future<Long>>();
+            Connection connection = dataSource.getConnection();
+            for (int i = 0; i < 4; i++) {
+                waiters.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        long start = System.nanoTime();
+                        Connection conn = dataSource.getConnection();
+                        Thread.sleep(10);
+                        conn.close();
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                }));
+            }
+            Thread.sleep(50);
+            connection.close();
+            // the connection is passed from waiter to waiter, none of them waits until the connection timeout
+            for (Future<Long> waiter : waiters) {
+                Assert.assertTrue(waiter.get(10, TimeUnit.SECONDS) < 10000);
+            }
+            Assert.assertEquals(0, dataSource.getActiveConnections());
+        } finally {
+            executor.shutdownNow();
+            dataSource.close();
+        }
+    }
+
+    @Test
+    public void testBuiltinPoolIsTheLastFallback() {
+        DataSourceFactoryProvider provider = DataSourceFactoryProvider.getInstance();
+        Assert.assertNotNull(provider.get(DataSources.DATASOURCE_IMPLEMENT_KEY_SQLHELPER));
+        // HikariCP is in the test classpath
+        Assert.assertSame(provider.get(DataSources.DATASOURCE_IMPLEMENT_KEY_HIKARICP), provider.get());
+    }
+
+    static void run(final DataSource dataSource) throws Throwable {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch latch = new CountDownLatch(THREADS);
+        final AtomicInteger failures = new AtomicInteger(0);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < LOOPS; i++) {
+                            Connection connection = dataSource.getConnection();
+                            try {
+                                Statement statement = connection.createStatement();
+                                ResultSet resultSet = statement.executeQuery("SELECT 1");
+                                resultSet.next();
+                                resultSet.close();
+                                statement.close();
+                            } finally {
+                                connection.close();
+                            }
+                        }
+                    } catch (Throwable ex) {
+                        ex.printStackTrace();
+                        failures.incrementAndGet();
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        Assert.assertEquals(0, failures.get());
+    }
+
+    static DataSourceProperties newProperties(String name, String implementation) {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setName(name);
+        properties.setImplementation(implementation);
+        properties.setDriverClassName("org.h2.Driver");
+        properties.setUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        properties.setUsername("sa");
+        properties.setPassword("");
+        properties.setAutoCommit(true);
+        properties.setTransactionIsolationName("TRANSACTION_READ_COMMITTED");
+        properties.setMaxPoolSize(POOL_SIZE);
+        properties.setMinIdle(2);
+        properties.setConnectionTimeoutInMills(30000);
+        properties.setValidationTimeoutInMills(5000);
+        properties.setIdleTimeoutInMills(600000);
+        properties.setMaxLifetimeInMills(1800000);
+        return properties;
+    }
+}
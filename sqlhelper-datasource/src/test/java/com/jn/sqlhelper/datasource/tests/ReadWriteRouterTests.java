@@ -0,0 +1,166 @@
+package com.jn.sqlhelper.datasource.tests;
+
+import com.jn.langx.invocation.GenericMethodInvocation;
+import com.jn.langx.invocation.MethodInvocation;
+import com.jn.sqlhelper.datasource.DataSourceRegistry;
+import com.jn.sqlhelper.datasource.DataSources;
+import com.jn.sqlhelper.datasource.definition.ReadWriteSplittingProperties;
+import com.jn.sqlhelper.datasource.key.DataSourceKey;
+import com.jn.sqlhelper.datasource.key.router.ReadWriteRouter;
+import com.jn.sqlhelper.datasource.key.router.ReplicationLagMonitor;
+import com.jn.sqlhelper.datasource.key.router.ReplicationLagProbe;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+public class ReadWriteRouterTests {
+    private static final DataSourceKey WRITE = new DataSourceKey(DataSources.DATASOURCE_GROUP_DEFAULT, DataSources.DATASOURCE_PRIMARY);
+    private static final DataSourceKey REPLICA_1 = new DataSourceKey("replica", "r1");
+    private static final DataSourceKey REPLICA_2 = new DataSourceKey("replica", "r2");
+
+    /**
+     * runs the probes in the caller thread
+     */
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test
+    public void testRouteReadsToReplicas() {
+        ReadWriteRouter router = newRouter(0);
+        Map<DataSourceKey, Integer> counts = new HashMap<DataSourceKey, Integer>();
+        for (int i = 0; i < 4; i++) {
+            DataSourceKey key = router.route(invocation("selectById"));
+            counts.put(key, counts.containsKey(key) ? counts.get(key) + 1 : 1);
+        }
+        Assert.assertEquals(Integer.valueOf(2), counts.get(REPLICA_1));
+        Assert.assertEquals(Integer.valueOf(2), counts.get(REPLICA_2));
+
+        Assert.assertEquals(WRITE, router.route(invocation("insert")));
+        Assert.assertEquals(WRITE, router.route(invocation("updateById")));
+    }
+
+    @Test
+    public void testStickyWindowAfterWrite() throws Throwable {
+        ReadWriteRouter router = newRouter(200);
+        Assert.assertEquals(WRITE, router.route(invocation("insert")));
+        Assert.assertEquals(WRITE, router.route(invocation("selectById")));
+        Thread.sleep(300);
+        Assert.assertNotEquals(WRITE, router.route(invocation("selectById")));
+    }
+
+    @Test
+    public void testExcludeLaggingReplicas() {
+        ReadWriteRouter router = newRouter(0);
+        final Map<String, Long> lags = new HashMap<String, Long>();
+        lags.put("r1", 10000L);
+        lags.put("r2", 0L);
+        router.setLagMonitor(newLagMonitor(lags, DIRECT_EXECUTOR));
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(REPLICA_2, router.route(invocation("selectById")));
+        }
+
+        // all the replicas are lagging, the reads go to the write datasource
+        lags.put("r2", -1L);
+        router.setLagMonitor(newLagMonitor(lags, DIRECT_EXECUTOR));
+        Assert.assertEquals(WRITE, router.route(invocation("selectById")));
+    }
+
+    @Test
+    public void testProbeOffTheRoutingThread() {
+        ReadWriteRouter router = newRouter(0);
+        Map<String, Long> lags = new HashMap<String, Long>();
+        lags.put("r1", 10000L);
+        lags.put("r2", 10000L);
+        final List<Runnable> probes = new ArrayList<Runnable>();
+        ReplicationLagMonitor lagMonitor = newLagMonitor(lags, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                probes.add(command);
+            }
+        });
+        router.setLagMonitor(lagMonitor);
+
+        // the replicas are not probed yet, the routing doesn't wait for the probes
+        Assert.assertNotEquals(WRITE, router.route(invocation("selectById")));
+        Assert.assertNotEquals(WRITE, router.route(invocation("selectById")));
+        Assert.assertEquals(2, probes.size());
+        Assert.assertEquals(0, lagMonitor.getLag(REPLICA_1));
+
+        for (Runnable probe : probes) {
+            probe.run();
+        }
+        Assert.assertEquals(10000, lagMonitor.getLag(REPLICA_1));
+        Assert.assertEquals(WRITE, router.route(invocation("selectById")));
+        // the samples are fresh, they are not probed again
+        Assert.assertEquals(2, probes.size());
+    }
+
+    private static ReadWriteRouter newRouter(long stickyWindowInMills) {
+        DataSourceRegistry registry = new DataSourceRegistry();
+        registry.register(WRITE, newDataSource("rw_primary"));
+        registry.register(REPLICA_1, newDataSource("r1"));
+        registry.register(REPLICA_2, newDataSource("r2"));
+
+        ReadWriteSplittingProperties properties = new ReadWriteSplittingProperties();
+        properties.setEnabled(true);
+        properties.setStickyWindowInMills(stickyWindowInMills);
+        ReadWriteRouter router = new ReadWriteRouter();
+        router.setRegistry(registry);
+        router.setProperties(properties);
+        return router;
+    }
+
+    private static ReplicationLagMonitor newLagMonitor(final Map<String, Long> lags, Executor executor) {
+        final DataSourceRegistry registry = new DataSourceRegistry();
+        registry.register(REPLICA_1, newDataSource("r1"));
+        registry.register(REPLICA_2, newDataSource("r2"));
+        ReplicationLagMonitor lagMonitor = new ReplicationLagMonitor();
+        lagMonitor.setRegistry(registry);
+        lagMonitor.setMaxLagInMills(1000);
+        lagMonitor.setProbeExecutor(executor);
+        lagMonitor.registerProbe("h2", new ReplicationLagProbe() {
+            @Override
+            public long probe(Connection connection) throws SQLException {
+                // the catalog of a H2 database is its name
+                return lags.get(connection.getCatalog().toLowerCase());
+            }
+        });
+        return lagMonitor;
+    }
+
+    private static JdbcDataSource newDataSource(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        return dataSource;
+    }
+
+    private static MethodInvocation invocation(String methodName) {
+        try {
+            return new GenericMethodInvocation(null, null, UserDao.class.getMethod(methodName), new Object[0]);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+    }
+
+    interface UserDao {
+        Object selectById();
+
+        void insert();
+
+        void updateById();
+    }
+}
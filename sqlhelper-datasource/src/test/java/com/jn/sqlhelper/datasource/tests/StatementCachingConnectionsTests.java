@@ -0,0 +1,99 @@
+package com.jn.sqlhelper.datasource.tests;
+
+import com.jn.sqlhelper.datasource.connection.PreparedStatementCacheMetrics;
+import com.jn.sqlhelper.datasource.driver.DriverManagerDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+public class StatementCachingConnectionsTests {
+
+    @Test
+    public void testCache() throws Throwable {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:statement_cache;DB_CLOSE_DELAY=-1", "sa", "");
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setPreparedStatementCacheSize(2);
+
+        Connection connection = dataSource.getConnection();
+        try {
+            for (int i = 0; i < 10; i++) {
+                query(connection, "SELECT ?", i);
+            }
+            query(connection, "SELECT ? + 1", 1);
+            query(connection, "SELECT ? + 2", 1);
+            query(connection, "SELECT ?", 1);
+
+            // nested, the cached statement is in use
+            PreparedStatement outer = connection.prepareStatement("SELECT ? + 2");
+            query(connection, "SELECT ? + 2", 1);
+            outer.close();
+            Assert.assertTrue(outer.isClosed());
+        } finally {
+            connection.close();
+        }
+        PreparedStatementCacheMetrics metrics = dataSource.getPreparedStatementCacheMetrics();
+        System.out.println(metrics);
+        Assert.assertEquals(10, metrics.getHits());
+        Assert.assertEquals(5, metrics.getMisses());
+        Assert.assertEquals(2, metrics.getEvictions());
+    }
+
+    @Test
+    public void testRestoreSettings() throws Throwable {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:statement_cache_settings;DB_CLOSE_DELAY=-1", "sa", "");
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setPreparedStatementCacheSize(2);
+
+        Connection connection = dataSource.getConnection();
+        try {
+            PreparedStatement statement = connection.prepareStatement("SELECT X FROM SYSTEM_RANGE(1, 10)");
+            int queryTimeout = statement.getQueryTimeout();
+            int maxRows = statement.getMaxRows();
+            int fetchDirection = statement.getFetchDirection();
+            int fetchSize = statement.getFetchSize();
+
+            statement.setQueryTimeout(queryTimeout + 7);
+            statement.setMaxRows(3);
+            statement.setFetchDirection(ResultSet.FETCH_REVERSE);
+            statement.setFetchSize(fetchSize + 5);
+            Assert.assertEquals(3, count(statement));
+            statement.close();
+
+            PreparedStatement reused = connection.prepareStatement("SELECT X FROM SYSTEM_RANGE(1, 10)");
+            Assert.assertEquals(queryTimeout, reused.getQueryTimeout());
+            Assert.assertEquals(maxRows, reused.getMaxRows());
+            Assert.assertEquals(fetchDirection, reused.getFetchDirection());
+            Assert.assertEquals(fetchSize, reused.getFetchSize());
+            Assert.assertEquals(10, count(reused));
+            reused.close();
+        } finally {
+            connection.close();
+        }
+        Assert.assertEquals(1, dataSource.getPreparedStatementCacheMetrics().getHits());
+    }
+
+    private static int count(PreparedStatement statement) throws Throwable {
+        ResultSet resultSet = statement.executeQuery();
+        int rows = 0;
+        while (resultSet.next()) {
+            rows++;
+        }
+        resultSet.close();
+        return rows;
+    }
+
+    private static void query(Connection connection, String sql, int value) throws Throwable {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            statement.setInt(1, value);
+            ResultSet resultSet = statement.executeQuery();
+            Assert.assertTrue(resultSet.next());
+            resultSet.close();
+        } finally {
+            statement.close();
+        }
+    }
+}
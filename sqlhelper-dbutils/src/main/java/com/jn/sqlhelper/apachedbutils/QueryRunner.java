@@ -35,6 +35,8 @@ import javax.sql.DataSource;
 import java.sql.*;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 public class QueryRunner extends org.apache.commons.dbutils.QueryRunner {
     private static final PagingRequestContextHolder PAGING_CONTEXT = PagingRequestContextHolder.getContext();
@@ -43,6 +45,7 @@ public class QueryRunner extends org.apache.commons.dbutils.QueryRunner {
     private static final Logger logger = LoggerFactory.getLogger(QueryRunner.class);
 
     private DbutilsPaginationProperties paginationConfig = new DbutilsPaginationProperties();
+    private volatile AsyncPagingExecutor asyncExecutor;
 
     /**
      * Constructor for QueryRunner.
@@ -142,6 +145,45 @@ public class QueryRunner extends org.apache.commons.dbutils.QueryRunner {
         this.instrumentConfig = instrumentConfig;
     }
 
+    public void setAsyncExecutor(AsyncPagingExecutor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * the executor is created lazily if it is not set, its concurrency is limited to the pool size of the datasource
+     */
+    public AsyncPagingExecutor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            synchronized (this) {
+                if (asyncExecutor == null) {
+                    asyncExecutor = new AsyncPagingExecutor(AsyncPagingExecutor.newDefaultExecutor(), AsyncPagingExecutor.guessMaxConcurrency(getDataSource()));
+                }
+            }
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * Executes a paging query asynchronously with a connection retrieved from the <code>DataSource</code>,
+     * the paging request is bound to the worker thread.
+     *
+     * @param sql     The SQL statement to execute.
+     * @param request The paging request.
+     * @param rsh     The handler used to create the rows from the <code>ResultSet</code>.
+     * @param params  The replacement parameters.
+     * @return the future of the paging result
+     */
+    public <E> Future<PagingResult<E>> queryAsync(final String sql, final PagingRequest<?, E> request, final ResultSetHandler<List<E>> rsh, final Object... params) {
+        Preconditions.checkNotNull(request, "the paging request is null");
+        return getAsyncExecutor().submit(request, new Callable<PagingResult<E>>() {
+            @Override
+            public PagingResult<E> call() throws Exception {
+                query(sql, rsh, params);
+                return request.getResult();
+            }
+        });
+    }
+
     /**
      * Execute an SQL SELECT query with a single replacement parameter. The
      * caller is responsible for closing the connection.
@@ -468,8 +510,8 @@ public class QueryRunner extends org.apache.commons.dbutils.QueryRunner {
                             paginationSql = instrumentor.instrumentOrderBySql(paginationSql, PAGING_CONTEXT.getPagingRequest().getOrderBy());
                         }
 
-                        beforeSubqueryParametersCount = SqlPaginations.findPlaceholderParameterCount(beforeSubqueryPartition);
-                        afterSubqueryParametersCount = SqlPaginations.findPlaceholderParameterCount(afterSubqueryPartition);
+                        beforeSubqueryParametersCount = SqlPaginations.findPlaceholderParameterCount(beforeSubqueryPartition, instrumentor.getCurrentDialect());
+                        afterSubqueryParametersCount = SqlPaginations.findPlaceholderParameterCount(afterSubqueryPartition, instrumentor.getCurrentDialect());
 
                     }
 
@@ -500,11 +542,8 @@ public class QueryRunner extends org.apache.commons.dbutils.QueryRunner {
     }
 
     private void invalidatePagingRequest(boolean force) {
-        PagingRequest request = PAGING_CONTEXT.getPagingRequest();
-        if (request != null) {
-            request.clear(force);
-        }
-        PAGING_CONTEXT.remove();
+        // a request bound by a scope is kept until the scope ends
+        PAGING_CONTEXT.finishPagingRequest(force);
     }
 
     private boolean needCountInPagingRequest(PagingRequest request) {
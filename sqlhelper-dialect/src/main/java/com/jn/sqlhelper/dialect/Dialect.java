@@ -68,7 +68,11 @@ public interface Dialect extends LikeEscaper {
 
     /**
      * Whether set limit or offset with placeholder '?'
+     *
+     * @deprecated the dialects are shared by all the threads and integrations, it can't be changed after the dialect is
+     * registered, set the mode of a query with {@link RowSelection#setLimitInVariableMode(Boolean)}
      */
+    @Deprecated
     void setUseLimitInVariableMode(boolean variableMode);
 
     /**
@@ -145,6 +149,24 @@ public interface Dialect extends LikeEscaper {
 
     boolean isSupportsBatchSql();
 
+    /**
+     * Whether a backslash escapes the next char in a string literal, e.g. MySQL.
+     * In standard SQL a backslash is a plain char: ESCAPE '\'
+     */
+    boolean isBackslashEscapeInStringLiteral();
+
+    /**
+     * Whether supports the boolean literals TRUE, FALSE. Else the booleans are written as 1, 0, e.g. SQL Server, Oracle
+     */
+    boolean isSupportsBooleanLiteral();
+
+    /**
+     * The literal of a binary value, the standard one is X'0A1B', e.g. 0x0A1B in SQL Server, HEXTORAW('0A1B') in Oracle
+     *
+     * @param hex the hex string of the bytes
+     */
+    String getBinaryLiteral(String hex);
+
     String generateTableDDL(@NonNull DatabaseDescription database, String catalog, String schema, @NonNull String tableName) throws SQLException;
 
     UrlParser getUrlParser();
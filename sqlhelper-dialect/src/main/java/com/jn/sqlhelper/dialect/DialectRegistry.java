@@ -25,8 +25,9 @@ import com.jn.langx.util.collection.Pipeline;
 import com.jn.langx.util.function.Functions;
 import com.jn.langx.util.function.Predicate;
 import com.jn.langx.util.reflect.Reflects;
-import com.jn.langx.util.struct.Holder;
 import com.jn.sqlhelper.common.ddl.SQLSyntaxCompatTable;
+import com.jn.sqlhelper.common.index.ClassIndexes;
+import com.jn.sqlhelper.common.index.IndexedClass;
 import com.jn.sqlhelper.common.utils.Connections;
 import com.jn.sqlhelper.dialect.annotation.Driver;
 import com.jn.sqlhelper.dialect.annotation.SyntaxCompat;
@@ -42,15 +43,23 @@ import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DialectRegistry {
 
     private static final Logger logger = LoggerFactory.getLogger(DialectRegistry.class);
-    private static final Map<String, Dialect> nameToDialectMap = new TreeMap<String, Dialect>();
-    private static final Map<String, String> classNameToNameMap = new TreeMap<String, String>();
-    // key:DatabaseMetaData.getProduceName() + getDriver();
-    private static final Map<String, Holder<Dialect>> dbToDialectMap = new HashMap<String, Holder<Dialect>>();
+    private static final Map<String, Dialect> nameToDialectMap = new ConcurrentHashMap<String, Dialect>();
+    /**
+     * the registered dialects which are not instantiated yet, a dialect is instantiated at its first lookup
+     */
+    private static final Map<String, DialectDescriptor> nameToLazyDialectMap = new ConcurrentHashMap<String, DialectDescriptor>();
+    private static final Map<String, String> classNameToNameMap = new ConcurrentHashMap<String, String>();
     private static final Properties vendorDatabaseIdMappings = new Properties();
+    /**
+     * the compiled vendor database id mappings and the detected dialects, it is replaced when the mappings or the
+     * dialects are changed
+     */
+    private static volatile VendorSnapshot vendorSnapshot = new VendorSnapshot(new VendorKeywordMatcher(Collections.<String, String>emptyMap()));
     private static final DialectRegistry registry = new DialectRegistry();
 
     static {
@@ -102,7 +111,27 @@ public class DialectRegistry {
     private static void registerBuiltinDialects() {
         logger.info("Start to register builtin dialects");
 
-        final Class<? extends Dialect>[] dialects = (Class<? extends Dialect>[]) new Class[]{
+        // the index is generated by the ClassIndexProcessor at compile time
+        List<IndexedClass> index = ClassIndexes.load(DialectRegistry.class.getClassLoader(), Dialect.class.getName());
+        synchronized (vendorDatabaseIdMappings) {
+            if (index.isEmpty()) {
+                logger.info("The dialect index is not found, register the builtin dialects with reflection");
+                for (Class<? extends Dialect> clazz : getBuiltinDialectClasses()) {
+                    registerLazyDialectClass(clazz);
+                }
+            } else {
+                for (IndexedClass indexedClass : index) {
+                    registerLazyDialect(indexedClass);
+                }
+            }
+            compileVendorDatabaseIdMappings();
+        }
+
+        logger.info("Registered dialects: {}", new TreeSet<String>(nameToLazyDialectMap.keySet()));
+    }
+
+    private static Class<? extends Dialect>[] getBuiltinDialectClasses() {
+        return (Class<? extends Dialect>[]) new Class[]{
 
                 AccessDialect.class,
                 ActorDBDialect.class,
@@ -227,6 +256,7 @@ public class DialectRegistry {
                 SQLServerDialect.SQLServer2016Dialect.class,
                 SQLServerDialect.SQLServer2017Dialect.class,
                 SQReamDialect.class,
+                SybaseDialect.class,
 
                 TajoDialect.class,
                 TeradataDialect.class,
@@ -243,17 +273,12 @@ public class DialectRegistry {
                 VistaDBDialect.class,
                 VoltDBDialect.class,
 
+                XmlDialect.class,
                 XtremeSQLDialect.class,
 
                 YaacomoDialect.class,
                 YugabyteDBDialect.class
         };
-
-        for (Class<? extends Dialect> clazz : Arrays.asList(dialects)) {
-            registerDialectByClass(clazz, null);
-        }
-
-        logger.info("Registered dialects: {}", nameToDialectMap.keySet());
     }
 
     private static void loadDatabaseIdMappings() {
@@ -261,7 +286,10 @@ public class DialectRegistry {
         InputStream inputStream = DialectRegistry.class.getResourceAsStream("/sqlhelper-dialect-databaseid.properties");
         if (inputStream != null) {
             try {
-                vendorDatabaseIdMappings.load(inputStream);
+                synchronized (vendorDatabaseIdMappings) {
+                    vendorDatabaseIdMappings.load(inputStream);
+                    compileVendorDatabaseIdMappings();
+                }
             } catch (Throwable ex) {
                 logger.error(ex.getMessage(), ex);
             } finally {
@@ -274,6 +302,10 @@ public class DialectRegistry {
         }
     }
 
+    /**
+     * @return the mappings, change them with {@link #setDatabaseId(String, String)}, the changes made on the properties
+     * directly aren't used in the dialect detection
+     */
     public static Properties getVendorDatabaseIdMappings() {
         return vendorDatabaseIdMappings;
     }
@@ -283,8 +315,35 @@ public class DialectRegistry {
     }
 
     public static void setDatabaseIdIfAbsent(String keywordsInDriver, String databaseId) {
+        synchronized (vendorDatabaseIdMappings) {
+            if (putDatabaseIdIfAbsent(keywordsInDriver, databaseId)) {
+                compileVendorDatabaseIdMappings();
+            }
+        }
+    }
+
+    private static boolean putDatabaseIdIfAbsent(String keywordsInDriver, String databaseId) {
         if (!vendorDatabaseIdMappings.containsKey(keywordsInDriver)) {
             vendorDatabaseIdMappings.setProperty(keywordsInDriver, databaseId);
+            return true;
+        }
+        return false;
+    }
+
+    private static void compileVendorDatabaseIdMappings() {
+        Map<String, String> keywordToDatabaseId = new TreeMap<String, String>();
+        for (String keyword : vendorDatabaseIdMappings.stringPropertyNames()) {
+            keywordToDatabaseId.put(keyword, vendorDatabaseIdMappings.getProperty(keyword));
+        }
+        vendorSnapshot = new VendorSnapshot(new VendorKeywordMatcher(keywordToDatabaseId));
+    }
+
+    /**
+     * the detected dialects may be replaced, so they are detected again
+     */
+    private static void clearDetectedDialects() {
+        synchronized (vendorDatabaseIdMappings) {
+            vendorSnapshot = new VendorSnapshot(vendorSnapshot.matcher);
         }
     }
 
@@ -382,29 +441,123 @@ public class DialectRegistry {
         return registerDialectByClass(clazz, null);
     }
 
-    private static Dialect registerDialectByClass(@NonNull final Class<? extends Dialect> clazz, @Nullable Dialect dialect) {
-
-        // step 1: 生成 database id
+    private static String getDialectName(final Class<? extends Dialect> clazz) {
         final Name nameAnno = (Name) Reflects.getAnnotation(clazz, Name.class);
-        String name;
-        if (nameAnno != null) {
-            name = nameAnno.value();
-            if (Strings.isBlank(name)) {
-                throw new IllegalStateException("@Name is empty in class" + Reflects.getFQNClassName(clazz));
+        return getDialectName(Reflects.getFQNClassName(clazz), clazz.getSimpleName(), nameAnno != null, nameAnno == null ? null : nameAnno.value());
+    }
+
+    private static String getDriverClassName(final Class<? extends Dialect> clazz) {
+        final Driver driverAnno = (Driver) Reflects.getAnnotation(clazz, Driver.class);
+        return getDriverClassName(Reflects.getFQNClassName(clazz), driverAnno == null ? null : driverAnno.value());
+    }
+
+    /**
+     * the annotations are read from the class, or from the class index, the rules are the same
+     *
+     * @param named     whether the class is annotated with @Name
+     * @param nameValue the value of @Name
+     */
+    private static String getDialectName(String className, String simpleClassName, boolean named, @Nullable String nameValue) {
+        if (named) {
+            if (Strings.isBlank(nameValue)) {
+                throw new IllegalStateException("@Name is empty in class" + className);
             }
-        } else {
-            final String simpleClassName = clazz.getSimpleName().toLowerCase();
-            name = simpleClassName.replaceAll("dialect", "");
+            return nameValue;
         }
+        return simpleClassName.toLowerCase().replaceAll("dialect", "");
+    }
+
+    /**
+     * @param driverValue the value of @Driver, null if the class isn't annotated
+     */
+    private static String getDriverClassName(String className, @Nullable String driverValue) {
+        if (driverValue != null && Strings.isBlank(driverValue)) {
+            throw new IllegalStateException("@Driver is empty in class" + className);
+        }
+        return driverValue;
+    }
+
+    /**
+     * register the dialect class only, it is instantiated at the first lookup.
+     * the caller holds the lock of the vendor database id mappings and compiles them
+     */
+    private static void registerLazyDialectClass(@NonNull final Class<? extends Dialect> clazz) {
+        String name = getDialectName(clazz);
+        registerLazyDialect(new DialectDescriptor(name, clazz.getName(), getDriverClassName(clazz)));
+        registerSyntaxCompat(name, clazz);
+    }
+
+    /**
+     * register the dialect in the index, the class isn't loaded.
+     * the caller holds the lock of the vendor database id mappings and compiles them
+     */
+    private static void registerLazyDialect(@NonNull final IndexedClass indexedClass) {
+        String className = indexedClass.getClassName();
+        String name = getDialectName(className, indexedClass.getSimpleClassName(), indexedClass.isAnnotationPresent(Name.class.getName()), indexedClass.getAnnotationValue(Name.class.getName()));
+        registerLazyDialect(new DialectDescriptor(name, className, getDriverClassName(className, indexedClass.getAnnotationValue(Driver.class.getName()))));
+        registerSyntaxCompat(name, indexedClass.getAnnotationValues(SyntaxCompat.class.getName()));
+    }
+
+    private static void registerLazyDialect(DialectDescriptor descriptor) {
+        nameToLazyDialectMap.put(descriptor.name, descriptor);
+        classNameToNameMap.put(descriptor.className.replace('$', '.'), descriptor.name);
+        putDatabaseIdIfAbsent(descriptor.name, descriptor.name);
+    }
+
+    /**
+     * instantiate the lazy dialect
+     */
+    private static Dialect instantiateLazyDialect(final String name) {
+        synchronized (nameToLazyDialectMap) {
+            Dialect dialect = nameToDialectMap.get(name);
+            if (dialect != null) {
+                return dialect;
+            }
+            DialectDescriptor descriptor = nameToLazyDialectMap.get(name);
+            if (descriptor == null) {
+                return null;
+            }
+            try {
+                dialect = registerDialectByClass(name, loadDialectClass(descriptor.className), null, descriptor.driverClassName);
+            } catch (Throwable ex) {
+                logger.error("Register dialect {} fail: {}", name, ex.getMessage(), ex);
+            }
+            // it is failed if the dialect is null, the error is logged once only
+            nameToLazyDialectMap.remove(name);
+            return dialect;
+        }
+    }
+
+    private static void registerSyntaxCompat(String name, final Class<? extends Dialect> clazz) {
+        SyntaxCompat syntaxCompat = Reflects.getAnnotation(clazz, SyntaxCompat.class);
+        if (syntaxCompat != null) {
+            registerSyntaxCompat(name, syntaxCompat.value());
+        }
+    }
+
+    private static void registerSyntaxCompat(String name, String[] syntaxCompat) {
+        if (Emptys.isNotEmpty(syntaxCompat)) {
+            SQLSyntaxCompatTable.getInstance().register(name, syntaxCompat);
+        }
+    }
+
+    private static Dialect registerDialectByClass(@NonNull final Class<? extends Dialect> clazz, @Nullable Dialect dialect) {
+        // step 1: 生成 database id
+        String name = getDialectName(clazz);
+        dialect = registerDialectByClass(name, clazz, dialect, dialect == null ? getDriverClassName(clazz) : null);
+
+        // step 2: 扫描兼容性
+        if (dialect != null) {
+            registerSyntaxCompat(name, clazz);
+        }
+        return dialect;
+    }
+
+    private static Dialect registerDialectByClass(@NonNull String name, @NonNull final Class<? extends Dialect> clazz, @Nullable Dialect dialect, @Nullable final String driverClassName) {
         if (dialect == null) {
-            final Driver driverAnno = (Driver) Reflects.getAnnotation(clazz, Driver.class);
             Class<? extends java.sql.Driver> driverClass = null;
             Constructor<? extends Dialect> driverConstructor = null;
-            if (driverAnno != null) {
-                final String driverClassName = driverAnno.value();
-                if (Strings.isBlank(driverClassName)) {
-                    throw new IllegalStateException("@Driver is empty in class" + Reflects.getFQNClassName(clazz));
-                }
+            if (driverClassName != null) {
                 try {
                     driverClass = loadDriverClass(driverClassName);
                     try {
@@ -459,26 +612,30 @@ public class DialectRegistry {
             }
         }
         if (dialect != null) {
-            DialectRegistry.nameToDialectMap.put(name, dialect);
+            if (dialect instanceof AbstractDialect) {
+                ((AbstractDialect) dialect).freeze();
+            }
+            Dialect previous = DialectRegistry.nameToDialectMap.put(name, dialect);
+            nameToLazyDialectMap.remove(name);
             DialectRegistry.classNameToNameMap.put(clazz.getCanonicalName(), name);
             setDatabaseId(name, name);
-        }
-
-        // step 2: 扫描兼容性
-        if (dialect != null) {
-            SyntaxCompat syntaxCompat = Reflects.getAnnotation(clazz, SyntaxCompat.class);
-            if (syntaxCompat != null) {
-                if (Emptys.isNotEmpty(syntaxCompat.value())) {
-                    SQLSyntaxCompatTable.getInstance().register(name, syntaxCompat.value());
-                }
+            if (previous != null && previous != dialect) {
+                clearDetectedDialects();
             }
         }
-
         return dialect;
     }
 
+    /**
+     * all the dialects are instantiated
+     *
+     * @return the dialects sorted by name
+     */
     public Collection<Dialect> getDialects() {
-        return nameToDialectMap.values();
+        for (String name : nameToLazyDialectMap.keySet()) {
+            instantiateLazyDialect(name);
+        }
+        return Collections.unmodifiableCollection(new TreeMap<String, Dialect>(nameToDialectMap).values());
     }
 
     public Dialect getDialectByClassName(final String className) {
@@ -490,49 +647,50 @@ public class DialectRegistry {
     }
 
     public Dialect getDialectByName(final String databaseId) {
-        return DialectRegistry.nameToDialectMap.get(databaseId);
+        if (databaseId == null) {
+            return null;
+        }
+        Dialect dialect = DialectRegistry.nameToDialectMap.get(databaseId);
+        if (dialect == null && nameToLazyDialectMap.containsKey(databaseId)) {
+            dialect = instantiateLazyDialect(databaseId);
+        }
+        return dialect;
     }
 
     public Dialect getDialectByDatabaseMetadata(final DatabaseMetaData databaseMetaData) {
         Dialect dialect = null;
         if (databaseMetaData != null) {
             String databaseIdString = databaseIdStringLowerCase(databaseMetaData);
-            try {
-                dialect = ((Holder<Dialect>) DialectRegistry.dbToDialectMap.get(databaseIdString)).get();
-            } catch (NullPointerException ex) {
-                // ignore
+            VendorSnapshot snapshot = vendorSnapshot;
+            dialect = snapshot.dialects.get(databaseIdString);
+            if (dialect != null) {
+                return dialect;
             }
-            if (dialect == null) {
-                Enumeration<String> keys = (Enumeration<String>) vendorDatabaseIdMappings.propertyNames();
-                while (keys.hasMoreElements()) {
-                    String key = keys.nextElement();
-                    if (databaseIdString.contains(key.toLowerCase())) {
-                        dialect = getDialectByName(vendorDatabaseIdMappings.getProperty(key));
-                        if (dialect != null) {
-                            dbToDialectMap.put(databaseIdString, new Holder<Dialect>(dialect));
-                            break;
-                        }
-                    }
+            // the dialect of the longest product keyword is the most specific one
+            for (String databaseId : snapshot.matcher.findDatabaseIds(databaseIdString)) {
+                dialect = getDialectByName(databaseId);
+                if (dialect != null) {
+                    break;
                 }
             }
 
             // sqlserver
             if (dialect == null) {
-                if (Strings.containsAny(databaseIdString.toLowerCase(), "sql server") || Strings.containsAny(databaseIdString.toLowerCase(), "sqlserver")) {
+                if (Strings.containsAny(databaseIdString, "sql server") || Strings.containsAny(databaseIdString, "sqlserver")) {
                     try {
                         String productionVersion = databaseMetaData.getDatabaseProductVersion();
                         String tmpDatabaseId = SQLServerDialect.guessDatabaseId(productionVersion);
                         if (Emptys.isNotEmpty(tmpDatabaseId)) {
                             dialect = getDialectByName(vendorDatabaseIdMappings.getProperty(tmpDatabaseId));
-                            if (dialect != null) {
-                                dbToDialectMap.put(databaseIdString, new Holder<Dialect>(dialect));
-                            }
                         }
                     } catch (Throwable ex) {
                         // ignore it
                     }
                 }
             }
+            if (dialect != null) {
+                snapshot.dialects.putIfAbsent(databaseIdString, dialect);
+            }
         }
         return dialect;
     }
@@ -547,11 +705,38 @@ public class DialectRegistry {
             final Dialect dialect = registerDialectByClass(clazz);
             if (!Strings.isBlank(dialectName) && dialect != null) {
                 DialectRegistry.nameToDialectMap.put(dialectName, dialect);
+                nameToLazyDialectMap.remove(dialectName);
+                clearDetectedDialects();
             }
         } catch (Throwable ex) {
             DialectRegistry.logger.info(ex.getMessage(), ex);
         }
     }
 
+    private static final class VendorSnapshot {
+        private final VendorKeywordMatcher matcher;
+        /**
+         * key: the lowercase product name
+         */
+        private final ConcurrentHashMap<String, Dialect> dialects = new ConcurrentHashMap<String, Dialect>();
+
+        private VendorSnapshot(VendorKeywordMatcher matcher) {
+            this.matcher = matcher;
+        }
+    }
 
+    private static final class DialectDescriptor {
+        private final String name;
+        private final String className;
+        /**
+         * the driver of the dialect's driver based constructor, null if the dialect is created with the default constructor
+         */
+        private final String driverClassName;
+
+        private DialectDescriptor(String name, String className, String driverClassName) {
+            this.name = name;
+            this.className = className;
+            this.driverClassName = driverClassName;
+        }
+    }
 }
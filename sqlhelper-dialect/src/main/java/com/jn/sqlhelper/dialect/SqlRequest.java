@@ -4,6 +4,7 @@ import com.jn.sqlhelper.dialect.likeescaper.LikeEscaper;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class SqlRequest<R extends SqlRequest, C extends SqlRequestContext<R>> implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -35,6 +36,16 @@ public class SqlRequest<R extends SqlRequest, C extends SqlRequestContext<R>> im
     private Integer fetchSize;
     private int maxRows = -1;
 
+    /**
+     * the deadline of the request shared by all the statements of the request, e.g. the count and the page statements.
+     * the remaining time is applied as the query timeout of every statement, a statement still running at the deadline
+     * is cancelled.
+     * <p>
+     * it is kept as a {@link System#nanoTime()} value, so a wall clock adjustment doesn't change the budget
+     */
+    private boolean hasDeadline = false;
+    private long deadlineNanos;
+
 
     public String getDialect() {
         return dialect;
@@ -91,6 +102,48 @@ public class SqlRequest<R extends SqlRequest, C extends SqlRequestContext<R>> im
         return (R) this;
     }
 
+    /**
+     * @return the deadline (epoch millis), -1 if there is no deadline
+     */
+    public long getDeadline() {
+        return hasDeadline ? System.currentTimeMillis() + getRemainingMillis() : -1;
+    }
+
+    /**
+     * @param deadline the deadline (epoch millis), a value &lt;= 0 means no deadline
+     */
+    public R setDeadline(long deadline) {
+        if (deadline <= 0) {
+            this.hasDeadline = false;
+            return (R) this;
+        }
+        return setTimeBudget(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * set the deadline to the budget after now
+     */
+    public R setTimeBudget(long budget, TimeUnit unit) {
+        this.deadlineNanos = System.nanoTime() + unit.toNanos(budget);
+        this.hasDeadline = true;
+        return (R) this;
+    }
+
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * @return the remaining millis before the deadline, Long.MAX_VALUE if there is no deadline
+     */
+    public long getRemainingMillis() {
+        return hasDeadline ? TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()) : Long.MAX_VALUE;
+    }
+
+    public boolean isDeadlineExceeded() {
+        return hasDeadline && deadlineNanos - System.nanoTime() <= 0;
+    }
+
     public boolean isPagingRequest() {
         return false;
     }
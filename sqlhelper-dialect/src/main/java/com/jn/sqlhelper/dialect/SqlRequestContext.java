@@ -8,6 +8,10 @@ import java.util.Map;
 
 public class SqlRequestContext<R extends SqlRequest> extends BasedStringAccessor<String, Map<String, Object>> {
     private R request;
+    /**
+     * bound by a scope, it is not cleared by the queries in the scope
+     */
+    private boolean scoped = false;
 
     public SqlRequestContext() {
         setTarget(new HashMap<String, Object>());
@@ -38,6 +42,14 @@ public class SqlRequestContext<R extends SqlRequest> extends BasedStringAccessor
         getTarget().put(key, value);
     }
 
+    public boolean isScoped() {
+        return scoped;
+    }
+
+    public void setScoped(boolean scoped) {
+        this.scoped = scoped;
+    }
+
     public boolean isPagingRequest() {
         return false;
     }
@@ -2,12 +2,17 @@ package com.jn.sqlhelper.dialect;
 
 import com.jn.langx.util.Objects;
 import com.jn.langx.util.function.Consumer;
+import com.jn.sqlhelper.common.context.ContextScope;
+import com.jn.sqlhelper.common.context.ContextStorage;
+import com.jn.sqlhelper.common.context.ContextStorages;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Callable;
+
 public class SqlRequestContextHolder {
     private static final Logger logger = LoggerFactory.getLogger(SqlRequestContextHolder.class);
-    protected static final ThreadLocal<SqlRequestContext> variables = new ThreadLocal<SqlRequestContext>();
+    protected static final ContextStorage<SqlRequestContext> variables = ContextStorages.newStorage(SqlRequestContextHolder.class.getName());
 
     private static final SqlRequestContextHolder INSTANCE = new SqlRequestContextHolder();
 
@@ -50,6 +55,62 @@ public class SqlRequestContextHolder {
         }
     }
 
+    /**
+     * Binds the request until the returned scope is closed, the previous request (if any) is restored when closing.
+     * It is the leak-free alternative to {@link #setSqlRequest(SqlRequest)} + {@link #clear()}.
+     */
+    public ContextScope<SqlRequestContext> openScope(final SqlRequest request) {
+        return new RequestContextScope(newScopedContext(request));
+    }
+
+    /**
+     * Binds the request during the invocation of the callable only, it works with any {@link ContextStorage}.
+     */
+    public <V> V runWith(final SqlRequest request, Callable<V> callable) throws Exception {
+        SqlRequestContext context = newScopedContext(request);
+        try {
+            return variables.runWith(context, callable);
+        } finally {
+            request.setContext(null);
+        }
+    }
+
+    private static SqlRequestContext newScopedContext(SqlRequest request) {
+        SqlRequestContext context = new SqlRequestContext();
+        context.setRequest(request);
+        request.setContext(context);
+        context.setScoped(true);
+        return context;
+    }
+
+    /**
+     * Called by the integrations when a query is finished. The request set by {@link #setSqlRequest(SqlRequest)} is
+     * cleared and removed. The request bound by a scope is kept for the other queries in the scope, and the outer
+     * request is restored when the scope ends.
+     */
+    public void finishRequest() {
+        SqlRequestContext context = get();
+        if (Objects.isNotNull(context) && context.isScoped()) {
+            return;
+        }
+        clear();
+    }
+
+    protected static class RequestContextScope extends ContextScope<SqlRequestContext> {
+        public RequestContextScope(SqlRequestContext context) {
+            super(variables, context);
+        }
+
+        @Override
+        protected void onClose(SqlRequestContext context) {
+            // detach only, the request (and its result) is still used by the caller
+            SqlRequest request = context.getRequest();
+            if (request != null) {
+                request.setContext(null);
+            }
+        }
+    }
+
     public void clear(){
         SqlRequestContext requestContext = get();
         if(Objects.isNotNull(requestContext)){
@@ -16,14 +16,20 @@ package com.jn.sqlhelper.dialect;
 
 import com.jn.langx.annotation.Nullable;
 import com.jn.langx.util.Strings;
+import com.jn.sqlhelper.common.ddl.SQLSyntaxCompatTable;
 import com.jn.sqlhelper.common.utils.SQLs;
 import com.jn.sqlhelper.dialect.likeescaper.LikeEscaper;
 import com.jn.sqlhelper.dialect.orderby.OrderByBuilder;
-import com.jn.sqlhelper.dialect.orderby.SqlStyleOrderByBuilder;
+import com.jn.sqlhelper.dialect.orderby.CachedOrderByBuilder;
 import com.jn.sqlhelper.dialect.pagination.PagingRequest;
 import com.jn.sqlhelper.dialect.pagination.PagingRequestContextHolder;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 public class SqlRequests extends SQLs {
+    private static final Set<String> MYSQL_FAMILY = new HashSet<String>(Arrays.asList(SQLSyntaxCompatTable.MYSQL, "mariadb", "percona", "clustrix"));
 
     public static SelectRequest prepareSelect(@Nullable boolean escapeLikeParameter) {
         return prepareSelect(escapeLikeParameter, null, null, null);
@@ -58,7 +64,7 @@ public class SqlRequests extends SQLs {
         request.setMaxRows(maxRows);
         if (Strings.isNotEmpty(sort)) {
             if (orderByBuilder == null) {
-                orderByBuilder = SqlStyleOrderByBuilder.DEFAULT;
+                orderByBuilder = CachedOrderByBuilder.DEFAULT;
             }
             request.setOrderBy(orderByBuilder.build(sort));
         }
@@ -67,4 +73,36 @@ public class SqlRequests extends SQLs {
         return request;
     }
 
+    /**
+     * Whether the dialect is MySQL, MariaDB, Percona, Clustrix, or a database compatible with the MySQL syntax
+     * in {@link SQLSyntaxCompatTable}
+     */
+    public static boolean isMySQLFamily(@Nullable Dialect dialect) {
+        if (dialect == null) {
+            return false;
+        }
+        String databaseId = dialect.getDatabaseId();
+        return MYSQL_FAMILY.contains(databaseId) || SQLSyntaxCompatTable.getInstance().isCompatible(databaseId, SQLSyntaxCompatTable.MYSQL);
+    }
+
+    /**
+     * Whether the dialect is PostgreSQL, or a database compatible with the PostgreSQL syntax in {@link SQLSyntaxCompatTable}
+     */
+    public static boolean isPostgreSQLFamily(@Nullable Dialect dialect) {
+        return dialect != null && SQLSyntaxCompatTable.getInstance().isCompatible(dialect.getDatabaseId(), SQLSyntaxCompatTable.POSTGRESQL);
+    }
+
+    /**
+     * Find the placeholders in the syntax of the dialect: the backslash escapes and the '#' comments of the MySQL family,
+     * the ?# operator of the PostgreSQL family
+     *
+     * @see SQLs#findPlaceholderParameterIndexes(String, boolean, boolean, boolean)
+     */
+    public static int[] findPlaceholderParameterIndexes(String sql, @Nullable Dialect dialect) {
+        if (dialect == null) {
+            return findPlaceholderParameterIndexes(sql);
+        }
+        return findPlaceholderParameterIndexes(sql, dialect.isBackslashEscapeInStringLiteral(), isMySQLFamily(dialect), isPostgreSQLFamily(dialect));
+    }
+
 }
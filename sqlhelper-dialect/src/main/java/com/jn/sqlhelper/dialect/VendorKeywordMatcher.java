@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect;
+
+import java.util.*;
+
+/**
+ * An Aho-Corasick matcher of the lowercase product keywords of the vendor database id mappings, it finds all the
+ * keywords in a product name in one pass.
+ * <p>
+ * It is immutable, the registry compiles a new one when the mappings are changed.
+ *
+ * @see DialectRegistry#getVendorDatabaseIdMappings()
+ */
+class VendorKeywordMatcher {
+    private final Node root = new Node();
+
+    VendorKeywordMatcher(Map<String, String> keywordToDatabaseId) {
+        for (Map.Entry<String, String> entry : keywordToDatabaseId.entrySet()) {
+            addKeyword(entry.getKey().toLowerCase(), entry.getValue());
+        }
+        buildFailLinks();
+    }
+
+    private void addKeyword(String keyword, String databaseId) {
+        if (keyword.isEmpty()) {
+            return;
+        }
+        Node node = root;
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                child = new Node();
+                node.children.put(c, child);
+            }
+            node = child;
+        }
+        // the keywords differ in case only are the same keyword, the first one wins
+        if (node.keyword == null) {
+            node.keyword = keyword;
+            node.databaseId = databaseId;
+        }
+    }
+
+    private void buildFailLinks() {
+        Deque<Node> queue = new ArrayDeque<Node>();
+        for (Node child : root.children.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+                char c = entry.getKey();
+                Node child = entry.getValue();
+                Node fail = node.fail;
+                while (fail != null && !fail.children.containsKey(c)) {
+                    fail = fail.fail;
+                }
+                child.fail = fail == null ? root : fail.children.get(c);
+                child.output = child.fail.keyword != null ? child.fail : child.fail.output;
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * @param productName the lowercase product name
+     * @return the database ids of the keywords in the product name, the one of the longest keyword is the first
+     */
+    List<String> findDatabaseIds(String productName) {
+        List<Node> matched = new ArrayList<Node>(2);
+        Node node = root;
+        for (int i = 0; i < productName.length(); i++) {
+            char c = productName.charAt(i);
+            while (node != root && !node.children.containsKey(c)) {
+                node = node.fail;
+            }
+            Node next = node.children.get(c);
+            node = next == null ? root : next;
+            for (Node out = node.keyword != null ? node : node.output; out != null; out = out.output) {
+                if (!matched.contains(out)) {
+                    matched.add(out);
+                }
+            }
+        }
+        if (matched.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Collections.sort(matched, new Comparator<Node>() {
+            @Override
+            public int compare(Node o1, Node o2) {
+                return o2.keyword.length() - o1.keyword.length();
+            }
+        });
+        List<String> databaseIds = new ArrayList<String>(matched.size());
+        for (Node out : matched) {
+            databaseIds.add(out.databaseId);
+        }
+        return databaseIds;
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<Character, Node>(4);
+        private Node fail;
+        /**
+         * the nearest node in the fail links which is the end of a keyword
+         */
+        private Node output;
+        private String keyword;
+        private String databaseId;
+    }
+}
@@ -2,6 +2,7 @@ package com.jn.sqlhelper.dialect.instrument;
 
 import com.jn.langx.annotation.Singleton;
 import com.jn.langx.lifecycle.Initializable;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformer;
 import com.jn.sqlhelper.dialect.instrument.groupby.GroupByTransformer;
 import com.jn.sqlhelper.dialect.instrument.orderby.OrderByTransformer;
 import com.jn.sqlhelper.dialect.instrument.where.WhereTransformer;
@@ -18,6 +19,8 @@ public interface Instrumentation<Statement, SQL extends SqlStatementWrapper<Stat
 
     GroupByTransformer<Statement> getGroupByTransformer();
 
+    DeferredJoinTransformer<Statement> getDeferredJoinTransformer();
+
     boolean isEnabled();
 
     void setEnabled(boolean enabled);
@@ -1,16 +1,32 @@
 package com.jn.sqlhelper.dialect.instrument;
 
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinSql;
+import com.jn.sqlhelper.dialect.likeescaper.LikeEscapeSlots;
 import com.jn.sqlhelper.dialect.orderby.OrderBy;
 import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
 import com.jn.sqlhelper.dialect.tenant.Tenant;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class InstrumentedStatement implements SqlStatementWrapper {
     private String originalSql;
     private Map<TransformConfig, String> instrumentedSqlMap = new HashMap<TransformConfig, String>();
     private boolean changed = false;
+    private volatile LikeEscapeSlots likeEscapeSlots;
+    /**
+     * key: the escape declare after the like clauses
+     */
+    private final Map<String, String> likeEscapeSqlMap = new ConcurrentHashMap<String, String>(2);
+    /**
+     * null if the sql can't be rewritten to a deferred join
+     */
+    private volatile DeferredJoinSql deferredJoinSql;
+    /**
+     * the version of the primary key registry which the deferred join is resolved with, -1 if it isn't resolved
+     */
+    private volatile long deferredJoinVersion = -1;
 
     @Override
     public String getOriginalSql() {
@@ -54,17 +70,19 @@ public class InstrumentedStatement implements SqlStatementWrapper {
         return instrumentedSqlMap.get(config);
     }
 
-    public void setLimitSql(String dialect, String limitSql, boolean hasOffset) {
+    public void setLimitSql(String dialect, String limitSql, boolean hasOffset, boolean variableMode) {
         TransformConfig config = new TransformConfig();
         config.setDialect(dialect);
         config.setLimitOffset(hasOffset);
+        config.setLimitInVariableMode(variableMode);
         instrumentedSqlMap.put(config, limitSql);
     }
 
-    public String getLimitSql(String dialect, boolean hasOffset) {
+    public String getLimitSql(String dialect, boolean hasOffset, boolean variableMode) {
         TransformConfig config = new TransformConfig();
         config.setDialect(dialect);
         config.setLimitOffset(hasOffset);
+        config.setLimitInVariableMode(variableMode);
         return instrumentedSqlMap.get(config);
     }
 
@@ -81,21 +99,52 @@ public class InstrumentedStatement implements SqlStatementWrapper {
     }
 
 
-    public void setOrderByLimitSql(OrderBy orderBy, String dialect, String sql, boolean hasOffset) {
+    public void setOrderByLimitSql(OrderBy orderBy, String dialect, String sql, boolean hasOffset, boolean variableMode) {
         TransformConfig config = new TransformConfig();
         config.setOrderBy(orderBy);
         config.setDialect(dialect);
         config.setLimitOffset(hasOffset);
+        config.setLimitInVariableMode(variableMode);
         instrumentedSqlMap.put(config, sql);
     }
 
-    public String getOrderByLimitSql(OrderBy orderBy, String dialect, boolean hasOffset) {
+    public String getOrderByLimitSql(OrderBy orderBy, String dialect, boolean hasOffset, boolean variableMode) {
         TransformConfig config = new TransformConfig();
         config.setOrderBy(orderBy);
         config.setDialect(dialect);
         config.setLimitOffset(hasOffset);
+        config.setLimitInVariableMode(variableMode);
         return instrumentedSqlMap.get(config);
     }
+    public LikeEscapeSlots getLikeEscapeSlots() {
+        return likeEscapeSlots;
+    }
+
+    public void setLikeEscapeSlots(LikeEscapeSlots likeEscapeSlots) {
+        this.likeEscapeSlots = likeEscapeSlots;
+    }
+
+    public String getLikeEscapeSql(String escapeDeclare) {
+        return likeEscapeSqlMap.get(escapeDeclare);
+    }
+
+    public void setLikeEscapeSql(String escapeDeclare, String likeEscapeSql) {
+        likeEscapeSqlMap.put(escapeDeclare, likeEscapeSql);
+    }
+
+    public boolean isDeferredJoinResolved(long primaryKeyRegistryVersion) {
+        return deferredJoinVersion == primaryKeyRegistryVersion;
+    }
+
+    public DeferredJoinSql getDeferredJoinSql() {
+        return deferredJoinSql;
+    }
+
+    public void setDeferredJoinSql(DeferredJoinSql deferredJoinSql, long primaryKeyRegistryVersion) {
+        this.deferredJoinSql = deferredJoinSql;
+        this.deferredJoinVersion = primaryKeyRegistryVersion;
+    }
+
     @Override
     public void setStatement(Object o) {
 
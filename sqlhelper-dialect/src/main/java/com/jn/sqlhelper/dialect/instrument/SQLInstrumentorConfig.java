@@ -70,6 +70,28 @@ public class SQLInstrumentorConfig {
      * 是否开启对 like 参数进行 % _ 转义
      */
     private boolean escapeLikeParameter = false;
+    /**
+     * offset 大于等于该值时，将分页查询改写为 deferred join：先基于主键分页，再回表查询整行。
+     * 只对 limit 子句追加在 SQL 末尾的数据库（例如 MySQL, PostgreSQL）生效，需要提前在 TablePrimaryKeyRegistry 中注册表的主键。
+     * 小于等于 0 时不启用
+     */
+    private long deferredJoinOffsetThreshold = 0;
+    /**
+     * 是否根据每个语句实际获取的行数，自动设置分页查询的 fetch size
+     */
+    private boolean adviseFetchSize = false;
+    /**
+     * 自动设置的 fetch size 的下限
+     */
+    private int minAdvisedFetchSize = 10;
+    /**
+     * 自动设置的 fetch size 的上限
+     */
+    private int maxAdvisedFetchSize = 1000;
+    /**
+     * 每次获取的最大字节数（已知行的平均字节数时生效）
+     */
+    private long maxAdvisedFetchBytes = 4 * 1024 * 1024;
 
     public int getCacheInitialCapacity() {
         return cacheInitialCapacity;
@@ -178,4 +200,44 @@ public class SQLInstrumentorConfig {
     public void setEscapeLikeParameter(boolean escapeLikeParameter) {
         this.escapeLikeParameter = escapeLikeParameter;
     }
+
+    public long getDeferredJoinOffsetThreshold() {
+        return deferredJoinOffsetThreshold;
+    }
+
+    public void setDeferredJoinOffsetThreshold(long deferredJoinOffsetThreshold) {
+        this.deferredJoinOffsetThreshold = deferredJoinOffsetThreshold;
+    }
+
+    public boolean isAdviseFetchSize() {
+        return adviseFetchSize;
+    }
+
+    public void setAdviseFetchSize(boolean adviseFetchSize) {
+        this.adviseFetchSize = adviseFetchSize;
+    }
+
+    public int getMinAdvisedFetchSize() {
+        return minAdvisedFetchSize;
+    }
+
+    public void setMinAdvisedFetchSize(int minAdvisedFetchSize) {
+        this.minAdvisedFetchSize = minAdvisedFetchSize;
+    }
+
+    public int getMaxAdvisedFetchSize() {
+        return maxAdvisedFetchSize;
+    }
+
+    public void setMaxAdvisedFetchSize(int maxAdvisedFetchSize) {
+        this.maxAdvisedFetchSize = maxAdvisedFetchSize;
+    }
+
+    public long getMaxAdvisedFetchBytes() {
+        return maxAdvisedFetchBytes;
+    }
+
+    public void setMaxAdvisedFetchBytes(long maxAdvisedFetchBytes) {
+        this.maxAdvisedFetchBytes = maxAdvisedFetchBytes;
+    }
 }
@@ -28,19 +28,34 @@ import com.jn.langx.util.collection.Collects;
 import com.jn.langx.util.collection.Pipeline;
 import com.jn.langx.util.function.Consumer;
 import com.jn.langx.util.function.Predicate;
+import com.jn.sqlhelper.common.context.ContextStorage;
+import com.jn.sqlhelper.common.context.ContextStorages;
 import com.jn.sqlhelper.dialect.Dialect;
 import com.jn.sqlhelper.dialect.DialectRegistry;
 import com.jn.sqlhelper.dialect.SQLDialectException;
+import com.jn.sqlhelper.dialect.SqlRequest;
 import com.jn.sqlhelper.dialect.expression.SQLExpression;
 import com.jn.sqlhelper.dialect.expression.builder.SQLSymbolExpressionBuilderRegistry;
 import com.jn.sqlhelper.dialect.expression.columnevaluation.BuiltinColumnEvaluationExpressionSupplier;
 import com.jn.sqlhelper.dialect.expression.columnevaluation.ColumnEvaluationExpressionSupplier;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinSql;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformer;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.TablePrimaryKeyRegistry;
 import com.jn.sqlhelper.dialect.instrument.orderby.DefaultOrderByTransformer;
 import com.jn.sqlhelper.dialect.instrument.orderby.OrderByTransformer;
 import com.jn.sqlhelper.dialect.instrument.where.WhereTransformConfig;
+import com.jn.sqlhelper.dialect.internal.AbstractDialect;
+import com.jn.sqlhelper.dialect.internal.limit.LimitCommaLimitHandler;
+import com.jn.sqlhelper.dialect.internal.limit.LimitHandler;
 import com.jn.sqlhelper.dialect.internal.limit.LimitHelper;
+import com.jn.sqlhelper.dialect.internal.limit.LimitOffsetLimitHandler;
+import com.jn.sqlhelper.dialect.likeescaper.LikeEscapeSlots;
+import com.jn.sqlhelper.dialect.likeescaper.LikeEscaper;
+import com.jn.sqlhelper.dialect.likeescaper.LikeEscapers;
 import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.pagination.FetchSizeAdvisor;
 import com.jn.sqlhelper.dialect.pagination.PagedPreparedParameterSetter;
+import com.jn.sqlhelper.dialect.pagination.PagingRequestContextHolder;
 import com.jn.sqlhelper.dialect.pagination.QueryParameters;
 import com.jn.sqlhelper.dialect.pagination.RowSelection;
 import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
@@ -50,13 +65,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class SQLStatementInstrumentor implements Initializable {
     private static final Logger logger = LoggerFactory.getLogger(SQLStatementInstrumentor.class);
-    private static final ThreadLocal<Dialect> DIALECT_HOLDER = new ThreadLocal<Dialect>();
+    private static final ContextStorage<Dialect> DIALECT_HOLDER = ContextStorages.newStorage(SQLStatementInstrumentor.class.getName());
+    /**
+     * the deadline watches of the statements in the current request
+     */
+    private static final ContextStorage<List<StatementDeadlineWatchdog.Watch>> DEADLINE_WATCHES = ContextStorages.newStorage(SQLStatementInstrumentor.class.getName() + ".deadlineWatches");
     private final static List<String> keywordsNotAfterOrderBy = Collects.asList("select", "?", "union", "from", "where", "and", "or", "between", "in", "case");
     @NonNull
     private SQLInstrumentorConfig config;
@@ -71,6 +91,10 @@ public class SQLStatementInstrumentor implements Initializable {
      */
     private OrderByTransformer orderByTransformer;
     private Cache<String, InstrumentedStatement> instrumentSqlCache;
+    /**
+     * null if the fetch size advice is disabled
+     */
+    private FetchSizeAdvisor fetchSizeAdvisor;
 
     public SQLStatementInstrumentor() {
 
@@ -124,6 +148,13 @@ public class SQLStatementInstrumentor implements Initializable {
             InstrumentationRegistry.getInstance().enableInstrumentation(this.config.getInstrumentation());
             this.instrumentation = InstrumentationRegistry.getInstance().findInstrumentation(this.config.getInstrumentation());
             Preconditions.checkNotNull(instrumentation, "Can't find a suitable or enabled SQL instrumentation, please add the sqlhelper-jsqlparser.jar to your classpath");
+            if (this.config.isAdviseFetchSize()) {
+                FetchSizeAdvisor advisor = new FetchSizeAdvisor();
+                advisor.setMinFetchSize(config.getMinAdvisedFetchSize());
+                advisor.setMaxFetchSize(config.getMaxAdvisedFetchSize());
+                advisor.setMaxFetchBytes(config.getMaxAdvisedFetchBytes());
+                this.fetchSizeAdvisor = advisor;
+            }
             orderByTransformer = new DefaultOrderByTransformer();
             orderByTransformer.setInstrumentation(instrumentation);
             orderByTransformer.init();
@@ -207,21 +238,117 @@ public class SQLStatementInstrumentor implements Initializable {
 
     public String instrumentLimitSql(Dialect dialect, String sql, final RowSelection selection) {
         if (LimitHelper.useLimit(dialect, selection) && dialect.isSupportsVariableLimit()) {
-            String originalSql = sql;
-            if (this.config.isCacheInstrumentedSql()) {
-                sql = getInstrumentedStatement(originalSql).getLimitSql(dialect.getDatabaseId(), selection.hasOffset());
-                if (sql != null) {
-                    return sql;
+            if (isDeferredJoinRequired(dialect, selection)) {
+                DeferredJoinSql deferredJoinSql = findDeferredJoinSql(sql);
+                if (deferredJoinSql != null) {
+                    return deferredJoinSql.build(doInstrumentLimitSql(dialect, deferredJoinSql.getPagingSql(), selection));
                 }
             }
-            sql = dialect.getLimitSql(originalSql, selection);
-            if (this.config.isCacheInstrumentedSql()) {
-                getInstrumentedStatement(originalSql).setLimitSql(dialect.getDatabaseId(), sql, selection.hasOffset());
+            sql = doInstrumentLimitSql(dialect, sql, selection);
+        }
+        return sql;
+    }
+
+    private String doInstrumentLimitSql(Dialect dialect, String originalSql, final RowSelection selection) {
+        String sql;
+        // the limit sql in the inline mode contains the limit, offset literals, so it isn't cached
+        boolean cacheable = this.config.isCacheInstrumentedSql() && LimitHelper.isUseLimitInVariableMode(dialect, selection);
+        if (cacheable) {
+            sql = getInstrumentedStatement(originalSql).getLimitSql(dialect.getDatabaseId(), LimitHelper.hasFirstRow(selection), true);
+            if (sql != null) {
+                return sql;
             }
         }
+        sql = dialect.getLimitSql(originalSql, selection);
+        if (cacheable) {
+            getInstrumentedStatement(originalSql).setLimitSql(dialect.getDatabaseId(), sql, LimitHelper.hasFirstRow(selection), true);
+        }
         return sql;
     }
 
+    /**
+     * the deferred join is enabled for the deep offsets only, and only for the dialects appending the limit clause
+     * to the sql, which read and discard the full rows before the offset
+     */
+    private boolean isDeferredJoinRequired(Dialect dialect, RowSelection selection) {
+        long threshold = this.config.getDeferredJoinOffsetThreshold();
+        if (threshold <= 0 || !selection.hasOffset() || selection.getOffset() < threshold) {
+            return false;
+        }
+        if (!(dialect instanceof AbstractDialect)) {
+            return false;
+        }
+        LimitHandler limitHandler = ((AbstractDialect) dialect).getLimitHandler();
+        return limitHandler instanceof LimitOffsetLimitHandler || limitHandler instanceof LimitCommaLimitHandler;
+    }
+
+    /**
+     * the deferred join is a pure function of the sql and the registered primary keys, cached with the instrumented sql
+     * until the registered primary keys are changed
+     */
+    private DeferredJoinSql findDeferredJoinSql(String sql) {
+        TablePrimaryKeyRegistry primaryKeyRegistry = TablePrimaryKeyRegistry.getInstance();
+        // read the version before the transform, a registration during the transform makes the result stale
+        long version = primaryKeyRegistry.getVersion();
+        InstrumentedStatement instrumentedStatement = getInstrumentedStatement(sql);
+        if (instrumentedStatement != null && instrumentedStatement.isDeferredJoinResolved(version)) {
+            return instrumentedStatement.getDeferredJoinSql();
+        }
+        DeferredJoinSql deferredJoinSql = null;
+        DeferredJoinTransformer transformer = instrumentation.getDeferredJoinTransformer();
+        if (transformer != null) {
+            try {
+                deferredJoinSql = transformer.transform(instrumentation.getSqlParser().parse(sql), primaryKeyRegistry);
+            } catch (Throwable ex) {
+                logger.warn("Can't rewrite the sql to a deferred join, sql: {}, error: {}", sql, ex.getMessage());
+            }
+        }
+        if (instrumentedStatement != null) {
+            instrumentedStatement.setDeferredJoinSql(deferredJoinSql, version);
+        }
+        return deferredJoinSql;
+    }
+
+    /**
+     * find the like escape slots of the sql, cached with the instrumented sql
+     */
+    public LikeEscapeSlots findLikeEscapeSlots(String sql) {
+        InstrumentedStatement instrumentedStatement = getInstrumentedStatement(sql);
+        if (instrumentedStatement != null) {
+            LikeEscapeSlots slots = instrumentedStatement.getLikeEscapeSlots();
+            if (slots != null) {
+                return slots;
+            }
+        }
+        LikeEscapeSlots slots = LikeEscapers.findLikeEscapeSlots(sql);
+        if (instrumentedStatement != null) {
+            instrumentedStatement.setLikeEscapeSlots(slots);
+        }
+        return slots;
+    }
+
+    /**
+     * insert the escape declares of the escaper into the sql, cached with the instrumented sql
+     */
+    public String instrumentLikeEscapeSql(String sql, LikeEscapeSlots slots, LikeEscaper likeEscaper) {
+        String escapeDeclare = likeEscaper.appendmentAfterLikeClause();
+        if (escapeDeclare == null) {
+            escapeDeclare = "";
+        }
+        InstrumentedStatement instrumentedStatement = getInstrumentedStatement(sql);
+        if (instrumentedStatement != null) {
+            String likeEscapeSql = instrumentedStatement.getLikeEscapeSql(escapeDeclare);
+            if (likeEscapeSql != null) {
+                return likeEscapeSql;
+            }
+        }
+        String likeEscapeSql = LikeEscapers.insertLikeEscapeDeclares(sql, slots, likeEscaper);
+        if (instrumentedStatement != null) {
+            instrumentedStatement.setLikeEscapeSql(escapeDeclare, likeEscapeSql);
+        }
+        return likeEscapeSql;
+    }
+
     public String instrumentOrderBySql(String sql, OrderBy orderBy) {
         if (this.config.isCacheInstrumentedSql()) {
             String orderBySql = getInstrumentedStatement(sql).getOrderBySql(orderBy);
@@ -270,10 +397,15 @@ public class SQLStatementInstrumentor implements Initializable {
         if (orderBy == null) {
             throw new IllegalArgumentException("Illegal argument : orderBy");
         }
-        sql = instrumentLimitSql(dialect, sql, selection);
-        sql = instrumentOrderBySql(sql, orderBy);
-        if (this.config.isCacheInstrumentedSql()) {
-            getInstrumentedStatement(originalSql).setOrderByLimitSql(orderBy, dialect.getDatabaseId(), sql, selection.hasOffset());
+        if (isDeferredJoinRequired(dialect, selection)) {
+            // the deferred join pages in the sub query, so the order by is instrumented before the paging
+            sql = instrumentLimitSql(dialect, instrumentOrderBySql(sql, orderBy), selection);
+        } else {
+            sql = instrumentLimitSql(dialect, sql, selection);
+            sql = instrumentOrderBySql(sql, orderBy);
+        }
+        if (this.config.isCacheInstrumentedSql() && LimitHelper.isUseLimitInVariableMode(dialect, selection)) {
+            getInstrumentedStatement(originalSql).setOrderByLimitSql(orderBy, dialect.getDatabaseId(), sql, LimitHelper.hasFirstRow(selection), true);
         }
         return sql;
     }
@@ -318,6 +450,13 @@ public class SQLStatementInstrumentor implements Initializable {
 
     public void finish() {
         DIALECT_HOLDER.remove();
+        List<StatementDeadlineWatchdog.Watch> watches = DEADLINE_WATCHES.get();
+        if (watches != null) {
+            for (StatementDeadlineWatchdog.Watch watch : watches) {
+                watch.release();
+            }
+            DEADLINE_WATCHES.remove();
+        }
     }
 
     public String countSql(String originalSql) {
@@ -466,12 +605,69 @@ public class SQLStatementInstrumentor implements Initializable {
                     statement.setFetchSize(selection.getFetchSize());
                 }
             }
+            applyDeadline(PagingRequestContextHolder.getContext().getPagingRequest(), statement);
         } catch (SQLException ex) {
             logger.error("Set sql parameter fail, errorCode: {}, stack:{}", ex.getErrorCode(), ex);
         }
         return statement;
     }
 
+    /**
+     * apply the deadline of the request to the statement: the remaining time is the query timeout (seconds, rounded up)
+     * if it is shorter than the timeout of the statement, and the statement is cancelled if it is still running at the
+     * deadline. the watches are released at {@link #finish()}
+     */
+    public void applyDeadline(SqlRequest request, Statement statement) throws SQLException {
+        if (request == null || statement == null || !request.hasDeadline()) {
+            return;
+        }
+        long remaining = request.getRemainingMillis();
+        if (remaining <= 0) {
+            // the budget is used up, the statement is cancelled as soon as it is executed
+            statement.setQueryTimeout(1);
+        } else {
+            int seconds = (int) Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000);
+            int timeout = statement.getQueryTimeout();
+            if (timeout <= 0 || timeout > seconds) {
+                statement.setQueryTimeout(seconds);
+            }
+        }
+        List<StatementDeadlineWatchdog.Watch> watches = DEADLINE_WATCHES.get();
+        if (watches == null) {
+            watches = new ArrayList<StatementDeadlineWatchdog.Watch>();
+            DEADLINE_WATCHES.set(watches);
+        }
+        watches.add(StatementDeadlineWatchdog.watch(statement, remaining));
+    }
+
+    /**
+     * set the advised fetch size of the statement to the row selection, if the fetch size isn't set explicitly
+     */
+    public void adviseFetchSize(Dialect dialect, String statementId, RowSelection selection) {
+        if (fetchSizeAdvisor != null && selection != null && selection.getFetchSize() == null) {
+            selection.setFetchSize(fetchSizeAdvisor.advise(dialect, statementId, selection));
+        }
+    }
+
+    /**
+     * record the fetched rows of a paging query, it is the feedback of the fetch size advice
+     *
+     * @param bytes the fetched bytes, 0 if it is unknown
+     */
+    public void recordFetch(Dialect dialect, String statementId, RowSelection selection, long rows, long bytes) {
+        if (fetchSizeAdvisor != null) {
+            int fetchSize = selection == null || selection.getFetchSize() == null ? 0 : selection.getFetchSize();
+            fetchSizeAdvisor.record(dialect, statementId, fetchSize, rows, bytes);
+        }
+    }
+
+    /**
+     * @return the fetch size advisor, its statistics are the metrics of the advice, null if it is disabled
+     */
+    public FetchSizeAdvisor getFetchSizeAdvisor() {
+        return fetchSizeAdvisor;
+    }
+
     public SQLInstrumentorConfig getConfig() {
         return this.config;
     }
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cancels the statements which are still running at the deadline of their request.
+ * <p>
+ * The query timeout is in seconds and some drivers only check it between the fetches, the watchdog makes the deadline
+ * a hard limit by {@link Statement#cancel()}.
+ * <p>
+ * A released watch drops its statement at once, so a finished statement (and its connection) is never reachable from
+ * the scheduler queue. The cancelled tasks are purged from the queue periodically, because
+ * ScheduledThreadPoolExecutor#setRemoveOnCancelPolicy is not available on Java 6.
+ *
+ * @see com.jn.sqlhelper.dialect.SqlRequest#getDeadline()
+ */
+public class StatementDeadlineWatchdog {
+    private static final Logger logger = LoggerFactory.getLogger(StatementDeadlineWatchdog.class);
+    private static final long PURGE_PERIOD_IN_MILLS = 10000L;
+    private static volatile ScheduledThreadPoolExecutor scheduler;
+
+    private StatementDeadlineWatchdog() {
+    }
+
+    private static ScheduledThreadPoolExecutor getScheduler() {
+        if (scheduler == null) {
+            synchronized (StatementDeadlineWatchdog.class) {
+                if (scheduler == null) {
+                    final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                        private final AtomicInteger counter = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "sqlhelper-statement-deadline-watchdog-" + counter.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    executor.scheduleWithFixedDelay(new Runnable() {
+                        @Override
+                        public void run() {
+                            executor.purge();
+                        }
+                    }, PURGE_PERIOD_IN_MILLS, PURGE_PERIOD_IN_MILLS, TimeUnit.MILLISECONDS);
+                    scheduler = executor;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * cancel the statement when the timeout elapsed
+     *
+     * @param statement       the statement
+     * @param timeoutInMills  the remaining time of the request
+     * @return the watch, release it when the statement is finished
+     */
+    public static Watch watch(final Statement statement, long timeoutInMills) {
+        Watch watch = new Watch(statement);
+        watch.future = getScheduler().schedule(watch, Math.max(0L, timeoutInMills), TimeUnit.MILLISECONDS);
+        return watch;
+    }
+
+    /**
+     * removes the released watches from the scheduler queue now
+     */
+    public static void purge() {
+        getScheduler().purge();
+    }
+
+    /**
+     * @return the count of the watches in the scheduler queue, include the released ones which are not purged
+     */
+    public static int getQueuedWatches() {
+        // the purge task is in the queue too
+        return Math.max(0, getScheduler().getQueue().size() - 1);
+    }
+
+    public static void cancel(Statement statement) {
+        try {
+            if (!statement.isClosed()) {
+                statement.cancel();
+            }
+        } catch (SQLException ex) {
+            logger.debug("Cancel the statement at the deadline fail, error: {}", ex.getMessage(), ex);
+        } catch (Throwable ex) {
+            // the driver doesn't support it
+            logger.debug("Cancel the statement at the deadline fail, error: {}", ex.getMessage(), ex);
+        }
+    }
+
+    public static final class Watch implements Runnable {
+        private final AtomicReference<Statement> statement;
+        private volatile Future<?> future;
+
+        private Watch(Statement statement) {
+            this.statement = new AtomicReference<Statement>(statement);
+        }
+
+        @Override
+        public void run() {
+            Statement stmt = statement.getAndSet(null);
+            if (stmt != null) {
+                cancel(stmt);
+            }
+        }
+
+        /**
+         * the statement is finished, it will not be cancelled
+         */
+        public void release() {
+            if (statement.getAndSet(null) != null) {
+                Future<?> f = future;
+                if (f != null) {
+                    f.cancel(false);
+                }
+            }
+        }
+
+        public boolean isReleased() {
+            return statement.get() == null;
+        }
+    }
+}
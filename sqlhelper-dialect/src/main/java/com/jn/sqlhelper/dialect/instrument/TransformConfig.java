@@ -25,6 +25,15 @@ public class TransformConfig implements Serializable {
      */
     private Boolean limitOffset = null;
 
+    /**
+     * limit, offset 是否使用占位符 '?'
+     *
+     * case null: not a pagination request
+     * case true: the limit sql with placeholders
+     * case false: the limit sql with literals
+     */
+    private Boolean limitInVariableMode = null;
+
     /**
      * 数据库方言
      */
@@ -87,6 +96,9 @@ public class TransformConfig implements Serializable {
         if (!Objects.equals(limitOffset, that.limitOffset)) {
             return false;
         }
+        if (!Objects.equals(limitInVariableMode, that.limitInVariableMode)) {
+            return false;
+        }
         if (!Objects.equals(dialect, that.dialect)) {
             return false;
         }
@@ -116,6 +128,7 @@ public class TransformConfig implements Serializable {
                 .with(this.likeEscaped)
                 .with(this.likeEscaper)
                 .with(this.limitOffset)
+                .with(this.limitInVariableMode)
                 .with(this.orderBy)
                 .with(this.dialect)
                 .with(this.whereInstrumentConfigs)
@@ -131,6 +144,14 @@ public class TransformConfig implements Serializable {
         this.limitOffset = limitOffset;
     }
 
+    public Boolean getLimitInVariableMode() {
+        return limitInVariableMode;
+    }
+
+    public void setLimitInVariableMode(Boolean limitInVariableMode) {
+        this.limitInVariableMode = limitInVariableMode;
+    }
+
     public OrderBy getOrderBy() {
         return orderBy;
     }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.instrument.deferredjoin;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.util.io.IOs;
+import com.jn.langx.util.Preconditions;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Registers the primary keys of the tables loaded by the {@link com.jn.sqlhelper.common.ddl.dump.DatabaseLoader}.
+ */
+public class DatabaseTablePrimaryKeyLoader implements TablePrimaryKeyLoader {
+    private final DataSource dataSource;
+    private String catalog;
+    private String schema;
+    private String tableNamePattern;
+
+    public DatabaseTablePrimaryKeyLoader(@NonNull DataSource dataSource) {
+        Preconditions.checkNotNull(dataSource);
+        this.dataSource = dataSource;
+    }
+
+    public void setCatalog(@Nullable String catalog) {
+        this.catalog = catalog;
+    }
+
+    public void setSchema(@Nullable String schema) {
+        this.schema = schema;
+    }
+
+    public void setTableNamePattern(@Nullable String tableNamePattern) {
+        this.tableNamePattern = tableNamePattern;
+    }
+
+    @Override
+    public void load(@NonNull TablePrimaryKeyRegistry registry) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            registry.register(connection.getMetaData(), catalog, schema, tableNamePattern);
+        } finally {
+            IOs.close(connection);
+        }
+    }
+}
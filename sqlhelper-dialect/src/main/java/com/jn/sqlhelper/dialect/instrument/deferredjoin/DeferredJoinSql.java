@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.deferredjoin;
+
+import com.jn.langx.annotation.NonNull;
+
+/**
+ * A deferred join sql without the limit clause, the limit clause is made by the dialect for the paging sql,
+ * so the limit parameters are bound in the same way as the original sql:
+ * <pre>
+ *     joinSqlPrefix + dialect.getLimitSql(pagingSql) + joinSqlSuffix
+ * </pre>
+ * It contains no parameter placeholder out of the paging sql.
+ */
+public class DeferredJoinSql {
+    private final String pagingSql;
+    private final String joinSqlPrefix;
+    private final String joinSqlSuffix;
+
+    public DeferredJoinSql(@NonNull String pagingSql, @NonNull String joinSqlPrefix, @NonNull String joinSqlSuffix) {
+        this.pagingSql = pagingSql;
+        this.joinSqlPrefix = joinSqlPrefix;
+        this.joinSqlSuffix = joinSqlSuffix;
+    }
+
+    /**
+     * @return the sql selects the primary keys only
+     */
+    public String getPagingSql() {
+        return pagingSql;
+    }
+
+    public String getJoinSqlPrefix() {
+        return joinSqlPrefix;
+    }
+
+    public String getJoinSqlSuffix() {
+        return joinSqlSuffix;
+    }
+
+    public String build(String limitedPagingSql) {
+        return new StringBuilder(joinSqlPrefix.length() + limitedPagingSql.length() + joinSqlSuffix.length())
+                .append(joinSqlPrefix)
+                .append(limitedPagingSql)
+                .append(joinSqlSuffix)
+                .toString();
+    }
+
+    @Override
+    public String toString() {
+        return build(pagingSql);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.deferredjoin;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.lifecycle.Initializable;
+import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
+
+/**
+ * Rewrites a deep offset paging query to a deferred join: the paging is done over the primary key only,
+ * then the page of the primary keys joins back to the table to fetch the full rows:
+ * <pre>
+ *     select * from t where ... order by ...
+ *     =&gt;
+ *     select t.* from t inner join ( select t.id ... from t where ... order by ... [limit] ) ... on ... order by ...
+ * </pre>
+ * So the database discards the index entries rather than the full rows before the offset.
+ */
+public interface DeferredJoinTransformer<Statement> extends Initializable {
+    /**
+     * @return the deferred join, null if the statement can't be rewritten
+     */
+    @Nullable
+    DeferredJoinSql transform(@NonNull SqlStatementWrapper<Statement> statement, @NonNull TablePrimaryKeyRegistry primaryKeyRegistry);
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.instrument.deferredjoin;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.util.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Registers the primary keys of the entities, declared by @PK or JPA @Id.
+ */
+public class EntityTablePrimaryKeyLoader implements TablePrimaryKeyLoader {
+    private final List<Class> entityClasses;
+
+    public EntityTablePrimaryKeyLoader(@NonNull Collection<Class> entityClasses) {
+        Preconditions.checkNotNull(entityClasses);
+        this.entityClasses = new ArrayList<Class>(entityClasses);
+    }
+
+    @Override
+    public void load(@NonNull TablePrimaryKeyRegistry registry) {
+        for (Class entityClass : entityClasses) {
+            registry.register(entityClass);
+        }
+    }
+}
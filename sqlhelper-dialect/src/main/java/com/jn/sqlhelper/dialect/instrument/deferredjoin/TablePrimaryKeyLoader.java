@@ -0,0 +1,28 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.instrument.deferredjoin;
+
+import com.jn.langx.annotation.NonNull;
+
+import java.sql.SQLException;
+
+/**
+ * Fills the {@link TablePrimaryKeyRegistry} at the startup, before the deep offset paging queries are rewritten.
+ *
+ * @see TablePrimaryKeyRegistry#load(TablePrimaryKeyLoader)
+ */
+public interface TablePrimaryKeyLoader {
+    void load(@NonNull TablePrimaryKeyRegistry registry) throws SQLException;
+}
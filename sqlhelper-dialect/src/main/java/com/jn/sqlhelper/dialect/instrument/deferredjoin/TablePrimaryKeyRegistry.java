@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.deferredjoin;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.annotation.Singleton;
+import com.jn.langx.util.Emptys;
+import com.jn.langx.util.Preconditions;
+import com.jn.sqlhelper.common.ddl.dump.DatabaseLoader;
+import com.jn.sqlhelper.common.ddl.model.DatabaseDescription;
+import com.jn.sqlhelper.common.ddl.model.PrimaryKeyColumn;
+import com.jn.sqlhelper.common.ddl.model.Table;
+import com.jn.sqlhelper.common.er.EntityTableMapping;
+import com.jn.sqlhelper.common.er.EntityTableRegistry;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The primary key columns of the tables, used by the deferred join rewrite.
+ * <p>
+ * The primary keys are registered up front, from the entity mappings or the database metadata,
+ * they are never loaded when a query is instrumented. A {@link TablePrimaryKeyLoader} fills the registry
+ * at the startup, e.g. {@link EntityTablePrimaryKeyLoader} or {@link DatabaseTablePrimaryKeyLoader}.
+ * <p>
+ * A table without a schema in the sql matches a table registered with a schema only when the table name
+ * is registered in one schema.
+ */
+@Singleton
+public class TablePrimaryKeyRegistry {
+    private static final TablePrimaryKeyRegistry INSTANCE = new TablePrimaryKeyRegistry();
+
+    /**
+     * key: the lower case table name, as it is registered
+     * value: the primary key columns
+     */
+    private final ConcurrentHashMap<String, List<String>> primaryKeys = new ConcurrentHashMap<String, List<String>>();
+    /**
+     * key: the lower case simple table name
+     * value: the registered names of the table
+     */
+    private final ConcurrentHashMap<String, Set<String>> registeredNames = new ConcurrentHashMap<String, Set<String>>();
+    /**
+     * increased by every change, the resolved deferred joins are stale once it changed
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    public static TablePrimaryKeyRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public void register(@NonNull String table, @NonNull List<String> columns) {
+        Preconditions.checkNotEmpty(table, "the table is empty");
+        Preconditions.checkNotEmpty(columns, "the primary key columns is empty");
+        List<String> pks = Collections.unmodifiableList(new ArrayList<String>(columns));
+        String qualifiedName = normalizeTableName(table);
+        primaryKeys.put(qualifiedName, pks);
+        String simpleName = getSimpleName(qualifiedName);
+        Set<String> names = registeredNames.get(simpleName);
+        if (names == null) {
+            names = new CopyOnWriteArraySet<String>();
+            Set<String> existed = registeredNames.putIfAbsent(simpleName, names);
+            if (existed != null) {
+                names = existed;
+            }
+        }
+        names.add(qualifiedName);
+        version.incrementAndGet();
+    }
+
+    public void load(@NonNull TablePrimaryKeyLoader loader) throws SQLException {
+        Preconditions.checkNotNull(loader);
+        loader.load(this);
+    }
+
+    /**
+     * register the primary keys of an entity, declared by @PK or JPA @Id
+     */
+    public void register(@NonNull Class entityClass) {
+        EntityTableMapping mapping = EntityTableRegistry.getInstance().getEntityTableMapping(entityClass);
+        if (mapping.hasPrimaryKeys()) {
+            register(mapping.getTable(), mapping.getPrimaryKeyColumns());
+        }
+    }
+
+    /**
+     * register the primary keys of the tables loaded from the database metadata
+     */
+    public void register(@NonNull DatabaseMetaData databaseMetaData, @Nullable String catalog, @Nullable String schema, @Nullable String tableNamePattern) throws SQLException {
+        if (Emptys.isEmpty(tableNamePattern)) {
+            tableNamePattern = "%";
+        }
+        List<Table> tables = new DatabaseLoader().loadTables(new DatabaseDescription(databaseMetaData), catalog, schema, tableNamePattern, false, true, false, false);
+        if (tables == null) {
+            return;
+        }
+        for (Table table : tables) {
+            if (table.hasPrimaryKeys()) {
+                // the pk columns are sorted by the key seq
+                List<String> columns = new ArrayList<String>();
+                for (PrimaryKeyColumn pkColumn : table.getPkColumns()) {
+                    columns.add(pkColumn.getColumnName());
+                }
+                register(Emptys.isEmpty(table.getSchema()) ? table.getName() : table.getSchema() + "." + table.getName(), columns);
+            }
+        }
+    }
+
+    /**
+     * @return the primary key columns, null if the table isn't registered
+     */
+    @Nullable
+    public List<String> getPrimaryKeys(@Nullable String table) {
+        if (Emptys.isEmpty(table)) {
+            return null;
+        }
+        String qualifiedName = normalizeTableName(table);
+        List<String> pks = primaryKeys.get(qualifiedName);
+        if (pks == null) {
+            String simpleName = getSimpleName(qualifiedName);
+            if (simpleName.equals(qualifiedName)) {
+                // "t" matches "db.t" only when no other schema has a table "t"
+                Set<String> names = registeredNames.get(simpleName);
+                if (names != null && names.size() == 1) {
+                    pks = primaryKeys.get(names.iterator().next());
+                }
+            } else {
+                // "db.t" matches the table registered without a schema
+                pks = primaryKeys.get(simpleName);
+            }
+        }
+        return pks;
+    }
+
+    /**
+     * @return the version of the registered primary keys, it is changed by every registration
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void clear() {
+        primaryKeys.clear();
+        registeredNames.clear();
+        version.incrementAndGet();
+    }
+
+    private static String getSimpleName(String qualifiedName) {
+        int index = qualifiedName.lastIndexOf('.');
+        return index == -1 ? qualifiedName : qualifiedName.substring(index + 1);
+    }
+
+    /**
+     * "db"."T" -&gt; db.t
+     */
+    private static String normalizeTableName(String table) {
+        StringBuilder builder = new StringBuilder(table.length());
+        for (int i = 0; i < table.length(); i++) {
+            char c = table.charAt(i);
+            if (c != '`' && c != '"' && c != '[' && c != ']' && !Character.isWhitespace(c)) {
+                builder.append(Character.toLowerCase(c));
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -52,6 +52,10 @@ public abstract class AbstractDialect<T extends AbstractDialect> implements Dial
     private LimitHandler limitHandler;
     private LikeEscaper likeEscaper;
     private Boolean isUseLimitInVariableMode = null;
+    /**
+     * a registered dialect is shared, its settings can't be changed any more
+     */
+    private volatile boolean frozen = false;
 
     private final Properties properties = new Properties();
 
@@ -134,8 +138,22 @@ public abstract class AbstractDialect<T extends AbstractDialect> implements Dial
         return this.delegate == null ? isSupportsLimit() : this.delegate.isSupportsVariableLimit();
     }
 
+    /**
+     * called by the registry when the dialect is registered
+     */
+    public void freeze() {
+        this.frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
     @Override
     public void setUseLimitInVariableMode(boolean variableMode) {
+        if (frozen) {
+            throw new IllegalStateException("The dialect " + getDatabaseId() + " is shared, its limit mode can't be changed, set it with RowSelection#setLimitInVariableMode instead");
+        }
         AbstractDialect d = getRealDialect();
         if (d.isSupportsVariableLimit()) {
             d.isUseLimitInVariableMode = variableMode;
@@ -275,6 +293,23 @@ public abstract class AbstractDialect<T extends AbstractDialect> implements Dial
         return delegate == null || delegate.isSupportsBatchSql();
     }
 
+    @Override
+    public boolean isBackslashEscapeInStringLiteral() {
+        // default is false
+        return delegate != null && delegate.isBackslashEscapeInStringLiteral();
+    }
+
+    @Override
+    public boolean isSupportsBooleanLiteral() {
+        // default is true
+        return delegate == null || delegate.isSupportsBooleanLiteral();
+    }
+
+    @Override
+    public String getBinaryLiteral(String hex) {
+        return delegate == null ? "X'" + hex + "'" : delegate.getBinaryLiteral(hex);
+    }
+
     @Override
     public List<Character> getLikeKeyChars() {
         return getRealDialect().likeEscaper.getLikeKeyChars();
@@ -25,4 +25,14 @@ public abstract class AbstractTransactSQLDialect extends AbstractDialect {
             throws SQLException {
         return col;
     }
+
+    @Override
+    public boolean isSupportsBooleanLiteral() {
+        return false;
+    }
+
+    @Override
+    public String getBinaryLiteral(String hex) {
+        return "0x" + hex;
+    }
 }
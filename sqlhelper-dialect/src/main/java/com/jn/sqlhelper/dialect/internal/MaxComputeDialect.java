@@ -16,7 +16,6 @@ package com.jn.sqlhelper.dialect.internal;
 
 import com.jn.sqlhelper.dialect.internal.limit.AbstractLimitHandler;
 import com.jn.sqlhelper.dialect.internal.limit.LimitHelper;
-import com.jn.sqlhelper.dialect.internal.limit.LimitOnlyLimitHandler;
 import com.jn.sqlhelper.dialect.pagination.RowSelection;
 
 /**
@@ -25,19 +24,30 @@ import com.jn.sqlhelper.dialect.pagination.RowSelection;
 public class MaxComputeDialect extends AbstractDialect {
     public MaxComputeDialect() {
         super();
-        setLimitHandler(new LimitOnlyLimitHandler());
+        setLimitHandler(new MaxComputeLimitHandler());
     }
 
+    /**
+     * the offset is applied with row_number() which starts at 1:
+     * <pre>
+     *     row_number between offset + 1 and offset + limit
+     * </pre>
+     */
     private static class MaxComputeLimitHandler extends AbstractLimitHandler {
         @Override
         public String processSql(String sql, RowSelection rowSelection) {
-            return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection));
+            return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection), LimitHelper.isUseLimitInVariableMode(getDialect(), rowSelection));
         }
 
         @Override
         protected String getLimitString(String sql, long offset, int limit) {
+            return getLimitString(sql, offset, limit, getDialect().isUseLimitInVariableMode());
+        }
+
+        @Override
+        protected String getLimitString(String sql, long offset, int limit, boolean variableMode) {
             if (offset == 0) {
-                if (getDialect().isUseLimitInVariableMode()) {
+                if (variableMode) {
                     return sql + " limit ?";
                 } else {
                     return sql + " limit " + limit;
@@ -46,7 +56,13 @@ public class MaxComputeDialect extends AbstractDialect {
                 StringBuilder sqlBuilder = new StringBuilder(sql.length() + 256);
                 sqlBuilder.append("select * from ( select row_number() over() as sqlhelper_ROW_ID, * from (")
                         .append(sql)
-                        .append(" ) ) sqlhelper_tmp  where sqlhelper_ROW_ID between ? and ?");
+                        .append(" ) ) sqlhelper_tmp  where sqlhelper_ROW_ID between ");
+                if (variableMode) {
+                    sqlBuilder.append("? + 1 and ?");
+                } else {
+                    // the limit is the max row, see isUseMaxForLimit()
+                    sqlBuilder.append(offset + 1).append(" and ").append(limit);
+                }
                 return sqlBuilder.toString();
             }
         }
@@ -57,6 +73,11 @@ public class MaxComputeDialect extends AbstractDialect {
         return true;
     }
 
+    @Override
+    public boolean isUseMaxForLimit() {
+        return true;
+    }
+
     @Override
     public boolean isSupportsLimitOffset() {
         return true;
@@ -65,4 +65,9 @@ public class MySQLDialect extends AbstractDialect {
     public boolean isSupportsBatchSql() {
         return true;
     }
+
+    @Override
+    public boolean isBackslashEscapeInStringLiteral() {
+        return true;
+    }
 }
@@ -107,6 +107,16 @@ public class OracleDialect extends AbstractDialect {
         public boolean isSupportsBatchSql() {
             return true;
         }
+
+        @Override
+        public boolean isSupportsBooleanLiteral() {
+            return false;
+        }
+
+        @Override
+        public String getBinaryLiteral(String hex) {
+            return "HEXTORAW('" + hex + "')";
+        }
     }
 
     private static class Oracle8i9LimitHandler extends AbstractLimitHandler {
@@ -55,4 +55,10 @@ public class PostgreSQLDialect extends AbstractDialect {
         statement.registerOutParameter(col++, 1111);
         return col;
     }
+
+    @Override
+    public String getBinaryLiteral(String hex) {
+        // the X'..' is a bit string in PostgreSQL
+        return "decode('" + hex + "', 'hex')";
+    }
 }
@@ -50,7 +50,7 @@ public abstract class AbstractLimitHandler extends LimitHandler {
 
     private int bindLimitParameters(RowSelection selection, PreparedStatement statement, int index)
             throws SQLException {
-        if ((!getDialect().isUseLimitInVariableMode()) || (!LimitHelper.hasMaxRows(selection))) {
+        if ((!LimitHelper.isUseLimitInVariableMode(getDialect(), selection)) || (!LimitHelper.hasMaxRows(selection))) {
             return 0;
         }
         long firstRow = convertToFirstRowValue(LimitHelper.getFirstRow(selection));
@@ -32,6 +32,6 @@ public class DefaultLimitHandler
     @Override
     public String processSql(String sql, RowSelection selection) {
         boolean useLimitOffset = (getDialect().isSupportsLimit()) && (getDialect().isSupportsLimitOffset()) && (LimitHelper.hasFirstRow(selection)) && (LimitHelper.hasMaxRows(selection));
-        return getLimitString(sql, useLimitOffset ? LimitHelper.getFirstRow(selection) : 0, getMaxOrLimit(selection));
+        return getLimitString(sql, useLimitOffset ? LimitHelper.getFirstRow(selection) : 0, getMaxOrLimit(selection), LimitHelper.isUseLimitInVariableMode(getDialect(), selection));
     }
 }
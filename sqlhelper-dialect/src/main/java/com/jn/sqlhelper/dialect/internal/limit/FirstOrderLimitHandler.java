@@ -21,11 +21,16 @@ import java.util.Locale;
 public class FirstOrderLimitHandler extends AbstractLimitHandler {
     @Override
     public String processSql(String sql, RowSelection rowSelection) {
-        return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection));
+        return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection), LimitHelper.isUseLimitInVariableMode(getDialect(), rowSelection));
     }
 
     @Override
     protected String getLimitString(String sql, long offset, int limit) {
+        return getLimitString(sql, offset, limit, getDialect().isUseLimitInVariableMode());
+    }
+
+    @Override
+    protected String getLimitString(String sql, long offset, int limit, boolean variableMode) {
         boolean hasOffset = offset > 0;
         sql = sql.trim();
 
@@ -43,7 +48,7 @@ public class FirstOrderLimitHandler extends AbstractLimitHandler {
         sql2.append(sql);
 
         // you can look FIRST as limit
-        if (getDialect().isUseLimitInVariableMode()) {
+        if (variableMode) {
             if (hasOffset) {
                 sql2.append(" FIRST ? TO ? ");
             } else {
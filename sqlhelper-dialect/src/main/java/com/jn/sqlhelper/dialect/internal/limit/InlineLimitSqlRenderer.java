@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.internal.limit;
+
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.SqlRequests;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Renders the limit sql of a dialect in the variable mode into an inline-literal one, without changing the mode
+ * of the dialect itself, so the dialect instance can be shared with the integrations that bind the limit parameters.
+ * <p>
+ * It asks the dialect which values it would bind through JDBC and writes them into the limit sql as literals.
+ * The limit placeholders bound at the start of the query are the first ones, the ones bound at the end of the query
+ * are the last ones, the user's own bind markers are kept untouched.
+ * <p>
+ * Used by the integrations which can't bind the limit parameters, e.g. R2DBC drivers use their own bind markers
+ * ($1, :name, ?), EBean completes the sql itself.
+ */
+public class InlineLimitSqlRenderer {
+
+    private InlineLimitSqlRenderer() {
+    }
+
+    public static String render(Dialect dialect, String limitSql, RowSelection selection) throws SQLException {
+        if (!LimitHelper.isUseLimitInVariableMode(dialect, selection)) {
+            return limitSql;
+        }
+        List<Object> startValues = recordLimitParameters(dialect, selection, true);
+        List<Object> endValues = recordLimitParameters(dialect, selection, false);
+        String sql = replaceFirstPlaceholders(dialect, limitSql, startValues);
+        return replaceLastPlaceholders(dialect, sql, endValues);
+    }
+
+    private static List<Object> recordLimitParameters(Dialect dialect, RowSelection selection, boolean atStart) throws SQLException {
+        RecordingHandler handler = new RecordingHandler();
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(InlineLimitSqlRenderer.class.getClassLoader(), new Class[]{PreparedStatement.class}, handler);
+        if (atStart) {
+            dialect.bindLimitParametersAtStartOfQuery(selection, statement, 1);
+        } else {
+            dialect.bindLimitParametersAtEndOfQuery(selection, statement, 1);
+        }
+        return new ArrayList<Object>(handler.values.values());
+    }
+
+    private static String replaceFirstPlaceholders(Dialect dialect, String sql, List<Object> values) {
+        if (values.isEmpty()) {
+            return sql;
+        }
+        int[] placeholders = SqlRequests.findPlaceholderParameterIndexes(sql, dialect);
+        StringBuilder builder = new StringBuilder(sql.length() + 16);
+        int start = 0;
+        for (int i = 0; i < values.size() && i < placeholders.length; i++) {
+            builder.append(sql, start, placeholders[i]).append(values.get(i));
+            start = placeholders[i] + 1;
+        }
+        builder.append(sql, start, sql.length());
+        return builder.toString();
+    }
+
+    private static String replaceLastPlaceholders(Dialect dialect, String sql, List<Object> values) {
+        if (values.isEmpty()) {
+            return sql;
+        }
+        int[] placeholders = SqlRequests.findPlaceholderParameterIndexes(sql, dialect);
+        StringBuilder builder = new StringBuilder(sql);
+        int valueIndex = values.size() - 1;
+        for (int i = placeholders.length - 1; i >= 0 && valueIndex >= 0; i--) {
+            builder.replace(placeholders[i], placeholders[i] + 1, String.valueOf(values.get(valueIndex--)));
+        }
+        return builder.toString();
+    }
+
+    private static class RecordingHandler implements InvocationHandler {
+        private final TreeMap<Integer, Object> values = new TreeMap<Integer, Object>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length == 2 && args[0] instanceof Integer) {
+                values.put((Integer) args[0], args[1]);
+            }
+            return null;
+        }
+    }
+}
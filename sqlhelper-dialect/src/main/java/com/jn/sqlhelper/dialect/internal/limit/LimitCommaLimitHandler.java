@@ -29,11 +29,16 @@ public class LimitCommaLimitHandler extends AbstractLimitHandler {
 
     @Override
     public String processSql(String sql, RowSelection rowSelection) {
-        return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection));
+        return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection), LimitHelper.isUseLimitInVariableMode(getDialect(), rowSelection));
     }
 
     @Override
     protected String getLimitString(String sql, long offset, int limit) {
+        return getLimitString(sql, offset, limit, getDialect().isUseLimitInVariableMode());
+    }
+
+    @Override
+    protected String getLimitString(String sql, long offset, int limit, boolean variableMode) {
         boolean hasOffset = offset > 0;
 
         sql = sql.trim();
@@ -52,7 +57,7 @@ public class LimitCommaLimitHandler extends AbstractLimitHandler {
         StringBuilder sql2 = new StringBuilder(sql.length() + 100);
         sql2.append(sql);
 
-        if (getDialect().isUseLimitInVariableMode()) {
+        if (variableMode) {
             sql2.append(hasOffset ? " limit ?, ?" : " limit ?");
         } else {
             sql2.append(hasOffset ? (" limit " + offset + ", " + limit) : (" limit " + limit));
@@ -41,6 +41,13 @@ public abstract class LimitHandler {
         return getLimitString(sql, (offset > 0) || (getDialect().isForceLimitUsage()));
     }
 
+    /**
+     * the handlers supporting both the variable and the inline mode override it, the others ignore the mode
+     */
+    protected String getLimitString(String sql, long offset, int limit, boolean variableMode) {
+        return getLimitString(sql, offset, limit);
+    }
+
 
     protected String getLimitString(String sql, boolean hasOffset) {
         throw new UnsupportedOperationException("Paged queries not supported by " + getClass().getName());
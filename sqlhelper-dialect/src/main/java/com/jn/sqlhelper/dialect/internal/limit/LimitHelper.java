@@ -35,6 +35,16 @@ public class LimitHelper {
         return (selection == null || selection.getOffset() == null) ? 0 : (selection.getOffset());
     }
 
+    /**
+     * the limit mode of the selection if it is set and the dialect supports it, else the default mode of the dialect
+     */
+    public static boolean isUseLimitInVariableMode(final Dialect dialect, final RowSelection selection) {
+        if (selection != null && selection.getLimitInVariableMode() != null) {
+            return selection.getLimitInVariableMode() && dialect.isSupportsVariableLimit();
+        }
+        return dialect.isUseLimitInVariableMode();
+    }
+
     private LimitHelper() {
     }
 }
@@ -33,11 +33,16 @@ public class LimitOffsetLimitHandler extends AbstractLimitHandler {
 
     @Override
     public String processSql(String sql, RowSelection rowSelection) {
-        return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection));
+        return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection), LimitHelper.isUseLimitInVariableMode(getDialect(), rowSelection));
     }
 
     @Override
     protected String getLimitString(String sql, long offset, int limit) {
+        return getLimitString(sql, offset, limit, getDialect().isUseLimitInVariableMode());
+    }
+
+    @Override
+    protected String getLimitString(String sql, long offset, int limit, boolean variableMode) {
         boolean hasOffset = offset > 0;
         sql = sql.trim();
         String forUpdateClause = "";
@@ -66,7 +71,7 @@ public class LimitOffsetLimitHandler extends AbstractLimitHandler {
         StringBuilder sql2 = new StringBuilder(sql.length() + 100);
         sql2.append(sql);
 
-        if (getDialect().isUseLimitInVariableMode()) {
+        if (variableMode) {
             if (hasOffset) {
                 sql2.append(" limit ? offset ? " + (hasOffsetRowsSuffix ? "rows" : ""));
             } else {
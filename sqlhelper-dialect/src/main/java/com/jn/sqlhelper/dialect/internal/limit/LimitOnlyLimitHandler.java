@@ -25,12 +25,17 @@ import com.jn.sqlhelper.dialect.pagination.RowSelection;
 public class LimitOnlyLimitHandler extends AbstractLimitHandler {
     @Override
     public String processSql(String sql, RowSelection rowSelection) {
-        return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection));
+        return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection), LimitHelper.isUseLimitInVariableMode(getDialect(), rowSelection));
     }
 
     @Override
     protected String getLimitString(String sql, long offset, int limit) {
-        if (getDialect().isUseLimitInVariableMode()) {
+        return getLimitString(sql, offset, limit, getDialect().isUseLimitInVariableMode());
+    }
+
+    @Override
+    protected String getLimitString(String sql, long offset, int limit, boolean variableMode) {
+        if (variableMode) {
             return sql + " limit ?";
         } else {
             return sql + " limit " + limit;
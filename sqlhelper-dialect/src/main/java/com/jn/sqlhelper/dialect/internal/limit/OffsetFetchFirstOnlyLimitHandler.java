@@ -33,11 +33,16 @@ public class OffsetFetchFirstOnlyLimitHandler extends AbstractLimitHandler {
 
     @Override
     public String processSql(String sql, RowSelection rowSelection) {
-        return getLimitString(sql, rowSelection.getOffset(), getMaxOrLimit(rowSelection));
+        return getLimitString(sql, rowSelection.getOffset(), getMaxOrLimit(rowSelection), LimitHelper.isUseLimitInVariableMode(getDialect(), rowSelection));
     }
 
     @Override
     protected String getLimitString(String sql, long offset, int limit) {
+        return getLimitString(sql, offset, limit, getDialect().isUseLimitInVariableMode());
+    }
+
+    @Override
+    protected String getLimitString(String sql, long offset, int limit, boolean variableMode) {
         // https://fmhelp.filemaker.com/docs/16/en/fm16_sql_reference.pdf
         // https://documentation.progress.com/output/ua/OpenEdge_latest/#page/dmsrf%2Foffset-and-fetch-clauses.html%23wwID0E6CPQ
         boolean hasOffset = offset > 0;
@@ -81,7 +86,7 @@ public class OffsetFetchFirstOnlyLimitHandler extends AbstractLimitHandler {
         StringBuilder sql2 = new StringBuilder(sql.length() + 100);
         sql2.append(sql);
 
-        if (getDialect().isUseLimitInVariableMode()) {
+        if (variableMode) {
             if (hasOffset || !supportSimplifyFirstOnly) {
                 sql2.append(" OFFSET ? ROWS FETCH NEXT ? ROWS ONLY");
             } else {
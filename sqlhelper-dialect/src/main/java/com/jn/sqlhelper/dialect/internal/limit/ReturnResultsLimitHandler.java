@@ -25,13 +25,18 @@ import com.jn.sqlhelper.dialect.pagination.RowSelection;
 public class ReturnResultsLimitHandler extends AbstractLimitHandler {
     @Override
     public String processSql(String sql, RowSelection rowSelection) {
-        return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection));
+        return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection), LimitHelper.isUseLimitInVariableMode(getDialect(), rowSelection));
     }
 
     @Override
     protected String getLimitString(String sql, long offset, int limit) {
+        return getLimitString(sql, offset, limit, getDialect().isUseLimitInVariableMode());
+    }
+
+    @Override
+    protected String getLimitString(String sql, long offset, int limit, boolean variableMode) {
         boolean hasOffset = offset > 0;
-        if (getDialect().isUseLimitInVariableMode()) {
+        if (variableMode) {
             return sql + " RETURN RESULT " + (hasOffset ? " ? TO ?" : " ?");
         } else {
             return sql + " RETURN RESULT " + (hasOffset ? (offset + " TO ") : "") + limit;
@@ -27,11 +27,16 @@ public class TopLimitHandler extends AbstractLimitHandler {
 
     @Override
     public String processSql(String sql, RowSelection rowSelection) {
-        return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection));
+        return getLimitString(sql, LimitHelper.getFirstRow(rowSelection), getMaxOrLimit(rowSelection), LimitHelper.isUseLimitInVariableMode(getDialect(), rowSelection));
     }
 
     @Override
     protected String getLimitString(String sql, long offset, int limit) {
+        return getLimitString(sql, offset, limit, getDialect().isUseLimitInVariableMode());
+    }
+
+    @Override
+    protected String getLimitString(String sql, long offset, int limit, boolean variableMode) {
         /*
          *  reference: http://docs.openlinksw.com/virtuoso/topselectoption/
          *  Select Syntax:
@@ -67,7 +72,7 @@ public class TopLimitHandler extends AbstractLimitHandler {
             return sql;
         }
         StringBuilder sql2 = new StringBuilder(sql.length() + 50).append(sql);
-        if (getDialect().isUseLimitInVariableMode()) {
+        if (variableMode) {
             if (getDialect().isSupportsLimitOffset() && hasOffset) {
                 if (!isUseSkipTop()) {
                     sql2.insert(insertionPoint, " TOP ?, ? ");
@@ -16,8 +16,6 @@ package com.jn.sqlhelper.dialect.likeescaper;
 
 import com.jn.langx.util.Emptys;
 import com.jn.langx.util.collection.Collects;
-import com.jn.langx.util.collection.PrimitiveArrays;
-import com.jn.langx.util.function.Consumer;
 
 import java.util.List;
 
@@ -29,6 +27,8 @@ public class BaseLikeEscaper implements LikeEscaper {
 
     protected char escapeChar = '0';
 
+    private volatile char[] likeKeyCharArray;
+
     public BaseLikeEscaper() {
     }
 
@@ -47,26 +47,77 @@ public class BaseLikeEscaper implements LikeEscaper {
 
     @Override
     public String escape(String pattern) {
-        final List<Character> specifiedChars = getLikeKeyChars();
-        if (Emptys.isNotEmpty(pattern)) {
-            final StringBuilder builder = new StringBuilder(pattern.length() + 20);
-            Collects.forEach(PrimitiveArrays.wrap(pattern.toCharArray(), true), new Consumer<Character>() {
-                @Override
-                public void accept(Character c) {
-                    if (specifiedChars.contains(c)) {
-                        builder.append(escapeLikeKeyChar(c));
-                    } else {
-                        if (c == escapeChar) {
-                            builder.append(escapeChar).append(escapeChar);
-                        } else {
-                            builder.append(c);
-                        }
-                    }
-                }
-            });
-            return builder.toString();
+        if (Emptys.isEmpty(pattern)) {
+            return pattern;
+        }
+        final char[] specifiedChars = getLikeKeyCharArray();
+        final int length = pattern.length();
+        // fast path: most patterns have nothing to escape
+        int i = 0;
+        while (i < length && !isEscapeRequired(pattern.charAt(i), specifiedChars)) {
+            i++;
+        }
+        if (i == length) {
+            return pattern;
+        }
+        final StringBuilder builder = new StringBuilder(length + 20);
+        builder.append(pattern, 0, i);
+        for (; i < length; i++) {
+            char c = pattern.charAt(i);
+            if (contains(specifiedChars, c)) {
+                builder.append(escapeLikeKeyChar(c));
+            } else if (c == escapeChar) {
+                builder.append(escapeChar).append(escapeChar);
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private boolean isEscapeRequired(char c, char[] specifiedChars) {
+        return c == escapeChar || contains(specifiedChars, c);
+    }
+
+    private static boolean contains(char[] chars, char c) {
+        for (char ch : chars) {
+            if (ch == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * the key chars without boxing, rebuilt when the key chars are changed by a sub class
+     */
+    private char[] getLikeKeyCharArray() {
+        List<Character> chars = getLikeKeyChars();
+        char[] array = likeKeyCharArray;
+        if (array == null || !isSameChars(array, chars)) {
+            array = new char[chars.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = chars.get(i);
+            }
+            likeKeyCharArray = array;
+        }
+        return array;
+    }
+
+    /**
+     * the key chars are a few, comparing them is cheaper than tracking the changes of the list
+     */
+    private static boolean isSameChars(char[] array, List<Character> chars) {
+        if (array.length != chars.size()) {
+            return false;
+        }
+        for (int i = 0; i < array.length; i++) {
+            Character c = chars.get(i);
+            if (c == null || c != array[i]) {
+                return false;
+            }
         }
-        return pattern;
+        return true;
     }
 
     protected String escapeLikeKeyChar(char c) {
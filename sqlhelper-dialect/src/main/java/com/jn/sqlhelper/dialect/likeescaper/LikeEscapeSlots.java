@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.likeescaper;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The result of the like escape analysis of a sql, it is a pure function of the sql text,
+ * so it is computed once and cached with the instrumented sql.
+ *
+ * @see LikeEscapers#findLikeEscapeSlots(String)
+ */
+public class LikeEscapeSlots {
+    public static final LikeEscapeSlots NONE = new LikeEscapeSlots(new BitSet(), new int[0]);
+
+    /**
+     * the parameter placeholder indexes will be escaped
+     */
+    private final BitSet parameterIndexes;
+    /**
+     * the sorted slots in the sql which the escape declare will be inserted into
+     */
+    private final int[] escapeDeclareSlots;
+    private final List<Integer> parameterIndexList;
+
+    LikeEscapeSlots(BitSet parameterIndexes, int[] escapeDeclareSlots) {
+        this.parameterIndexes = parameterIndexes;
+        this.escapeDeclareSlots = escapeDeclareSlots;
+        this.parameterIndexList = new ParameterIndexList(parameterIndexes);
+    }
+
+    public boolean isEmpty() {
+        return parameterIndexes.isEmpty() && escapeDeclareSlots.length == 0;
+    }
+
+    public boolean isEscapedParameter(int parameterIndex) {
+        return parameterIndex >= 0 && parameterIndexes.get(parameterIndex);
+    }
+
+    /**
+     * @return a read-only list view of the escaped parameter indexes, {@link List#contains(Object)} is a bit lookup
+     */
+    public List<Integer> getParameterIndexes() {
+        return parameterIndexList;
+    }
+
+    public int[] getEscapeDeclareSlots() {
+        return escapeDeclareSlots.clone();
+    }
+
+    int[] getSortedEscapeDeclareSlots() {
+        return escapeDeclareSlots;
+    }
+
+    private static final class ParameterIndexList extends AbstractList<Integer> {
+        private final int[] indexes;
+        private final BitSet bits;
+
+        ParameterIndexList(BitSet bits) {
+            this.bits = bits;
+            this.indexes = new int[bits.cardinality()];
+            int i = 0;
+            for (int index = bits.nextSetBit(0); index >= 0; index = bits.nextSetBit(index + 1)) {
+                indexes[i++] = index;
+            }
+        }
+
+        @Override
+        public Integer get(int i) {
+            return indexes[i];
+        }
+
+        @Override
+        public int size() {
+            return indexes.length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer && (Integer) o >= 0 && bits.get((Integer) o);
+        }
+    }
+}
@@ -6,12 +6,7 @@ import com.jn.langx.util.Emptys;
 import com.jn.langx.util.Preconditions;
 import com.jn.langx.util.Strings;
 import com.jn.langx.util.collection.Collects;
-import com.jn.langx.util.collection.Pipeline;
-import com.jn.langx.util.function.Consumer;
-import com.jn.langx.util.function.Consumer2;
-import com.jn.langx.util.function.Function;
 import com.jn.langx.util.struct.Entry;
-import com.jn.langx.util.struct.Holder;
 import com.jn.langx.util.struct.Pair;
 import com.jn.sqlhelper.common.utils.SQLs;
 
@@ -24,80 +19,69 @@ public class LikeEscapers {
         if (Emptys.isEmpty(slotIndexes)) {
             return string;
         }
-        // step 1: sort indexes:
-        final Set<Integer> sortedSlotIndexes = Collects.emptyTreeSet();
-        final Holder<Boolean> insertFirst = new Holder<Boolean>(false);
-        final Holder<Boolean> insertLast = new Holder<Boolean>(false);
-        Collects.forEach(slotIndexes, new Consumer<Integer>() {
-            @Override
-            public void accept(Integer slotIndex) {
-                if (slotIndex <= 0) {
-                    insertFirst.set(true);
-                } else if (slotIndex >= string.length()) {
-                    insertLast.set(true);
-                } else {
-                    sortedSlotIndexes.add(slotIndex);
-                }
+        return insert(string, toSortedSlots(slotIndexes, string.length()), insertment);
+    }
 
-            }
-        });
-        final List<Integer> sortedSlotIndexList = Pipeline.of(sortedSlotIndexes).asList();
-
-        // step 2: split segments
-        final List<Pair<Integer, Integer>> segmentOffsetPairs = new LinkedList<Pair<Integer, Integer>>();
-
-        Collects.forEach(sortedSlotIndexList, new Consumer2<Integer, Integer>() {
-            @Override
-            public void accept(Integer index, Integer slotIndex) {
-                if (index == 0) {
-                    segmentOffsetPairs.add(new Entry<Integer, Integer>(0, slotIndex));
-                } else {
-                    segmentOffsetPairs.add(new Entry<Integer, Integer>(sortedSlotIndexList.get(index - 1), slotIndex));
-                }
-            }
-        });
-
-        if (Emptys.isEmpty(sortedSlotIndexList)) {
-            segmentOffsetPairs.add(new Entry<Integer, Integer>(0, string.length()));
-        } else {
-            int lastSlotIndex = sortedSlotIndexList.get(sortedSlotIndexList.size() - 1);
-            int stringLength = string.length();
-            if (lastSlotIndex < stringLength) {
-                segmentOffsetPairs.add(new Entry<Integer, Integer>(lastSlotIndex, stringLength));
-            }
+    private static String insert(@NonNull final String string, @NonNull int[] slots, @NonNull String insertment) {
+        if (slots.length == 0 || Emptys.isEmpty(insertment)) {
+            return string;
         }
+        StringBuilder newString = new StringBuilder(string.length() + slots.length * insertment.length());
+        int start = 0;
+        for (int slot : slots) {
+            newString.append(string, start, slot).append(insertment);
+            start = slot;
+        }
+        newString.append(string, start, string.length());
+        return newString.toString();
+    }
 
-
-        final Collection<String> segments = Collects.map(segmentOffsetPairs, new Function<Pair<Integer, Integer>, String>() {
-            @Override
-            public String apply(Pair<Integer, Integer> pair) {
-                return string.substring(pair.getKey(), pair.getValue());
-            }
-        });
-
-        // step 3: concat string
-        StringBuilder newString = new StringBuilder(string.length() + 20);
-        if (insertFirst.get()) {
-            newString.append(insertment);
+    /**
+     * @return the distinct slots in [0, length], sorted
+     */
+    private static int[] toSortedSlots(List<Integer> slotIndexes, int length) {
+        int[] slots = new int[slotIndexes.size()];
+        int i = 0;
+        for (Integer slotIndex : slotIndexes) {
+            slots[i++] = Math.max(0, Math.min(slotIndex, length));
         }
-        Iterator<String> segmentIter = segments.iterator();
-        while (segmentIter.hasNext()) {
-            String segment = segmentIter.next();
-            newString.append(segment);
-            if (segmentIter.hasNext()) {
-                newString.append(insertment);
+        Arrays.sort(slots);
+        int count = 0;
+        for (int j = 0; j < slots.length; j++) {
+            if (count == 0 || slots[count - 1] != slots[j]) {
+                slots[count++] = slots[j];
             }
         }
-        if (insertLast.get()) {
-            newString.append(insertment);
-        }
-        return newString.toString();
+        return count == slots.length ? slots : Arrays.copyOf(slots, count);
     }
 
     public static String insertLikeEscapeDeclares(@NonNull final String sql, @Nullable final List<Integer> slotIndexes, @NonNull LikeEscaper escaper) {
         return insert(sql, slotIndexes, escaper.appendmentAfterLikeClause());
     }
 
+    /**
+     * Analyze the sql once: the escaped parameter indexes as a bitmap, and the sorted escape declare slots.
+     * The result is a pure function of the sql, the callers should cache it.
+     *
+     * @see com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor#findLikeEscapeSlots(String)
+     */
+    public static LikeEscapeSlots findLikeEscapeSlots(@NonNull String sql) {
+        Pair<List<Integer>, List<Integer>> pair = findEscapedSlots(sql);
+        if (Emptys.isEmpty(pair.getKey()) && Emptys.isEmpty(pair.getValue())) {
+            return LikeEscapeSlots.NONE;
+        }
+        BitSet parameterIndexes = new BitSet();
+        for (Integer parameterIndex : pair.getKey()) {
+            parameterIndexes.set(parameterIndex);
+        }
+        int[] slots = Emptys.isEmpty(pair.getValue()) ? new int[0] : toSortedSlots(pair.getValue(), sql.length());
+        return new LikeEscapeSlots(parameterIndexes, slots);
+    }
+
+    public static String insertLikeEscapeDeclares(@NonNull final String sql, @NonNull LikeEscapeSlots slots, @NonNull LikeEscaper escaper) {
+        return insert(sql, slots.getSortedEscapeDeclareSlots(), escaper.appendmentAfterLikeClause());
+    }
+
     private static final List<String> keywordsAfterLikeClause = Collects.asList(
             "and", "or",
             "group", "order",
@@ -157,6 +141,7 @@ public class LikeEscapers {
                     readedParameterCount = readedParameterCount + parameterCountInLikeClause;
                 }
                 segmentStartIndex = readedLength;
+                readedLength = readedLength + token.length();
             } else {
                 readedLength = readedLength + token.length();
             }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.orderby;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.cache.Cache;
+import com.jn.langx.cache.CacheBuilder;
+import com.jn.langx.cache.Loader;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.Strings;
+import com.jn.langx.util.collection.Collects;
+import com.jn.langx.util.function.Consumer;
+import com.jn.sqlhelper.common.er.EntityTableMapping;
+import com.jn.sqlhelper.common.er.EntityTableRegistry;
+
+import java.util.*;
+
+/**
+ * Caches the parse result of the user's sort strings as frozen (immutable) order bys, every caller gets a mutable
+ * copy of the cached one, so the repeated sorts are not parsed (and validated) again.
+ * <p>
+ * In the whitelist mode, only the sort by the whitelisted columns (e.g. the fields and the columns of an entity)
+ * are accepted, any other sort (functions, expressions, unknown columns) is rejected with an {@link OrderBySymbolException}.
+ * It protects the cardinality of the instrumented sql cache and the database from the index-hostile sorts.
+ */
+public class CachedOrderByBuilder implements OrderByBuilder<String> {
+    public static final CachedOrderByBuilder DEFAULT = new CachedOrderByBuilder(SqlStyleOrderByBuilder.DEFAULT);
+    public static final int DEFAULT_MAX_CAPACITY = 1000;
+
+    private final OrderByBuilder<String> delegate;
+    /**
+     * lower case columns, null if the whitelist mode is disabled
+     */
+    private volatile Set<String> whitelist;
+    private final int maxCapacity;
+    private volatile Cache<String, Object> cache;
+
+    public CachedOrderByBuilder(@NonNull OrderByBuilder<String> delegate) {
+        this(delegate, DEFAULT_MAX_CAPACITY);
+    }
+
+    public CachedOrderByBuilder(@NonNull OrderByBuilder<String> delegate, int maxCapacity) {
+        Preconditions.checkNotNull(delegate);
+        this.delegate = delegate;
+        this.maxCapacity = maxCapacity;
+        this.cache = newCache();
+    }
+
+    private Cache<String, Object> newCache() {
+        return CacheBuilder.<String, Object>newBuilder()
+                .initialCapacity(Math.min(64, maxCapacity))
+                .maxCapacity(maxCapacity)
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .loader(new Loader<String, Object>() {
+                    @Override
+                    public Object load(String sort) {
+                        return doBuild(sort);
+                    }
+
+                    @Override
+                    public Map<String, Object> getAll(Iterable<String> keys) {
+                        final Map<String, Object> map = new HashMap<String, Object>();
+                        Collects.forEach(keys, new Consumer<String>() {
+                            @Override
+                            public void accept(String k) {
+                                map.put(k, load(k));
+                            }
+                        });
+                        return map;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Enable the whitelist mode with the fields and the columns of the entity.
+     */
+    public CachedOrderByBuilder whitelist(@NonNull Class entityClass) {
+        Preconditions.checkNotNull(entityClass);
+        EntityTableMapping mapping = EntityTableRegistry.getInstance().getEntityTableMapping(entityClass);
+        List<String> columns = new ArrayList<String>();
+        for (Map.Entry<String, String> entry : mapping.getColumnMappings().entrySet()) {
+            columns.add(entry.getKey());
+            if (Strings.isNotEmpty(entry.getValue())) {
+                columns.add(entry.getValue());
+            }
+        }
+        return whitelist(columns);
+    }
+
+    /**
+     * Enable the whitelist mode with the columns, the sort of any other column will be rejected.
+     * The whitelist applies to all the sorts built by this builder, so don't enable it on the shared {@link #DEFAULT}.
+     */
+    public CachedOrderByBuilder whitelist(@NonNull Collection<String> columns) {
+        Preconditions.checkNotNull(columns);
+        Set<String> set = new HashSet<String>();
+        if (whitelist != null) {
+            set.addAll(whitelist);
+        }
+        for (String column : columns) {
+            if (Strings.isNotBlank(column)) {
+                set.add(column.trim().toLowerCase());
+            }
+        }
+        this.whitelist = set;
+        // the order bys built before are not validated
+        this.cache = newCache();
+        return this;
+    }
+
+    @Override
+    public OrderBy build(String sort) {
+        if (Strings.isBlank(sort)) {
+            return new OrderBy();
+        }
+        Object result = cache.get(sort);
+        if (result instanceof OrderBySymbolException) {
+            // rethrow a new one, the stack of the cached one is stale
+            throw new OrderBySymbolException(((OrderBySymbolException) result).getMessage());
+        }
+        // the callers may change the order by, e.g. set the comparators for the memory pagination
+        return ((OrderBy) result).copy();
+    }
+
+    /**
+     * @return the frozen order by, or the exception if it is rejected by the whitelist, the rejected sort is cached
+     * too, so the repeated invalid sorts cost nothing
+     */
+    private Object doBuild(String sort) {
+        OrderBy orderBy = delegate.build(sort);
+        Set<String> columns = this.whitelist;
+        if (columns != null) {
+            for (OrderByItem item : orderBy) {
+                if (!columns.contains(normalizeColumn(item.getExpression()))) {
+                    return new OrderBySymbolException("Illegal sort column: " + item.getExpression());
+                }
+            }
+        }
+        return orderBy.freeze();
+    }
+
+    /**
+     * t.`name` -&gt; name
+     */
+    private static String normalizeColumn(String expression) {
+        String column = expression.trim();
+        int index = column.lastIndexOf('.');
+        if (index != -1) {
+            column = column.substring(index + 1);
+        }
+        if (column.length() > 2) {
+            char first = column.charAt(0);
+            char last = column.charAt(column.length() - 1);
+            if ((first == '`' && last == '`') || (first == '"' && last == '"') || (first == '[' && last == ']')) {
+                column = column.substring(1, column.length() - 1);
+            }
+        }
+        return column.toLowerCase();
+    }
+}
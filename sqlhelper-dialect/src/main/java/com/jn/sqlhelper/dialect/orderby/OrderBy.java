@@ -26,15 +26,24 @@ import java.util.*;
  * @author jinuo.fang
  */
 public class OrderBy implements Serializable, Iterable<OrderByItem> {
-    public static final OrderBy EMPTY = new OrderBy();
+    public static final OrderBy EMPTY = new OrderBy().freeze();
     private final Map<String, OrderByItem> items = new LinkedHashMap<String, OrderByItem>();
+    /**
+     * a frozen order by is immutable, so it can be shared, e.g. cached by {@link CachedOrderByBuilder}.
+     * The builders never return a frozen one, use {@link #copy()} to get a mutable one.
+     */
+    private boolean frozen = false;
+    private transient String string;
+    private transient int hash;
 
     public boolean isValid() {
         return !items.isEmpty();
     }
 
     public void add(OrderByItem item) {
+        checkNotFrozen();
         items.put(item.getExpression(), item);
+        string = null;
     }
 
     public void addAll(Collection<OrderByItem> items) {
@@ -52,20 +61,64 @@ public class OrderBy implements Serializable, Iterable<OrderByItem> {
         add(new OrderByItem(expression, false));
     }
 
+    /**
+     * Make this order by and its items immutable, the string and the hash are computed once.
+     */
+    public OrderBy freeze() {
+        if (!frozen) {
+            for (OrderByItem item : items.values()) {
+                item.freeze();
+            }
+            frozen = true;
+            toString();
+        }
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @return a mutable copy of this order by, the comparators of the items are copied too
+     */
+    public OrderBy copy() {
+        OrderBy orderBy = new OrderBy();
+        for (OrderByItem item : items.values()) {
+            OrderByItem copied = new OrderByItem(item.getExpression(), item.getType());
+            copied.setComparator(item.getComparator());
+            orderBy.add(copied);
+        }
+        return orderBy;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("the order by is frozen: " + toString());
+        }
+    }
+
     @NonNull
     @Override
     public Iterator<OrderByItem> iterator() {
-        return items.values().iterator();
+        return frozen ? Collections.unmodifiableCollection(items.values()).iterator() : items.values().iterator();
     }
 
     @Override
     public String toString() {
-        return Strings.join(",", Pipeline.<OrderByItem>of(items.values()).map(new Function<OrderByItem, String>() {
-            @Override
-            public String apply(OrderByItem item) {
-                return item.toString();
-            }
-        }).getAll());
+        String str = this.string;
+        if (str == null || !frozen) {
+            str = Strings.join(",", Pipeline.<OrderByItem>of(items.values()).map(new Function<OrderByItem, String>() {
+                @Override
+                public String apply(OrderByItem item) {
+                    return item.toString();
+                }
+            }).getAll());
+            // consistent with equals
+            this.hash = str.toLowerCase().hashCode();
+            this.string = str;
+        }
+        return str;
     }
 
     @Override
@@ -83,15 +136,12 @@ public class OrderBy implements Serializable, Iterable<OrderByItem> {
 
     @Override
     public int hashCode() {
-        return Pipeline.<OrderByItem>of(items.values()).map(new Function<OrderByItem, Integer>() {
-            @Override
-            public Integer apply(OrderByItem item) {
-                return item.hashCode();
-            }
-        }).sum().intValue();
+        toString();
+        return hash;
     }
 
     public void setComparator(String itemExpression, Comparator comparator) {
+        checkNotFrozen();
         OrderByItem item = items.get(itemExpression);
         if (item != null) {
             item.setComparator(comparator);
@@ -32,6 +32,8 @@ public class OrderByItem implements Serializable {
     @Nullable
     private Comparator comparator;
 
+    private boolean frozen = false;
+
     public OrderByItem() {
     }
 
@@ -54,6 +56,7 @@ public class OrderByItem implements Serializable {
     }
 
     public void setExpression(String expression) {
+        checkNotFrozen();
         this.expression = expression;
     }
 
@@ -62,6 +65,7 @@ public class OrderByItem implements Serializable {
     }
 
     public void setType(OrderByType type) {
+        checkNotFrozen();
         this.type = type;
     }
 
@@ -70,9 +74,20 @@ public class OrderByItem implements Serializable {
     }
 
     public void setComparator(Comparator comparator) {
+        checkNotFrozen();
         this.comparator = comparator;
     }
 
+    void freeze() {
+        this.frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("the order by item is frozen: " + toString());
+        }
+    }
+
     @Override
     public String toString() {
         return " " + expression + " " + (type != null ? type.name() : "");
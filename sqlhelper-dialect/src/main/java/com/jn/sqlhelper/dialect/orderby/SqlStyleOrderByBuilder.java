@@ -18,9 +18,10 @@ import com.jn.langx.util.Strings;
 import com.jn.sqlhelper.common.symbolmapper.NoopSymbolMapper;
 import com.jn.sqlhelper.common.symbolmapper.SqlSymbolMapper;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.StringTokenizer;
 
 /**
@@ -30,8 +31,8 @@ public class SqlStyleOrderByBuilder implements OrderByBuilder<String> {
 
     public static final SqlStyleOrderByBuilder DEFAULT = new SqlStyleOrderByBuilder();
 
-    private final List<String> keywordsAfterOrderBy = new ArrayList<String>(Arrays.asList(new String[]{
-            "limit", "offset", "PROCEDURE"
+    private final Set<String> keywordsAfterOrderBy = new HashSet<String>(Arrays.asList(new String[]{
+            "limit", "offset", "procedure"
     }));
 
     private SqlSymbolMapper sqlSymbolMapper = NoopSymbolMapper.DEFAULT;
@@ -62,7 +63,7 @@ public class SqlStyleOrderByBuilder implements OrderByBuilder<String> {
     @Override
     public OrderBy build(String s) {
         if (Strings.isBlank(s)) {
-            return OrderBy.EMPTY;
+            return new OrderBy();
         }
         OrderBy orderBy = new OrderBy();
 
@@ -59,7 +59,7 @@ public class SymbolStyleOrderByBuilder implements OrderByBuilder<String> {
         }
 
         if (Strings.isBlank(s)) {
-            return OrderBy.EMPTY;
+            return new OrderBy();
         }
 
         OrderBy orderBy = new OrderBy();
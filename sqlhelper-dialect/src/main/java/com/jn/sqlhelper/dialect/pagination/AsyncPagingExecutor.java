@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.concurrent.CommonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs paging queries on an executor, every task binds its own paging request on the worker thread,
+ * so independent queries can overlap instead of running one after another.
+ * <p>
+ * The number of queries submitted and not finished is limited by a semaphore, it should not exceed
+ * the connection pool size, else the workers will just wait for a connection. The permit is acquired by the
+ * submitter before the task is handed to the executor, so the caller is blocked when the limit is reached,
+ * rather than piling up the tasks (and the threads) in the executor. The permit is released when the task
+ * is done, failed, cancelled or rejected by the executor.
+ */
+public class AsyncPagingExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncPagingExecutor.class);
+    private static final PagingRequestContextHolder PAGING_CONTEXT = PagingRequestContextHolder.getContext();
+    /**
+     * the getters of the max pool size in HikariCP, Druid, DBCP2, Tomcat JDBC, C3P0
+     */
+    private static final String[] POOL_SIZE_GETTERS = new String[]{"getMaximumPoolSize", "getMaxActive", "getMaxTotal", "getMaxPoolSize"};
+    public static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    public AsyncPagingExecutor(ExecutorService executor, int maxConcurrency) {
+        Preconditions.checkNotNull(executor, "the executor is null");
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency > 0 ? maxConcurrency : DEFAULT_MAX_CONCURRENCY;
+        this.permits = new Semaphore(this.maxConcurrency, true);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return the count of the queries submitted and not done
+     */
+    public int getPendingQueries() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * Submits a query task, the paging request is bound to the worker thread while the task is running.
+     * Blocks until the count of the pending queries is under the max concurrency.
+     *
+     * @param request the paging request, null if the task is not a paging query
+     * @param task    the query
+     * @throws RejectedExecutionException if the caller is interrupted while waiting, or the executor rejects the task
+     */
+    public <V> Future<V> submit(final PagingRequest request, final Callable<V> task) {
+        Preconditions.checkNotNull(task, "the query task is null");
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a query permit", ex);
+        }
+        FutureTask<V> future = new FutureTask<V>(new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                if (request == null) {
+                    return task.call();
+                }
+                return PAGING_CONTEXT.runWith(request, task);
+            }
+        }) {
+            @Override
+            protected void done() {
+                // called once, when the task is completed or cancelled, even if it is never run
+                permits.release();
+            }
+        };
+        try {
+            executor.execute(future);
+        } catch (RuntimeException ex) {
+            // releases the permit
+            future.cancel(false);
+            throw ex;
+        }
+        return future;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Creates a virtual thread per task executor when running on a JDK which supports it,
+     * else a cached thread pool, the concurrency is limited by {@link #submit(PagingRequest, Callable)} either way.
+     */
+    public static ExecutorService newDefaultExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Throwable ex) {
+            return Executors.newCachedThreadPool(new CommonThreadFactory());
+        }
+    }
+
+    /**
+     * Finds the max pool size of the well-known connection pools.
+     *
+     * @return the max pool size, or {@link #DEFAULT_MAX_CONCURRENCY} if it is unknown
+     */
+    public static int guessMaxConcurrency(DataSource dataSource) {
+        if (dataSource != null) {
+            for (String getter : POOL_SIZE_GETTERS) {
+                try {
+                    Method method = dataSource.getClass().getMethod(getter);
+                    Object size = method.invoke(dataSource);
+                    if (size instanceof Number && ((Number) size).intValue() > 0) {
+                        return ((Number) size).intValue();
+                    }
+                } catch (NoSuchMethodException ex) {
+                    // try next
+                } catch (Throwable ex) {
+                    logger.warn("Can't get the pool size of the datasource {}, error: {}", dataSource.getClass().getName(), ex.getMessage());
+                    break;
+                }
+            }
+        }
+        return DEFAULT_MAX_CONCURRENCY;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.annotation.Nullable;
+import com.jn.sqlhelper.common.ddl.SQLSyntaxCompatTable;
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.SqlRequests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the fetch size of the paging queries from the observed rows (and bytes if they are known) of every statement,
+ * so a page is fetched in one round trip rather than the driver's default fetch size (10 rows per round trip on Oracle).
+ * <p>
+ * The fetch size is the max observed rows (no more than the limit) plus one, so the driver knows the end of the result
+ * set in the same round trip, bounded by [minFetchSize, maxFetchSize] and by maxFetchBytes / average row bytes.
+ * The page size is used before the first observation.
+ * <p>
+ * The MySQL family is not advised: Connector/J reads the whole result set by default, a positive fetch size
+ * switches it to the server side cursor fetch when useCursorFetch is enabled. It is decided by the database id:
+ * MySQL, MariaDB, Percona, Clustrix, and the databases compatible with the MySQL syntax in {@link SQLSyntaxCompatTable}.
+ */
+public class FetchSizeAdvisor {
+    public static final int DEFAULT_MIN_FETCH_SIZE = 10;
+    public static final int DEFAULT_MAX_FETCH_SIZE = 1000;
+    public static final long DEFAULT_MAX_FETCH_BYTES = 4 * 1024 * 1024;
+    public static final int DEFAULT_MAX_STATEMENTS = 1000;
+
+    private int minFetchSize = DEFAULT_MIN_FETCH_SIZE;
+    private int maxFetchSize = DEFAULT_MAX_FETCH_SIZE;
+    private long maxFetchBytes = DEFAULT_MAX_FETCH_BYTES;
+    /**
+     * the statements more than it are not observed, avoid the unbounded growth if the statement id is the sql
+     */
+    private int maxStatements = DEFAULT_MAX_STATEMENTS;
+
+    /**
+     * key: databaseId + "#" + statementId
+     */
+    private final ConcurrentHashMap<String, FetchSizeStatistics> statistics = new ConcurrentHashMap<String, FetchSizeStatistics>();
+
+    /**
+     * @return the advised fetch size, null if there is no advice
+     */
+    @Nullable
+    public Integer advise(@Nullable Dialect dialect, @Nullable String statementId, RowSelection selection) {
+        if (!isAdvisable(dialect) || statementId == null || selection == null) {
+            return null;
+        }
+        long limit = selection.getLimit() == null || selection.getLimit() <= 0 || selection.getLimit() == Integer.MAX_VALUE ? -1 : selection.getLimit();
+        FetchSizeStatistics stats = statistics.get(key(dialect, statementId));
+        long expectedRows;
+        if (stats != null && stats.getExecutions() > 0) {
+            expectedRows = stats.getMaxRows();
+            if (limit > 0) {
+                expectedRows = Math.min(expectedRows, limit);
+            }
+        } else if (limit > 0) {
+            expectedRows = limit;
+        } else {
+            return null;
+        }
+        long fetchSize = expectedRows + 1;
+        if (stats != null && stats.getAverageRowBytes() > 0) {
+            fetchSize = Math.min(fetchSize, maxFetchBytes / stats.getAverageRowBytes());
+        }
+        fetchSize = Math.max(minFetchSize, Math.min(maxFetchSize, fetchSize));
+        return (int) fetchSize;
+    }
+
+    /**
+     * record a fetch of a statement
+     *
+     * @param fetchSize the fetch size of the statement, 0 if it is unknown
+     * @param rows      the fetched rows
+     * @param bytes     the fetched bytes, 0 if it is unknown
+     */
+    public void record(@Nullable Dialect dialect, @Nullable String statementId, int fetchSize, long rows, long bytes) {
+        if (!isAdvisable(dialect) || statementId == null || rows < 0) {
+            return;
+        }
+        String key = key(dialect, statementId);
+        FetchSizeStatistics stats = statistics.get(key);
+        if (stats == null) {
+            if (statistics.size() >= maxStatements) {
+                return;
+            }
+            stats = new FetchSizeStatistics(dialect.getDatabaseId(), statementId);
+            FetchSizeStatistics existed = statistics.putIfAbsent(key, stats);
+            if (existed != null) {
+                stats = existed;
+            }
+        }
+        stats.record(fetchSize, rows, bytes);
+    }
+
+    /**
+     * @return the statistics of the observed statements, as the metrics of the chosen fetch sizes and the round trips
+     */
+    public List<FetchSizeStatistics> getStatistics() {
+        return new ArrayList<FetchSizeStatistics>(statistics.values());
+    }
+
+    @Nullable
+    public FetchSizeStatistics getStatistics(Dialect dialect, String statementId) {
+        return statistics.get(key(dialect, statementId));
+    }
+
+    public void clear() {
+        statistics.clear();
+    }
+
+    private boolean isAdvisable(Dialect dialect) {
+        return dialect != null && !SqlRequests.isMySQLFamily(dialect);
+    }
+
+    private static String key(Dialect dialect, String statementId) {
+        return dialect.getDatabaseId() + "#" + statementId;
+    }
+
+    public int getMinFetchSize() {
+        return minFetchSize;
+    }
+
+    public void setMinFetchSize(int minFetchSize) {
+        if (minFetchSize > 0) {
+            this.minFetchSize = minFetchSize;
+        }
+    }
+
+    public int getMaxFetchSize() {
+        return maxFetchSize;
+    }
+
+    public void setMaxFetchSize(int maxFetchSize) {
+        if (maxFetchSize >= this.minFetchSize) {
+            this.maxFetchSize = maxFetchSize;
+        }
+    }
+
+    public long getMaxFetchBytes() {
+        return maxFetchBytes;
+    }
+
+    public void setMaxFetchBytes(long maxFetchBytes) {
+        if (maxFetchBytes > 0) {
+            this.maxFetchBytes = maxFetchBytes;
+        }
+    }
+
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    public void setMaxStatements(int maxStatements) {
+        if (maxStatements > 0) {
+            this.maxStatements = maxStatements;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.pagination;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The observed fetches of a statement of a database, and the fetch size chosen by the {@link FetchSizeAdvisor}.
+ */
+public class FetchSizeStatistics {
+    private final String databaseId;
+    private final String statementId;
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong maxRows = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong bytesSampledRows = new AtomicLong();
+    private final AtomicLong roundTrips = new AtomicLong();
+    private volatile int fetchSize;
+
+    FetchSizeStatistics(String databaseId, String statementId) {
+        this.databaseId = databaseId;
+        this.statementId = statementId;
+    }
+
+    void record(int fetchSize, long rows, long bytes) {
+        this.executions.incrementAndGet();
+        this.rows.addAndGet(rows);
+        long max = this.maxRows.get();
+        while (rows > max && !this.maxRows.compareAndSet(max, rows)) {
+            max = this.maxRows.get();
+        }
+        if (bytes > 0 && rows > 0) {
+            this.bytes.addAndGet(bytes);
+            this.bytesSampledRows.addAndGet(rows);
+        }
+        if (fetchSize > 0) {
+            this.fetchSize = fetchSize;
+            // the driver knows the end of the result set when a round trip returns less than the fetch size
+            this.roundTrips.addAndGet(rows / fetchSize + 1);
+        }
+    }
+
+    public String getDatabaseId() {
+        return databaseId;
+    }
+
+    public String getStatementId() {
+        return statementId;
+    }
+
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public long getMaxRows() {
+        return maxRows.get();
+    }
+
+    /**
+     * @return the average bytes of a row, 0 if the bytes are never recorded
+     */
+    public long getAverageRowBytes() {
+        long sampledRows = bytesSampledRows.get();
+        return sampledRows <= 0 ? 0 : bytes.get() / sampledRows;
+    }
+
+    /**
+     * @return the estimated round trips of the recorded fetches with a known fetch size
+     */
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    /**
+     * @return the fetch size of the last recorded fetch, 0 if it is unknown
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    @Override
+    public String toString() {
+        return "FetchSizeStatistics{" +
+                "databaseId='" + databaseId + '\'' +
+                ", statementId='" + statementId + '\'' +
+                ", executions=" + getExecutions() +
+                ", rows=" + getRows() +
+                ", maxRows=" + getMaxRows() +
+                ", averageRowBytes=" + getAverageRowBytes() +
+                ", roundTrips=" + getRoundTrips() +
+                ", fetchSize=" + getFetchSize() +
+                '}';
+    }
+}
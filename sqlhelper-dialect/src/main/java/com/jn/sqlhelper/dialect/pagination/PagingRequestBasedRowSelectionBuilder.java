@@ -23,12 +23,19 @@ public class PagingRequestBasedRowSelectionBuilder implements RowSelectionBuilde
     @Override
     public RowSelection build(PagingRequest request)
             throws IllegalArgumentException {
+        return build(request, request.getPageNo());
+    }
+
+    /**
+     * builds the row selection of another page of the request, the request itself is left untouched
+     */
+    public RowSelection build(PagingRequest request, int pageNo)
+            throws IllegalArgumentException {
         if (request.isValidRequest()) {
             RowSelection rowSelection = new RowSelection();
             rowSelection.setFetchSize(request.getFetchSize());
             rowSelection.setTimeout(request.getTimeout());
 
-            int pageNo = request.getPageNo();
             long offset = 0L;
             int limit = request.getPageSize();
             if (request.isGetAllFromNonZeroOffsetRequest()) {
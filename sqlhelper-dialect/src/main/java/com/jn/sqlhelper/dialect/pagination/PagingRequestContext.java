@@ -44,4 +44,8 @@ public class PagingRequestContext<E, R> extends SqlRequestContext<PagingRequest<
 
     public static final String BEFORE_SUBQUERY_PARAMETERS_COUNT = "BEFORE_SUBQUERY_PARAMETERS_COUNT";
     public static final String AFTER_SUBQUERY_PARAMETERS_COUNT = "AFTER_SUBQUERY_PARAMETERS_COUNT";
+    /**
+     * marks the count statement of the paging request is being executed
+     */
+    public static final String COUNT_STATEMENT = "COUNT_STATEMENT";
 }
@@ -17,11 +17,14 @@ package com.jn.sqlhelper.dialect.pagination;
 
 import com.jn.langx.util.Objects;
 import com.jn.langx.util.function.Consumer;
+import com.jn.sqlhelper.common.context.ContextScope;
 import com.jn.sqlhelper.dialect.SqlRequestContext;
 import com.jn.sqlhelper.dialect.SqlRequestContextHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Callable;
+
 public class PagingRequestContextHolder extends SqlRequestContextHolder {
     private static final Logger logger = LoggerFactory.getLogger(PagingRequestContextHolder.class);
 
@@ -53,6 +56,62 @@ public class PagingRequestContextHolder extends SqlRequestContextHolder {
         });
     }
 
+    /**
+     * Binds the paging request until the returned scope is closed:
+     * <pre>
+     *     ContextScope scope = PagingRequestContextHolder.getContext().openScope(request);
+     *     try {
+     *         List users = userDao.selectByLimit(condition);
+     *     } finally {
+     *         scope.close();
+     *     }
+     *     PagingResult result = request.getResult();
+     * </pre>
+     */
+    public ContextScope<SqlRequestContext> openScope(final PagingRequest request) {
+        return new RequestContextScope(newScopedContext(request));
+    }
+
+    /**
+     * Binds the paging request during the invocation of the callable only, it works with any
+     * {@link com.jn.sqlhelper.common.context.ContextStorage}.
+     */
+    public <V> V runWith(final PagingRequest request, Callable<V> callable) throws Exception {
+        PagingRequestContext context = newScopedContext(request);
+        try {
+            return variables.runWith(context, callable);
+        } finally {
+            request.setCtx(null);
+        }
+    }
+
+    private static PagingRequestContext newScopedContext(PagingRequest request) {
+        PagingRequestContext context = new PagingRequestContext();
+        context.setRequest(request);
+        request.setCtx(context);
+        context.setScoped(true);
+        return context;
+    }
+
+    /**
+     * Called by the integrations when a paging query is finished. The request set by
+     * {@link #setPagingRequest(PagingRequest)} is cleared and removed. The request bound by a scope is kept for the
+     * other queries in the scope, and the outer request is restored when the scope ends.
+     *
+     * @param clearResult whether clear the items of the result
+     */
+    public void finishPagingRequest(boolean clearResult) {
+        SqlRequestContext context = variables.get();
+        if (Objects.isNotNull(context) && context.isScoped()) {
+            return;
+        }
+        PagingRequest request = getPagingRequest();
+        if (request != null) {
+            request.clear(clearResult);
+        }
+        remove();
+    }
+
     public void setRowSelection(final RowSelection rowSelection) {
         setContextContent(new Consumer<PagingRequestContext>() {
             @Override
@@ -21,6 +21,11 @@ public final class RowSelection {
     private Integer timeout;
     private Integer fetchSize;
     private Integer maxRows = -1;
+    /**
+     * whether the limit, offset are '?' placeholders or literals in the limit sql, null if using the default mode of
+     * the dialect. the dialects are shared, so the mode of a query is set here instead of on the dialect
+     */
+    private Boolean limitInVariableMode;
 
     public Long getOffset() {
         return this.offset;
@@ -73,4 +78,12 @@ public final class RowSelection {
     public void setMaxRows(Integer maxRows) {
         this.maxRows = maxRows;
     }
+
+    public Boolean getLimitInVariableMode() {
+        return limitInVariableMode;
+    }
+
+    public void setLimitInVariableMode(Boolean limitInVariableMode) {
+        this.limitInVariableMode = limitInVariableMode;
+    }
 }
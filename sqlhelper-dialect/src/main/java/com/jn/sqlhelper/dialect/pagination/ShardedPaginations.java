@@ -0,0 +1,349 @@
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.text.StringTemplates;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.Strings;
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.orderby.OrderByItem;
+import com.jn.sqlhelper.dialect.orderby.OrderByType;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Scatter-gather paging across shards: every shard is queried with a limit of (offset + pageSize) rows,
+ * then the partial results are merged with a k-way merge on the order by, and the counts are summed.
+ *
+ * @author jinuo.fang
+ */
+@SuppressWarnings({"unchecked"})
+public class ShardedPaginations {
+
+    /**
+     * Creates the request which will be executed on every shard. The first (offset + pageSize) rows are fetched from every shard,
+     * because any of them can be a row of the requested page.
+     */
+    public static <C, E> PagingRequest<C, E> newShardRequest(PagingRequest<C, E> request) {
+        Preconditions.checkNotNull(request);
+        PagingRequest<C, E> shardRequest = new PagingRequest<C, E>();
+        if (request.isValidRequest() && request.getPageSize() > 0) {
+            shardRequest.limit(1, request.getPageNo() * request.getPageSize());
+        } else {
+            // empty request or get all request
+            shardRequest.limit(1, request.getPageSize());
+        }
+        shardRequest.setCondition(request.getCondition());
+        shardRequest.setOrderBy(request.getOrderBy());
+        shardRequest.setCount(request.needCount());
+        shardRequest.setCountColumn(request.getCountColumn());
+        shardRequest.setCacheCount(request.getCacheCount());
+        shardRequest.setUseLastPageIfPageOut(false);
+        shardRequest.setTimeout(request.getTimeout());
+        shardRequest.setDialect(request.getDialect());
+        shardRequest.setEscapeLikeParameter(request.isEscapeLikeParameter());
+        shardRequest.setLikeEscaper(request.getLikeEscaper());
+        if (request.getFetchSize() != null) {
+            shardRequest.setFetchSize(request.getFetchSize());
+        }
+        return shardRequest;
+    }
+
+    /**
+     * Merges the results of the shard requests, the merged result is set into the request.
+     *
+     * @param request       the original request
+     * @param shardRequests the requests which created by {@link #newShardRequest(PagingRequest)} and have been executed
+     * @return the merged result
+     */
+    public static <C, E> PagingResult<E> merge(PagingRequest<C, E> request, List<PagingRequest<C, E>> shardRequests) {
+        Preconditions.checkNotNull(request);
+        Preconditions.checkNotNull(shardRequests);
+
+        long total = 0;
+        E sampleRow = null;
+        List<List<E>> partitions = new ArrayList<List<E>>(shardRequests.size());
+        for (PagingRequest<C, E> shardRequest : shardRequests) {
+            PagingResult<E> shardResult = shardRequest.getResult();
+            List<E> items = shardResult == null ? null : shardResult.getItems();
+            if (items == null) {
+                items = Collections.emptyList();
+            }
+            partitions.add(items);
+            if (sampleRow == null && !items.isEmpty()) {
+                sampleRow = items.get(0);
+            }
+            if (total >= 0) {
+                long shardTotal = shardResult == null ? -1 : shardResult.getTotal();
+                total = shardTotal < 0 ? -1 : total + shardTotal;
+            }
+        }
+
+        int offset = 0;
+        int limit = Integer.MAX_VALUE;
+        if (request.isEmptyRequest()) {
+            limit = 0;
+        } else if (request.getPageSize() > 0) {
+            offset = (request.getPageNo() - 1) * request.getPageSize();
+            limit = request.getPageSize();
+        }
+
+        Comparator<E> comparator = sampleRow == null ? null : ShardedPaginations.<E>createMergeComparator(sampleRow, request.getOrderBy());
+        List<E> items = comparator == null ? concat(partitions, offset, limit) : kWayMerge(partitions, comparator, offset, limit);
+
+        PagingResult<E> result = new PagingResult<E>();
+        result.setPageNo(request.getPageNo());
+        result.setPageSize(request.getPageSize());
+        result.setTotal(request.isGetAllRequest() && total < 0 ? items.size() : total);
+        result.setItems(items);
+        request.setResult(result);
+        return result;
+    }
+
+    /**
+     * Creates the comparator used to merge the shard results. The order by items are sql columns, they are resolved to:
+     * <pre>
+     *     1) the keys of a {@link Map} row
+     *     2) the fields of a model row (and its super classes)
+     * </pre>
+     * A table qualifier and the quotes are removed, and the names are matched case-insensitively without the underscores,
+     * so create_time, CREATE_TIME, t.create_time and `createTime` all match the property createTime.
+     * <p>
+     * The null values are sorted first in the ascending order.
+     *
+     * @param sampleRow a row of the shard results
+     * @return the comparator, null if there is no order by
+     * @throws IllegalArgumentException if any order by item can't be resolved, a wrong global page would be returned otherwise
+     */
+    public static <E> Comparator<E> createMergeComparator(Object sampleRow, OrderBy orderBy) {
+        if (sampleRow == null || orderBy == null || !orderBy.isValid()) {
+            return null;
+        }
+        RowComparator comparator = new RowComparator();
+        for (OrderByItem orderByItem : orderBy) {
+            String expression = orderByItem.getExpression();
+            RowValueGetter getter = sampleRow instanceof Map ? newMapValueGetter((Map) sampleRow, expression) : newFieldValueGetter(sampleRow.getClass(), expression);
+            if (getter == null) {
+                throw new IllegalArgumentException(StringTemplates.formatWithPlaceholder("Can't merge the shard results, the order by column [{}] can't be resolved in the row type [{}]", expression, sampleRow.getClass().getName()));
+            }
+            Comparator valueComparator = orderByItem.getComparator() == null ? ValueComparator.INSTANCE : orderByItem.getComparator();
+            comparator.add(getter, valueComparator, orderByItem.getType() == OrderByType.DESC);
+        }
+        return (Comparator<E>) comparator;
+    }
+
+    /**
+     * t.create_time =&gt; createtime, "CREATE_TIME" =&gt; createtime
+     */
+    private static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+        name = name.trim();
+        int dotIndex = name.lastIndexOf('.');
+        if (dotIndex != -1) {
+            name = name.substring(dotIndex + 1);
+        }
+        StringBuilder builder = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '_' || c == '`' || c == '"' || c == '[' || c == ']') {
+                continue;
+            }
+            builder.append(Character.toLowerCase(c));
+        }
+        return builder.toString();
+    }
+
+    private static RowValueGetter newMapValueGetter(Map sampleRow, String expression) {
+        if (sampleRow.containsKey(expression)) {
+            return new MapValueGetter(expression);
+        }
+        String name = normalizeName(expression);
+        if (Strings.isEmpty(name)) {
+            return null;
+        }
+        for (Object key : sampleRow.keySet()) {
+            if (key instanceof String && name.equals(normalizeName((String) key))) {
+                return new MapValueGetter(key);
+            }
+        }
+        return null;
+    }
+
+    private static RowValueGetter newFieldValueGetter(Class modelClass, String expression) {
+        String name = normalizeName(expression);
+        if (Strings.isEmpty(name)) {
+            return null;
+        }
+        Class clazz = modelClass;
+        while (clazz != null && clazz != Object.class) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && name.equals(normalizeName(field.getName()))) {
+                    return new FieldValueGetter(field);
+                }
+            }
+            clazz = clazz.getSuperclass();
+        }
+        return null;
+    }
+
+    private interface RowValueGetter {
+        Object get(Object row);
+    }
+
+    private static class MapValueGetter implements RowValueGetter {
+        private final Object key;
+
+        MapValueGetter(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public Object get(Object row) {
+            return ((Map) row).get(key);
+        }
+    }
+
+    private static class FieldValueGetter implements RowValueGetter {
+        private final Field field;
+
+        FieldValueGetter(Field field) {
+            this.field = field;
+            if (!field.isAccessible()) {
+                field.setAccessible(true);
+            }
+        }
+
+        @Override
+        public Object get(Object row) {
+            try {
+                return field.get(row);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException(ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * compares the values of a column, the nulls are first, the numbers of different types are compared by their values
+     */
+    private static class ValueComparator implements Comparator<Object> {
+        private static final ValueComparator INSTANCE = new ValueComparator();
+
+        @Override
+        public int compare(Object v1, Object v2) {
+            if (v1 == v2) {
+                return 0;
+            }
+            if (v1 == null) {
+                return -1;
+            }
+            if (v2 == null) {
+                return 1;
+            }
+            if (v1 instanceof Number && v2 instanceof Number && v1.getClass() != v2.getClass()) {
+                return new BigDecimal(v1.toString()).compareTo(new BigDecimal(v2.toString()));
+            }
+            if (v1 instanceof Comparable) {
+                return ((Comparable) v1).compareTo(v2);
+            }
+            throw new IllegalArgumentException(StringTemplates.formatWithPlaceholder("Can't merge the shard results, the value type [{}] is not comparable", v1.getClass().getName()));
+        }
+    }
+
+    private static class RowComparator implements Comparator<Object> {
+        private final List<RowValueGetter> getters = new ArrayList<RowValueGetter>();
+        private final List<Comparator> comparators = new ArrayList<Comparator>();
+        private final List<Boolean> descs = new ArrayList<Boolean>();
+
+        void add(RowValueGetter getter, Comparator comparator, boolean desc) {
+            getters.add(getter);
+            comparators.add(comparator);
+            descs.add(desc);
+        }
+
+        @Override
+        public int compare(Object row1, Object row2) {
+            for (int i = 0; i < getters.size(); i++) {
+                RowValueGetter getter = getters.get(i);
+                int delta = comparators.get(i).compare(getter.get(row1), getter.get(row2));
+                if (delta != 0) {
+                    return descs.get(i) ? -delta : delta;
+                }
+            }
+            return 0;
+        }
+    }
+
+    private static <E> List<E> concat(List<List<E>> partitions, int offset, int limit) {
+        List<E> rs = Collects.emptyArrayList();
+        int skipped = 0;
+        for (List<E> partition : partitions) {
+            for (E item : partition) {
+                if (rs.size() >= limit) {
+                    return rs;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    rs.add(item);
+                }
+            }
+        }
+        return rs;
+    }
+
+    private static <E> List<E> kWayMerge(List<List<E>> partitions, final Comparator<E> comparator, int offset, int limit) {
+        PriorityQueue<Cursor<E>> heads = new PriorityQueue<Cursor<E>>(Math.max(1, partitions.size()), new Comparator<Cursor<E>>() {
+            @Override
+            public int compare(Cursor<E> c1, Cursor<E> c2) {
+                int delta = comparator.compare(c1.current, c2.current);
+                // keep the shard order for the equal rows, so the merge is stable
+                return delta != 0 ? delta : c1.shard - c2.shard;
+            }
+        });
+        for (int i = 0; i < partitions.size(); i++) {
+            Cursor<E> cursor = new Cursor<E>(i, partitions.get(i).iterator());
+            if (cursor.next()) {
+                heads.add(cursor);
+            }
+        }
+
+        List<E> rs = Collects.emptyArrayList();
+        int skipped = 0;
+        while (!heads.isEmpty() && rs.size() < limit) {
+            Cursor<E> cursor = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                rs.add(cursor.current);
+            }
+            if (cursor.next()) {
+                heads.add(cursor);
+            }
+        }
+        return rs;
+    }
+
+    private static class Cursor<E> {
+        private final int shard;
+        private final Iterator<E> iterator;
+        private E current;
+
+        Cursor(int shard, Iterator<E> iterator) {
+            this.shard = shard;
+            this.iterator = iterator;
+        }
+
+        boolean next() {
+            if (iterator.hasNext()) {
+                current = iterator.next();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -16,17 +16,123 @@ package com.jn.sqlhelper.dialect.pagination;
 
 import com.jn.langx.annotation.NonNull;
 import com.jn.langx.annotation.Nullable;
+import com.jn.langx.cache.Cache;
+import com.jn.langx.cache.CacheBuilder;
+import com.jn.langx.cache.Loader;
 import com.jn.langx.text.StringTemplates;
 import com.jn.langx.util.Objects;
 import com.jn.langx.util.Preconditions;
 import com.jn.langx.util.Strings;
+import com.jn.langx.util.collection.Collects;
+import com.jn.langx.util.function.Consumer;
+import com.jn.sqlhelper.dialect.Dialect;
 import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
 import com.jn.sqlhelper.dialect.SqlRequests;
 import com.jn.sqlhelper.dialect.orderby.OrderByBuilder;
-import com.jn.sqlhelper.dialect.orderby.SqlStyleOrderByBuilder;
+import com.jn.sqlhelper.dialect.orderby.CachedOrderByBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @SuppressWarnings({"all"})
 public class SqlPaginations extends SqlRequests {
+    private static final int BACKSLASH_ESCAPES = 1;
+    private static final int HASH_COMMENTS = 2;
+    private static final int HASH_OPERATOR = 4;
+    /**
+     * the placeholder indexes of the sql segments before and after the subquery, indexed by the syntax flags:
+     * the backslash escapes, the '#' comments, the ?# operator
+     */
+    private static final Cache<String, int[]>[] placeholderIndexesCaches = new Cache[8];
+
+    static {
+        for (int syntax = 0; syntax < placeholderIndexesCaches.length; syntax++) {
+            placeholderIndexesCaches[syntax] = newPlaceholderIndexesCache(syntax);
+        }
+    }
+
+    private static Cache<String, int[]> newPlaceholderIndexesCache(final int syntax) {
+        return CacheBuilder.<String, int[]>newBuilder()
+                .initialCapacity(64)
+                .maxCapacity(1000)
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .loader(new Loader<String, int[]>() {
+                    @Override
+                    public int[] load(String sqlSegment) {
+                        return SqlRequests.findPlaceholderParameterIndexes(sqlSegment,
+                                (syntax & BACKSLASH_ESCAPES) != 0,
+                                (syntax & HASH_COMMENTS) != 0,
+                                (syntax & HASH_OPERATOR) != 0);
+                    }
+
+                    @Override
+                    public Map<String, int[]> getAll(Iterable<String> keys) {
+                        final Map<String, int[]> map = new HashMap<String, int[]>();
+                        Collects.forEach(keys, new Consumer<String>() {
+                            @Override
+                            public void accept(String k) {
+                                map.put(k, load(k));
+                            }
+                        });
+                        return map;
+                    }
+                })
+                .build();
+    }
+
+    private static Cache<String, int[]> getPlaceholderIndexesCache(@Nullable Dialect dialect) {
+        int syntax = 0;
+        if (dialect != null) {
+            if (dialect.isBackslashEscapeInStringLiteral()) {
+                syntax |= BACKSLASH_ESCAPES;
+            }
+            if (isMySQLFamily(dialect)) {
+                syntax |= HASH_COMMENTS;
+            }
+            if (isPostgreSQLFamily(dialect)) {
+                syntax |= HASH_OPERATOR;
+            }
+        }
+        return placeholderIndexesCaches[syntax];
+    }
+
+    /**
+     * the cached version of {@link com.jn.sqlhelper.common.utils.SQLs#findPlaceholderParameterIndexes(String)}
+     */
+    public static int[] findPlaceholderParameterIndexes(String sqlSegment) {
+        return findPlaceholderParameterIndexes(sqlSegment, null);
+    }
+
+    /**
+     * the cached version of {@link SqlRequests#findPlaceholderParameterIndexes(String, Dialect)}
+     *
+     * @param dialect decides the backslash escapes, the '#' comments and the ?# operator, standard SQL if it is null
+     */
+    public static int[] findPlaceholderParameterIndexes(String sqlSegment, @Nullable Dialect dialect) {
+        if (Strings.isEmpty(sqlSegment)) {
+            return new int[0];
+        }
+        return getPlaceholderIndexesCache(dialect).get(sqlSegment).clone();
+    }
+
+    /**
+     * the cached version of {@link com.jn.sqlhelper.common.utils.SQLs#findPlaceholderParameterCount(String)}
+     */
+    public static int findPlaceholderParameterCount(String sqlSegment) {
+        return findPlaceholderParameterCount(sqlSegment, null);
+    }
+
+    /**
+     * the cached version of {@link com.jn.sqlhelper.common.utils.SQLs#findPlaceholderParameterCount(String, boolean, boolean, boolean)}
+     *
+     * @param dialect decides the backslash escapes, the '#' comments and the ?# operator, standard SQL if it is null
+     */
+    public static int findPlaceholderParameterCount(String sqlSegment, @Nullable Dialect dialect) {
+        if (Strings.isEmpty(sqlSegment)) {
+            return 0;
+        }
+        return getPlaceholderIndexesCache(dialect).get(sqlSegment).length;
+    }
 
 
     public static String extractBeforeSubqueryPartition(@NonNull String sql, @NonNull String startFlag) {
@@ -72,6 +178,13 @@ public class SqlPaginations extends SqlRequests {
         return request.isSubqueryPaging();
     }
 
+    /**
+     * the count statement is skipped once the deadline of the request has passed, the total is unknown (-1)
+     */
+    public static boolean isCountSkippedByDeadline(@Nullable PagingRequest request) {
+        return request != null && request.isDeadlineExceeded();
+    }
+
     public static boolean isValidSubQueryPagination(@Nullable PagingRequest request, @NonNull SQLStatementInstrumentor instrumentor) {
         if (!isSubqueryPagingRequest(request)) {
             return false;
@@ -141,7 +254,7 @@ public class SqlPaginations extends SqlRequests {
         PagingRequest<C, E> pagingRequest = new PagingRequest<C, E>().limit(pageNo, pageSize);
         if (Strings.isNotEmpty(sort)) {
             if (orderByBuilder == null) {
-                orderByBuilder = SqlStyleOrderByBuilder.DEFAULT;
+                orderByBuilder = CachedOrderByBuilder.DEFAULT;
             }
             pagingRequest.setOrderBy(orderByBuilder.build(sort));
         }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.pagination.AsyncPagingExecutor;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import com.jn.sqlhelper.dialect.pagination.PagingRequestContextHolder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncPagingExecutorTests {
+    @Test
+    public void testMaxConcurrency() throws Throwable {
+        final AsyncPagingExecutor executor = new AsyncPagingExecutor(Executors.newCachedThreadPool(), 2);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 8; i++) {
+                final PagingRequest request = new PagingRequest().limit(i + 1, 10);
+                futures.add(executor.submit(request, new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        int current = running.incrementAndGet();
+                        synchronized (maxRunning) {
+                            maxRunning.set(Math.max(maxRunning.get(), current));
+                        }
+                        Thread.sleep(50);
+                        running.decrementAndGet();
+                        // the request is bound to the worker thread
+                        return PagingRequestContextHolder.getContext().getPagingRequest() == request;
+                    }
+                }));
+                Assert.assertTrue(executor.getPendingQueries() <= 2);
+            }
+            for (Future<Boolean> future : futures) {
+                Assert.assertTrue(future.get(10, TimeUnit.SECONDS));
+            }
+            Assert.assertTrue(maxRunning.get() <= 2);
+            Assert.assertEquals(0, executor.getPendingQueries());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCancel() throws Throwable {
+        // one worker, so the second task waits in the executor queue
+        final AsyncPagingExecutor executor = new AsyncPagingExecutor(Executors.newSingleThreadExecutor(), 2);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            Future<Object> running = executor.submit(null, new Callable<Object>() {
+                @Override
+                public Object call() {
+                    started.countDown();
+                    try {
+                        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    } catch (InterruptedException ex) {
+                        interrupted.countDown();
+                    }
+                    return null;
+                }
+            });
+            Future<Object> queued = executor.submit(null, new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return null;
+                }
+            });
+            Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(2, executor.getPendingQueries());
+
+            // a task cancelled before it is run releases its permit
+            queued.cancel(false);
+            Assert.assertEquals(1, executor.getPendingQueries());
+            try {
+                queued.get();
+                Assert.fail();
+            } catch (CancellationException ex) {
+                // expected
+            }
+
+            running.cancel(true);
+            Assert.assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(0, executor.getPendingQueries());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejected() {
+        ExecutorService workers = Executors.newSingleThreadExecutor();
+        workers.shutdown();
+        AsyncPagingExecutor executor = new AsyncPagingExecutor(workers, 1);
+        for (int i = 0; i < 3; i++) {
+            try {
+                executor.submit(null, new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        return null;
+                    }
+                });
+                Assert.fail();
+            } catch (RejectedExecutionException ex) {
+                // the permit is released, else the next submit blocks
+                Assert.assertEquals(0, executor.getPendingQueries());
+            }
+        }
+    }
+}
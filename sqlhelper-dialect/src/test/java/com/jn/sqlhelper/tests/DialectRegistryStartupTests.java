@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.common.index.ClassIndexes;
+import com.jn.sqlhelper.common.index.IndexedClass;
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import com.jn.sqlhelper.dialect.internal.AbstractDialect;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The dialects are instantiated at their first lookup, the registry initialization registers the dialect classes only.
+ */
+public class DialectRegistryStartupTests {
+    @Test
+    public void testLazyRegistration() {
+        DialectRegistry registry = DialectRegistry.getInstance();
+        Dialect mysql = registry.getDialectByName("mysql");
+        Assert.assertNotNull(mysql);
+        Assert.assertSame(mysql, registry.getDialectByName("mysql"));
+
+        // all the indexed dialects are instantiated once
+        Collection<Dialect> dialects = registry.getDialects();
+        Assert.assertTrue(dialects.contains(mysql));
+        for (String className : indexedDialectClasses()) {
+            Assert.assertTrue(className, dialects.contains(registry.getDialectByClassName(className.replace('$', '.'))));
+        }
+
+        // the registered dialect is shared, it is frozen
+        Assert.assertTrue(((AbstractDialect) mysql).isFrozen());
+        try {
+            mysql.setUseLimitInVariableMode(false);
+            Assert.fail("the limit mode of a shared dialect is changed");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testNoDialectInstantiatedBeforeLookup() throws Throwable {
+        // the registry in this class loader is used by the other tests, initialize a new one
+        Class<?> registryClass = Class.forName(DialectRegistry.class.getName(), true, newIsolatedClassLoader());
+        Object registry = registryClass.getMethod("getInstance").invoke(null);
+        Map<?, ?> instantiated = (Map<?, ?>) getStaticField(registryClass, "nameToDialectMap");
+        Map<?, ?> lazy = (Map<?, ?>) getStaticField(registryClass, "nameToLazyDialectMap");
+        Assert.assertTrue(instantiated.isEmpty());
+        Assert.assertFalse(lazy.isEmpty());
+        int registered = lazy.size();
+
+        Object mysql = registryClass.getMethod("getDialectByName", String.class).invoke(registry, "mysql");
+        Assert.assertNotNull(mysql);
+        Assert.assertEquals(1, instantiated.size());
+        Assert.assertEquals(registered - 1, lazy.size());
+        Assert.assertEquals(Boolean.TRUE, mysql.getClass().getMethod("isFrozen").invoke(mysql));
+    }
+
+    private static ClassLoader newIsolatedClassLoader() throws Throwable {
+        String[] paths = System.getProperty("java.class.path").split(File.pathSeparator);
+        URL[] urls = new URL[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            urls[i] = new File(paths[i]).toURI().toURL();
+        }
+        // the parent has the JDK classes only
+        return new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+    }
+
+    private static Object getStaticField(Class<?> clazz, String name) throws Throwable {
+        Field field = clazz.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(null);
+    }
+
+    @Test
+    public void testDialectIndex() {
+        for (String className : indexedDialectClasses()) {
+            Dialect dialect = DialectRegistry.getInstance().getDialectByClassName(className.replace('$', '.'));
+            Assert.assertNotNull(className, dialect);
+            Assert.assertNotNull(className, dialect.getDatabaseId());
+        }
+    }
+
+    private static Set<String> indexedDialectClasses() {
+        Set<String> indexed = new TreeSet<String>();
+        for (IndexedClass indexedClass : ClassIndexes.load(DialectRegistry.class.getClassLoader(), Dialect.class.getName())) {
+            indexed.add(indexedClass.getClassName());
+        }
+        return indexed;
+    }
+
+    /**
+     * the reflective class list is used when the index is missing, it must keep up with the index
+     */
+    @Test
+    public void testDialectIndexEqualsBuiltinClasses() throws Throwable {
+        Set<String> indexed = indexedDialectClasses();
+        Assert.assertFalse("the dialect index is not generated", indexed.isEmpty());
+
+        Method method = DialectRegistry.class.getDeclaredMethod("getBuiltinDialectClasses");
+        method.setAccessible(true);
+        Set<String> builtin = new TreeSet<String>();
+        for (Class clazz : (Class[]) method.invoke(null)) {
+            builtin.add(clazz.getName());
+        }
+        Assert.assertEquals(indexed, builtin);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import com.jn.sqlhelper.dialect.internal.MariaDBDialect;
+import com.jn.sqlhelper.dialect.internal.MySQLDialect;
+import com.jn.sqlhelper.dialect.internal.OracleDialect;
+import com.jn.sqlhelper.dialect.pagination.FetchSizeAdvisor;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FetchSizeAdvisorTests {
+    @Test
+    public void test() {
+        FetchSizeAdvisor advisor = new FetchSizeAdvisor();
+        Dialect oracle = new OracleDialect();
+        RowSelection selection = new RowSelection();
+        selection.setOffset(0L);
+        selection.setLimit(50);
+
+        // the page size before the first observation
+        Assert.assertEquals(Integer.valueOf(51), advisor.advise(oracle, "findUsers", selection));
+
+        advisor.record(oracle, "findUsers", 51, 20, 20 * 1024 * 1024);
+        advisor.record(oracle, "findUsers", 51, 30, 0);
+        // bounded by the max fetch bytes: 4M / 1M
+        Assert.assertEquals(Integer.valueOf(10), advisor.advise(oracle, "findUsers", selection));
+
+        advisor.record(oracle, "findOrders", 0, 30, 0);
+        Assert.assertEquals(Integer.valueOf(31), advisor.advise(oracle, "findOrders", selection));
+        Assert.assertEquals(2, advisor.getStatistics().size());
+
+        Assert.assertNull(advisor.advise(new MySQLDialect(), "findUsers", selection));
+        Assert.assertNull(advisor.advise(new MariaDBDialect(), "findUsers", selection));
+        // compatible with the MySQL syntax
+        Assert.assertNull(advisor.advise(DialectRegistry.getInstance().getDialectByName("golden"), "findUsers", selection));
+        advisor.record(new MariaDBDialect(), "findUsers", 0, 30, 0);
+        Assert.assertEquals(2, advisor.getStatistics().size());
+    }
+}
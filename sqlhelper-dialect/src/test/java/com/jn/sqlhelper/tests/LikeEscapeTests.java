@@ -1,9 +1,16 @@
 package com.jn.sqlhelper.tests;
 
+import com.jn.sqlhelper.dialect.likeescaper.BaseLikeEscaper;
+import com.jn.sqlhelper.dialect.likeescaper.LikeEscapeSlots;
 import com.jn.sqlhelper.dialect.likeescaper.LikeEscaper;
 import com.jn.sqlhelper.dialect.likeescaper.BackslashStyleEscaper;
+import com.jn.sqlhelper.dialect.likeescaper.LikeEscapers;
+import com.jn.sqlhelper.dialect.likeescaper.SlashStyleEscaper;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 public class LikeEscapeTests {
     @Test
     public void test(){
@@ -11,4 +18,52 @@ public class LikeEscapeTests {
         String sql = "afs%fl";
         System.out.println(escaper.escape(sql));
     }
+
+    @Test
+    public void testSlots() {
+        String sql = "select * from user where name like ? and age > ? and remark like concat('%', ?, '%') order by id";
+        LikeEscapeSlots slots = LikeEscapers.findLikeEscapeSlots(sql);
+        Assert.assertEquals(Arrays.asList(0, 2), slots.getParameterIndexes());
+        Assert.assertTrue(slots.isEscapedParameter(2));
+        Assert.assertFalse(slots.isEscapedParameter(1));
+        Assert.assertEquals("select * from user where name like ?  ESCAPE '/' and age > ? and remark like concat('%', ?, '%')  ESCAPE '/' order by id",
+                LikeEscapers.insertLikeEscapeDeclares(sql, slots, new SlashStyleEscaper()));
+
+        sql = "select * from t where a like ? or b like ? and c = ?";
+        slots = LikeEscapers.findLikeEscapeSlots(sql);
+        Assert.assertEquals(Arrays.asList(0, 1), slots.getParameterIndexes());
+        Assert.assertEquals("select * from t where a like ?  ESCAPE '/' or b like ?  ESCAPE '/' and c = ?",
+                LikeEscapers.insertLikeEscapeDeclares(sql, slots, new SlashStyleEscaper()));
+
+        Assert.assertSame(LikeEscapeSlots.NONE, LikeEscapers.findLikeEscapeSlots("select * from t where a = ?"));
+    }
+
+    @Test
+    public void testEscape() {
+        Assert.assertEquals("a/_b//c/%", new SlashStyleEscaper().escape("a_b/c%"));
+        Assert.assertEquals("it/'s", new SlashStyleEscaper().escape("it's"));
+        Assert.assertEquals("abc", new SlashStyleEscaper().escape("abc"));
+        Assert.assertEquals("afs\\%fl", new BackslashStyleEscaper().escape("afs%fl"));
+        Assert.assertEquals("a\\\\b", new BackslashStyleEscaper().escape("a\\b"));
+    }
+
+    @Test
+    public void testKeyCharsChanged() {
+        KeyCharsEscaper escaper = new KeyCharsEscaper();
+        Assert.assertEquals("a/_b", escaper.escape("a_b"));
+        // the count of the key chars is not changed
+        escaper.replaceKeyChar('_', '#');
+        Assert.assertEquals("a_b", escaper.escape("a_b"));
+        Assert.assertEquals("a/#b", escaper.escape("a#b"));
+    }
+
+    private static class KeyCharsEscaper extends BaseLikeEscaper {
+        KeyCharsEscaper() {
+            super('/');
+        }
+
+        void replaceKeyChar(char oldChar, char newChar) {
+            keyChars.set(keyChars.indexOf(oldChar), newChar);
+        }
+    }
 }
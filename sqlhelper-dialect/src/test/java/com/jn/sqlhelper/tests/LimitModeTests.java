@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LimitModeTests {
+    @Test
+    public void testLimitModeOfSelection() {
+        Dialect dialect = DialectRegistry.getInstance().getDialectByName("mysql");
+        String sql = "select * from user where age > ?";
+
+        RowSelection selection = new RowSelection();
+        selection.setOffset(20L);
+        selection.setLimit(10);
+        String variableSql = dialect.getLimitSql(sql, selection);
+        System.out.println(variableSql);
+
+        selection.setLimitInVariableMode(false);
+        String inlineSql = dialect.getLimitSql(sql, selection);
+        System.out.println(inlineSql);
+        Assert.assertFalse(variableSql.equals(inlineSql));
+        Assert.assertTrue(inlineSql.contains("20"));
+
+        // the shared dialect isn't changed
+        Assert.assertTrue(dialect.isUseLimitInVariableMode());
+        selection.setLimitInVariableMode(null);
+        Assert.assertEquals(variableSql, dialect.getLimitSql(sql, selection));
+    }
+
+    @Test
+    public void testMaxComputeInlineLimit() {
+        Dialect dialect = DialectRegistry.getInstance().getDialectByName("maxcompute");
+        String sql = "select * from user where age > ?";
+
+        RowSelection selection = new RowSelection();
+        selection.setLimit(10);
+        selection.setLimitInVariableMode(false);
+        Assert.assertEquals(sql + " limit 10", dialect.getLimitSql(sql, selection));
+
+        selection.setOffset(20L);
+        String inlineSql = dialect.getLimitSql(sql, selection);
+        System.out.println(inlineSql);
+        Assert.assertTrue(inlineSql.endsWith("between 21 and 30"));
+        // only the placeholder of the query itself
+        Assert.assertEquals(inlineSql.indexOf('?'), inlineSql.lastIndexOf('?'));
+
+        selection.setLimitInVariableMode(null);
+        Assert.assertTrue(dialect.getLimitSql(sql, selection).endsWith("between ? + 1 and ?"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisteredDialectIsFrozen() {
+        DialectRegistry.getInstance().getDialectByName("mysql").setUseLimitInVariableMode(false);
+    }
+}
@@ -0,0 +1,138 @@
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.common.context.ContextScope;
+import com.jn.sqlhelper.dialect.SqlRequest;
+import com.jn.sqlhelper.dialect.SqlRequestContext;
+import com.jn.sqlhelper.dialect.SqlRequestContextHolder;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import com.jn.sqlhelper.dialect.pagination.PagingRequestContextHolder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PagingRequestContextScopeTests {
+
+    @Test
+    public void testNestedScope() {
+        PagingRequest outer = new PagingRequest().limit(1, 10);
+        PagingRequest inner = new PagingRequest().limit(2, 10);
+        ContextScope<SqlRequestContext> outerScope = PagingRequestContextHolder.getContext().openScope(outer);
+        try {
+            ContextScope<SqlRequestContext> innerScope = PagingRequestContextHolder.getContext().openScope(inner);
+            try {
+                Assert.assertSame(inner, PagingRequestContextHolder.getContext().getPagingRequest());
+            } finally {
+                innerScope.close();
+            }
+            Assert.assertSame(outer, PagingRequestContextHolder.getContext().getPagingRequest());
+        } finally {
+            outerScope.close();
+        }
+        Assert.assertNull(PagingRequestContextHolder.getContext().getPagingRequest());
+    }
+
+    @Test
+    public void testFinishInNestedScope() {
+        PagingRequest outer = new PagingRequest().limit(1, 10);
+        PagingRequest inner = new PagingRequest().limit(2, 10);
+        ContextScope<SqlRequestContext> outerScope = PagingRequestContextHolder.getContext().openScope(outer);
+        try {
+            ContextScope<SqlRequestContext> innerScope = PagingRequestContextHolder.getContext().openScope(inner);
+            try {
+                // the integrations finish the request after every query, the scoped one is kept
+                PagingRequestContextHolder.getContext().finishPagingRequest(true);
+                Assert.assertSame(inner, PagingRequestContextHolder.getContext().getPagingRequest());
+            } finally {
+                innerScope.close();
+            }
+            PagingRequestContextHolder.getContext().finishPagingRequest(true);
+            Assert.assertSame(outer, PagingRequestContextHolder.getContext().getPagingRequest());
+        } finally {
+            outerScope.close();
+        }
+        Assert.assertNull(PagingRequestContextHolder.getContext().getPagingRequest());
+    }
+
+    @Test
+    public void testFinishUnscopedRequest() {
+        PagingRequest request = new PagingRequest().limit(1, 10);
+        PagingRequestContextHolder.getContext().setPagingRequest(request);
+        Assert.assertSame(request, PagingRequestContextHolder.getContext().getPagingRequest());
+        PagingRequestContextHolder.getContext().finishPagingRequest(true);
+        Assert.assertNull(PagingRequestContextHolder.getContext().getPagingRequest());
+    }
+
+    @Test
+    public void testSqlRequestScope() throws Exception {
+        final SqlRequest request = new SqlRequest();
+        ContextScope<SqlRequestContext> scope = SqlRequestContextHolder.getInstance().openScope(request);
+        try {
+            Assert.assertSame(SqlRequestContextHolder.getInstance().get(), request.getContext());
+            Assert.assertSame(request, request.getContext().getRequest());
+        } finally {
+            scope.close();
+        }
+        Assert.assertNull(request.getContext());
+
+        SqlRequestContext context = SqlRequestContextHolder.getInstance().runWith(request, new Callable<SqlRequestContext>() {
+            @Override
+            public SqlRequestContext call() {
+                Assert.assertSame(SqlRequestContextHolder.getInstance().get(), request.getContext());
+                return request.getContext();
+            }
+        });
+        Assert.assertNotNull(context);
+        Assert.assertSame(request, context.getRequest());
+        Assert.assertNull(request.getContext());
+    }
+
+    @Test
+    public void testManyConcurrentScopes() throws Throwable {
+        final int taskCount = 100000;
+        final AtomicInteger failures = new AtomicInteger(0);
+        ExecutorService executor = newExecutor();
+        try {
+            for (int i = 0; i < taskCount; i++) {
+                final int pageNo = i + 1;
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        PagingRequest request = new PagingRequest().limit(pageNo, 10);
+                        ContextScope<SqlRequestContext> scope = PagingRequestContextHolder.getContext().openScope(request);
+                        try {
+                            if (PagingRequestContextHolder.getContext().getPagingRequest() != request) {
+                                failures.incrementAndGet();
+                            }
+                        } finally {
+                            scope.close();
+                        }
+                        if (PagingRequestContextHolder.getContext().getPagingRequest() != null) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        }
+        System.out.println("executor: " + executor.getClass().getName() + ", failures: " + failures.get());
+        Assert.assertEquals(0, failures.get());
+    }
+
+    /**
+     * uses virtual threads when running on a JDK which supports them
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Throwable ex) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import com.jn.sqlhelper.dialect.instrument.StatementDeadlineWatchdog;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import com.jn.sqlhelper.dialect.pagination.SqlPaginations;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class PagingRequestDeadlineTests {
+    @Test
+    public void testDeadline() throws Throwable {
+        PagingRequest request = new PagingRequest().limit(1, 10);
+        Assert.assertFalse(request.hasDeadline());
+        Assert.assertFalse(request.isDeadlineExceeded());
+        Assert.assertEquals(Long.MAX_VALUE, request.getRemainingMillis());
+        Assert.assertEquals(-1, request.getDeadline());
+
+        request.setTimeBudget(2, TimeUnit.SECONDS);
+        Assert.assertTrue(request.hasDeadline());
+        Assert.assertTrue(request.getRemainingMillis() <= 2000);
+        Assert.assertTrue(request.getRemainingMillis() > 1000);
+        Assert.assertFalse(request.isDeadlineExceeded());
+
+        request.setDeadline(System.currentTimeMillis() - 1);
+        Assert.assertTrue(request.isDeadlineExceeded());
+
+        request.setDeadline(-1);
+        Assert.assertFalse(request.hasDeadline());
+    }
+
+    @Test
+    public void testQueryTimeout() throws Throwable {
+        SQLStatementInstrumentor instrumentor = new SQLStatementInstrumentor();
+        try {
+            // the remaining time is rounded up to seconds
+            RecordingStatement recorder = new RecordingStatement(0);
+            instrumentor.applyDeadline(new PagingRequest().limit(1, 10).setTimeBudget(2500, TimeUnit.MILLISECONDS), recorder.statement);
+            Assert.assertEquals(3, recorder.queryTimeout);
+
+            // an explicit shorter timeout is kept
+            recorder = new RecordingStatement(1);
+            instrumentor.applyDeadline(new PagingRequest().limit(1, 10).setTimeBudget(10, TimeUnit.SECONDS), recorder.statement);
+            Assert.assertEquals(1, recorder.queryTimeout);
+
+            // the budget is used up
+            recorder = new RecordingStatement(0);
+            instrumentor.applyDeadline(new PagingRequest().limit(1, 10).setDeadline(System.currentTimeMillis() - 10), recorder.statement);
+            Assert.assertEquals(1, recorder.queryTimeout);
+
+            // no deadline
+            recorder = new RecordingStatement(0);
+            instrumentor.applyDeadline(new PagingRequest().limit(1, 10), recorder.statement);
+            Assert.assertEquals(0, recorder.queryTimeout);
+        } finally {
+            instrumentor.finish();
+        }
+    }
+
+    @Test
+    public void testCancelAtDeadline() throws Throwable {
+        SQLStatementInstrumentor instrumentor = new SQLStatementInstrumentor();
+        RecordingStatement recorder = new RecordingStatement(0);
+        try {
+            instrumentor.applyDeadline(new PagingRequest().limit(1, 10).setTimeBudget(100, TimeUnit.MILLISECONDS), recorder.statement);
+            Assert.assertTrue(recorder.cancelled.await(5, TimeUnit.SECONDS));
+        } finally {
+            instrumentor.finish();
+        }
+    }
+
+    @Test
+    public void testReleaseWatchesAtFinish() throws Throwable {
+        SQLStatementInstrumentor instrumentor = new SQLStatementInstrumentor();
+        RecordingStatement recorder = new RecordingStatement(0);
+        instrumentor.applyDeadline(new PagingRequest().limit(1, 10).setTimeBudget(300, TimeUnit.MILLISECONDS), recorder.statement);
+        instrumentor.finish();
+        Assert.assertFalse(recorder.cancelled.await(600, TimeUnit.MILLISECONDS));
+
+        // the released watches don't keep their statements, and they are purged from the queue
+        StatementDeadlineWatchdog.Watch watch = StatementDeadlineWatchdog.watch(new RecordingStatement(0).statement, TimeUnit.HOURS.toMillis(1));
+        watch.release();
+        Assert.assertTrue(watch.isReleased());
+        StatementDeadlineWatchdog.purge();
+        Assert.assertEquals(0, StatementDeadlineWatchdog.getQueuedWatches());
+    }
+
+    @Test
+    public void testSkipCount() {
+        PagingRequest request = new PagingRequest().limit(1, 10);
+        Assert.assertFalse(SqlPaginations.isCountSkippedByDeadline(request));
+        request.setTimeBudget(10, TimeUnit.SECONDS);
+        Assert.assertFalse(SqlPaginations.isCountSkippedByDeadline(request));
+        request.setDeadline(System.currentTimeMillis() - 1);
+        Assert.assertTrue(SqlPaginations.isCountSkippedByDeadline(request));
+        Assert.assertFalse(SqlPaginations.isCountSkippedByDeadline(null));
+    }
+
+    private static class RecordingStatement implements InvocationHandler {
+        private final Statement statement;
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+        private volatile int queryTimeout;
+
+        RecordingStatement(int queryTimeout) {
+            this.queryTimeout = queryTimeout;
+            this.statement = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class[]{Statement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (name.equals("setQueryTimeout")) {
+                queryTimeout = (Integer) args[0];
+            } else if (name.equals("getQueryTimeout")) {
+                return queryTimeout;
+            } else if (name.equals("cancel")) {
+                cancelled.countDown();
+            } else if (name.equals("isClosed")) {
+                return false;
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            return null;
+        }
+    }
+}
@@ -14,13 +14,47 @@
 
 package com.jn.sqlhelper.tests;
 
+import com.jn.sqlhelper.dialect.Dialect;
 import com.jn.sqlhelper.dialect.DialectRegistry;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.DatabaseMetaData;
+
 public class ProductIdGuessTests {
     @Test
     public void test(){
         System.out.println(DialectRegistry.guessDatabaseId("KingbaseES"));
         System.out.println(DialectRegistry.guessDatabaseId("kingbaseES"));
     }
+
+    @Test
+    public void testDialectByDatabaseMetadata() {
+        Dialect mysql = DialectRegistry.getInstance().getDialectByDatabaseMetadata(newDatabaseMetaData("MySQL"));
+        System.out.println(mysql.getDatabaseId());
+        Assert.assertEquals("mysql", mysql.getDatabaseId());
+        // the detected dialect is cached
+        Assert.assertSame(mysql, DialectRegistry.getInstance().getDialectByDatabaseMetadata(newDatabaseMetaData("MySQL")));
+
+        Dialect mariadb = DialectRegistry.getInstance().getDialectByDatabaseMetadata(newDatabaseMetaData("MariaDB"));
+        System.out.println(mariadb.getDatabaseId());
+        Assert.assertEquals("mariadb", mariadb.getDatabaseId());
+
+        Assert.assertNull(DialectRegistry.getInstance().getDialectByDatabaseMetadata(newDatabaseMetaData("zzz")));
+    }
+
+    private static DatabaseMetaData newDatabaseMetaData(final String productName) {
+        return (DatabaseMetaData) Proxy.newProxyInstance(ProductIdGuessTests.class.getClassLoader(), new Class[]{DatabaseMetaData.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getDatabaseProductName".equals(method.getName())) {
+                    return productName;
+                }
+                return null;
+            }
+        });
+    }
 }
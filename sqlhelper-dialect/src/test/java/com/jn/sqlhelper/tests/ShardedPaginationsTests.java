@@ -0,0 +1,179 @@
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.orderby.SymbolStyleOrderByBuilder;
+import com.jn.sqlhelper.dialect.pagination.MemoryPaginations;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import com.jn.sqlhelper.dialect.pagination.PagingResult;
+import com.jn.sqlhelper.dialect.pagination.ShardedPaginations;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ShardedPaginationsTests {
+
+    @Test
+    public void testMergeShards() {
+        Random random = new Random(10000);
+        List<Person> all = new ArrayList<Person>();
+        List<List<Person>> shards = new ArrayList<List<Person>>();
+        for (int s = 0; s < 3; s++) {
+            List<Person> shard = new ArrayList<Person>();
+            for (int i = 0; i < 40; i++) {
+                Person person = new Person();
+                person.setId("id_" + s + "_" + i);
+                person.setName("name_" + Math.abs(random.nextInt()));
+                person.setAge(Math.abs(random.nextInt(200)));
+                shard.add(person);
+                all.add(person);
+            }
+            shards.add(shard);
+        }
+
+        PagingRequest<Object, Person> request = new PagingRequest<Object, Person>();
+        request.limit(3, 10);
+        request.setOrderBy(SymbolStyleOrderByBuilder.MATH_SYMBOL_ORDER_BY_BUILDER.build("-age"));
+
+        List<PagingRequest<Object, Person>> shardRequests = new ArrayList<PagingRequest<Object, Person>>();
+        for (List<Person> shard : shards) {
+            PagingRequest<Object, Person> shardRequest = ShardedPaginations.newShardRequest(request);
+            Assert.assertEquals(30, shardRequest.getPageSize());
+            MemoryPaginations.paging(shard, shardRequest);
+            shardRequests.add(shardRequest);
+        }
+        PagingResult<Person> merged = ShardedPaginations.merge(request, shardRequests);
+
+        PagingRequest<Object, Person> expectedRequest = new PagingRequest<Object, Person>();
+        expectedRequest.limit(3, 10);
+        expectedRequest.setOrderBy(request.getOrderBy());
+        List<Person> expected = MemoryPaginations.paging(all, expectedRequest);
+
+        Assert.assertEquals(120, merged.getTotal());
+        Assert.assertEquals(10, merged.getItems().size());
+        Assert.assertEquals(expected.size(), merged.getItems().size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getAge(), merged.getItems().get(i).getAge());
+            if (i > 0) {
+                Assert.assertTrue(merged.getItems().get(i - 1).getAge() >= merged.getItems().get(i).getAge());
+            }
+        }
+    }
+
+    @Test
+    public void testMergeShardsOnColumnNames() {
+        Random random = new Random(20000);
+        OrderBy orderBy = new OrderBy();
+        orderBy.addDesc("p.age");
+        orderBy.addAsc("`ID`");
+        final Comparator<Person> sqlOrder = new Comparator<Person>() {
+            @Override
+            public int compare(Person p1, Person p2) {
+                int delta = p2.getAge() - p1.getAge();
+                return delta != 0 ? delta : p1.getId().compareTo(p2.getId());
+            }
+        };
+
+        List<Person> all = new ArrayList<Person>();
+        List<List<Person>> shards = new ArrayList<List<Person>>();
+        for (int s = 0; s < 3; s++) {
+            List<Person> shard = new ArrayList<Person>();
+            for (int i = 0; i < 40; i++) {
+                Person person = new Person();
+                person.setId("id_" + s + "_" + i);
+                person.setName("name_" + s + "_" + i);
+                person.setAge(random.nextInt(20));
+                shard.add(person);
+            }
+            all.addAll(shard);
+            shards.add(shard);
+        }
+
+        PagingRequest<Object, Person> request = new PagingRequest<Object, Person>();
+        request.limit(3, 10);
+        request.setOrderBy(orderBy);
+        PagingResult<Person> merged = ShardedPaginations.merge(request, executeShards(request, shards, sqlOrder));
+
+        Collections.sort(all, sqlOrder);
+        Assert.assertEquals(120, merged.getTotal());
+        Assert.assertEquals(all.subList(20, 30), merged.getItems());
+    }
+
+    @Test
+    public void testMergeMapRows() {
+        OrderBy orderBy = new OrderBy();
+        orderBy.addAsc("t.create_time");
+        final Comparator<Map<String, Object>> sqlOrder = new Comparator<Map<String, Object>>() {
+            @Override
+            public int compare(Map<String, Object> row1, Map<String, Object> row2) {
+                return ((Long) row1.get("CREATE_TIME")).compareTo((Long) row2.get("CREATE_TIME"));
+            }
+        };
+
+        List<Map<String, Object>> all = new ArrayList<Map<String, Object>>();
+        List<List<Map<String, Object>>> shards = new ArrayList<List<Map<String, Object>>>();
+        for (int s = 0; s < 3; s++) {
+            List<Map<String, Object>> shard = new ArrayList<Map<String, Object>>();
+            for (int i = 0; i < 10; i++) {
+                Map<String, Object> row = new HashMap<String, Object>();
+                row.put("ID", s * 100 + i);
+                // shard 0 has the largest times, a plain concat returns a wrong page
+                row.put("CREATE_TIME", (long) ((2 - s) * 1000 + i * 3 + s));
+                shard.add(row);
+            }
+            all.addAll(shard);
+            shards.add(shard);
+        }
+
+        PagingRequest<Object, Map<String, Object>> request = new PagingRequest<Object, Map<String, Object>>();
+        request.limit(2, 5);
+        request.setOrderBy(orderBy);
+        PagingResult<Map<String, Object>> merged = ShardedPaginations.merge(request, executeShards(request, shards, sqlOrder));
+
+        Collections.sort(all, sqlOrder);
+        Assert.assertEquals(30, merged.getTotal());
+        Assert.assertEquals(all.subList(5, 10), merged.getItems());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeOnUnresolvedColumn() {
+        OrderBy orderBy = new OrderBy();
+        orderBy.addAsc("unknown_column");
+        Person person = new Person();
+        person.setId("id_0");
+        person.setName("name_0");
+        List<List<Person>> shards = new ArrayList<List<Person>>();
+        shards.add(Collections.singletonList(person));
+
+        PagingRequest<Object, Person> request = new PagingRequest<Object, Person>();
+        request.limit(1, 10);
+        request.setOrderBy(orderBy);
+        ShardedPaginations.merge(request, executeShards(request, shards, null));
+    }
+
+    /**
+     * simulates the shard queries: every shard returns its first (offset + pageSize) rows in the sql order
+     */
+    private static <E> List<PagingRequest<Object, E>> executeShards(PagingRequest<Object, E> request, List<List<E>> shards, Comparator<E> sqlOrder) {
+        List<PagingRequest<Object, E>> shardRequests = new ArrayList<PagingRequest<Object, E>>();
+        for (List<E> shard : shards) {
+            PagingRequest<Object, E> shardRequest = ShardedPaginations.newShardRequest(request);
+            List<E> sorted = new ArrayList<E>(shard);
+            if (sqlOrder != null) {
+                Collections.sort(sorted, sqlOrder);
+            }
+            PagingResult<E> result = new PagingResult<E>();
+            result.setTotal(sorted.size());
+            result.setItems(new ArrayList<E>(sorted.subList(0, Math.min(sorted.size(), shardRequest.getPageSize()))));
+            shardRequest.setResult(result);
+            shardRequests.add(shardRequest);
+        }
+        return shardRequests;
+    }
+}
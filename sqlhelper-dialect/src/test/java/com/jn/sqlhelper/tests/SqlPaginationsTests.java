@@ -20,7 +20,12 @@ import com.jn.langx.util.collection.Collects;
 import com.jn.langx.util.collection.Pipeline;
 import com.jn.langx.util.function.Predicate;
 import com.jn.sqlhelper.dialect.instrument.InstrumentedStatement;
+import com.jn.sqlhelper.dialect.internal.MariaDBDialect;
+import com.jn.sqlhelper.dialect.internal.MySQLDialect;
+import com.jn.sqlhelper.dialect.internal.OracleDialect;
+import com.jn.sqlhelper.dialect.internal.PostgreSQLDialect;
 import com.jn.sqlhelper.dialect.pagination.SqlPaginations;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.List;
@@ -43,6 +48,34 @@ public class SqlPaginationsTests {
         showPageSql(pageSql, startFlag, endFlag);
     }
 
+    @Test
+    public void testSubqueryParametersCountWithLikeEscape() {
+        String pageSql = "select * from t where a like ? ESCAPE '\\' and b = ? and c in ([START]select c from y where d = ? [END]) and e like ? ESCAPE '\\' and f = ?";
+        String beforeSubqueryPartition = SqlPaginations.extractBeforeSubqueryPartition(pageSql, "[START]");
+        String afterSubqueryPartition = SqlPaginations.extractAfterSubqueryPartition(pageSql, "[END]");
+        Assert.assertEquals(2, SqlPaginations.findPlaceholderParameterCount(beforeSubqueryPartition));
+        Assert.assertEquals(2, SqlPaginations.findPlaceholderParameterCount(afterSubqueryPartition, new PostgreSQLDialect()));
+
+        String mysqlSql = "select * from t where a = 'it\\'s ?' and b = ?";
+        Assert.assertEquals(1, SqlPaginations.findPlaceholderParameterCount(mysqlSql, new MySQLDialect()));
+    }
+
+    @Test
+    public void testPlaceholdersCountWithHash() {
+        // the '#' comment of the MySQL family
+        String sql = "select * from t where a = ?# b = ?\n and c = ?";
+        Assert.assertEquals(2, SqlPaginations.findPlaceholderParameterCount(sql, new MySQLDialect()));
+        Assert.assertEquals(2, SqlPaginations.findPlaceholderParameterCount(sql, new MariaDBDialect()));
+        Assert.assertEquals(2, SqlPaginations.findPlaceholderParameterCount(sql, new PostgreSQLDialect()));
+        Assert.assertEquals(3, SqlPaginations.findPlaceholderParameterCount(sql, new OracleDialect()));
+
+        // the ?# operator of the PostgreSQL
+        sql = "select * from t where a ?# b and c = ?";
+        Assert.assertEquals(1, SqlPaginations.findPlaceholderParameterCount(sql, new PostgreSQLDialect()));
+        Assert.assertEquals(2, SqlPaginations.findPlaceholderParameterCount(sql, new OracleDialect()));
+        Assert.assertEquals(2, SqlPaginations.findPlaceholderParameterCount(sql));
+    }
+
     private void showPageSql(String pageSql, String startFlag, String endFlag) {
         String subqueryPartition = SqlPaginations.extractSubqueryPartition(pageSql, startFlag, endFlag);
         String limitedSubqueryPartition = subqueryPartition + " limit ?, ? ";
@@ -14,10 +14,17 @@
 
 package com.jn.sqlhelper.tests;
 
+import com.jn.sqlhelper.dialect.orderby.CachedOrderByBuilder;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.orderby.OrderBySymbolException;
 import com.jn.sqlhelper.dialect.orderby.SqlStyleOrderByBuilder;
 import com.jn.sqlhelper.common.symbolmapper.CamelToUnderlineSymbolMapper;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 public class SqlStyleOrderByBuilderTests {
     @Test
     public void test() {
@@ -36,4 +43,33 @@ public class SqlStyleOrderByBuilderTests {
         System.out.println(builder.build(" a , b ").toString());
         System.out.println(builder.build(" a, b ").toString());
     }
+
+    @Test
+    public void testCached() {
+        CachedOrderByBuilder builder = new CachedOrderByBuilder(new SqlStyleOrderByBuilder());
+        OrderBy orderBy = builder.build(" a desc, b ");
+        Assert.assertFalse(orderBy.isFrozen());
+        Assert.assertEquals(orderBy, builder.build(" a desc, b "));
+        Assert.assertEquals(orderBy.hashCode(), new SqlStyleOrderByBuilder().build(" A DESC, B ").hashCode());
+
+        // every caller gets its own order by
+        orderBy.setComparator("a", Collections.reverseOrder());
+        orderBy.addAsc("c");
+        Assert.assertNotSame(orderBy, builder.build(" a desc, b "));
+        Assert.assertEquals(new SqlStyleOrderByBuilder().build("a desc, b"), builder.build(" a desc, b "));
+        Assert.assertNull(builder.build(" a desc, b ").iterator().next().getComparator());
+
+        OrderBy empty = builder.build(" ");
+        empty.addAsc("a");
+        Assert.assertFalse(builder.build(" ").isValid());
+
+        builder.whitelist(Arrays.asList("name", "age"));
+        Assert.assertTrue(builder.build("t.`name` desc, age").isValid());
+        try {
+            builder.build("sleep(10)");
+            Assert.fail();
+        } catch (OrderBySymbolException ex) {
+            Assert.assertTrue(ex.getMessage().startsWith("Illegal sort column"));
+        }
+    }
 }
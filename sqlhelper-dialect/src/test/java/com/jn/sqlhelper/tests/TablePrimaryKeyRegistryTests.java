@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.TablePrimaryKeyRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TablePrimaryKeyRegistryTests {
+    private final TablePrimaryKeyRegistry registry = TablePrimaryKeyRegistry.getInstance();
+
+    @After
+    public void clear() {
+        registry.clear();
+    }
+
+    @Test
+    public void testQualifiedNames() {
+        registry.register("`Test`.`User`", Collects.asList("id"));
+        Assert.assertEquals(Collects.asList("id"), registry.getPrimaryKeys("test.user"));
+        Assert.assertEquals(Collects.asList("id"), registry.getPrimaryKeys("\"TEST\".\"USER\""));
+        // the table name is registered in one schema only
+        Assert.assertEquals(Collects.asList("id"), registry.getPrimaryKeys("user"));
+        Assert.assertNull(registry.getPrimaryKeys("other.user"));
+
+        registry.register("dept", Collects.asList("dept_id"));
+        Assert.assertEquals(Collects.asList("dept_id"), registry.getPrimaryKeys("test.dept"));
+    }
+
+    @Test
+    public void testSameTableNameInSchemas() {
+        registry.register("s1.user", Collects.asList("id"));
+        registry.register("s2.user", Collects.asList("user_id"));
+        Assert.assertEquals(Collects.asList("id"), registry.getPrimaryKeys("s1.user"));
+        Assert.assertEquals(Collects.asList("user_id"), registry.getPrimaryKeys("s2.user"));
+        // ambiguous
+        Assert.assertNull(registry.getPrimaryKeys("user"));
+    }
+
+    @Test
+    public void testVersion() {
+        long version = registry.getVersion();
+        registry.register("user", Collects.asList("id"));
+        Assert.assertTrue(registry.getVersion() > version);
+        version = registry.getVersion();
+        registry.clear();
+        Assert.assertTrue(registry.getVersion() > version);
+        Assert.assertNull(registry.getPrimaryKeys("user"));
+    }
+}
@@ -4,14 +4,20 @@ import com.jn.sqlhelper.dialect.Dialect;
 import com.jn.sqlhelper.dialect.DialectRegistry;
 import com.jn.sqlhelper.dialect.pagination.RowSelection;
 import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
-import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
 import com.jn.sqlhelper.dialect.internal.AbstractDialect;
+import com.jn.sqlhelper.dialect.internal.limit.LimitHelper;
 import com.jn.sqlhelper.dialect.internal.limit.OracleXLimitHandler;
 import io.ebean.config.dbplatform.*;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 public class EBeanCommonSqlLimiter implements SqlLimiter {
     private SQLStatementInstrumentor instrumentor;
     private SqlLimiter ebeanDefaultSqlLimiter = new LimitOffsetSqlLimiter();
+    /**
+     * the resolved dialect of every database platform, the platforms are few and live as long as the server
+     */
+    private final ConcurrentHashMap<DatabasePlatform, PlatformDialect> platformDialects = new ConcurrentHashMap<DatabasePlatform, PlatformDialect>();
 
     public SQLStatementInstrumentor getInstrumentor() {
         return instrumentor;
@@ -19,32 +25,42 @@ public class EBeanCommonSqlLimiter implements SqlLimiter {
 
     public void setInstrumentor(SQLStatementInstrumentor instrumentor) {
         this.instrumentor = instrumentor;
+        this.platformDialects.clear();
     }
 
-    private String findDatabaseId(DatabasePlatform databasePlatform) {
-        String databaseId = DialectRegistry.guessDatabaseId(databasePlatform.getPlatform().name());
-        if (databaseId != null) {
-            if (instrumentor.getConfig() == null) {
-                instrumentor.setConfig(new SQLInstrumentorConfig());
+    private Dialect findDialect(DatabasePlatform databasePlatform) {
+        PlatformDialect platformDialect = platformDialects.get(databasePlatform);
+        if (platformDialect == null) {
+            platformDialect = new PlatformDialect(resolveDialect(databasePlatform));
+            PlatformDialect existed = platformDialects.putIfAbsent(databasePlatform, platformDialect);
+            if (existed != null) {
+                platformDialect = existed;
             }
-            instrumentor.getConfig().setDialect(databaseId);
+        }
+        return platformDialect.dialect;
+    }
+
+    private Dialect resolveDialect(DatabasePlatform databasePlatform) {
+        String databaseId = DialectRegistry.guessDatabaseId(databasePlatform.getPlatform().name());
+        if (databaseId == null && instrumentor.getConfig() != null) {
+            databaseId = instrumentor.getConfig().getDialect();
         }
         if (databaseId == null) {
-            if (instrumentor.getConfig() != null) {
-                return instrumentor.getConfig().getDialect();
-            }
+            return null;
         }
-        return databaseId;
+        Dialect dialect = DialectRegistry.getInstance().getDialectByName(databaseId);
+        if (dialect == null || !dialect.isSupportsLimit()) {
+            return null;
+        }
+        return dialect;
     }
 
     @Override
     public SqlLimitResponse limit(SqlLimitRequest request) {
-        String databaseId = findDatabaseId(request.getDbPlatform());
-        if (databaseId == null || !instrumentor.beginIfSupportsLimit(databaseId)) {
+        Dialect dialect = findDialect(request.getDbPlatform());
+        if (dialect == null) {
             return ebeanDefaultSqlLimiter.limit(request);
         }
-        Dialect dialect = DialectRegistry.getInstance().getDialectByName(databaseId);
-        dialect.setUseLimitInVariableMode(false);
         String dbSql = request.getDbSql();
 
         StringBuilder sb = new StringBuilder(50 + dbSql.length());
@@ -57,7 +73,9 @@ public class EBeanCommonSqlLimiter implements SqlLimiter {
         RowSelection rowSelection = new RowSelection();
         rowSelection.setOffset(Long.valueOf(request.getFirstRow()));
         rowSelection.setLimit(request.getMaxRows());
-        String sql = instrumentor.instrumentLimitSql(dialect, sb.toString(), rowSelection);
+        // ebean doesn't bind the limit parameters, the limit sql is rendered with literals
+        rowSelection.setLimitInVariableMode(false);
+        String sql = LimitHelper.useLimit(dialect, rowSelection) ? dialect.getLimitSql(sb.toString(), rowSelection) : sb.toString();
         sql = request.getDbPlatform().completeSql(sql, request.getOrmQuery());
 
         boolean needRowNo = false;
@@ -66,4 +84,12 @@ public class EBeanCommonSqlLimiter implements SqlLimiter {
         }
         return new SqlLimitResponse(sql, needRowNo);
     }
+
+    private static final class PlatformDialect {
+        private final Dialect dialect;
+
+        private PlatformDialect(Dialect dialect) {
+            this.dialect = dialect;
+        }
+    }
 }
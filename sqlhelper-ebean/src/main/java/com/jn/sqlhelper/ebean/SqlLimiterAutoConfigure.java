@@ -51,13 +51,12 @@ public class SqlLimiterAutoConfigure implements AutoConfigure {
             }
         }
 
+        // the limiter reads the config for every query, so it is never null
+        instrumentConfig = new SQLInstrumentorConfig();
         if (databaseId != null) {
-            instrumentConfig = new SQLInstrumentorConfig();
             instrumentConfig.setDialect(databaseId);
         }
-        if (instrumentConfig != null) {
-            instrumentor.setConfig(instrumentConfig);
-        }
+        instrumentor.setConfig(instrumentConfig);
         EBeanCommonSqlLimiter commonSqlLimiter = new EBeanCommonSqlLimiter();
         commonSqlLimiter.setInstrumentor(instrumentor);
         DatabasePlatform databasePlatform = serverConfig.getDatabasePlatform();
@@ -3,7 +3,11 @@ package com.jn.sqlhelper.jfinal.dialect;
 import com.jfinal.plugin.activerecord.Record;
 import com.jfinal.plugin.activerecord.Table;
 import com.jfinal.plugin.activerecord.dialect.*;
+import com.jn.langx.cache.Cache;
+import com.jn.langx.cache.CacheBuilder;
+import com.jn.langx.cache.Loader;
 import com.jn.langx.util.collection.Collects;
+import com.jn.langx.util.function.Consumer;
 import com.jn.langx.util.function.Consumer2;
 import com.jn.langx.util.function.Function2;
 import com.jn.sqlhelper.common.ddl.SQLSyntaxCompatTable;
@@ -16,9 +20,7 @@ import com.jn.sqlhelper.dialect.parameter.ArrayBasedQueryParameters;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 public class JFinalCommonDialect extends Dialect {
     protected com.jn.sqlhelper.dialect.Dialect delegate;
@@ -27,6 +29,15 @@ public class JFinalCommonDialect extends Dialect {
     protected String databaseId;
     private SQLStatementInstrumentor instrumentor;
     private ThreadLocal<RowSelection> pagingRequestHolder = new ThreadLocal<RowSelection>();
+    /**
+     * the built-in jfinal dialect which has the compatible syntax, resolved once
+     */
+    private final Dialect compatibleDialect;
+    /**
+     * the generated CRUD sql, keyed by the table and the columns
+     */
+    private final Cache<SqlTemplateKey, String> sqlTemplateCache;
+    public static final int DEFAULT_SQL_TEMPLATE_CACHE_MAX_CAPACITY = 1000;
 
     public JFinalCommonDialect(String databaseId) {
         this.databaseId = databaseId.toLowerCase();
@@ -40,6 +51,30 @@ public class JFinalCommonDialect extends Dialect {
         if (instrumentor.beginIfSupportsLimit(databaseId)) {
             delegate = instrumentor.getCurrentDialect();
         }
+        this.compatibleDialect = findCompatibleDialect();
+        this.sqlTemplateCache = CacheBuilder.<SqlTemplateKey, String>newBuilder()
+                .initialCapacity(16)
+                .maxCapacity(DEFAULT_SQL_TEMPLATE_CACHE_MAX_CAPACITY)
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .loader(new Loader<SqlTemplateKey, String>() {
+                    @Override
+                    public String load(SqlTemplateKey key) {
+                        return key.build();
+                    }
+
+                    @Override
+                    public Map<SqlTemplateKey, String> getAll(Iterable<SqlTemplateKey> keys) {
+                        final Map<SqlTemplateKey, String> map = new HashMap<SqlTemplateKey, String>();
+                        Collects.forEach(keys, new Consumer<SqlTemplateKey>() {
+                            @Override
+                            public void accept(SqlTemplateKey k) {
+                                map.put(k, load(k));
+                            }
+                        });
+                        return map;
+                    }
+                })
+                .build();
     }
 
 
@@ -105,140 +140,120 @@ public class JFinalCommonDialect extends Dialect {
 
     @Override
     public String forModelFindById(Table table, String columns) {
-        Dialect builtInDelegate = findCompatibleDialect();
-        if (builtInDelegate != null) {
-            return builtInDelegate.forModelFindById(table, columns);
+        if (compatibleDialect != null) {
+            return compatibleDialect.forModelFindById(table, columns);
         }
-
-        StringBuilder sql = new StringBuilder("select ").append(columns).append(" from ");
-        sql.append(table.getName());
-        sql.append(" where ");
-        String[] pKeys = table.getPrimaryKey();
-        appendWhereParamters(sql, pKeys);
-        return sql.toString();
+        return sqlTemplateCache.get(new SqlTemplateKey(SqlTemplateKind.MODEL_FIND_BY_ID, table.getName(), new String[]{columns}, table.getPrimaryKey()));
     }
 
     @Override
     public String forModelDeleteById(Table table) {
-        Dialect builtInDelegate = findCompatibleDialect();
-        if (builtInDelegate != null) {
-            return builtInDelegate.forModelDeleteById(table);
+        if (compatibleDialect != null) {
+            return compatibleDialect.forModelDeleteById(table);
         }
-
-        String[] pKeys = table.getPrimaryKey();
-        StringBuilder sql = new StringBuilder(45);
-        sql.append("delete from ");
-        sql.append(table.getName());
-        sql.append(" where ");
-        appendWhereParamters(sql, pKeys);
-        return sql.toString();
+        return sqlTemplateCache.get(new SqlTemplateKey(SqlTemplateKind.DELETE_BY_ID, table.getName(), null, table.getPrimaryKey()));
     }
 
     @Override
     public void forModelSave(Table table, Map<String, Object> attrs, StringBuilder sql, List<Object> paras) {
-        Dialect builtInDelegate = findCompatibleDialect();
-        if (builtInDelegate != null) {
-            builtInDelegate.forModelSave(table, attrs, sql, paras);
+        if (compatibleDialect != null) {
+            compatibleDialect.forModelSave(table, attrs, sql, paras);
             return;
         }
 
-        sql.append("insert into ").append(table.getName()).append('(');
-        StringBuilder temp = new StringBuilder(") values(");
+        List<String> columns = new ArrayList<String>(attrs.size());
         for (Map.Entry<String, Object> e : attrs.entrySet()) {
             String colName = e.getKey();
             if (table.hasColumnLabel(colName)) {
-                if (!paras.isEmpty()) {
-                    sql.append(", ");
-                    temp.append(", ");
-                }
-                sql.append(colName);
-                temp.append('?');
+                columns.add(colName);
                 paras.add(e.getValue());
             }
         }
-        sql.append(temp.toString()).append(')');
+        sql.append(sqlTemplateCache.get(new SqlTemplateKey(SqlTemplateKind.INSERT, table.getName(), columns.toArray(new String[columns.size()]), null)));
     }
 
     @Override
     public void forModelUpdate(Table table, Map<String, Object> attrs, Set<String> modifyFlag, StringBuilder sql, List<Object> paras) {
-        Dialect builtInDelegate = findCompatibleDialect();
-        if (builtInDelegate != null) {
-            builtInDelegate.forModelUpdate(table, attrs, modifyFlag, sql, paras);
+        if (compatibleDialect != null) {
+            compatibleDialect.forModelUpdate(table, attrs, modifyFlag, sql, paras);
             return;
         }
 
-        sql.append("update ").append(table.getName()).append(" set ");
         String[] pKeys = table.getPrimaryKey();
+        List<String> columns = new ArrayList<String>(modifyFlag.size());
         for (Map.Entry<String, Object> e : attrs.entrySet()) {
             String colName = e.getKey();
             if (modifyFlag.contains(colName) && !isPrimaryKey(colName, pKeys) && table.hasColumnLabel(colName)) {
-                if (!paras.isEmpty()) {
-                    sql.append(", ");
-                }
-                sql.append(colName).append(" = ? ");
+                columns.add(colName);
                 paras.add(e.getValue());
             }
         }
-        sql.append(" where ");
-        for (int i = 0; i < pKeys.length; i++) {
-            if (i > 0) {
-                sql.append(" and ");
-            }
-            sql.append(pKeys[i]).append(" = ?");
-            paras.add(attrs.get(pKeys[i]));
+        for (String pKey : pKeys) {
+            paras.add(attrs.get(pKey));
         }
+        sql.append(sqlTemplateCache.get(new SqlTemplateKey(SqlTemplateKind.UPDATE, table.getName(), columns.toArray(new String[columns.size()]), pKeys)));
     }
 
     @Override
     public String forDbFindById(String tableName, String[] pKeys) {
-        Dialect builtInDelegate = findCompatibleDialect();
-        if (builtInDelegate != null) {
-            return builtInDelegate.forDbFindById(tableName, pKeys);
+        if (compatibleDialect != null) {
+            return compatibleDialect.forDbFindById(tableName, pKeys);
         }
 
         tableName = tableName.trim();
         trimPrimaryKeys(pKeys);
-
-        StringBuilder sql = new StringBuilder("select * from ").append(tableName).append(" where ");
-        appendWhereParamters(sql, pKeys);
-        return sql.toString();
+        return sqlTemplateCache.get(new SqlTemplateKey(SqlTemplateKind.DB_FIND_BY_ID, tableName, null, pKeys));
     }
 
     @Override
     public String forDbDeleteById(String tableName, String[] pKeys) {
-        Dialect builtInDelegate = findCompatibleDialect();
-        if (builtInDelegate != null) {
-            return builtInDelegate.forDbDeleteById(tableName, pKeys);
+        if (compatibleDialect != null) {
+            return compatibleDialect.forDbDeleteById(tableName, pKeys);
         }
 
         tableName = tableName.trim();
         trimPrimaryKeys(pKeys);
-
-        final StringBuilder sql = new StringBuilder("delete from ").append(tableName).append(" where ");
-        appendWhereParamters(sql, pKeys);
-        return sql.toString();
+        return sqlTemplateCache.get(new SqlTemplateKey(SqlTemplateKind.DELETE_BY_ID, tableName, null, pKeys));
     }
 
     @Override
     public void forDbSave(String tableName, String[] pKeys, Record record, StringBuilder sql, List<Object> paras) {
-
-        Dialect builtInDelegate = findCompatibleDialect();
-        if (builtInDelegate != null) {
-            builtInDelegate.forDbSave(tableName, pKeys, record, sql, paras);
+        if (compatibleDialect != null) {
+            compatibleDialect.forDbSave(tableName, pKeys, record, sql, paras);
             return;
         }
 
-
         tableName = tableName.trim();
         trimPrimaryKeys(pKeys);
 
+        Map<String, Object> recordColumns = record.getColumns();
+        List<String> columns = new ArrayList<String>(recordColumns.size());
+        int parasSize = paras.size();
+        for (Map.Entry<String, Object> e : recordColumns.entrySet()) {
+            String colName = e.getKey();
+            Object value = e.getValue();
+            if (value instanceof String && isPrimaryKey(colName, pKeys) && ((String) value).endsWith(".nextval")) {
+                // the sequence is a part of the sql, so the sql can't be cached
+                while (paras.size() > parasSize) {
+                    paras.remove(paras.size() - 1);
+                }
+                buildDbSave(tableName, pKeys, recordColumns, sql, paras);
+                return;
+            }
+            columns.add(colName);
+            paras.add(value);
+        }
+        sql.append(sqlTemplateCache.get(new SqlTemplateKey(SqlTemplateKind.INSERT, tableName, columns.toArray(new String[columns.size()]), null)));
+    }
+
+    private void buildDbSave(String tableName, String[] pKeys, Map<String, Object> recordColumns, StringBuilder sql, List<Object> paras) {
         sql.append("insert into ");
         sql.append(tableName).append('(');
         StringBuilder temp = new StringBuilder();
         temp.append(") values(");
 
         int count = 0;
-        for (Map.Entry<String, Object> e : record.getColumns().entrySet()) {
+        for (Map.Entry<String, Object> e : recordColumns.entrySet()) {
             String colName = e.getKey();
             if (count++ > 0) {
                 sql.append(", ");
@@ -259,31 +274,27 @@ public class JFinalCommonDialect extends Dialect {
 
     @Override
     public void forDbUpdate(String tableName, String[] pKeys, Object[] ids, Record record, final StringBuilder sql, List<Object> paras) {
-        Dialect builtInDelegate = findCompatibleDialect();
-        if (builtInDelegate != null) {
-            builtInDelegate.forDbUpdate(tableName, pKeys, ids, record, sql, paras);
+        if (compatibleDialect != null) {
+            compatibleDialect.forDbUpdate(tableName, pKeys, ids, record, sql, paras);
             return;
         }
 
         tableName = tableName.trim();
         trimPrimaryKeys(pKeys);
 
-        sql.append("update ").append(tableName).append(" set ");
-        for (Map.Entry<String, Object> e : record.getColumns().entrySet()) {
+        Map<String, Object> recordColumns = record.getColumns();
+        List<String> columns = new ArrayList<String>(recordColumns.size());
+        for (Map.Entry<String, Object> e : recordColumns.entrySet()) {
             String colName = e.getKey();
             if (!isPrimaryKey(colName, pKeys)) {
-                if (!paras.isEmpty()) {
-                    sql.append(", ");
-                }
-                sql.append(colName).append(" = ? ");
+                columns.add(colName);
                 paras.add(e.getValue());
             }
         }
-        sql.append(" where ");
-        appendWhereParamters(sql, pKeys);
+        sql.append(sqlTemplateCache.get(new SqlTemplateKey(SqlTemplateKind.UPDATE, tableName, columns.toArray(new String[columns.size()]), pKeys)));
     }
 
-    private void appendWhereParamters(final StringBuilder sql, String[] pKeys) {
+    private static void appendWhereParamters(final StringBuilder sql, String[] pKeys) {
         Collects.forEach(pKeys, new Consumer2<Integer, String>() {
             @Override
             public void accept(Integer i, String s) {
@@ -294,4 +305,97 @@ public class JFinalCommonDialect extends Dialect {
             }
         });
     }
+
+    private enum SqlTemplateKind {
+        MODEL_FIND_BY_ID,
+        DB_FIND_BY_ID,
+        DELETE_BY_ID,
+        INSERT,
+        UPDATE
+    }
+
+    /**
+     * The sql template signature: the kind, the table, the columns (in the binding order) and the primary keys.
+     */
+    private static final class SqlTemplateKey {
+        private final SqlTemplateKind kind;
+        private final String tableName;
+        private final String[] columns;
+        private final String[] pKeys;
+        private final int hash;
+
+        SqlTemplateKey(SqlTemplateKind kind, String tableName, String[] columns, String[] pKeys) {
+            this.kind = kind;
+            this.tableName = tableName;
+            this.columns = columns;
+            // the primary keys array is owned by the caller
+            this.pKeys = pKeys == null ? null : pKeys.clone();
+            this.hash = 31 * (31 * (31 * kind.hashCode() + tableName.hashCode()) + Arrays.hashCode(columns)) + Arrays.hashCode(this.pKeys);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SqlTemplateKey)) {
+                return false;
+            }
+            SqlTemplateKey that = (SqlTemplateKey) o;
+            return hash == that.hash
+                    && kind == that.kind
+                    && tableName.equals(that.tableName)
+                    && Arrays.equals(columns, that.columns)
+                    && Arrays.equals(pKeys, that.pKeys);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        String build() {
+            StringBuilder sql = new StringBuilder(64);
+            switch (kind) {
+                case MODEL_FIND_BY_ID:
+                    sql.append("select ").append(columns[0]).append(" from ").append(tableName).append(" where ");
+                    appendWhereParamters(sql, pKeys);
+                    break;
+                case DB_FIND_BY_ID:
+                    sql.append("select * from ").append(tableName).append(" where ");
+                    appendWhereParamters(sql, pKeys);
+                    break;
+                case DELETE_BY_ID:
+                    sql.append("delete from ").append(tableName).append(" where ");
+                    appendWhereParamters(sql, pKeys);
+                    break;
+                case INSERT:
+                    sql.append("insert into ").append(tableName).append('(');
+                    StringBuilder temp = new StringBuilder(") values(");
+                    for (int i = 0; i < columns.length; i++) {
+                        if (i > 0) {
+                            sql.append(", ");
+                            temp.append(", ");
+                        }
+                        sql.append(columns[i]);
+                        temp.append('?');
+                    }
+                    sql.append(temp).append(')');
+                    break;
+                case UPDATE:
+                default:
+                    sql.append("update ").append(tableName).append(" set ");
+                    for (int i = 0; i < columns.length; i++) {
+                        if (i > 0) {
+                            sql.append(", ");
+                        }
+                        sql.append(columns[i]).append(" = ? ");
+                    }
+                    sql.append(" where ");
+                    appendWhereParamters(sql, pKeys);
+                    break;
+            }
+            return sql.toString();
+        }
+    }
 }
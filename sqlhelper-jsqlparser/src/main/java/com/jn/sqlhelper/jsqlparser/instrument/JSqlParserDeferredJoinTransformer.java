@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.jsqlparser.instrument;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.lifecycle.InitializationException;
+import com.jn.langx.util.Emptys;
+import com.jn.langx.util.Preconditions;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinSql;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformer;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.TablePrimaryKeyRegistry;
+import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rewrites a single table select with an order by to a deferred join, any other select is not rewritten:
+ * <pre>
+ *     select a, b from t where c = ? order by d
+ *     =&gt;
+ *     select a, b from t inner join ( select t.id as sqlhelper_dj_pk0 from t where c = ? order by d [limit] ) sqlhelper_dj on t.id = sqlhelper_dj.sqlhelper_dj_pk0 order by d
+ * </pre>
+ * All the parameter placeholders are in the paging sql, so the parameters are bound as the original sql.
+ */
+public class JSqlParserDeferredJoinTransformer implements DeferredJoinTransformer<Statement> {
+    private static final String JOIN_ALIAS = "sqlhelper_dj";
+    private static final String PK_ALIAS_PREFIX = "sqlhelper_dj_pk";
+
+    @Override
+    public void init() throws InitializationException {
+
+    }
+
+    @Override
+    public DeferredJoinSql transform(@NonNull SqlStatementWrapper<Statement> sw, @NonNull TablePrimaryKeyRegistry primaryKeyRegistry) {
+        Preconditions.checkNotNull(sw);
+        Preconditions.checkNotNull(primaryKeyRegistry);
+        Statement statement = sw.get();
+        if (!(statement instanceof Select)) {
+            return null;
+        }
+        Select select = (Select) statement;
+        if (Emptys.isNotEmpty(select.getWithItemsList()) || !(select.getSelectBody() instanceof PlainSelect)) {
+            return null;
+        }
+        PlainSelect plainSelect = (PlainSelect) select.getSelectBody();
+        if (!isTransformable(plainSelect)) {
+            return null;
+        }
+        Table table = (Table) plainSelect.getFromItem();
+        List<String> primaryKeys = primaryKeyRegistry.getPrimaryKeys(table.getFullyQualifiedName());
+        if (Emptys.isEmpty(primaryKeys)) {
+            return null;
+        }
+        Table qualifier = table.getAlias() != null ? new Table(table.getAlias().getName()) : new Table(table.getSchemaName(), table.getName());
+
+        // the outer select
+        List<SelectItem> selectItems = new ArrayList<SelectItem>(plainSelect.getSelectItems().size());
+        for (SelectItem selectItem : plainSelect.getSelectItems()) {
+            // * contains the primary keys of the join
+            selectItems.add(selectItem instanceof AllColumns ? new AllTableColumns(qualifier) : selectItem);
+        }
+        StringBuilder on = new StringBuilder();
+        List<SelectItem> pkSelectItems = new ArrayList<SelectItem>(primaryKeys.size());
+        for (int i = 0; i < primaryKeys.size(); i++) {
+            Column pk = new Column(qualifier, primaryKeys.get(i));
+            SelectExpressionItem pkSelectItem = new SelectExpressionItem(pk);
+            pkSelectItem.setAlias(new Alias(PK_ALIAS_PREFIX + i, true));
+            pkSelectItems.add(pkSelectItem);
+            if (i > 0) {
+                on.append(" AND ");
+            }
+            on.append(pk.getFullyQualifiedName()).append(" = ").append(JOIN_ALIAS).append(".").append(PK_ALIAS_PREFIX).append(i);
+        }
+        String joinSqlPrefix = "SELECT " + PlainSelect.getStringList(selectItems) + " FROM " + table + " INNER JOIN (";
+        String joinSqlSuffix = ") " + JOIN_ALIAS + " ON " + on + PlainSelect.orderByToString(plainSelect.getOrderByElements());
+
+        // the paging select
+        plainSelect.setSelectItems(pkSelectItems);
+        return new DeferredJoinSql(select.toString(), joinSqlPrefix, joinSqlSuffix);
+    }
+
+    /**
+     * a single table select without any clause which changes the rows, and the parameter placeholders
+     * in the where clause only
+     */
+    private static boolean isTransformable(PlainSelect plainSelect) {
+        if (!(plainSelect.getFromItem() instanceof Table)
+                || Emptys.isNotEmpty(plainSelect.getJoins())
+                || plainSelect.getDistinct() != null
+                || plainSelect.getGroupBy() != null
+                || plainSelect.getHaving() != null
+                || Emptys.isNotEmpty(plainSelect.getIntoTables())
+                || plainSelect.getLimit() != null
+                || plainSelect.getOffset() != null
+                || plainSelect.getFetch() != null
+                || plainSelect.getTop() != null
+                || plainSelect.getFirst() != null
+                || plainSelect.getSkip() != null
+                || plainSelect.getOracleHierarchical() != null
+                || plainSelect.isForUpdate()
+                || plainSelect.getMySqlSqlCalcFoundRows()) {
+            return false;
+        }
+        // the order of the rows in a page is decided by the order by only
+        List<OrderByElement> orderByElements = plainSelect.getOrderByElements();
+        if (Emptys.isEmpty(orderByElements)) {
+            return false;
+        }
+        if (PlainSelect.getStringList(plainSelect.getSelectItems()).contains("?")) {
+            return false;
+        }
+        Set<String> selectAliases = new HashSet<String>();
+        for (SelectItem selectItem : plainSelect.getSelectItems()) {
+            if (selectItem instanceof SelectExpressionItem && ((SelectExpressionItem) selectItem).getAlias() != null) {
+                selectAliases.add(((SelectExpressionItem) selectItem).getAlias().getName().toLowerCase());
+            }
+        }
+        // the paging select has the primary keys only, so the order by must be the columns of the table
+        for (OrderByElement orderByElement : orderByElements) {
+            if (!(orderByElement.getExpression() instanceof Column)) {
+                return false;
+            }
+            Column column = (Column) orderByElement.getExpression();
+            if (column.getTable() == null || Emptys.isEmpty(column.getTable().getName())) {
+                if (selectAliases.contains(column.getColumnName().toLowerCase())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
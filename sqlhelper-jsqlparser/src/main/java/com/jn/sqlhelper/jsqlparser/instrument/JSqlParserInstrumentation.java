@@ -3,6 +3,7 @@ package com.jn.sqlhelper.jsqlparser.instrument;
 import com.jn.langx.annotation.Name;
 import com.jn.langx.lifecycle.InitializationException;
 import com.jn.sqlhelper.dialect.instrument.Instrumentation;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformer;
 import com.jn.sqlhelper.dialect.instrument.groupby.GroupByTransformer;
 import com.jn.sqlhelper.dialect.instrument.orderby.OrderByTransformer;
 import com.jn.sqlhelper.dialect.instrument.where.WhereTransformer;
@@ -19,6 +20,7 @@ public class JSqlParserInstrumentation implements Instrumentation<Statement, JSq
     private WhereTransformer<Statement> whereTransformer;
     private OrderByTransformer<Statement> orderByTransformer;
     private GroupByTransformer<Statement> groupByTransformer;
+    private DeferredJoinTransformer<Statement> deferredJoinTransformer;
 
     @Override
     public void init() throws InitializationException {
@@ -31,6 +33,8 @@ public class JSqlParserInstrumentation implements Instrumentation<Statement, JSq
             orderByTransformer.init();
             groupByTransformer = new JSqlParserGroupByTransformer();
             groupByTransformer.init();
+            deferredJoinTransformer = new JSqlParserDeferredJoinTransformer();
+            deferredJoinTransformer.init();
         }
     }
 
@@ -64,4 +68,9 @@ public class JSqlParserInstrumentation implements Instrumentation<Statement, JSq
     public GroupByTransformer<Statement> getGroupByTransformer() {
         return groupByTransformer;
     }
+
+    @Override
+    public DeferredJoinTransformer<Statement> getDeferredJoinTransformer() {
+        return deferredJoinTransformer;
+    }
 }
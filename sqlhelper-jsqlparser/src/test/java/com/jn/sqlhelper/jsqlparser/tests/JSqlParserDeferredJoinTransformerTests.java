@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.jsqlparser.tests;
+
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
+import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinSql;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.TablePrimaryKeyRegistry;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import com.jn.sqlhelper.jsqlparser.instrument.JSqlParserDeferredJoinTransformer;
+import com.jn.sqlhelper.jsqlparser.sqlparser.JSqlParser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JSqlParserDeferredJoinTransformerTests {
+    private final JSqlParserDeferredJoinTransformer transformer = new JSqlParserDeferredJoinTransformer();
+    private final TablePrimaryKeyRegistry registry = TablePrimaryKeyRegistry.getInstance();
+
+    @After
+    public void clear() {
+        registry.clear();
+    }
+
+    private DeferredJoinSql transform(String sql) {
+        return transformer.transform(new JSqlParser().parse(sql), registry);
+    }
+
+    @Test
+    public void testSingleTable() {
+        registry.register("person", Collects.asList("id"));
+        DeferredJoinSql deferredJoinSql = transform("select name, age from person where age > ? order by age");
+        Assert.assertNotNull(deferredJoinSql);
+        Assert.assertEquals("SELECT person.id AS sqlhelper_dj_pk0 FROM person WHERE age > ? ORDER BY age", deferredJoinSql.getPagingSql());
+        Assert.assertEquals("SELECT name, age FROM person INNER JOIN (", deferredJoinSql.getJoinSqlPrefix());
+        Assert.assertEquals(") sqlhelper_dj ON person.id = sqlhelper_dj.sqlhelper_dj_pk0 ORDER BY age", deferredJoinSql.getJoinSqlSuffix());
+    }
+
+    @Test
+    public void testTableAlias() {
+        registry.register("test.person", Collects.asList("id"));
+        DeferredJoinSql deferredJoinSql = transform("select * from test.person p where p.age > ? order by p.name desc");
+        Assert.assertNotNull(deferredJoinSql);
+        Assert.assertEquals("SELECT p.id AS sqlhelper_dj_pk0 FROM test.person p WHERE p.age > ? ORDER BY p.name DESC", deferredJoinSql.getPagingSql());
+        Assert.assertEquals("SELECT p.* FROM test.person p INNER JOIN (", deferredJoinSql.getJoinSqlPrefix());
+        Assert.assertEquals(") sqlhelper_dj ON p.id = sqlhelper_dj.sqlhelper_dj_pk0 ORDER BY p.name DESC", deferredJoinSql.getJoinSqlSuffix());
+    }
+
+    @Test
+    public void testCompositePrimaryKeys() {
+        registry.register("order_item", Collects.asList("order_id", "item_id"));
+        DeferredJoinSql deferredJoinSql = transform("select * from order_item where price > ? order by price");
+        Assert.assertNotNull(deferredJoinSql);
+        Assert.assertEquals("SELECT order_item.order_id AS sqlhelper_dj_pk0, order_item.item_id AS sqlhelper_dj_pk1 FROM order_item WHERE price > ? ORDER BY price", deferredJoinSql.getPagingSql());
+        Assert.assertEquals(") sqlhelper_dj ON order_item.order_id = sqlhelper_dj.sqlhelper_dj_pk0 AND order_item.item_id = sqlhelper_dj.sqlhelper_dj_pk1 ORDER BY price", deferredJoinSql.getJoinSqlSuffix());
+    }
+
+    @Test
+    public void testNotTransformed() {
+        registry.register("person", Collects.asList("id"));
+        registry.register("dept", Collects.asList("id"));
+        // joins
+        Assert.assertNull(transform("select p.* from person p inner join dept d on p.dept_id = d.id order by p.name"));
+        // the rows are changed by distinct, group by
+        Assert.assertNull(transform("select distinct name from person order by name"));
+        Assert.assertNull(transform("select age, count(*) from person group by age order by age"));
+        // without order by
+        Assert.assertNull(transform("select * from person where age > ?"));
+        // order by a select alias
+        Assert.assertNull(transform("select name as n from person order by n"));
+        // a placeholder out of the where clause
+        Assert.assertNull(transform("select name, ? from person order by name"));
+        // the primary keys of the table aren't registered
+        Assert.assertNull(transform("select * from address order by city"));
+    }
+
+    @Test
+    public void testRewriteAfterRegistration() {
+        SQLInstrumentorConfig config = new SQLInstrumentorConfig();
+        config.setCacheInstrumentedSql(true);
+        config.setDeferredJoinOffsetThreshold(100);
+        SQLStatementInstrumentor instrumentor = new SQLStatementInstrumentor();
+        instrumentor.setConfig(config);
+        instrumentor.init();
+        Dialect dialect = DialectRegistry.getInstance().getDialectByName("mysql");
+
+        String sql = "select * from account where age > ? order by age";
+        RowSelection selection = new RowSelection();
+        selection.setOffset(1000L);
+        selection.setLimit(10);
+        String limitSql = instrumentor.instrumentLimitSql(dialect, sql, selection);
+        Assert.assertFalse(limitSql.contains("sqlhelper_dj"));
+
+        // the primary keys registered later are used by the cached statement
+        registry.register("account", Collects.asList("id"));
+        limitSql = instrumentor.instrumentLimitSql(dialect, sql, selection);
+        Assert.assertTrue(limitSql.startsWith("SELECT account.* FROM account INNER JOIN (SELECT account.id AS sqlhelper_dj_pk0 FROM account"));
+    }
+}
@@ -19,13 +19,23 @@ public class CustomMangoJdbcTemplate extends JdbcTemplate {
 
     protected <T> T executeQuery(DataSource dataSource, BoundSql boundSql, ResultSetExtractor<T> rse)
             throws DataAccessException {
+        // the paging state belongs to this query only, it is cleared even if the connection can't be got
+        MangoPagingContext.CountQuery countQuery = MangoPagingContext.countQuery.get();
+        RowSelection rowSelection = MangoPagingContext.pagingRequest.get();
+        MangoPagingContext.clear();
+
         Connection conn = DataSourceUtils.getConnection(dataSource);
         PreparedStatement ps = null;
         ResultSet rs = null;
         String sql = boundSql.getSql();
         try {
+            if (countQuery != null) {
+                sql = countQuery.getBoundSql().getSql();
+                countQuery.getPage().setTotal(executeCount(conn, countQuery.getBoundSql()));
+                sql = boundSql.getSql();
+            }
             ps = conn.prepareStatement(sql);
-            setValues(ps, boundSql);
+            setValues(ps, boundSql, rowSelection);
 
             if (logger.isDebugEnabled()) {
                 logger.debug("Executing \"{}\" {}", sql, boundSql.getArgs());
@@ -50,10 +60,25 @@ public class CustomMangoJdbcTemplate extends JdbcTemplate {
         }
     }
 
-    private void setValues(PreparedStatement ps, BoundSql boundSql) throws SQLException {
-        RowSelection rowSelection = MangoPagingContext.pagingRequest.get();
+    private int executeCount(Connection conn, BoundSql countBoundSql) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = conn.prepareStatement(countBoundSql.getSql());
+            setValues0(ps, countBoundSql);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Executing \"{}\" {}", countBoundSql.getSql(), countBoundSql.getArgs());
+            }
+            rs = ps.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    private void setValues(PreparedStatement ps, BoundSql boundSql, RowSelection rowSelection) throws SQLException {
         if (rowSelection != null) {
-            MangoPagingContext.pagingRequest.remove();
             MangoQueryParameters queryParameters = new MangoQueryParameters();
             queryParameters.setRowSelection(rowSelection);
             queryParameters.setParameters(boundSql);
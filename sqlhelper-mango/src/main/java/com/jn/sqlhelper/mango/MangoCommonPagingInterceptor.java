@@ -1,5 +1,9 @@
 package com.jn.sqlhelper.mango;
 
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import com.jn.sqlhelper.dialect.pagination.PagingRequestContextHolder;
 import com.jn.sqlhelper.dialect.pagination.RowSelection;
 import org.jfaster.mango.binding.BoundSql;
 import org.jfaster.mango.interceptor.Parameter;
@@ -11,26 +15,27 @@ import org.jfaster.mango.transaction.DataSourceUtils;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MangoCommonPagingInterceptor extends QueryInterceptor {
+    /**
+     * the database id of every data source, an empty string if the data source doesn't support limit
+     */
+    private final ConcurrentHashMap<DataSource, String> databaseIds = new ConcurrentHashMap<DataSource, String>();
+
     @Override
     public void interceptQuery(BoundSql boundSql, List<Parameter> parameters, DataSource dataSource) {
-        Connection conn = DataSourceUtils.getConnection(dataSource);
-        DatabaseMetaData databaseMetaData = null;
-        try {
-            databaseMetaData = conn.getMetaData();
-        } catch (Throwable ex) {
-            return;
-        }
-        if (!MangoPagingContext.instrumentor.beginIfSupportsLimit(databaseMetaData)) {
-            return;
-        }
+        MangoPagingContext.clear();
         Page page = findPageRequest(parameters);
         if (page == null) {
             return;
         }
+        String databaseId = findDatabaseId(dataSource);
+        if (databaseId == null || !MangoPagingContext.instrumentor.beginIfSupportsLimit(databaseId)) {
+            return;
+        }
         // 参数检测
         int pageNum = page.getPageNum();
         int pageSize = page.getPageSize();
@@ -41,13 +46,19 @@ public class MangoCommonPagingInterceptor extends QueryInterceptor {
             throw new PageException("pageSize need >= 0, but pageSize is " + pageSize);
         }
 
-        if (page.isFetchTotal()) {
-            String countSql = MangoPagingContext.instrumentor.countSql(boundSql.getSql());
+        PagingRequest request = PagingRequestContextHolder.getContext().getPagingRequest();
+        if (needCount(request, page)) {
+            String countSql = MangoPagingContext.instrumentor.countSql(boundSql.getSql(), request == null ? null : request.getCountColumn());
             BoundSql countBoundSql = boundSql.copy();
             countBoundSql.setSql(countSql);
-            SingleColumnRowMapper<Integer> mapper = new SingleColumnRowMapper<Integer>(int.class);
-            int total = getJdbcOperations().queryForObject(dataSource, countBoundSql, mapper);
-            page.setTotal(total);
+            if (getJdbcOperations() instanceof CustomMangoJdbcTemplate) {
+                // executed with the connection of the paging query
+                MangoPagingContext.countQuery.set(new MangoPagingContext.CountQuery(countBoundSql, page));
+            } else {
+                SingleColumnRowMapper<Integer> mapper = new SingleColumnRowMapper<Integer>(int.class);
+                int total = getJdbcOperations().queryForObject(dataSource, countBoundSql, mapper);
+                page.setTotal(total);
+            }
         }
 
         long offset = pageNum <= 0 ? 0L : (pageNum - 1) * pageSize;
@@ -58,6 +69,42 @@ public class MangoCommonPagingInterceptor extends QueryInterceptor {
         MangoPagingContext.pagingRequest.set(rowSelection);
     }
 
+    private boolean needCount(PagingRequest request, Page page) {
+        if (request == null || request.needCount() == null) {
+            return page.isFetchTotal();
+        }
+        // the limit is applied to the whole statement here, a subquery paging request is counted like the others
+        return Boolean.TRUE.equals(request.needCount());
+    }
+
+    private String findDatabaseId(DataSource dataSource) {
+        String databaseId = databaseIds.get(dataSource);
+        if (databaseId == null) {
+            Dialect dialect;
+            try {
+                dialect = resolveDialect(dataSource);
+            } catch (Throwable ex) {
+                // resolve it again at the next query
+                return null;
+            }
+            databaseId = dialect == null || !dialect.isSupportsLimit() ? "" : dialect.getDatabaseId();
+            databaseIds.putIfAbsent(dataSource, databaseId);
+        }
+        return databaseId.isEmpty() ? null : databaseId;
+    }
+
+    private Dialect resolveDialect(DataSource dataSource) throws SQLException {
+        if (MangoPagingContext.instrumentor.getConfig() != null && MangoPagingContext.instrumentor.getConfig().getDialect() != null) {
+            return DialectRegistry.getInstance().getDialectByName(MangoPagingContext.instrumentor.getConfig().getDialect());
+        }
+        Connection conn = DataSourceUtils.getConnection(dataSource);
+        try {
+            return DialectRegistry.getInstance().getDialectByDatabaseMetadata(conn.getMetaData());
+        } finally {
+            DataSourceUtils.releaseConnection(conn, dataSource);
+        }
+    }
+
     private Page findPageRequest(List<Parameter> parameters) {
         for (Parameter parameter : parameters) {
             if (Page.class.equals(parameter.getRawType())) {
@@ -2,8 +2,41 @@ package com.jn.sqlhelper.mango;
 
 import com.jn.sqlhelper.dialect.pagination.RowSelection;
 import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import org.jfaster.mango.binding.BoundSql;
+import org.jfaster.mango.plugin.page.Page;
 
 public class MangoPagingContext {
     public static final ThreadLocal<RowSelection> pagingRequest = new ThreadLocal<RowSelection>();
+    /**
+     * the count query which will be executed with the connection of the paging query
+     */
+    public static final ThreadLocal<CountQuery> countQuery = new ThreadLocal<CountQuery>();
     public static final SQLStatementInstrumentor instrumentor = new SQLStatementInstrumentor();
+
+    /**
+     * the paging state is bound to one query, it is cleared before the query is executed,
+     * and before the next query is intercepted in case the previous one failed before its execution
+     */
+    public static void clear() {
+        pagingRequest.remove();
+        countQuery.remove();
+    }
+
+    public static class CountQuery {
+        private final BoundSql boundSql;
+        private final Page page;
+
+        public CountQuery(BoundSql boundSql, Page page) {
+            this.boundSql = boundSql;
+            this.page = page;
+        }
+
+        public BoundSql getBoundSql() {
+            return boundSql;
+        }
+
+        public Page getPage() {
+            return page;
+        }
+    }
 }
@@ -26,7 +26,7 @@ package com.github.pagehelper;
 
 import com.github.pagehelper.util.PageObjectUtil;
 import com.jn.langx.util.Objects;
-import com.jn.sqlhelper.dialect.orderby.SqlStyleOrderByBuilder;
+import com.jn.sqlhelper.dialect.orderby.CachedOrderByBuilder;
 import com.jn.sqlhelper.dialect.pagination.PagingRequest;
 import com.jn.sqlhelper.dialect.pagination.PagingRequestContextHolder;
 import com.jn.sqlhelper.dialect.pagination.PagingResult;
@@ -72,7 +72,7 @@ public class PageHelper {
         }
 
         void setOrderBy() {
-            this.setOrderBy(SqlStyleOrderByBuilder.DEFAULT.build(page.getOrderBy()));
+            this.setOrderBy(CachedOrderByBuilder.DEFAULT.build(page.getOrderBy()));
         }
 
         PagingRequestAdapter setPage(Page page) {
@@ -20,15 +20,29 @@ import com.jn.langx.invocation.GenericMethodInvocation;
 import com.jn.langx.invocation.MethodInvocation;
 import com.jn.langx.text.StringTemplates;
 import com.jn.langx.util.collection.Collects;
+import com.jn.langx.util.collection.Pipeline;
+import com.jn.langx.util.function.Predicate;
 import com.jn.langx.util.reflect.Reflects;
+import com.jn.sqlhelper.datasource.DataSources;
 import com.jn.sqlhelper.datasource.NamedDataSource;
+import com.jn.sqlhelper.datasource.annotation.ScatterGather;
 import com.jn.sqlhelper.datasource.key.DataSourceKey;
 import com.jn.sqlhelper.datasource.key.DataSourceKeySelector;
 import com.jn.sqlhelper.datasource.key.filter.DataSourceKeyFilter;
+import com.jn.sqlhelper.dialect.pagination.AsyncPagingExecutor;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import com.jn.sqlhelper.dialect.pagination.PagingRequestContext;
+import com.jn.sqlhelper.dialect.pagination.PagingRequestContextHolder;
+import com.jn.sqlhelper.dialect.pagination.ShardedPaginations;
 
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * MyBatis 会为每一个 Mapper 接口创建一个代理对象。
@@ -50,6 +64,11 @@ public class DynamicMapper<MAPPER> implements InvocationHandler {
     private DataSourceKeySelector selector;
     @Nullable
     private DataSourceKeyFilter dataSourceKeyFilter;
+    /**
+     * 用于 scatter-gather 查询，在第一次使用时创建
+     */
+    @Nullable
+    private volatile AsyncPagingExecutor scatterExecutor;
 
     public DynamicMapper(Class<MAPPER> mapperInterface, Map<DataSourceKey, MAPPER> delegateMapperMap, DataSourceKeySelector selector) {
         this.mapperInterface = mapperInterface;
@@ -60,6 +79,10 @@ public class DynamicMapper<MAPPER> implements InvocationHandler {
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
         MethodInvocation methodInvocation = new GenericMethodInvocation(proxy, proxy, method, args);
+        List<DataSourceKey> shardKeys = findShardKeys(methodInvocation);
+        if (shardKeys.size() > 1) {
+            return scatterGather(shardKeys, method, args);
+        }
         Object mapper = getMapperDelegate(methodInvocation);
         try {
             return method.invoke(mapper, args);
@@ -93,6 +116,99 @@ public class DynamicMapper<MAPPER> implements InvocationHandler {
         return delegateMapperMap.get(key);
     }
 
+    /**
+     * 方法上标注了 {@link ScatterGather}，指定的 key 的 name 中含有通配符（例如 shard-*），并且返回值为 List 时，
+     * 匹配到的所有数据源都需要查询
+     */
+    private List<DataSourceKey> findShardKeys(MethodInvocation methodInvocation) {
+        Method method = methodInvocation.getJoinPoint();
+        if (!method.isAnnotationPresent(ScatterGather.class) || !List.class.isAssignableFrom(method.getReturnType())) {
+            return Collects.emptyArrayList();
+        }
+        DataSourceKey key = selector.getDataSourceKeyRegistry().get(method);
+        if (key == null || key.getName() == null || !key.getName().contains(DataSources.DATASOURCE_NAME_WILDCARD)) {
+            return Collects.emptyArrayList();
+        }
+        return Pipeline.of(selector.getDataSourceRegistry().findKeys(key)).filter(new Predicate<DataSourceKey>() {
+            @Override
+            public boolean test(DataSourceKey shardKey) {
+                return delegateMapperMap.containsKey(shardKey);
+            }
+        }).asList();
+    }
+
+    /**
+     * 在所有匹配到的数据源上并行执行，如果当前线程上有分页请求，每个数据源上查询前 (offset + pageSize) 条，
+     * 然后按照 order by 进行合并，count 累加
+     */
+    private Object scatterGather(List<DataSourceKey> shardKeys, final Method method, final Object[] args) throws Throwable {
+        PagingRequestContextHolder pagingContext = PagingRequestContextHolder.getContext();
+        PagingRequestContext outerContext = pagingContext.get();
+        final PagingRequest request = outerContext == null ? null : outerContext.getRequest();
+        List<PagingRequest> shardRequests = Collects.emptyArrayList();
+        List<Future<Object>> futures = Collects.emptyArrayList();
+        AsyncPagingExecutor executor = getScatterExecutor();
+        for (final DataSourceKey shardKey : shardKeys) {
+            final PagingRequest shardRequest = request == null ? null : ShardedPaginations.newShardRequest(request);
+            if (shardRequest != null) {
+                shardRequests.add(shardRequest);
+            }
+            futures.add(executor.submit(shardRequest, new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    DataSourceKeySelector.addChoice(shardKey);
+                    DataSourceKeySelector.setCurrent(shardKey);
+                    try {
+                        return method.invoke(delegateMapperMap.get(shardKey), args);
+                    } finally {
+                        DataSourceKeySelector.removeChoice();
+                    }
+                }
+            }));
+        }
+
+        List rows = Collects.emptyArrayList();
+        try {
+            for (Future<Object> future : futures) {
+                Object shardRows = future.get();
+                if (shardRows != null) {
+                    rows.addAll((List) shardRows);
+                }
+            }
+            if (request == null) {
+                return rows;
+            }
+            return ShardedPaginations.merge(request, shardRequests).getItems();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof InvocationTargetException) {
+                cause = ((InvocationTargetException) cause).getTargetException();
+            }
+            throw cause;
+        } finally {
+            if (outerContext != null) {
+                // 和单数据源查询一样结束调用方的分页请求：scope 中的请求保留，一次性的请求被清除
+                pagingContext.set(outerContext);
+                pagingContext.finishPagingRequest(false);
+            }
+        }
+    }
+
+    private AsyncPagingExecutor getScatterExecutor() {
+        if (scatterExecutor == null) {
+            synchronized (this) {
+                if (scatterExecutor == null) {
+                    scatterExecutor = new AsyncPagingExecutor(AsyncPagingExecutor.newDefaultExecutor(), delegateMapperMap.size());
+                }
+            }
+        }
+        return scatterExecutor;
+    }
+
+    public void setScatterExecutor(AsyncPagingExecutor scatterExecutor) {
+        this.scatterExecutor = scatterExecutor;
+    }
+
     public DataSourceKeySelector getSelector() {
         return selector;
     }
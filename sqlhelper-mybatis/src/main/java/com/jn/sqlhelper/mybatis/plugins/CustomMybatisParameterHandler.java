@@ -92,6 +92,14 @@ public class CustomMybatisParameterHandler implements ParameterHandler, PagedPre
                 || this.isPagingCountStatement()
                 || NestedStatements.isNestedStatement(mappedStatement)) {
             this.setParameters(ps, this.boundSql.getParameterMappings(), 1, getEscapeLikeParametersIndexes());
+            if (isInPagingRequestScope() && this.isPagingCountStatement()) {
+                // the count statement is also limited by the deadline of the paging request
+                try {
+                    SqlHelperMybatisPlugin.getInstrumentor().applyDeadline(PAGING_CONTEXT.getPagingRequest(), ps);
+                } catch (SQLException ex) {
+                    logger.error("errorCode:{},message:{}", ex.getErrorCode(), ex.getMessage(), ex);
+                }
+            }
             return;
         }
         // a pagination request
@@ -116,7 +116,7 @@ public class SqlHelperMybatisPlugin implements Interceptor, Initializable {
                 requestContext.remove(MybatisSqlRequestContextKeys.SQLHELPER_HANDLED);
             }
             if (!NestedStatements.isNestedStatement(executorInvocation.getMappedStatement())) {
-                SqlRequestContextHolder.getInstance().clear();
+                SqlRequestContextHolder.getInstance().finishRequest();
             }
         }
     }
@@ -19,16 +19,14 @@ import com.jn.langx.annotation.Nullable;
 import com.jn.langx.pipeline.AbstractHandler;
 import com.jn.langx.pipeline.HandlerContext;
 import com.jn.langx.pipeline.Pipelines;
-import com.jn.langx.util.Emptys;
 import com.jn.langx.util.Objects;
 import com.jn.langx.util.Strings;
-import com.jn.langx.util.struct.Pair;
 import com.jn.sqlhelper.common.formatter.SqlDmlFormatter;
 import com.jn.sqlhelper.dialect.*;
 import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
 import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
 import com.jn.sqlhelper.dialect.likeescaper.LikeEscaper;
-import com.jn.sqlhelper.dialect.likeescaper.LikeEscapers;
+import com.jn.sqlhelper.dialect.likeescaper.LikeEscapeSlots;
 import com.jn.sqlhelper.mybatis.MybatisUtils;
 import com.jn.sqlhelper.mybatis.plugins.ExecutorInvocation;
 import com.jn.sqlhelper.mybatis.plugins.MybatisSqlRequestContextKeys;
@@ -92,14 +90,16 @@ public class LikeParameterEscapeHandler extends AbstractHandler {
         sqlContext.getRequest().setLikeEscaper(likeEscaper);
         BoundSql boundSql = executorInvocation.getBoundSql();
         String sql = boundSql.getSql();
-        Pair<List<Integer>, List<Integer>> pair = LikeEscapers.findEscapedSlots(sql);
-        if (Emptys.isEmpty(pair.getKey()) && Emptys.isEmpty(pair.getValue())) {
+        SQLStatementInstrumentor instrumentor = SqlHelperMybatisPlugin.getInstrumentor();
+        LikeEscapeSlots slots = instrumentor.findLikeEscapeSlots(sql);
+        if (slots.isEmpty()) {
             Pipelines.skipHandler(ctx, true);
             return;
         }
 
-        String newSql = LikeEscapers.insertLikeEscapeDeclares(sql, pair.getValue(), likeEscaper);
-        sqlContext.getRequest().setLikeParameterIndexes(pair.getKey());
+        String newSql = instrumentor.instrumentLikeEscapeSql(sql, slots, likeEscaper);
+        List<Integer> likeParameterIndexes = slots.getParameterIndexes();
+        sqlContext.getRequest().setLikeParameterIndexes(likeParameterIndexes);
         if (logger.isDebugEnabled()) {
             SqlDmlFormatter sqlDmlFormatter = new SqlDmlFormatter();
             logger.debug("\n---------------original sql---------------\n{} \n\n---------------after like escapse: ---------------\n{}", sqlDmlFormatter.format(sql), sqlDmlFormatter.format(newSql));
@@ -107,7 +107,7 @@ public class LikeParameterEscapeHandler extends AbstractHandler {
         // rebuild a BoundSql
         boundSql = MybatisUtils.rebuildBoundSql(newSql, mappedStatement.getConfiguration(), boundSql);
         executorInvocation.setBoundSql(boundSql);
-        sqlContext.set(MybatisSqlRequestContextKeys.LIKE_ESCAPE_PARAMETERS_INDEXES, pair.getKey());
+        sqlContext.set(MybatisSqlRequestContextKeys.LIKE_ESCAPE_PARAMETERS_INDEXES, likeParameterIndexes);
         sqlContext.set(MybatisSqlRequestContextKeys.LIKE_ESCAPER, likeEscaper);
         Pipelines.inbound(ctx);
     }
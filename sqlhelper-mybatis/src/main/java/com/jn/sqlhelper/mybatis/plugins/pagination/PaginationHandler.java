@@ -246,11 +246,8 @@ public class PaginationHandler extends AbstractHandler implements Initializable
 
 
     private void invalidatePagingRequest(boolean force) {
-        PagingRequest request = PAGING_CONTEXT.getPagingRequest();
-        if (request != null) {
-            request.clear(force);
-        }
-        PAGING_CONTEXT.remove();
+        // a request bound by a scope is kept until the scope ends
+        PAGING_CONTEXT.finishPagingRequest(force);
     }
 
     private boolean isPagingRequest(final MappedStatement statement) {
@@ -291,6 +288,9 @@ public class PaginationHandler extends AbstractHandler implements Initializable
 
         boolean subQueryPagination = false;
         SQLStatementInstrumentor instrumentor = SqlHelperMybatisPlugin.getInstrumentor();
+        if (ms.getFetchSize() == null) {
+            instrumentor.adviseFetchSize(instrumentor.getCurrentDialect(), ms.getId(), rowSelection);
+        }
         if (SqlPaginations.isSubqueryPagingRequest(request)) {
             if (!SqlPaginations.isValidSubQueryPagination(request, instrumentor)) {
                 logger.warn("Paging request is not a valid subquery pagination request, so the paging request will not as a subquery pagination request. request: {}, the instrument configuration is: {}", request, instrumentor.getConfig());
@@ -320,8 +320,8 @@ public class PaginationHandler extends AbstractHandler implements Initializable
             }
 
             PagingRequestContext ctx = PAGING_CONTEXT.get();
-            ctx.setInteger(PagingRequestContext.BEFORE_SUBQUERY_PARAMETERS_COUNT, SqlPaginations.findPlaceholderParameterCount(beforeSubqueryPartition));
-            ctx.setInteger(PagingRequestContext.AFTER_SUBQUERY_PARAMETERS_COUNT, SqlPaginations.findPlaceholderParameterCount(afterSubqueryPartition));
+            ctx.setInteger(PagingRequestContext.BEFORE_SUBQUERY_PARAMETERS_COUNT, SqlPaginations.findPlaceholderParameterCount(beforeSubqueryPartition, instrumentor.getCurrentDialect()));
+            ctx.setInteger(PagingRequestContext.AFTER_SUBQUERY_PARAMETERS_COUNT, SqlPaginations.findPlaceholderParameterCount(afterSubqueryPartition, instrumentor.getCurrentDialect()));
         }
         if (logger.isDebugEnabled()) {
             logger.debug("\n-------------after pagination ---------------:\n{}", pageSql);
@@ -330,7 +330,11 @@ public class PaginationHandler extends AbstractHandler implements Initializable
         final BoundSql pageBoundSql = MybatisUtils.rebuildBoundSql(pageSql, ms.getConfiguration(), boundSql);
         cacheKey.update(request.getPageNo());
         cacheKey.update(request.getPageSize());
-        return executor.query(ms, parameter, RowBounds.DEFAULT, resultHandler, cacheKey, pageBoundSql);
+        List rows = executor.query(ms, parameter, RowBounds.DEFAULT, resultHandler, cacheKey, pageBoundSql);
+        if (rows != null) {
+            instrumentor.recordFetch(instrumentor.getCurrentDialect(), ms.getId(), rowSelection, rows.size(), 0);
+        }
+        return rows;
     }
 
     private String getOrderById(final MappedStatement ms, final OrderBy orderBy) {
@@ -427,6 +431,9 @@ public class PaginationHandler extends AbstractHandler implements Initializable
     }
 
     private boolean needCount(final PagingRequest request) {
+        if (SqlPaginations.isCountSkippedByDeadline(request)) {
+            return false;
+        }
         if (request.needCount() == null) {
             return paginationConfig.isCount();
         }
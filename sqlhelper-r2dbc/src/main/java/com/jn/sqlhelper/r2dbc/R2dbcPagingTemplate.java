@@ -0,0 +1,384 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.r2dbc;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.Strings;
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.common.utils.SQLs;
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import com.jn.sqlhelper.dialect.SQLDialectException;
+import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
+import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorProvider;
+import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import com.jn.sqlhelper.dialect.internal.limit.InlineLimitSqlRenderer;
+import com.jn.sqlhelper.dialect.internal.limit.LimitHelper;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import com.jn.sqlhelper.dialect.pagination.PagingRequestBasedRowSelectionBuilder;
+import com.jn.sqlhelper.dialect.pagination.PagingResult;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import com.jn.sqlhelper.dialect.tenant.Tenant;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.function.Tuple2;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The R2DBC counterpart of the sqlhelper JdbcTemplate.
+ * <p>
+ * The paging request is read from the Reactor context (see {@link ReactivePagingContexts}), the count query and
+ * the page query are executed on their own connections, so they run concurrently unless the page number must be
+ * corrected by the count result (useLastPageIfPageOut).
+ * <p>
+ * The subquery pagination is not supported yet, a subquery paging request is processed as a normal paging request.
+ */
+public class R2dbcPagingTemplate {
+    private static final Logger logger = LoggerFactory.getLogger(R2dbcPagingTemplate.class);
+    private final ConnectionFactory connectionFactory;
+    private PagingRequestBasedRowSelectionBuilder rowSelectionBuilder = new PagingRequestBasedRowSelectionBuilder();
+    private R2dbcPaginationProperties paginationConfig = new R2dbcPaginationProperties();
+    private SQLInstrumentorConfig instrumentConfig;
+    /**
+     * the dialect of the connection factory, it is resolved when the first paging request arrived
+     */
+    private volatile Dialect dialect;
+
+    public R2dbcPagingTemplate(@NonNull ConnectionFactory connectionFactory) {
+        Preconditions.checkNotNull(connectionFactory, "the connection factory is null");
+        this.connectionFactory = connectionFactory;
+    }
+
+    public void setPaginationConfig(R2dbcPaginationProperties paginationConfig) {
+        this.paginationConfig = paginationConfig;
+    }
+
+    public void setInstrumentConfig(SQLInstrumentorConfig instrumentConfig) {
+        if (instrumentConfig == null) {
+            instrumentConfig = SQLInstrumentorConfig.DEFAULT;
+        }
+        this.instrumentConfig = instrumentConfig;
+    }
+
+    public ConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    /**
+     * Streams the rows. If there is a paging request in the Reactor context, only the rows of the requested page
+     * are emitted and the count query is not executed.
+     */
+    public <E> Flux<E> query(@NonNull final String sql, @NonNull final BiFunction<Row, RowMetadata, E> rowMapper, final Object... parameters) {
+        return Mono.subscriberContext().flatMapMany(new Function<Context, Publisher<E>>() {
+            @Override
+            public Publisher<E> apply(Context context) {
+                PagingRequest request = ReactivePagingContexts.getPagingRequest(context);
+                String sql0 = instrumentTenantSql(sql, ReactivePagingContexts.getTenant(context));
+                if (request == null || !SQLs.isSelectStatement(sql)) {
+                    return execute(sql0, rowMapper, parameters);
+                }
+                if (request.isEmptyRequest()) {
+                    return Flux.empty();
+                }
+                if (request.isGetAllRequest()) {
+                    return execute(instrumentOrderBySql(sql0, request), rowMapper, parameters);
+                }
+                return queryPage(sql0, request, buildRowSelection(request, request.getPageNo()), rowMapper, parameters);
+            }
+        });
+    }
+
+    /**
+     * Executes the paging request in the Reactor context.
+     */
+    public <E> Mono<PagingResult<E>> queryForPage(@NonNull final String sql, @NonNull final BiFunction<Row, RowMetadata, E> rowMapper, final Object... parameters) {
+        return Mono.subscriberContext().flatMap(new Function<Context, Mono<PagingResult<E>>>() {
+            @Override
+            public Mono<PagingResult<E>> apply(Context context) {
+                PagingRequest request = ReactivePagingContexts.getPagingRequest(context);
+                if (request == null) {
+                    return Mono.error(new IllegalStateException("Can't find a paging request in the reactor context"));
+                }
+                return queryForPage(instrumentTenantSql(sql, ReactivePagingContexts.getTenant(context)), request, rowMapper, parameters);
+            }
+        });
+    }
+
+    public <E> Mono<PagingResult<E>> queryForPage(@NonNull final String sql, @NonNull final PagingRequest request, @NonNull final BiFunction<Row, RowMetadata, E> rowMapper, final Object... parameters) {
+        Preconditions.checkNotNull(request, "the paging request is null");
+        final PagingResult<E> result = new PagingResult<E>();
+        request.setResult(result);
+        result.setPageNo(request.getPageNo());
+        result.setPageSize(request.getPageSize());
+        result.setItems(Collects.<E>emptyArrayList());
+
+        if (request.isEmptyRequest()) {
+            result.setTotal(0);
+            return Mono.just(result);
+        }
+        if (request.isGetAllRequest()) {
+            return execute(instrumentOrderBySql(sql, request), rowMapper, parameters).collectList().map(new Function<List<E>, PagingResult<E>>() {
+                @Override
+                public PagingResult<E> apply(List<E> items) {
+                    result.setItems(items);
+                    result.setTotal(items.size());
+                    return result;
+                }
+            });
+        }
+
+        if (!needCountInPagingRequest(request)) {
+            result.setTotal(-1);
+            return queryPage(sql, request, buildRowSelection(request, request.getPageNo()), rowMapper, parameters).collectList().map(new Function<List<E>, PagingResult<E>>() {
+                @Override
+                public PagingResult<E> apply(List<E> items) {
+                    result.setItems(items);
+                    return result;
+                }
+            });
+        }
+
+        final Mono<Long> count = count(sql, request, parameters);
+        if (isUseLastPageIfPageOut(request)) {
+            // the page number depends on the count, so the page query must wait for it
+            return count.flatMap(new Function<Long, Mono<PagingResult<E>>>() {
+                @Override
+                public Mono<PagingResult<E>> apply(Long total) {
+                    result.setTotal(total);
+                    if (total <= 0) {
+                        return Mono.just(result);
+                    }
+                    int pageNo = request.getPageNo();
+                    int maxPageCount = result.getMaxPage();
+                    if (maxPageCount >= 0 && pageNo > maxPageCount) {
+                        pageNo = maxPageCount;
+                        result.setPageNo(pageNo);
+                    }
+                    return queryPage(sql, request, buildRowSelection(request, pageNo), rowMapper, parameters).collectList().map(new Function<List<E>, PagingResult<E>>() {
+                        @Override
+                        public PagingResult<E> apply(List<E> items) {
+                            result.setItems(items);
+                            return result;
+                        }
+                    });
+                }
+            });
+        }
+
+        Mono<List<E>> page = queryPage(sql, request, buildRowSelection(request, request.getPageNo()), rowMapper, parameters).collectList();
+        return Mono.zip(count, page).map(new Function<Tuple2<Long, List<E>>, PagingResult<E>>() {
+            @Override
+            public PagingResult<E> apply(Tuple2<Long, List<E>> tuple) {
+                long total = tuple.getT1();
+                result.setTotal(total);
+                int maxPageCount = result.getMaxPage();
+                if (total > 0 && (maxPageCount < 0 || request.getPageNo() <= maxPageCount)) {
+                    result.setItems(tuple.getT2());
+                }
+                return result;
+            }
+        });
+    }
+
+    private Mono<Long> count(final String sql, final PagingRequest request, final Object... parameters) {
+        final String countSql = getInstrumentor().countSql(sql, request.getCountColumn());
+        return execute(countSql, new BiFunction<Row, RowMetadata, Long>() {
+            @Override
+            public Long apply(Row row, RowMetadata rowMetadata) {
+                Object value = row.get(0);
+                return value == null ? 0L : ((Number) value).longValue();
+            }
+        }, parameters).next().defaultIfEmpty(0L);
+    }
+
+    private <E> Flux<E> queryPage(final String sql, final PagingRequest request, final RowSelection rowSelection, final BiFunction<Row, RowMetadata, E> rowMapper, final Object... parameters) {
+        return resolveDialect(request).flatMapMany(new Function<Dialect, Publisher<E>>() {
+            @Override
+            public Publisher<E> apply(Dialect dialect) {
+                SQLStatementInstrumentor instrumentor = getInstrumentor();
+                if (!LimitHelper.useLimit(dialect, rowSelection)) {
+                    // the database can't limit the rows, so skip them at the client side
+                    Flux<E> rows = execute(instrumentOrderBySql(sql, request), rowMapper, parameters);
+                    return rows.skip(LimitHelper.getFirstRow(rowSelection)).take(rowSelection.getLimit());
+                }
+                String paginationSql;
+                if (isOrderByRequest(request)) {
+                    paginationSql = instrumentor.instrumentOrderByLimitSql(sql, request.getOrderBy(), dialect, rowSelection);
+                } else {
+                    paginationSql = instrumentor.instrumentLimitSql(dialect, sql, rowSelection);
+                }
+                try {
+                    // a dialect without variable limit renders the literals itself, else they are inlined here
+                    paginationSql = InlineLimitSqlRenderer.render(dialect, paginationSql, rowSelection);
+                } catch (Throwable ex) {
+                    return Flux.error(new SQLDialectException(ex.getMessage(), ex));
+                }
+                return execute(paginationSql, rowMapper, parameters);
+            }
+        });
+    }
+
+    /**
+     * Executes the sql on a new connection, the connection is closed when the rows are consumed or the subscription
+     * is cancelled. The rows are emitted with back-pressure.
+     */
+    public <E> Flux<E> execute(final String sql, final BiFunction<Row, RowMetadata, E> rowMapper, final Object... parameters) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Executing R2DBC query: {}", sql);
+        }
+        return Flux.usingWhen(Mono.<Connection>from(connectionFactory.create()), new Function<Connection, Publisher<E>>() {
+            @Override
+            public Publisher<E> apply(Connection connection) {
+                Statement statement = connection.createStatement(sql);
+                bindParameters(statement, parameters);
+                return Flux.<Result>from(statement.execute()).concatMap(new Function<Result, Publisher<E>>() {
+                    @Override
+                    public Publisher<E> apply(Result result) {
+                        return result.map(rowMapper);
+                    }
+                });
+            }
+        }, new Function<Connection, Publisher<Void>>() {
+            @Override
+            public Publisher<Void> apply(Connection connection) {
+                return connection.close();
+            }
+        });
+    }
+
+    private void bindParameters(Statement statement, Object... parameters) {
+        if (parameters == null) {
+            return;
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            Object parameter = parameters[i];
+            if (parameter == null) {
+                statement.bindNull(i, Object.class);
+            } else {
+                statement.bind(i, parameter);
+            }
+        }
+    }
+
+    private Mono<Dialect> resolveDialect(final PagingRequest request) {
+        final DialectRegistry registry = DialectRegistry.getInstance();
+        Dialect d = null;
+        if (Strings.isNotBlank(request.getDialect())) {
+            d = registry.getDialectByName(request.getDialect());
+        }
+        SQLInstrumentorConfig config = getInstrumentor().getConfig();
+        if (d == null && config.getDialect() != null) {
+            d = registry.getDialectByName(config.getDialect());
+        }
+        if (d == null && config.getDialectClassName() != null) {
+            d = registry.getDialectByClassName(config.getDialectClassName());
+        }
+        if (d == null) {
+            d = this.dialect;
+        }
+        if (d != null) {
+            return Mono.just(d);
+        }
+        return Mono.usingWhen(Mono.<Connection>from(connectionFactory.create()), new Function<Connection, Mono<Dialect>>() {
+            @Override
+            public Mono<Dialect> apply(Connection connection) {
+                String productName = connection.getMetadata().getDatabaseProductName();
+                Dialect found = findDialect(registry, productName);
+                if (found == null) {
+                    return Mono.error(new SQLDialectException("Can't find a dialect for the database: " + productName));
+                }
+                dialect = found;
+                return Mono.just(found);
+            }
+        }, new Function<Connection, Publisher<Void>>() {
+            @Override
+            public Publisher<Void> apply(Connection connection) {
+                return connection.close();
+            }
+        });
+    }
+
+    @Nullable
+    private static Dialect findDialect(DialectRegistry registry, String productName) {
+        if (Strings.isBlank(productName)) {
+            return null;
+        }
+        Dialect d = null;
+        String databaseId = DialectRegistry.guessDatabaseId(productName);
+        if (databaseId != null) {
+            d = registry.getDialectByName(databaseId);
+        }
+        if (d == null) {
+            d = registry.getDialectByName(productName.toLowerCase());
+        }
+        return d;
+    }
+
+    private RowSelection buildRowSelection(PagingRequest request, int pageNo) {
+        return rowSelectionBuilder.build(request, pageNo);
+    }
+
+    private String instrumentOrderBySql(String sql, PagingRequest request) {
+        if (isOrderByRequest(request)) {
+            return getInstrumentor().instrumentOrderBySql(sql, request.getOrderBy());
+        }
+        return sql;
+    }
+
+    private String instrumentTenantSql(String sql, @Nullable Tenant tenant) {
+        if (tenant == null) {
+            return sql;
+        }
+        return getInstrumentor().instrumentTenantSql(sql, tenant);
+    }
+
+    private SQLStatementInstrumentor getInstrumentor() {
+        return SQLInstrumentorProvider.getInstance().get(instrumentConfig);
+    }
+
+    private static boolean isOrderByRequest(PagingRequest request) {
+        return request.needOrderBy() && !request.getOrderByAsString().contains("?");
+    }
+
+    private boolean needCountInPagingRequest(PagingRequest request) {
+        if (request.needCount() == null) {
+            return paginationConfig.isCount();
+        }
+        return Boolean.TRUE.equals(request.needCount());
+    }
+
+    private boolean isUseLastPageIfPageOut(@NonNull PagingRequest request) {
+        if (request.isUseLastPageIfPageOut() == null) {
+            return paginationConfig.isUseLastPageIfPageOut();
+        }
+        return request.isUseLastPageIfPageOut();
+    }
+}
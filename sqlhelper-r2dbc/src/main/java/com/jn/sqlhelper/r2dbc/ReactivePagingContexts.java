@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.r2dbc;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.util.Preconditions;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import com.jn.sqlhelper.dialect.tenant.Tenant;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.function.Function;
+
+/**
+ * The reactive replacement of {@link com.jn.sqlhelper.dialect.pagination.PagingRequestContextHolder}.
+ * <p>
+ * A reactive pipeline may run on any thread, so the paging request is carried by the Reactor {@link Context}
+ * instead of a ThreadLocal:
+ * <pre>
+ *     template.query(sql, mapper, args)
+ *             .subscriberContext(ReactivePagingContexts.withPagingRequest(new PagingRequest().limit(1, 10)));
+ * </pre>
+ */
+public class ReactivePagingContexts {
+    public static final String PAGING_REQUEST_KEY = ReactivePagingContexts.class.getName() + ".PAGING_REQUEST";
+    public static final String TENANT_KEY = ReactivePagingContexts.class.getName() + ".TENANT";
+
+    private ReactivePagingContexts() {
+    }
+
+    public static Function<Context, Context> withPagingRequest(@NonNull final PagingRequest request) {
+        Preconditions.checkNotNull(request, "the paging request is null");
+        return new Function<Context, Context>() {
+            @Override
+            public Context apply(Context context) {
+                return context.put(PAGING_REQUEST_KEY, request);
+            }
+        };
+    }
+
+    public static Function<Context, Context> withTenant(@NonNull final Tenant tenant) {
+        Preconditions.checkNotNull(tenant, "the tenant is null");
+        return new Function<Context, Context>() {
+            @Override
+            public Context apply(Context context) {
+                return context.put(TENANT_KEY, tenant);
+            }
+        };
+    }
+
+    @Nullable
+    public static PagingRequest getPagingRequest(@NonNull Context context) {
+        return context.getOrDefault(PAGING_REQUEST_KEY, null);
+    }
+
+    @Nullable
+    public static Tenant getTenant(@NonNull Context context) {
+        return context.getOrDefault(TENANT_KEY, null);
+    }
+
+    /**
+     * @return the paging request of the current subscriber, empty if the subscriber is not a paging request
+     */
+    public static Mono<PagingRequest> currentPagingRequest() {
+        return Mono.subscriberContext().flatMap(new Function<Context, Mono<PagingRequest>>() {
+            @Override
+            public Mono<PagingRequest> apply(Context context) {
+                return Mono.justOrEmpty(getPagingRequest(context));
+            }
+        });
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.r2dbc.tests;
+
+import com.jn.sqlhelper.dialect.orderby.SqlStyleOrderByBuilder;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import com.jn.sqlhelper.dialect.pagination.PagingResult;
+import com.jn.sqlhelper.r2dbc.R2dbcPagingTemplate;
+import com.jn.sqlhelper.r2dbc.ReactivePagingContexts;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+public class R2dbcPagingTemplateTests {
+    private static final BiFunction<Row, RowMetadata, String> NAME_MAPPER = new BiFunction<Row, RowMetadata, String>() {
+        @Override
+        public String apply(Row row, RowMetadata rowMetadata) {
+            return row.get("name", String.class);
+        }
+    };
+
+    private static R2dbcPagingTemplate template;
+
+    @BeforeClass
+    public static void init() {
+        template = new R2dbcPagingTemplate(H2ConnectionFactory.inMemory("sqlhelper_r2dbc_tests"));
+        template.execute("create table person (id int primary key, name varchar(32), age int)", NAME_MAPPER).blockLast();
+        Flux.range(1, 25).concatMap(new Function<Integer, Publisher<String>>() {
+            @Override
+            public Publisher<String> apply(Integer i) {
+                return template.execute("insert into person (id, name, age) values ($1, $2, $3)", NAME_MAPPER, i, "name_" + i, 20 + i % 5);
+            }
+        }).blockLast();
+    }
+
+    @Test
+    public void testQueryForPage() {
+        PagingRequest request = new PagingRequest().limit(2, 10);
+        request.setOrderBy(SqlStyleOrderByBuilder.DEFAULT.build("id desc"));
+        PagingResult<String> result = template.queryForPage("select * from person where age > 0", NAME_MAPPER)
+                .subscriberContext(ReactivePagingContexts.withPagingRequest(request))
+                .block();
+        Assert.assertEquals(25, result.getTotal());
+        Assert.assertEquals(2, result.getPageNo());
+        Assert.assertEquals(names(15, 6), result.getItems());
+    }
+
+    @Test
+    public void testUseLastPageIfPageOut() {
+        PagingRequest request = new PagingRequest().limit(10, 10).setUseLastPageIfPageOut(true);
+        PagingResult<String> result = template.queryForPage("select * from person", request, NAME_MAPPER).block();
+        Assert.assertEquals(3, result.getPageNo());
+        Assert.assertEquals(5, result.getItems().size());
+        // the corrected page number is only written to the result
+        Assert.assertEquals(10, request.getPageNo());
+    }
+
+    @Test
+    public void testQuestionMarkInLiteral() {
+        PagingRequest request = new PagingRequest().limit(2, 10);
+        PagingResult<String> result = template.queryForPage("select * from person where name <> '?' /* ? */ order by id", request, NAME_MAPPER).block();
+        Assert.assertEquals(25, result.getTotal());
+        Assert.assertEquals(names(11, 20), result.getItems());
+    }
+
+    @Test
+    public void testStreamPage() {
+        List<String> names = template.query("select * from person where age > $1 order by id", NAME_MAPPER, 0)
+                .subscriberContext(ReactivePagingContexts.withPagingRequest(new PagingRequest().limit(3, 5)))
+                .collectList()
+                .block();
+        Assert.assertEquals(names(11, 15), names);
+    }
+
+    /**
+     * @return name_from ... name_to, in the descending order if from is greater than to
+     */
+    private static List<String> names(int from, int to) {
+        List<String> names = new ArrayList<String>();
+        int step = from <= to ? 1 : -1;
+        for (int i = from; i != to + step; i += step) {
+            names.add("name_" + i);
+        }
+        return names;
+    }
+}
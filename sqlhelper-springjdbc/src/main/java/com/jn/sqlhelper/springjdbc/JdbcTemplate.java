@@ -30,8 +30,11 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
     private static final Logger LOGGER = LoggerFactory.getLogger(JdbcTemplate.class);
@@ -40,6 +43,7 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
 
     private JdbcTemplatePaginationProperties paginationConfig = new JdbcTemplatePaginationProperties();
     private SQLInstrumentorConfig instrumentConfig;
+    private volatile AsyncPagingExecutor asyncExecutor;
 
     public JdbcTemplate() {
         super();
@@ -78,6 +82,41 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
         this.instrumentConfig = instrumentConfig;
     }
 
+    public void setAsyncExecutor(AsyncPagingExecutor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * the executor is created lazily if it is not set, its concurrency is limited to the pool size of the datasource
+     */
+    public AsyncPagingExecutor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            synchronized (this) {
+                if (asyncExecutor == null) {
+                    asyncExecutor = new AsyncPagingExecutor(AsyncPagingExecutor.newDefaultExecutor(), AsyncPagingExecutor.guessMaxConcurrency(getDataSource()));
+                }
+            }
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * Executes a paging query asynchronously, the paging request is bound to the worker thread,
+     * so it is not required to set it into the {@link PagingRequestContextHolder} of the caller thread.
+     *
+     * @return the future of the paging result
+     */
+    public <E> Future<PagingResult<E>> queryAsync(final String sql, final PagingRequest<?, E> request, final RowMapper<E> rowMapper, final Object... args) {
+        Preconditions.checkNotNull(request, "the paging request is null");
+        return getAsyncExecutor().submit(request, new Callable<PagingResult<E>>() {
+            @Override
+            public PagingResult<E> call() throws Exception {
+                query(sql, rowMapper, args);
+                return request.getResult();
+            }
+        });
+    }
+
     /**
      * supports for under 5.0
      *
@@ -144,7 +183,7 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                     boolean needQuery = true;
                     if (needCountInPagingRequest(request)) {
                         String countSql = instrumentor.countSql(sql, request.getCountColumn());
-                        int count = super.query(countSql, new SelectCountRSExtractor());
+                        int count = queryCount(new SimplePreparedStatementCreator(countSql), null);
                         if (count <= 0) {
                             needQuery = false;
                         }
@@ -167,6 +206,7 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                     if (needQuery) {
                         applyStatementSettingsInPaginationRequest(request);
                         RowSelection rowSelection = rowSelectionBuilder.build(request);
+                        instrumentor.adviseFetchSize(instrumentor.getCurrentDialect(), sql, rowSelection);
 
 
                         String paginationSql = sql;
@@ -215,6 +255,7 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                             resultSet = ps.executeQuery();
                             List rows = (List) rse.extractData(resultSet);
                             items.addAll(rows);
+                            instrumentor.recordFetch(instrumentor.getCurrentDialect(), sql, rowSelection, rows.size(), 0);
                         } finally {
                             JdbcUtils.closeResultSet(resultSet);
                         }
@@ -293,7 +334,7 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                     boolean needQuery = true;
                     if (needCountInPagingRequest(request)) {
                         String countSql = instrumentor.countSql(sql, request.getCountColumn());
-                        int count = super.query(new SimplePreparedStatementCreator(countSql), pss == null && (psc instanceof NamedParameterPreparedStatementCreator) ? (NamedParameterPreparedStatementCreator) psc : pss, new SelectCountRSExtractor());
+                        int count = queryCount(new SimplePreparedStatementCreator(countSql), pss == null && (psc instanceof NamedParameterPreparedStatementCreator) ? (NamedParameterPreparedStatementCreator) psc : pss);
                         if (count <= 0) {
                             needQuery = false;
                         }
@@ -316,6 +357,7 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                     if (needQuery) {
                         applyStatementSettingsInPaginationRequest(request);
                         RowSelection rowSelection = rowSelectionBuilder.build(request);
+                        instrumentor.adviseFetchSize(instrumentor.getCurrentDialect(), sql, rowSelection);
 
                         String paginationSql = sql;
                         boolean subqueryPagination = false;
@@ -351,8 +393,8 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                                 paginationSql = instrumentor.instrumentOrderBySql(paginationSql, PAGING_CONTEXT.getPagingRequest().getOrderBy());
                             }
 
-                            beforeSubqueryParametersCount = SqlPaginations.findPlaceholderParameterCount(beforeSubqueryPartition);
-                            afterSubqueryParametersCount = SqlPaginations.findPlaceholderParameterCount(afterSubqueryPartition);
+                            beforeSubqueryParametersCount = SqlPaginations.findPlaceholderParameterCount(beforeSubqueryPartition, instrumentor.getCurrentDialect());
+                            afterSubqueryParametersCount = SqlPaginations.findPlaceholderParameterCount(afterSubqueryPartition, instrumentor.getCurrentDialect());
                         }
 
                         if (psc instanceof NamedParameterPreparedStatementCreator) {
@@ -398,6 +440,7 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                             resultSet = ps.executeQuery();
                             List rows = (List) rse.extractData(resultSet);
                             items.addAll(rows);
+                            instrumentor.recordFetch(instrumentor.getCurrentDialect(), sql, rowSelection, rows.size(), 0);
                         } finally {
                             JdbcUtils.closeResultSet(resultSet);
                             if (pss instanceof ParameterDisposer) {
@@ -430,6 +473,32 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
         return (dae != null ? dae : new UncategorizedSQLException(task, sql, ex));
     }
 
+    /**
+     * the count statement of a paging request is also limited by the deadline of the request,
+     * the page statement gets it when its parameters are bound, the other statements are not touched
+     */
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        super.applyStatementSettings(stmt);
+        PagingRequestContext context = PAGING_CONTEXT.get();
+        if (context != null && Boolean.TRUE.equals(context.get(PagingRequestContext.COUNT_STATEMENT))) {
+            PagingRequest request = context.getRequest();
+            if (request != null && request.hasDeadline()) {
+                SQLInstrumentorProvider.getInstance().get(instrumentConfig).applyDeadline(request, stmt);
+            }
+        }
+    }
+
+    private int queryCount(PreparedStatementCreator psc, PreparedStatementSetter pss) {
+        PagingRequestContext context = PAGING_CONTEXT.get();
+        context.set(PagingRequestContext.COUNT_STATEMENT, Boolean.TRUE);
+        try {
+            return super.query(psc, pss, new SelectCountRSExtractor());
+        } finally {
+            context.remove(PagingRequestContext.COUNT_STATEMENT);
+        }
+    }
+
     private void applyStatementSettingsInPaginationRequest(PagingRequest pagingRequest) throws SQLException {
         int fetchSize = getFetchSize();
         if (fetchSize > -1) {
@@ -445,15 +514,15 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
     }
 
     private void invalidatePagingRequest(boolean force) {
-        PagingRequest request = PAGING_CONTEXT.getPagingRequest();
-        if (request != null) {
-            request.clear(force);
-        }
-        PAGING_CONTEXT.remove();
+        // a request bound by a scope is kept until the scope ends
+        PAGING_CONTEXT.finishPagingRequest(force);
     }
 
 
     private boolean needCountInPagingRequest(PagingRequest request) {
+        if (SqlPaginations.isCountSkippedByDeadline(request)) {
+            return false;
+        }
         if (request.needCount() == null) {
             return paginationConfig.isCount();
         }